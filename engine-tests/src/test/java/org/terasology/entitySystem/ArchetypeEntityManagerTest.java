@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.engine.bootstrap.EntitySystemBuilder;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.ComponentStorageType;
+import org.terasology.entitySystem.stubs.EntityRefComponent;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs the entity manager tests against archetype component storage, plus tests for moving entities between archetypes.
+ */
+public class ArchetypeEntityManagerTest extends PojoEntityManagerTest {
+
+    @Override
+    protected EntitySystemBuilder createBuilder() {
+        return new EntitySystemBuilder().setStorageType(ComponentStorageType.ARCHETYPE);
+    }
+
+    @Test
+    public void componentsKeptWhenComponentAdded() {
+        StringComponent stringComp = new StringComponent("Test");
+        EntityRef entity = entityManager.create(stringComp);
+        IntegerComponent intComp = new IntegerComponent();
+        entity.addComponent(intComp);
+
+        assertEquals(stringComp, entity.getComponent(StringComponent.class));
+        assertEquals(intComp, entity.getComponent(IntegerComponent.class));
+    }
+
+    @Test
+    public void componentsKeptWhenComponentRemoved() {
+        StringComponent stringComp = new StringComponent("Test");
+        EntityRef entity = entityManager.create(stringComp, new IntegerComponent());
+        entity.removeComponent(IntegerComponent.class);
+
+        assertEquals(stringComp, entity.getComponent(StringComponent.class));
+        assertNull(entity.getComponent(IntegerComponent.class));
+    }
+
+    @Test
+    public void componentsKeptWhenOtherEntityDestroyed() {
+        EntityRef entity1 = entityManager.create(new StringComponent("1"));
+        StringComponent comp2 = new StringComponent("2");
+        EntityRef entity2 = entityManager.create(comp2);
+        StringComponent comp3 = new StringComponent("3");
+        EntityRef entity3 = entityManager.create(comp3);
+
+        entity1.destroy();
+
+        assertEquals(comp2, entity2.getComponent(StringComponent.class));
+        assertEquals(comp3, entity3.getComponent(StringComponent.class));
+        assertEquals(2, entityManager.getCountOfEntitiesWith(StringComponent.class));
+    }
+
+    @Test
+    public void iterateEntitiesAcrossArchetypes() {
+        EntityRef entity1 = entityManager.create(new StringComponent(), new IntegerComponent());
+        EntityRef entity2 = entityManager.create(new StringComponent(), new IntegerComponent(), new EntityRefComponent());
+        entityManager.create(new StringComponent());
+        entityManager.create(new IntegerComponent(), new EntityRefComponent());
+
+        assertEquals(Sets.newHashSet(entity1, entity2),
+                Sets.newHashSet(entityManager.getEntitiesWith(StringComponent.class, IntegerComponent.class)));
+        assertEquals(2, entityManager.getCountOfEntitiesWith(StringComponent.class, IntegerComponent.class));
+        assertEquals(3, entityManager.getCountOfEntitiesWith(IntegerComponent.class));
+        assertEquals(4, entityManager.getCountOfEntitiesWith());
+    }
+
+    @Test
+    public void iterateEntitiesAfterComponentRemoved() {
+        EntityRef entity1 = entityManager.create(new StringComponent(), new IntegerComponent());
+        EntityRef entity2 = entityManager.create(new StringComponent(), new IntegerComponent());
+        entity1.removeComponent(IntegerComponent.class);
+
+        assertEquals(Lists.newArrayList(entity2), Lists.newArrayList(entityManager.getEntitiesWith(StringComponent.class, IntegerComponent.class)));
+        assertEquals(2, entityManager.getCountOfEntitiesWith(StringComponent.class));
+    }
+
+    @Test
+    public void removeComponentsWhileIteratingEntities() {
+        EntityRef entity1 = entityManager.create(new StringComponent(), new IntegerComponent());
+        EntityRef entity2 = entityManager.create(new StringComponent(), new IntegerComponent());
+        EntityRef entity3 = entityManager.create(new StringComponent(), new IntegerComponent());
+
+        List<EntityRef> visited = Lists.newArrayList();
+        for (EntityRef entity : entityManager.getEntitiesWith(StringComponent.class, IntegerComponent.class)) {
+            visited.add(entity);
+            entity.removeComponent(IntegerComponent.class);
+            entityManager.create(new StringComponent(), new IntegerComponent());
+        }
+
+        assertEquals(Sets.newHashSet(entity1, entity2, entity3), Sets.newHashSet(visited));
+        assertEquals(3, visited.size());
+        assertEquals(3, entityManager.getCountOfEntitiesWith(StringComponent.class, IntegerComponent.class));
+    }
+}
@@ -64,7 +64,7 @@
 public class PojoEntityManagerTest {
     private static ModuleManager moduleManager;
 
-    private PojoEntityManager entityManager;
+    protected PojoEntityManager entityManager;
     private Prefab prefab;
 
     @BeforeClass
@@ -82,7 +82,7 @@ public Prefab buildAsset(AssetUri uri, PrefabData data) {
 
     @Before
     public void setup() {
-        EntitySystemBuilder builder = new EntitySystemBuilder();
+        EntitySystemBuilder builder = createBuilder();
 
         entityManager = (PojoEntityManager) builder.build(moduleManager.getEnvironment(), mock(NetworkSystem.class), new ReflectionReflectFactory());
 
@@ -91,6 +91,10 @@ public void setup() {
         prefab = Assets.generateAsset(new AssetUri(AssetType.PREFAB, "unittest:myprefab"), protoPrefab, Prefab.class);
     }
 
+    protected EntitySystemBuilder createBuilder() {
+        return new EntitySystemBuilder();
+    }
+
     @Test
     public void createEntity() {
         EntityRef entity = entityManager.create();
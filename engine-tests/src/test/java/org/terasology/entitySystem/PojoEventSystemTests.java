@@ -194,6 +194,47 @@ public void testChildEventReceivedByUnfilteredHandler() {
         assertEquals(1, handler.unfilteredEvents.size());
     }
 
+    @Test
+    public void testHandlerRegisteredAfterSendReceivesEvents() {
+        entity.addComponent(new StringComponent());
+        eventSystem.send(entity, new TestEvent());
+
+        TestEventHandler handler = new TestEventHandler();
+        eventSystem.registerEventHandler(handler);
+        eventSystem.send(entity, new TestEvent());
+
+        assertEquals(1, handler.receivedList.size());
+    }
+
+    @Test
+    public void testEventReceivedAfterComponentAdded() {
+        TestCompoundComponentEventHandler handler = new TestCompoundComponentEventHandler();
+        eventSystem.registerEventHandler(handler);
+        entity.addComponent(new StringComponent());
+        eventSystem.send(entity, new TestEvent());
+
+        entity.addComponent(new IntegerComponent());
+        eventSystem.send(entity, new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+
+        entity.removeComponent(StringComponent.class);
+        eventSystem.send(entity, new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+    }
+
+    @Test
+    public void testComponentsPassedToHandler() {
+        StringComponent stringComponent = entity.addComponent(new StringComponent());
+        IntegerComponent intComponent = entity.addComponent(new IntegerComponent());
+
+        TestComponentParameterEventHandler handler = new TestComponentParameterEventHandler();
+        eventSystem.registerEventHandler(handler);
+        eventSystem.send(entity, new TestEvent());
+
+        assertEquals(stringComponent, handler.stringComponent);
+        assertEquals(intComponent, handler.intComponent);
+    }
+
     private static class TestEvent extends AbstractConsumableEvent {
 
     }
@@ -315,5 +356,15 @@ public Received(TestEvent event, EntityRef entity) {
         }
     }
 
+    public static class TestComponentParameterEventHandler extends BaseComponentSystem {
+
+        StringComponent stringComponent;
+        IntegerComponent intComponent;
 
+        @ReceiveEvent
+        public void handleEvent(TestEvent event, EntityRef entity, StringComponent string, IntegerComponent integer) {
+            this.stringComponent = string;
+            this.intComponent = integer;
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Test;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArchetypeComponentTableTest {
+
+    private ArchetypeComponentTable table = new ArchetypeComponentTable();
+
+    @Test
+    public void componentIteratorSetValueReplacesComponent() {
+        table.put(1, new StringComponent("a"));
+        table.put(2, new StringComponent("b"));
+        StringComponent replacement = new StringComponent("c");
+
+        TIntObjectIterator<StringComponent> iterator = table.componentIterator(StringComponent.class);
+        iterator.advance();
+        int id = iterator.key();
+        StringComponent old = iterator.value();
+        assertSame(old, iterator.setValue(replacement));
+
+        assertSame(replacement, table.get(id, StringComponent.class));
+    }
+
+    @Test
+    public void componentIteratorRemoveVisitsEveryEntity() {
+        for (int id = 1; id <= 5; ++id) {
+            table.put(id, new StringComponent("" + id));
+            table.put(id, new IntegerComponent(id));
+        }
+
+        TIntSet visited = new TIntHashSet();
+        TIntObjectIterator<StringComponent> iterator = table.componentIterator(StringComponent.class);
+        while (iterator.hasNext()) {
+            iterator.advance();
+            visited.add(iterator.key());
+            iterator.remove();
+        }
+
+        assertEquals(5, visited.size());
+        assertEquals(0, table.getComponentCount(StringComponent.class));
+        for (int id = 1; id <= 5; ++id) {
+            assertNull(table.get(id, StringComponent.class));
+            assertEquals(id, table.get(id, IntegerComponent.class).value);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void componentIteratorCannotRemoveTwice() {
+        table.put(1, new StringComponent("a"));
+        TIntObjectIterator<StringComponent> iterator = table.componentIterator(StringComponent.class);
+        iterator.advance();
+        iterator.remove();
+        iterator.remove();
+    }
+
+    @Test
+    public void entitiesWithIsUnaffectedByLaterChanges() {
+        for (int id = 1; id <= 4; ++id) {
+            table.put(id, new StringComponent("" + id));
+        }
+
+        EntityIdSnapshot snapshot = table.getEntitiesWith(StringComponent.class);
+        table.remove(1, StringComponent.class);
+        table.remove(2);
+        table.put(3, new IntegerComponent());
+        table.put(5, new StringComponent("5"));
+
+        TIntSet ids = new TIntHashSet();
+        TIntIterator iterator = snapshot.iterator();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next());
+        }
+        assertEquals(new TIntHashSet(new int[]{1, 2, 3, 4}), ids);
+    }
+
+    @Test
+    public void entitiesWithNoMatchIsEmpty() {
+        table.put(1, new StringComponent("a"));
+        assertFalse(table.getEntitiesWith(StringComponent.class).isEmpty());
+        assertTrue(table.getEntitiesWith(StringComponent.class, IntegerComponent.class).isEmpty());
+        assertFalse(table.getEntitiesWith(StringComponent.class, IntegerComponent.class).iterator().hasNext());
+        assertTrue(table.getEntitiesWith(IntegerComponent.class).isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PendingEventQueueTest {
+
+    private PendingEventQueue queue = new PendingEventQueue(8);
+    private PendingEvent result = new PendingEvent();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePowerOfTwo() {
+        new PendingEventQueue(12);
+    }
+
+    @Test
+    public void pollEmpty() {
+        assertFalse(queue.poll(result));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void eventsTakenInOrder() {
+        List<TestEvent> sent = Lists.newArrayList();
+        for (int i = 0; i < 20; ++i) {
+            TestEvent event = new TestEvent(0, i);
+            sent.add(event);
+            queue.offer(EntityRef.NULL, event, null);
+            if (i % 3 == 2) {
+                assertTrue(queue.poll(result));
+                assertSame(sent.remove(0), result.getEvent());
+            }
+        }
+        while (!sent.isEmpty()) {
+            assertTrue(queue.poll(result));
+            assertSame(sent.remove(0), result.getEvent());
+        }
+        assertFalse(queue.poll(result));
+    }
+
+    @Test
+    public void eventContentsKept() {
+        TestEvent event = new TestEvent(0, 0);
+        queue.offer(EntityRef.NULL, event, null);
+        assertTrue(queue.poll(result));
+        assertSame(EntityRef.NULL, result.getEntity());
+        assertSame(event, result.getEvent());
+        assertNull(result.getComponent());
+        assertTrue(result.getEnqueueTime() <= System.nanoTime());
+    }
+
+    @Test
+    public void overflowKeepsOrder() {
+        for (int i = 0; i < 20; ++i) {
+            queue.offer(EntityRef.NULL, new TestEvent(0, i), null);
+        }
+        assertEquals(20, queue.size());
+        assertEquals(12, queue.getOverflowCount());
+
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(queue.poll(result));
+            assertEquals(i, ((TestEvent) result.getEvent()).index);
+        }
+        // Still overflowing, so must not go ahead of the events in the overflow
+        queue.offer(EntityRef.NULL, new TestEvent(0, 20), null);
+        for (int i = 10; i <= 20; ++i) {
+            assertTrue(queue.poll(result));
+            assertEquals(i, ((TestEvent) result.getEvent()).index);
+        }
+        assertEquals(0, queue.size());
+
+        queue.offer(EntityRef.NULL, new TestEvent(0, 21), null);
+        assertEquals(13, queue.getOverflowCount());
+    }
+
+    @Test
+    public void concurrentProducersKeepOrder() throws InterruptedException {
+        final int producers = 4;
+        final int eventsPerProducer = 50000;
+        final PendingEventQueue sharedQueue = new PendingEventQueue(256);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = Lists.newArrayList();
+        for (int p = 0; p < producers; ++p) {
+            final int producer = p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < eventsPerProducer; ++i) {
+                        sharedQueue.offer(EntityRef.NULL, new TestEvent(producer, i), null);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * eventsPerProducer) {
+            if (sharedQueue.poll(result)) {
+                TestEvent event = (TestEvent) result.getEvent();
+                assertEquals(next[event.producer], event.index);
+                next[event.producer]++;
+                received++;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(sharedQueue.poll(result));
+        assertEquals(0, sharedQueue.size());
+    }
+
+    private static class TestEvent implements Event {
+        private final int producer;
+        private final int index;
+
+        public TestEvent(int producer, int index) {
+            this.producer = producer;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.vecmath.Vector3f;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MovementRecordingTest {
+
+    private Path recordingPath;
+
+    @Before
+    public void setup() throws Exception {
+        recordingPath = Files.createTempFile("movement", ".recording");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        Files.deleteIfExists(recordingPath);
+    }
+
+    @Test
+    public void savedRecordingLoadsTheSame() throws Exception {
+        List<List<CharacterMoveInputEvent>> streams = Lists.newArrayList();
+        streams.add(Lists.newArrayList(
+                new CharacterMoveInputEvent(1, 0.5f, 90f, new Vector3f(0, 0, -1), false, false, 16),
+                new CharacterMoveInputEvent(2, -0.25f, 180f, new Vector3f(1, 0, 0), true, true, 33)));
+        streams.add(Collections.<CharacterMoveInputEvent>emptyList());
+        streams.add(Lists.newArrayList(new CharacterMoveInputEvent(7, 0, 0, new Vector3f(), false, true, 50)));
+
+        new MovementRecording(streams).save(recordingPath);
+        MovementRecording loaded = MovementRecording.load(recordingPath);
+
+        assertEquals(streams.size(), loaded.getStreams().size());
+        for (int i = 0; i < streams.size(); ++i) {
+            assertEquals(streams.get(i).size(), loaded.getStreams().get(i).size());
+            for (int j = 0; j < streams.get(i).size(); ++j) {
+                assertSameInput(streams.get(i).get(j), loaded.getStreams().get(i).get(j));
+            }
+        }
+    }
+
+    @Test
+    public void copyIsNotYetRun() {
+        CharacterMoveInputEvent input = new CharacterMoveInputEvent(3, 1, 2, new Vector3f(0, 1, 0), true, false, 20);
+        input.runComplete();
+
+        CharacterMoveInputEvent copy = MovementRecording.copy(input);
+        assertSameInput(input, copy);
+        assertFalse(input.isFirstRun());
+        assertTrue(copy.isFirstRun());
+    }
+
+    @Test(expected = IOException.class)
+    public void otherVersionIsRejected() throws Exception {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(recordingPath))) {
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+        MovementRecording.load(recordingPath);
+    }
+
+    private void assertSameInput(CharacterMoveInputEvent expected, CharacterMoveInputEvent actual) {
+        assertEquals(expected.getSequenceNumber(), actual.getSequenceNumber());
+        assertEquals(expected.getPitch(), actual.getPitch(), 0);
+        assertEquals(expected.getYaw(), actual.getYaw(), 0);
+        assertEquals(expected.getMovementDirection(), actual.getMovementDirection());
+        assertEquals(expected.isRunning(), actual.isRunning());
+        assertEquals(expected.isJumpRequested(), actual.isJumpRequested());
+        assertEquals(expected.getDeltaMs(), actual.getDeltaMs());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.bootstrap.EntitySystemBuilder;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.Vector3i;
+import org.terasology.network.NetworkMode;
+import org.terasology.network.NetworkSystem;
+import org.terasology.physics.bullet.BulletPhysics;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+import org.terasology.testUtil.WorldProviderCoreStub;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelCharacterMoverTest {
+
+    private static final int ROW_LENGTH = 4;
+    private static final int UPDATES = 20;
+    private static final int INPUTS_PER_UPDATE = 3;
+    private static final long INPUT_DELTA_MS = 50;
+    private static final int WALL_DISTANCE = 4;
+
+    private static ModuleManager moduleManager;
+    private EngineEntityManager entityManager;
+    private WorldProviderWrapper world;
+
+    @BeforeClass
+    public static void commonSetup() throws Exception {
+        moduleManager = CoreRegistry.put(ModuleManager.class, ModuleManagerFactory.create());
+    }
+
+    @Before
+    public void setup() {
+        CoreRegistry.put(ComponentSystemManager.class, mock(ComponentSystemManager.class));
+        NetworkSystem networkSystem = mock(NetworkSystem.class);
+        when(networkSystem.getMode()).thenReturn(NetworkMode.NONE);
+        entityManager = new EntitySystemBuilder().build(moduleManager.getEnvironment(), networkSystem, new ReflectionReflectFactory());
+
+        Block stone = new Block();
+        stone.setCollision(new Vector3f(), new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f)));
+        stone.buildCollisionInfo();
+        WorldProviderCoreStub worldStub = new WorldProviderCoreStub(BlockManager.getAir());
+        for (int x = -WALL_DISTANCE; x <= WALL_DISTANCE; ++x) {
+            for (int z = -WALL_DISTANCE; z <= WALL_DISTANCE; ++z) {
+                worldStub.setBlock(new Vector3i(x, 0, z), stone);
+                if (Math.abs(x) == WALL_DISTANCE || Math.abs(z) == WALL_DISTANCE) {
+                    worldStub.setBlock(new Vector3i(x, 1, z), stone);
+                    worldStub.setBlock(new Vector3i(x, 2, z), stone);
+                }
+            }
+        }
+        world = new WorldProviderWrapper(worldStub);
+    }
+
+    @Test
+    public void parallelSteppingMatchesSerial() {
+        List<List<ParallelCharacterMover.Job>> serial = simulate(1);
+        List<List<ParallelCharacterMover.Job>> parallel = simulate(4);
+
+        for (int update = 0; update < UPDATES; ++update) {
+            for (int i = 0; i < ROW_LENGTH * ROW_LENGTH; ++i) {
+                ParallelCharacterMover.Job expected = serial.get(update).get(i);
+                ParallelCharacterMover.Job actual = parallel.get(update).get(i);
+                assertEquals(INPUTS_PER_UPDATE, expected.getStates().size());
+                assertEquals(INPUTS_PER_UPDATE, actual.getStates().size());
+                for (int input = 0; input < INPUTS_PER_UPDATE; ++input) {
+                    assertSameState(expected.getStates().get(input), actual.getStates().get(input));
+                    assertSameEvents(expected.getEvents(input), actual.getEvents(input));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void charactersCollideWithEachOther() {
+        List<ParallelCharacterMover.Job> last = simulate(4).get(UPDATES - 1);
+
+        // Without colliding, every character would have reached the centre
+        float minDistance = 2 * new CharacterMovementComponent().radius - 0.05f;
+        for (int i = 0; i < last.size(); ++i) {
+            for (int j = i + 1; j < last.size(); ++j) {
+                Vector3f a = lastState(last.get(i)).getPosition();
+                Vector3f b = lastState(last.get(j)).getPosition();
+                Vector3f between = new Vector3f(a.x - b.x, 0, a.z - b.z);
+                assertTrue(between.length() > minDistance);
+            }
+        }
+    }
+
+    /**
+     * Walks a grid of characters towards its centre, so that they run into each other, and keeps each update's jobs.
+     * The results of each update are applied to the colliders on the main thread, the way the prediction system does.
+     */
+    private List<List<ParallelCharacterMover.Job>> simulate(int threads) {
+        BulletPhysics physics = new BulletPhysics(world);
+        ParallelCharacterMover mover = new ParallelCharacterMover(world, physics, threads);
+        try {
+            List<EntityRef> characters = Lists.newArrayList();
+            CharacterStateEvent[] states = new CharacterStateEvent[ROW_LENGTH * ROW_LENGTH];
+            for (int i = 0; i < states.length; ++i) {
+                Vector3f position = new Vector3f(i % ROW_LENGTH - 1.5f, 1.5f, i / ROW_LENGTH - 1.5f);
+                characters.add(entityManager.create(new LocationComponent(position), new CharacterMovementComponent()));
+                states[i] = new CharacterStateEvent(0, 0, position, new Quat4f(0, 0, 0, 1), new Vector3f(), 0, 0, MovementMode.WALKING, false);
+            }
+
+            List<List<ParallelCharacterMover.Job>> result = Lists.newArrayList();
+            int sequence = 1;
+            for (int update = 0; update < UPDATES; ++update) {
+                List<ParallelCharacterMover.Job> jobs = Lists.newArrayList();
+                for (int i = 0; i < states.length; ++i) {
+                    Vector3f towardsCentre = new Vector3f(-states[i].getPosition().x, 0, -states[i].getPosition().z);
+                    if (towardsCentre.lengthSquared() > 0) {
+                        towardsCentre.normalize();
+                    }
+                    List<CharacterMoveInputEvent> inputs = Lists.newArrayList();
+                    for (int j = 0; j < INPUTS_PER_UPDATE; ++j) {
+                        inputs.add(new CharacterMoveInputEvent(sequence++, 0, 0, towardsCentre, update % 2 == 0, false, INPUT_DELTA_MS));
+                    }
+                    jobs.add(mover.createJob(characters.get(i), states[i], inputs));
+                }
+                mover.stepAll(jobs);
+                for (int i = 0; i < states.length; ++i) {
+                    states[i] = lastState(jobs.get(i));
+                    physics.getCharacterCollider(characters.get(i)).setLocation(states[i].getPosition());
+                }
+                result.add(jobs);
+            }
+            return result;
+        } finally {
+            mover.shutdown();
+            physics.dispose();
+        }
+    }
+
+    private CharacterStateEvent lastState(ParallelCharacterMover.Job job) {
+        return job.getStates().get(job.getStates().size() - 1);
+    }
+
+    private void assertSameState(CharacterStateEvent expected, CharacterStateEvent actual) {
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.getVelocity(), actual.getVelocity());
+        assertEquals(expected.getRotation(), actual.getRotation());
+        assertEquals(expected.getMode(), actual.getMode());
+        assertEquals(expected.isGrounded(), actual.isGrounded());
+    }
+
+    private void assertSameEvents(List<Event> expected, List<Event> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+        }
+    }
+}
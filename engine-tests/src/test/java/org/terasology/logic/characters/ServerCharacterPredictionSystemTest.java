@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.Time;
+import org.terasology.engine.bootstrap.EntitySystemBuilder;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.players.LocalPlayer;
+import org.terasology.math.Vector3i;
+import org.terasology.network.NetworkMode;
+import org.terasology.network.NetworkSystem;
+import org.terasology.physics.bullet.BulletPhysics;
+import org.terasology.physics.engine.PhysicsEngine;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.registry.InjectionHelper;
+import org.terasology.testUtil.ModuleManagerFactory;
+import org.terasology.testUtil.WorldProviderCoreStub;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import javax.vecmath.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServerCharacterPredictionSystemTest {
+
+    private static final Vector3f START = new Vector3f(0, 1.3f, 0);
+
+    private static ModuleManager moduleManager;
+    private BulletPhysics physics;
+    private LocalPlayer localPlayer;
+    private ServerCharacterPredictionSystem predictionSystem;
+    private EntityRef character;
+
+    @BeforeClass
+    public static void commonSetup() throws Exception {
+        moduleManager = CoreRegistry.put(ModuleManager.class, ModuleManagerFactory.create());
+    }
+
+    @Before
+    public void setup() {
+        CoreRegistry.put(ComponentSystemManager.class, mock(ComponentSystemManager.class));
+        NetworkSystem networkSystem = CoreRegistry.put(NetworkSystem.class, mock(NetworkSystem.class));
+        when(networkSystem.getMode()).thenReturn(NetworkMode.NONE);
+        EngineEntityManager entityManager = new EntitySystemBuilder().build(moduleManager.getEnvironment(), networkSystem, new ReflectionReflectFactory());
+
+        Block stone = new Block();
+        stone.setCollision(new Vector3f(), new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f)));
+        stone.buildCollisionInfo();
+        WorldProviderCoreStub worldStub = new WorldProviderCoreStub(BlockManager.getAir());
+        for (int x = -4; x <= 4; ++x) {
+            for (int z = -4; z <= 4; ++z) {
+                worldStub.setBlock(new Vector3i(x, 0, z), stone);
+            }
+        }
+        WorldProvider world = CoreRegistry.put(WorldProvider.class, new WorldProviderWrapper(worldStub));
+        physics = new BulletPhysics(world);
+        CoreRegistry.put(PhysicsEngine.class, physics);
+        Time time = CoreRegistry.put(Time.class, mock(Time.class));
+        when(time.getGameTimeInMs()).thenReturn(1000L);
+        localPlayer = CoreRegistry.put(LocalPlayer.class, mock(LocalPlayer.class));
+        when(localPlayer.getCharacterEntity()).thenReturn(EntityRef.NULL);
+
+        predictionSystem = new ServerCharacterPredictionSystem();
+        InjectionHelper.inject(predictionSystem);
+        predictionSystem.initialise();
+
+        character = entityManager.create(new LocationComponent(START), new CharacterMovementComponent(), new CharacterComponent());
+        predictionSystem.onCreate(null, character);
+        // Lets the new collider settle into the physics world, so that input is accepted
+        physics.update(0.1f);
+    }
+
+    @After
+    public void teardown() {
+        predictionSystem.shutdown();
+        physics.dispose();
+    }
+
+    @Test
+    public void clientInputAppliedWithPendingInput() {
+        predictionSystem.onPlayerInput(createInput(1), character);
+        assertEquals(START, getPosition());
+
+        predictionSystem.applyPendingInput();
+        assertTrue(getPosition().x > START.x);
+    }
+
+    @Test
+    public void localPlayerInputAppliedImmediately() {
+        when(localPlayer.getCharacterEntity()).thenReturn(character);
+        predictionSystem.onPlayerInput(createInput(1), character);
+        assertTrue(getPosition().x > START.x);
+    }
+
+    private CharacterMoveInputEvent createInput(int sequence) {
+        return new CharacterMoveInputEvent(sequence, 0, 0, new Vector3f(1, 0, 0), false, false, 50);
+    }
+
+    private Vector3f getPosition() {
+        return character.getComponent(LocationComponent.class).getWorldPosition();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.delay;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.engine.Time;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.registry.InjectionHelper;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DelayedActionSystemTest {
+
+    private Time time;
+    private DelayedActionSystem delayedActionSystem;
+
+    @Before
+    public void setup() {
+        time = CoreRegistry.put(Time.class, mock(Time.class));
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        delayedActionSystem = new DelayedActionSystem();
+        InjectionHelper.inject(delayedActionSystem);
+        delayedActionSystem.initialise();
+    }
+
+    @Test
+    public void actionTriggeredOnceDue() {
+        setGameTime(1000);
+        EntityRef entity = createEntityWithAction("test", 1500);
+
+        setGameTime(1499);
+        verify(entity, never()).send(any(DelayedActionTriggeredEvent.class));
+        setGameTime(1500);
+        verify(entity).send(any(DelayedActionTriggeredEvent.class));
+    }
+
+    @Test
+    public void gameTimeSetAfterInitialise() {
+        // As when a saved game is loaded: the system starts at one time, then the saved time is restored
+        setGameTime(100000);
+        setGameTime(1000);
+        EntityRef entity = createEntityWithAction("test", 2000);
+
+        setGameTime(1500);
+        verify(entity, never()).send(any(DelayedActionTriggeredEvent.class));
+        setGameTime(2000);
+        verify(entity).send(any(DelayedActionTriggeredEvent.class));
+    }
+
+    @Test
+    public void scheduledActionsKeptWhenGameTimeGoesBack() {
+        setGameTime(5000);
+        EntityRef entity = createEntityWithAction("test", 6000);
+
+        setGameTime(1000);
+        verify(entity, never()).send(any(DelayedActionTriggeredEvent.class));
+        setGameTime(6000);
+        verify(entity).send(any(DelayedActionTriggeredEvent.class));
+    }
+
+    private void setGameTime(long gameTime) {
+        when(time.getGameTimeInMs()).thenReturn(gameTime);
+        delayedActionSystem.update(0);
+    }
+
+    private EntityRef createEntityWithAction(String actionId, long wakeUp) {
+        DelayedActionComponent component = new DelayedActionComponent();
+        component.addActionId(actionId, wakeUp);
+        EntityRef entity = mock(EntityRef.class);
+        when(entity.exists()).thenReturn(true);
+        when(entity.getComponent(DelayedActionComponent.class)).thenReturn(component);
+        delayedActionSystem.componentActivated(null, entity);
+        return entity;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.serialization;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufDeserializationContext;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext;
+
+import javax.vecmath.AxisAngle4f;
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantizedTypeHandlerTest {
+
+    private static final float POSITION_EPSILON = 0.5f / QuantizedVector3fTypeHandler.SCALE + 0.0001f;
+    private static final float ROTATION_EPSILON = 0.0002f;
+
+    private ProtobufSerializationContext serializationContext;
+    private ProtobufDeserializationContext deserializationContext;
+
+    @Before
+    public void setup() {
+        serializationContext = new ProtobufSerializationContext(null);
+        deserializationContext = new ProtobufDeserializationContext(null);
+    }
+
+    @Test
+    public void vectorRoundTrip() {
+        QuantizedVector3fTypeHandler handler = new QuantizedVector3fTypeHandler();
+        Vector3f original = new Vector3f(12.3456f, -0.0007f, 8000.5f);
+        Vector3f result = handler.deserialize(handler.serialize(original, serializationContext), deserializationContext);
+        assertEquals(original.x, result.x, POSITION_EPSILON);
+        assertEquals(original.y, result.y, POSITION_EPSILON);
+        assertEquals(original.z, result.z, POSITION_EPSILON);
+    }
+
+    @Test
+    public void vectorChangesBelowPrecisionSerializeIdentically() {
+        QuantizedVector3fTypeHandler handler = new QuantizedVector3fTypeHandler();
+        PersistedData first = handler.serialize(new Vector3f(1, 2, 3), serializationContext);
+        PersistedData second = handler.serialize(new Vector3f(1.0001f, 2, 3), serializationContext);
+        assertEquals(((ProtobufPersistedData) first).getValue(), ((ProtobufPersistedData) second).getValue());
+    }
+
+    @Test
+    public void vectorSmallerThanFloats() {
+        QuantizedVector3fTypeHandler handler = new QuantizedVector3fTypeHandler();
+        PersistedData data = handler.serialize(new Vector3f(0.5f, 0, -2.25f), serializationContext);
+        assertTrue(((ProtobufPersistedData) data).getValue().getSerializedSize() < 3 * 4);
+    }
+
+    @Test
+    public void nonFiniteVectorSentAsFloats() {
+        QuantizedVector3fTypeHandler handler = new QuantizedVector3fTypeHandler();
+        Vector3f original = new Vector3f(Float.POSITIVE_INFINITY, 1, Float.NaN);
+        Vector3f result = handler.deserialize(handler.serialize(original, serializationContext), deserializationContext);
+        assertEquals(original, result);
+    }
+
+    @Test
+    public void rotationRoundTrip() {
+        QuantizedQuat4fTypeHandler handler = new QuantizedQuat4fTypeHandler();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; ++i) {
+            Vector3f axis = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            axis.normalize();
+            Quat4f original = new Quat4f();
+            original.set(new AxisAngle4f(axis, (random.nextFloat() - 0.5f) * 4 * (float) Math.PI));
+            Quat4f result = handler.deserialize(handler.serialize(original, serializationContext), deserializationContext);
+            assertSameRotation(original, result);
+        }
+    }
+
+    @Test
+    public void identityRotation() {
+        QuantizedQuat4fTypeHandler handler = new QuantizedQuat4fTypeHandler();
+        Quat4f original = new Quat4f(0, 0, 0, 1);
+        Quat4f result = handler.deserialize(handler.serialize(original, serializationContext), deserializationContext);
+        assertSameRotation(original, result);
+    }
+
+    @Test
+    public void nonUnitQuaternionSentAsFloats() {
+        QuantizedQuat4fTypeHandler handler = new QuantizedQuat4fTypeHandler();
+        Quat4f original = new Quat4f();
+        original.x = 2;
+        PersistedData data = handler.serialize(original, serializationContext);
+        assertEquals(4, ((ProtobufPersistedData) data).getValue().getFloatCount());
+    }
+
+    private void assertSameRotation(Quat4f expected, Quat4f actual) {
+        // q and -q are the same rotation
+        float sign = (expected.x * actual.x + expected.y * actual.y + expected.z * actual.z + expected.w * actual.w < 0) ? -1 : 1;
+        assertEquals(expected.x, sign * actual.x, ROTATION_EPSILON);
+        assertEquals(expected.y, sign * actual.y, ROTATION_EPSILON);
+        assertEquals(expected.z, sign * actual.z, ROTATION_EPSILON);
+        assertEquals(expected.w, sign * actual.w, ROTATION_EPSILON);
+    }
+}
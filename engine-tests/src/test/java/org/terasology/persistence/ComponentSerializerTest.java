@@ -29,6 +29,7 @@
 import org.terasology.entitySystem.stubs.IntegerComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.serializers.ComponentCodecGenerator;
 import org.terasology.persistence.serializers.ComponentSerializer;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.persistence.typeHandling.mathTypes.Quat4fTypeHandler;
@@ -140,4 +141,49 @@ public void testDeltaComponentTypeIdDeserializesWithoutValue() throws Exception
         componentSerializer.deserializeOnto(original, compData);
         assertEquals("test", original.value);
     }
+
+    @Test
+    public void testGeneratedCodecSerializesSameAsTypeHandlers() throws Exception {
+        EntityData.Component expectedString = componentSerializer.serialize(new StringComponent("Test"));
+        EntityData.Component expectedInteger = componentSerializer.serialize(new IntegerComponent(413));
+        componentSerializer.setCodecGenerator(new ComponentCodecGenerator());
+
+        assertEquals(expectedString, componentSerializer.serialize(new StringComponent("Test")));
+        assertEquals(expectedInteger, componentSerializer.serialize(new IntegerComponent(413)));
+    }
+
+    @Test
+    public void testGeneratedCodecDeserializes() throws Exception {
+        componentSerializer.setCodecGenerator(new ComponentCodecGenerator());
+
+        assertEquals(new StringComponent("Test"), componentSerializer.deserialize(componentSerializer.serialize(new StringComponent("Test"))));
+        assertEquals(new IntegerComponent(413), componentSerializer.deserialize(componentSerializer.serialize(new IntegerComponent(413))));
+    }
+
+    @Test
+    public void testGeneratedCodecSkipsNullFields() throws Exception {
+        componentSerializer.setCodecGenerator(new ComponentCodecGenerator());
+
+        EntityData.Component compData = componentSerializer.serialize(new StringComponent(null));
+        assertEquals(0, compData.getFieldCount());
+    }
+
+    @Test
+    public void testGeneratedCodecIgnoresMismatchedValue() throws Exception {
+        componentSerializer.setCodecGenerator(new ComponentCodecGenerator());
+        EntityData.Component compData = EntityData.Component.newBuilder().setType("test:integer")
+                .addField(EntityData.NameValue.newBuilder().setName("value").setValue(EntityData.Value.newBuilder().addBoolean(true))).build();
+        IntegerComponent original = new IntegerComponent(413);
+        componentSerializer.deserializeOnto(original, compData);
+        assertEquals(413, original.value);
+    }
+
+    @Test
+    public void testSerializeComponentDeltasWithGeneratedCodec() throws Exception {
+        componentSerializer.setCodecGenerator(new ComponentCodecGenerator());
+        EntityData.Component componentData = componentSerializer.serialize(new StringComponent("Original"), new StringComponent("Delta"));
+
+        assertEquals("value", componentData.getField(0).getName());
+        assertEquals("Delta", componentData.getField(0).getValue().getString(0));
+    }
 }
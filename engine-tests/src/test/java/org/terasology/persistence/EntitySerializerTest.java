@@ -31,14 +31,17 @@
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.EntityInfoComponent;
 import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.prefab.Prefab;
 import org.terasology.entitySystem.prefab.PrefabData;
 import org.terasology.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.entitySystem.stubs.GetterSetterComponent;
 import org.terasology.entitySystem.stubs.IntegerComponent;
 import org.terasology.entitySystem.stubs.MappedTypeComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.serializers.ComponentCodecGenerator;
 import org.terasology.persistence.serializers.EntitySerializer;
 import org.terasology.protobuf.EntityData;
 import org.terasology.reflection.reflect.ReflectionReflectFactory;
@@ -48,7 +51,11 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Immortius <immortius@gmail.com>
@@ -245,4 +252,25 @@ public void testMappedTypeHandling() throws Exception {
         assertTrue(loadedEntity.exists());
         assertTrue(loadedEntity.hasComponent(MappedTypeComponent.class));
     }
+
+    @Test
+    public void testRegisteredCodecGeneratorUsed() throws Exception {
+        ComponentCodecGenerator codecGenerator = spy(new ComponentCodecGenerator());
+        CoreRegistry.put(ComponentCodecGenerator.class, codecGenerator);
+        try {
+            EntitySerializer generatedSerializer = new EntitySerializer(entityManager);
+            EntityRef entity = entityManager.create(prefab);
+            entity.addComponent(new IntegerComponent(413));
+
+            EntityData.Entity entityData = generatedSerializer.serialize(entity);
+            verify(codecGenerator, atLeastOnce()).getCodec(any(ComponentMetadata.class), any(Serializer.class));
+            assertEquals(entitySerializer.serialize(entity), entityData);
+
+            entityManager.clear();
+            EntityRef loadedEntity = generatedSerializer.deserialize(entityData);
+            assertEquals(new IntegerComponent(413), loadedEntity.getComponent(IntegerComponent.class));
+        } finally {
+            CoreRegistry.remove(ComponentCodecGenerator.class);
+        }
+    }
 }
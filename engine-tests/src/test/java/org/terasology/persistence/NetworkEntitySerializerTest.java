@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Bytes;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemBuilder;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityBuilder;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.network.NetworkSystem;
+import org.terasology.network.serialization.QuantizedQuat4fTypeHandler;
+import org.terasology.network.serialization.QuantizedVector3fTypeHandler;
+import org.terasology.persistence.serializers.ComponentCodecGenerator;
+import org.terasology.persistence.serializers.EntityBaseline;
+import org.terasology.persistence.serializers.FieldSerializeCheck;
+import org.terasology.persistence.serializers.NetworkEntitySerializer;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class NetworkEntitySerializerTest {
+
+    private static final Set<Class<? extends Component>> NONE = Collections.emptySet();
+    private static final Set<Class<? extends Component>> LOCATION = ImmutableSet.<Class<? extends Component>>of(LocationComponent.class);
+
+    private static ModuleManager moduleManager;
+    private EngineEntityManager entityManager;
+    private NetworkEntitySerializer entitySerializer;
+    private EntityBaseline baseline;
+    private EntityRef entity;
+    private byte positionId;
+    private byte scaleId;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        moduleManager = ModuleManagerFactory.create();
+    }
+
+    @Before
+    public void setup() {
+        EntitySystemBuilder builder = new EntitySystemBuilder();
+        entityManager = builder.build(moduleManager.getEnvironment(), mock(NetworkSystem.class), new ReflectionReflectFactory());
+        entityManager.getComponentLibrary().register(new SimpleUri("engine", "location"), LocationComponent.class);
+
+        TypeSerializationLibrary typeSerializationLibrary = new TypeSerializationLibrary(entityManager.getTypeSerializerLibrary());
+        typeSerializationLibrary.add(Vector3f.class, new QuantizedVector3fTypeHandler());
+        typeSerializationLibrary.add(Quat4f.class, new QuantizedQuat4fTypeHandler());
+        entitySerializer = new NetworkEntitySerializer(entityManager, entityManager.getComponentLibrary(), typeSerializationLibrary);
+        entitySerializer.setIdMapping(ImmutableMap.<Class<? extends Component>, Integer>of(LocationComponent.class, 1));
+
+        ComponentMetadata<LocationComponent> metadata = entityManager.getComponentLibrary().getMetadata(LocationComponent.class);
+        positionId = metadata.getField("position").getId();
+        scaleId = metadata.getField("scale").getId();
+
+        baseline = new EntityBaseline();
+        entity = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        assertNotNull(serialize(LOCATION, NONE));
+    }
+
+    @Test
+    public void unchangedComponentSendsNothing() {
+        assertNull(serialize(NONE, LOCATION));
+    }
+
+    @Test
+    public void changedFieldIsSentAlone() {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.setLocalScale(2);
+        entity.saveComponent(location);
+
+        EntityData.PackedEntity data = serialize(NONE, LOCATION);
+        assertNotNull(data);
+        assertEquals(1, data.getComponentIdCount());
+        assertEquals(1, data.getFieldIds().size());
+        assertEquals(scaleId, data.getFieldIds().byteAt(0));
+    }
+
+    @Test
+    public void fieldChangedInPlaceIsSent() {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.getLocalPosition().set(4, 5, 6);
+        entity.saveComponent(location);
+
+        EntityData.PackedEntity data = serialize(NONE, LOCATION);
+        assertNotNull(data);
+        assertEquals(1, data.getFieldIds().size());
+        assertEquals(positionId, data.getFieldIds().byteAt(0));
+    }
+
+    @Test
+    public void sentChangeIsNotSentAgain() {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.setLocalPosition(new Vector3f(4, 5, 6));
+        entity.saveComponent(location);
+        assertNotNull(serialize(NONE, LOCATION));
+
+        assertNull(serialize(NONE, LOCATION));
+    }
+
+    @Test
+    public void changeBelowQuantizationIsNotSent() {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.getLocalPosition().x += 0.1f / QuantizedVector3fTypeHandler.SCALE;
+        entity.saveComponent(location);
+
+        assertNull(serialize(NONE, LOCATION));
+    }
+
+    @Test
+    public void removedComponentIsSentInFullWhenAddedAgain() {
+        entity.removeComponent(LocationComponent.class);
+        assertNotNull(serialize(NONE, NONE, LOCATION));
+        entity.addComponent(new LocationComponent(new Vector3f(1, 2, 3)));
+
+        EntityData.PackedEntity data = serialize(LOCATION, NONE);
+        assertNotNull(data);
+        assertTrue(data.getFieldIds().toByteArray().length > 1);
+        assertTrue(Bytes.contains(data.getFieldIds().toByteArray(), positionId));
+    }
+
+    @Test
+    public void registeredCodecGeneratorUsed() {
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "integer"), IntegerComponent.class);
+        ComponentCodecGenerator codecGenerator = spy(new ComponentCodecGenerator());
+        CoreRegistry.put(ComponentCodecGenerator.class, codecGenerator);
+        try {
+            NetworkEntitySerializer generatedSerializer = new NetworkEntitySerializer(entityManager, entityManager.getComponentLibrary(),
+                    entityManager.getTypeSerializerLibrary());
+            generatedSerializer.setIdMapping(ImmutableMap.<Class<? extends Component>, Integer>of(IntegerComponent.class, 2));
+            entity.addComponent(new IntegerComponent(413));
+
+            EntityData.PackedEntity data = generatedSerializer.serialize(entity, ImmutableSet.<Class<? extends Component>>of(IntegerComponent.class),
+                    NONE, NONE, FieldSerializeCheck.NullCheck.<Component>newInstance());
+            verify(codecGenerator, atLeastOnce()).getCodec(any(ComponentMetadata.class), any(Serializer.class));
+
+            EntityBuilder builder = entityManager.newBuilder();
+            generatedSerializer.deserializeOnto(builder, data);
+            assertEquals(new IntegerComponent(413), builder.getComponent(IntegerComponent.class));
+        } finally {
+            CoreRegistry.remove(ComponentCodecGenerator.class);
+        }
+    }
+
+    private EntityData.PackedEntity serialize(Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed) {
+        return serialize(added, changed, NONE);
+    }
+
+    private EntityData.PackedEntity serialize(Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
+                                              Set<Class<? extends Component>> removed) {
+        return entitySerializer.serialize(entity, added, changed, removed, FieldSerializeCheck.NullCheck.<Component>newInstance(), baseline);
+    }
+}
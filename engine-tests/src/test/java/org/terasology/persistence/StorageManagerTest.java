@@ -277,6 +277,46 @@ public void chunkSurvivesStorageSaveAndRestore() throws Exception {
         assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
     }
 
+    @Test
+    public void chunkStoredAsItWasWhenSaved() throws Exception {
+        ChunkImpl chunk = new ChunkImpl(CHUNK_POS);
+        chunk.setBlock(0, 0, 0, testBlock);
+        esm.createChunkStoreForSave(chunk).save();
+        // Changed while the saved chunk may still be waiting to be compressed and written
+        chunk.setBlock(0, 0, 0, BlockManager.getAir());
+        chunk.setBlock(1, 0, 0, testBlock);
+        esm.flush();
+
+        EngineEntityManager newEntityManager = new EntitySystemBuilder().build(moduleManager.getEnvironment(), networkSystem, new ReflectionReflectFactory());
+        StorageManager newSM = new StorageManagerInternal(moduleManager.getEnvironment(), newEntityManager, false);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+        assertEquals(BlockManager.getAir(), restored.getChunk().getBlock(1, 0, 0));
+    }
+
+    @Test
+    public void savedChunkWrittenWithoutFlush() throws Exception {
+        ChunkImpl chunk = new ChunkImpl(CHUNK_POS);
+        chunk.setBlock(0, 0, 0, testBlock);
+        esm.createChunkStoreForSave(chunk).save();
+
+        EngineEntityManager newEntityManager = new EntitySystemBuilder().build(moduleManager.getEnvironment(), networkSystem, new ReflectionReflectFactory());
+        StorageManager newSM = new StorageManagerInternal(moduleManager.getEnvironment(), newEntityManager, false);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!newSM.containsChunkStoreFor(CHUNK_POS) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(newSM.containsChunkStoreFor(CHUNK_POS));
+
+        // Lets the write finish before reading it
+        esm.flush();
+        newSM.loadGlobalStore();
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+    }
+
     @Test
     public void entitySurvivesStorageInChunkStore() throws Exception {
         ChunkImpl chunk = new ChunkImpl(CHUNK_POS);
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Vector3i;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegionChunkStorageTest {
+
+    private Path worldPath;
+    private RegionChunkStorage storage;
+
+    @Before
+    public void setup() throws Exception {
+        worldPath = Files.createTempDirectory("regions");
+        storage = new RegionChunkStorage(worldPath, null);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        storage.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(worldPath)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(worldPath);
+    }
+
+    @Test
+    public void chunkInMissingRegionNotFound() {
+        Vector3i pos = new Vector3i(-3, 0, 40);
+        assertFalse(storage.contains(pos));
+        assertNull(storage.load(pos));
+        assertFalse(Files.exists(worldPath.resolve("-1.0.2.region")));
+    }
+
+    @Test
+    public void regionFoundMissingIsUsedOnceSaved() throws IOException {
+        Vector3i pos = new Vector3i(-3, 0, 40);
+        Vector3i neighbour = new Vector3i(-4, 0, 41);
+        assertFalse(storage.contains(pos));
+        assertFalse(storage.contains(neighbour));
+
+        byte[] data = {1, 2, 3};
+        storage.save(ImmutableMap.of(pos, data));
+        assertTrue(storage.contains(pos));
+        assertArrayEquals(data, storage.load(pos));
+        assertFalse(storage.contains(neighbour));
+    }
+
+    @Test
+    public void savedChunksFoundAfterReopening() throws IOException {
+        Vector3i pos = new Vector3i(17, 1, -17);
+        byte[] data = {4, 5};
+        storage.save(ImmutableMap.of(pos, data));
+        storage.close();
+
+        storage = new RegionChunkStorage(worldPath, null);
+        assertArrayEquals(data, storage.load(pos));
+    }
+}
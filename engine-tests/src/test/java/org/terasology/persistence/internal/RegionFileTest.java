@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RegionFileTest {
+
+    private static final int ENTRIES = 64;
+
+    private Path regionPath;
+
+    @Before
+    public void setup() throws Exception {
+        regionPath = Files.createTempFile("test", ".region");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        Files.deleteIfExists(regionPath);
+    }
+
+    @Test
+    public void emptyRegionHasNoEntries() throws Exception {
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            for (int i = 0; i < ENTRIES; ++i) {
+                assertFalse(region.contains(i));
+                assertNull(region.read(i));
+            }
+        }
+    }
+
+    @Test
+    public void writeAndReadEntry() throws Exception {
+        byte[] data = createData(5000, 1);
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            region.write(3, data);
+            assertTrue(region.contains(3));
+            assertArrayEquals(data, region.read(3));
+        }
+    }
+
+    @Test
+    public void entriesSurviveReopening() throws Exception {
+        byte[] first = createData(100, 1);
+        byte[] second = createData(10000, 2);
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            region.write(0, first);
+            region.write(ENTRIES - 1, second);
+        }
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            assertArrayEquals(first, region.read(0));
+            assertArrayEquals(second, region.read(ENTRIES - 1));
+            assertFalse(region.contains(1));
+        }
+    }
+
+    @Test
+    public void rewriteFreesOldSectorsOnceWritten() throws Exception {
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            region.write(0, createData(3 * RegionFile.SECTOR_SIZE, 1));
+            // Written after the old sectors, which are still in use while writing
+            byte[] data = createData(RegionFile.SECTOR_SIZE, 2);
+            region.write(0, data);
+            long size = Files.size(regionPath);
+
+            byte[] reused = createData(3 * RegionFile.SECTOR_SIZE, 3);
+            region.write(1, reused);
+            assertEquals(size, Files.size(regionPath));
+            assertArrayEquals(data, region.read(0));
+            assertArrayEquals(reused, region.read(1));
+        }
+    }
+
+    @Test
+    public void failedWriteKeepsPreviousContent() throws Exception {
+        byte[] data = createData(2 * RegionFile.SECTOR_SIZE, 1);
+        FailingFileChannel channel = new FailingFileChannel(FileChannel.open(regionPath, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        try (RegionFile region = new RegionFile(channel, ENTRIES)) {
+            region.write(0, data);
+            channel.failWrites = true;
+            try {
+                region.write(0, createData(RegionFile.SECTOR_SIZE, 2));
+                fail("Expected the write to fail");
+            } catch (IOException e) {
+                // Expected
+            }
+            assertArrayEquals(data, region.read(0));
+
+            // The sectors of the failed write are free again, the previous content's are not
+            channel.failWrites = false;
+            byte[] other = createData(RegionFile.SECTOR_SIZE, 3);
+            region.write(1, other);
+            assertArrayEquals(data, region.read(0));
+            assertArrayEquals(other, region.read(1));
+        }
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            assertArrayEquals(data, region.read(0));
+        }
+    }
+
+    @Test
+    public void freedSectorsAreReused() throws Exception {
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            region.write(0, createData(2 * RegionFile.SECTOR_SIZE, 1));
+            region.write(1, createData(RegionFile.SECTOR_SIZE, 2));
+            long size = Files.size(regionPath);
+
+            // Grows, so moves to the end of the file, leaving its old sectors free
+            byte[] grown = createData(3 * RegionFile.SECTOR_SIZE, 3);
+            region.write(0, grown);
+            byte[] reused = createData(2 * RegionFile.SECTOR_SIZE, 4);
+            region.write(2, reused);
+
+            assertEquals(size + 3 * RegionFile.SECTOR_SIZE, Files.size(regionPath));
+            assertArrayEquals(grown, region.read(0));
+            assertArrayEquals(createData(RegionFile.SECTOR_SIZE, 2), region.read(1));
+            assertArrayEquals(reused, region.read(2));
+        }
+    }
+
+    @Test
+    public void removeEntry() throws Exception {
+        try (RegionFile region = new RegionFile(regionPath, ENTRIES)) {
+            region.write(5, createData(10, 1));
+            region.remove(5);
+            assertFalse(region.contains(5));
+            assertNull(region.read(5));
+        }
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void closedRegionRejectsAccess() throws Exception {
+        RegionFile region = new RegionFile(regionPath, ENTRIES);
+        region.write(0, createData(10, 1));
+        region.close();
+        region.close();
+        region.contains(0);
+    }
+
+    @Test
+    public void closedRegionCanBeDeleted() throws Exception {
+        RegionFile region = new RegionFile(regionPath, ENTRIES);
+        region.write(0, createData(10, 1));
+        region.close();
+        Files.delete(regionPath);
+        assertFalse(Files.exists(regionPath));
+    }
+
+    /**
+     * Writes half of what it is asked to and then fails, once told to, as if the disk filled up or the game crashed
+     */
+    private static final class FailingFileChannel extends FileChannel {
+        private final FileChannel channel;
+        private boolean failWrites;
+
+        private FailingFileChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            if (failWrites) {
+                ByteBuffer half = src.duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                src.position(src.position() + channel.write(half, position));
+                throw new IOException("Simulated write failure");
+            }
+            return channel.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return channel.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            channel.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+
+    private byte[] createData(int length, int seed) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) seed);
+        data[0] = (byte) (seed + 1);
+        data[length - 1] = (byte) (seed + 2);
+        return data;
+    }
+}
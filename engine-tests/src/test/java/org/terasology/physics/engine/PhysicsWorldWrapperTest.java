@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Vector3i;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+import javax.vecmath.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PhysicsWorldWrapperTest {
+
+    private Block stone;
+    private Block air;
+    private WorldProvider world;
+    private PhysicsWorldWrapper wrapper;
+
+    @Before
+    public void setup() {
+        stone = new Block();
+        stone.setCollision(new Vector3f(), new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f)));
+        stone.buildCollisionInfo();
+        air = new Block();
+        air.setPenetrable(true);
+        air.setTargetable(false);
+        air.buildCollisionInfo();
+
+        world = mock(WorldProvider.class);
+        when(world.getBlock(0, 0, 0)).thenReturn(stone);
+        when(world.getBlock(1, 0, 0)).thenReturn(stone);
+        when(world.getBlock(0, 1, 0)).thenReturn(air);
+        wrapper = new PhysicsWorldWrapper(world);
+    }
+
+    @Test
+    public void sharedInfoReturnedForEachPosition() {
+        VoxelInfo first = wrapper.getCollisionShapeAt(0, 0, 0);
+        assertSame(stone.getCollisionInfo(), first);
+        assertSame(first, wrapper.getCollisionShapeAt(1, 0, 0));
+        assertTrue(first.isColliding());
+        assertTrue(first.isBlocking());
+        assertNull(first.getUserData());
+    }
+
+    @Test
+    public void blockWithoutShapeDoesNotCollide() {
+        VoxelInfo info = wrapper.getCollisionShapeAt(0, 1, 0);
+        assertFalse(info.isColliding());
+        assertFalse(info.isBlocking());
+    }
+
+    @Test
+    public void positionsAttachedByRayWrapper() {
+        PhysicsWorldWrapper rayWrapper = new PhysicsWorldWrapper(world, true);
+        VoxelInfo info = rayWrapper.getCollisionShapeAt(1, 0, 0);
+        assertEquals(new Vector3i(1, 0, 0), info.getUserData());
+        assertSame(stone.getCollisionShape(), info.getCollisionShape());
+        assertTrue(info.isBlocking());
+
+        assertSame(stone.getCollisionInfo(), wrapper.getCollisionShapeAt(1, 0, 0));
+    }
+
+    @Test
+    public void changedCollisionNotServedStale() {
+        stone.setCollision(new Vector3f(), new BoxShape(new Vector3f(0.5f, 0.25f, 0.5f)));
+        VoxelInfo info = wrapper.getCollisionShapeAt(0, 0, 0);
+        assertSame(stone.getCollisionShape(), info.getCollisionShape());
+    }
+
+    @Test
+    public void changedFlagsNotServedStale() {
+        stone.setTargetable(false);
+        assertFalse(wrapper.getCollisionShapeAt(0, 0, 0).isColliding());
+
+        stone.setPenetrable(true);
+        assertFalse(wrapper.getCollisionShapeAt(0, 0, 0).isBlocking());
+
+        stone.setLiquid(true);
+        assertTrue(stone.getLiquidCollisionInfo().isColliding());
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationTiersTest {
+
+    private static final float DELTA = 1f / 60f;
+    private static final float SPEED = 3f;
+
+    private SimulationTiers tiers;
+
+    @Before
+    public void setup() {
+        tiers = new SimulationTiers();
+        tiers.setRelevanceRegions(Arrays.asList(Region3i.createFromCenterExtents(new Vector3i(0, 0, 0), new Vector3i(2, 0, 2))));
+    }
+
+    @Test
+    public void fullInsideRegion() {
+        assertEquals(SimulationTier.FULL, tiers.getTier(chunkCenter(0, 0)));
+        assertEquals(SimulationTier.FULL, tiers.getTier(chunkCenter(2, -2)));
+        assertEquals(SimulationTier.FULL, tiers.getTier(new Vector3f(0, -500, 0)));
+    }
+
+    @Test
+    public void reducedJustOutsideRegion() {
+        assertEquals(SimulationTier.REDUCED, tiers.getTier(chunkCenter(3, 0)));
+        assertEquals(SimulationTier.REDUCED, tiers.getTier(chunkCenter(-2 - SimulationTiers.REDUCED_DISTANCE, 2)));
+    }
+
+    @Test
+    public void frozenFarFromRegion() {
+        assertEquals(SimulationTier.FROZEN, tiers.getTier(chunkCenter(3 + SimulationTiers.REDUCED_DISTANCE, 0)));
+        assertEquals(SimulationTier.FROZEN, tiers.getTier(chunkCenter(40, 40)));
+    }
+
+    @Test
+    public void nearestRegionCounts() {
+        tiers.setRelevanceRegions(Arrays.asList(Region3i.createFromCenterExtents(new Vector3i(0, 0, 0), new Vector3i(2, 0, 2)),
+                Region3i.createFromCenterExtents(new Vector3i(40, 0, 40), new Vector3i(2, 0, 2))));
+        assertEquals(SimulationTier.FULL, tiers.getTier(chunkCenter(40, 40)));
+    }
+
+    @Test
+    public void fullWithoutRegions() {
+        tiers.setRelevanceRegions(Collections.<Region3i>emptyList());
+        assertEquals(SimulationTier.FULL, tiers.getTier(chunkCenter(40, 40)));
+    }
+
+    @Test
+    public void reducedSteppedOnceEveryInterval() {
+        int stepped = 0;
+        for (int i = 0; i < SimulationTiers.REDUCED_INTERVAL * 3; ++i) {
+            tiers.advance(DELTA);
+            assertTrue(tiers.isStepped(SimulationTier.FULL, 5));
+            assertFalse(tiers.isStepped(SimulationTier.FROZEN, 5));
+            if (tiers.isStepped(SimulationTier.REDUCED, 5)) {
+                stepped++;
+            }
+        }
+        assertEquals(3, stepped);
+    }
+
+    @Test
+    public void phasesSpreadReducedBodies() {
+        int stepped = 0;
+        for (int phase = 0; phase < SimulationTiers.REDUCED_INTERVAL; ++phase) {
+            if (tiers.isStepped(SimulationTier.REDUCED, phase)) {
+                stepped++;
+            }
+        }
+        assertEquals(1, stepped);
+    }
+
+    @Test
+    public void reducedBodyCoversSameDistanceAsFullRateBody() {
+        for (int phase = 0; phase < SimulationTiers.REDUCED_INTERVAL; ++phase) {
+            assertSameDistanceOnEachTurn(phase, 0);
+        }
+    }
+
+    @Test
+    public void bodyNewlyAtReducedRateIsNotAheadOfFullRateBody() {
+        for (int phase = 0; phase < SimulationTiers.REDUCED_INTERVAL; ++phase) {
+            assertSameDistanceOnEachTurn(phase, 3);
+        }
+    }
+
+    /**
+     * Moves a body at constant speed alongside a body at the full rate, with varying update times. The body is at the
+     * full rate for the first few updates, then at the reduced rate. Whenever it is stepped, both must have covered the
+     * same distance.
+     */
+    private void assertSameDistanceOnEachTurn(int phase, int fullRateUpdates) {
+        float[] deltas = {DELTA, 1f / 30f, 1f / 45f, DELTA, 1f / 20f, 1f / 75f, DELTA, 1f / 30f};
+        float fullDistance = 0;
+        float reducedDistance = 0;
+        float skippedTime = 0;
+        int turns = 0;
+        for (int i = 0; i < deltas.length + fullRateUpdates; ++i) {
+            float delta = deltas[i % deltas.length];
+            tiers.advance(delta);
+            SimulationTier tier = (i < fullRateUpdates) ? SimulationTier.FULL : SimulationTier.REDUCED;
+            fullDistance += SPEED * delta;
+            if (tiers.isStepped(tier, phase)) {
+                reducedDistance += SPEED * (skippedTime + delta);
+                assertEquals(fullDistance, reducedDistance, 0.0001f);
+                if (tier == SimulationTier.REDUCED) {
+                    turns++;
+                }
+            }
+            skippedTime = tiers.getSkippedTime(tier, phase, skippedTime);
+        }
+        assertEquals(deltas.length / SimulationTiers.REDUCED_INTERVAL, turns);
+    }
+
+    @Test
+    public void frozenBodyDoesNotCatchUp() {
+        float skippedTime = 0;
+        for (int i = 0; i < SimulationTiers.REDUCED_INTERVAL; ++i) {
+            tiers.advance(DELTA);
+            skippedTime = tiers.getSkippedTime(SimulationTier.FROZEN, 0, skippedTime);
+        }
+        assertEquals(0, skippedTime, 0);
+    }
+
+    private Vector3f chunkCenter(int chunkX, int chunkZ) {
+        return new Vector3f((chunkX + 0.5f) * ChunkConstants.SIZE_X, 40, (chunkZ + 0.5f) * ChunkConstants.SIZE_Z);
+    }
+}
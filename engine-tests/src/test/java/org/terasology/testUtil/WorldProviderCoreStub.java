@@ -18,7 +18,9 @@
 
 import com.google.common.collect.Maps;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
+import org.terasology.world.BlockEditSet;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.block.Block;
 import org.terasology.world.internal.ChunkViewCore;
@@ -99,6 +101,21 @@ public Block setBlock(Vector3i pos, Block type) {
         return old;
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(BlockEditSet edits) {
+        Map<Vector3i, Block> result = Maps.newLinkedHashMap();
+        for (BlockEditSet.ChunkEdits chunkEdits : edits.getChunkEdits()) {
+            for (int i = 0; i < chunkEdits.size(); ++i) {
+                Vector3i pos = chunkEdits.getWorldPosition(i);
+                Block old = setBlock(pos, chunkEdits.getBlock(i));
+                if (old != chunkEdits.getBlock(i)) {
+                    result.put(pos, old);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public boolean setLiquid(int x, int y, int z, LiquidData newData, LiquidData oldData) {
         return false;  //To change body of implemented methods use File | Settings | File Templates.
@@ -118,6 +135,16 @@ public Block getBlock(int x, int y, int z) {
         return result;
     }
 
+    @Override
+    public boolean getBlocks(Region3i region, short[] result) {
+        Vector3i min = region.min();
+        Vector3i size = region.size();
+        for (Vector3i pos : region) {
+            result[(pos.y - min.y) * size.x * size.z + (pos.z - min.z) * size.x + pos.x - min.x] = getBlock(pos.x, pos.y, pos.z).getId();
+        }
+        return true;
+    }
+
     @Override
     public byte getLight(int x, int y, int z) {
         return 0;  //To change body of implemented methods use File | Settings | File Templates.
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import org.junit.Test;
+import org.terasology.utilities.procedural.BrownianNoise2D;
+import org.terasology.utilities.procedural.BrownianNoise3D;
+import org.terasology.utilities.procedural.Noise2D;
+import org.terasology.utilities.procedural.Noise3D;
+import org.terasology.utilities.procedural.NoiseGrid;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that sampling noise in bulk gives the same values as sampling it point by point.
+ */
+public class BulkNoiseTest {
+
+    private static final int SEED = "asdf".hashCode();
+
+    @Test
+    public void perlinMatchesScalar() {
+        assertMatchesScalar(new PerlinNoise(SEED), 0);
+    }
+
+    @Test
+    public void simplex3DMatchesScalar() {
+        assertMatchesScalar((Noise3D) new SimplexNoise(SEED), 0);
+    }
+
+    @Test
+    public void simplex2DMatchesScalar() {
+        assertMatchesScalar((Noise2D) new SimplexNoise(SEED), 0);
+    }
+
+    @Test
+    public void brownian3DMatchesScalar() {
+        assertMatchesScalar(new BrownianNoise3D(new PerlinNoise(SEED), 8), 1e-9);
+    }
+
+    @Test
+    public void brownian2DMatchesScalar() {
+        assertMatchesScalar(new BrownianNoise2D(new SimplexNoise(SEED), 6), 1e-9);
+    }
+
+    @Test
+    public void plainNoiseSampledPointByPoint() {
+        final PerlinNoise perlin = new PerlinNoise(SEED);
+        assertMatchesScalar(new Noise3D() {
+            @Override
+            public double noise(double x, double y, double z) {
+                return perlin.noise(x, y, z);
+            }
+        }, 0);
+    }
+
+    @Test
+    public void brownianWithFewerOctaves() {
+        BrownianNoise3D full = new BrownianNoise3D(new PerlinNoise(SEED), 8);
+        BrownianNoise3D reduced = new BrownianNoise3D(new PerlinNoise(SEED), 3);
+        double[] expected = new double[27];
+        double[] actual = new double[27];
+        reduced.noise(expected, -1.3, 0.2, 5.5, 0.37, 0.11, 0.05, 3, 3, 3);
+        full.noise(actual, -1.3, 0.2, 5.5, 0.37, 0.11, 0.05, 3, 3, 3, 3);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 0);
+        }
+        assertEquals(8, full.getOctaves());
+    }
+
+    private void assertMatchesScalar(Noise3D noise, double epsilon) {
+        int sizeX = 17;
+        int sizeY = 5;
+        int sizeZ = 9;
+        double originX = -3.71;
+        double originY = 0.4;
+        double originZ = 251.9;
+        double stepX = 0.113;
+        double stepY = 0.27;
+        double stepZ = 0.016;
+        double[] buffer = new double[sizeX * sizeY * sizeZ];
+        NoiseGrid.sample(noise, buffer, originX, originY, originZ, stepX, stepY, stepZ, sizeX, sizeY, sizeZ);
+
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            for (int j = 0; j < sizeY; j++) {
+                for (int i = 0; i < sizeX; i++) {
+                    double expected = noise.noise(originX + i * stepX, originY + j * stepY, originZ + k * stepZ);
+                    assertEquals("Sample " + i + ", " + j + ", " + k, expected, buffer[index++], epsilon);
+                }
+            }
+        }
+    }
+
+    private void assertMatchesScalar(Noise2D noise, double epsilon) {
+        int sizeX = 23;
+        int sizeY = 11;
+        double originX = 1000.25;
+        double originY = -17.5;
+        double stepX = 0.07;
+        double stepY = 0.31;
+        double[] buffer = new double[sizeX * sizeY];
+        NoiseGrid.sample(noise, buffer, originX, originY, stepX, stepY, sizeX, sizeY);
+
+        int index = 0;
+        for (int j = 0; j < sizeY; j++) {
+            for (int i = 0; i < sizeX; i++) {
+                double expected = noise.noise(originX + i * stepX, originY + j * stepY);
+                assertEquals("Sample " + i + ", " + j, expected, buffer[index++], epsilon);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void expiresInTimeOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule("c", 300);
+        wheel.schedule("a", 5);
+        wheel.schedule("b", 70);
+        List<TimingWheel.Entry<String>> expired = Lists.newArrayList();
+        wheel.advance(1000, expired);
+        assertEquals(3, expired.size());
+        assertEquals("a", expired.get(0).getValue());
+        assertEquals("b", expired.get(1).getValue());
+        assertEquals("c", expired.get(2).getValue());
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void expiresNothingEarly() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        TimingWheel.Entry<String> entry = wheel.schedule("a", 100);
+        List<TimingWheel.Entry<String>> expired = Lists.newArrayList();
+        wheel.advance(99, expired);
+        assertTrue(expired.isEmpty());
+        assertTrue(entry.isScheduled());
+        wheel.advance(100, expired);
+        assertEquals(1, expired.size());
+        assertFalse(entry.isScheduled());
+    }
+
+    @Test
+    public void sameTimeExpiresInScheduleOrder() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(0);
+        for (int i = 0; i < 10; ++i) {
+            wheel.schedule(i, 5000);
+        }
+        List<TimingWheel.Entry<Integer>> expired = Lists.newArrayList();
+        wheel.advance(5000, expired);
+        for (int i = 0; i < 10; ++i) {
+            assertEquals((Integer) i, expired.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void pastTimeExpiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        List<TimingWheel.Entry<String>> expired = Lists.newArrayList();
+        wheel.advance(500, expired);
+        wheel.schedule("a", 100);
+        wheel.advance(500, expired);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void cancelledEntryDoesNotExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        TimingWheel.Entry<String> entry = wheel.schedule("a", 100000);
+        wheel.schedule("b", 100001);
+        assertTrue(wheel.cancel(entry));
+        assertFalse(wheel.cancel(entry));
+        assertEquals(1, wheel.size());
+        List<TimingWheel.Entry<String>> expired = Lists.newArrayList();
+        wheel.advance(200000, expired);
+        assertEquals(1, expired.size());
+        assertEquals("b", expired.get(0).getValue());
+    }
+
+    @Test
+    public void entryBeyondWheelExpires() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000);
+        long farAway = 1000 + (1L << 40);
+        wheel.schedule("a", farAway);
+        List<TimingWheel.Entry<String>> expired = Lists.newArrayList();
+        wheel.advance(farAway - 1, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advance(farAway, expired);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void matchesSortedOrder() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(0);
+        List<Long> remaining = Lists.newArrayList();
+        List<TimingWheel.Entry<Long>> entries = Lists.newArrayList();
+        long time = 0;
+        for (int round = 0; round < 200; ++round) {
+            for (int i = 0; i < 50; ++i) {
+                long delay = (random.nextInt(4) == 0) ? random.nextInt(1 << 26) : random.nextInt(5000);
+                entries.add(wheel.schedule(time + delay, time + delay));
+                remaining.add(time + delay);
+            }
+            TimingWheel.Entry<Long> cancelled = entries.get(random.nextInt(entries.size()));
+            if (wheel.cancel(cancelled)) {
+                remaining.remove(cancelled.getValue());
+            }
+
+            time += random.nextInt(3000);
+            List<TimingWheel.Entry<Long>> expired = Lists.newArrayList();
+            wheel.advance(time, expired);
+            List<Long> expected = Lists.newArrayList();
+            for (Long value : remaining) {
+                if (value <= time) {
+                    expected.add(value);
+                }
+            }
+            remaining.removeAll(expected);
+            Collections.sort(expected);
+            List<Long> actual = Lists.newArrayList();
+            for (TimingWheel.Entry<Long> entry : expired) {
+                actual.add(entry.getValue());
+            }
+            assertEquals(expected, actual);
+            assertEquals(remaining.size(), wheel.size());
+        }
+    }
+}
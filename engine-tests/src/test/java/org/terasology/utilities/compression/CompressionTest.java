@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressionTest {
+
+    private static final int HEADER_SIZE = 6;
+
+    private static final CompressionCodec[] CODECS = {
+            new NoCompressionCodec(),
+            new Lz4Codec(),
+            new DeflateCodec(Deflater.BEST_SPEED),
+            new DeflateCodec(Deflater.BEST_COMPRESSION)
+    };
+
+    @Test
+    public void emptyDataRoundTrips() throws IOException {
+        for (CompressionCodec codec : CODECS) {
+            assertArrayEquals(new byte[0], Compression.decompress(Compression.compress(codec, new byte[0])));
+        }
+    }
+
+    @Test
+    public void randomDataRoundTrips() throws IOException {
+        FastRandom random = new FastRandom(1);
+        for (int length : new int[]{1, 5, 13, 100, 65536, 200000}) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; ++i) {
+                data[i] = (byte) random.nextInt(256);
+            }
+            for (CompressionCodec codec : CODECS) {
+                assertArrayEquals(data, Compression.decompress(Compression.compress(codec, data)));
+            }
+        }
+    }
+
+    @Test
+    public void repetitiveDataRoundTripsAndShrinks() throws IOException {
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) ((i % 300 < 200) ? 1 : i % 7);
+        }
+        for (CompressionCodec codec : CODECS) {
+            byte[] compressed = Compression.compress(codec, data);
+            if (codec.getType() != CompressionType.NONE) {
+                assertTrue(compressed.length < data.length / 10);
+            }
+            assertArrayEquals(data, Compression.decompress(compressed));
+        }
+    }
+
+    @Test
+    public void payloadRecordsType() {
+        for (CompressionCodec codec : CODECS) {
+            assertEquals(codec.getType(), Compression.getType(Compression.compress(codec, new byte[10])));
+        }
+    }
+
+    @Test
+    public void legacyGzipReadable() throws IOException {
+        byte[] data = "Some legacy chunk data".getBytes();
+        assertArrayEquals(data, Compression.decompress(Compression.gzip(data)));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedLz4Fails() throws IOException {
+        byte[] data = new byte[1000];
+        byte[] compressed = Compression.compress(new Lz4Codec(), data);
+        byte[] truncated = new byte[compressed.length - 3];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        Compression.decompress(truncated);
+    }
+
+    @Test
+    public void highlyCompressedDataIsWithinCodecBound() throws IOException {
+        byte[] data = new byte[1 << 20];
+        for (CompressionCodec codec : CODECS) {
+            byte[] compressed = Compression.compress(codec, data);
+            assertTrue(codec.getMaxUncompressedLength(compressed.length - HEADER_SIZE) >= data.length);
+            assertArrayEquals(data, Compression.decompress(compressed, data.length));
+        }
+    }
+
+    @Test
+    public void lengthOverLimitFails() {
+        byte[] data = new byte[1000];
+        for (CompressionCodec codec : CODECS) {
+            try {
+                Compression.decompress(Compression.compress(codec, data), data.length - 1);
+                fail("Expected " + codec.getType() + " payload over the limit to be rejected");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void forgedLengthFails() {
+        for (CompressionCodec codec : CODECS) {
+            byte[] payload = Compression.compress(codec, new byte[100]);
+            payload[2] = 0x7F;
+            payload[3] = (byte) 0xFF;
+            payload[4] = (byte) 0xFF;
+            payload[5] = (byte) 0xFF;
+            try {
+                Compression.decompress(payload, Integer.MAX_VALUE);
+                fail("Expected " + codec.getType() + " payload with a forged length to be rejected");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void legacyGzipOverLimitFails() throws IOException {
+        Compression.decompress(Compression.gzip(new byte[100000]), 99999);
+    }
+}
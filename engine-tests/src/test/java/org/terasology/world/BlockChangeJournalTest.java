@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.math.Vector3i;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockChangeJournalTest {
+
+    @Test
+    public void changesGroupedByChunk() {
+        BlockChangeJournal journal = new BlockChangeJournal();
+        journal.record(new Vector3i(1, 2, 3), (short) 0, (short) 1);
+        journal.record(new Vector3i(17, 2, 3), (short) 0, (short) 2);
+        journal.record(new Vector3i(4, 5, -6), (short) 3, (short) 0);
+        journal.record(new Vector3i(15, 200, 15), (short) 1, (short) 4);
+
+        assertEquals(4, journal.size());
+        List<BlockChangeJournal.ChunkChanges> chunks = Lists.newArrayList(journal.getChunkChanges());
+        assertEquals(3, chunks.size());
+        assertEquals(new Vector3i(0, 0, 0), chunks.get(0).getChunkPos());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(new Vector3i(1, 2, 3), chunks.get(0).getWorldPosition(0));
+        assertEquals(new Vector3i(15, 200, 15), chunks.get(0).getWorldPosition(1));
+        assertEquals(new Vector3i(1, 0, 0), chunks.get(1).getChunkPos());
+        assertEquals(2, chunks.get(1).getToId(0));
+        assertEquals(new Vector3i(0, 0, -1), chunks.get(2).getChunkPos());
+        assertEquals(10, chunks.get(2).getZ(0));
+        assertEquals(new Vector3i(4, 5, -6), chunks.get(2).getWorldPosition(0));
+    }
+
+    @Test
+    public void repeatedChangesKeepFirstFromAndLastTo() {
+        BlockChangeJournal journal = new BlockChangeJournal();
+        journal.record(7, 8, 9, (short) 1, (short) 2);
+        journal.record(7, 8, 9, (short) 2, (short) 3);
+
+        assertEquals(1, journal.size());
+        BlockChangeJournal.ChunkChanges changes = journal.getChunkChanges().iterator().next();
+        assertEquals(1, changes.getFromId(0));
+        assertEquals(3, changes.getToId(0));
+        assertFalse(changes.isReverted(0));
+
+        journal.record(7, 8, 9, (short) 3, (short) 1);
+        assertTrue(changes.isReverted(0));
+    }
+
+    @Test
+    public void clear() {
+        BlockChangeJournal journal = new BlockChangeJournal();
+        journal.record(7, 8, 9, (short) 1, (short) 2);
+        journal.clear();
+
+        assertTrue(journal.isEmpty());
+        assertTrue(journal.getChunkChanges().isEmpty());
+        journal.record(7, 8, 9, (short) 2, (short) 3);
+        assertEquals(2, journal.getChunkChanges().iterator().next().getFromId(0));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.block.Block;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BlockEditSetTest {
+
+    private Block stone = new Block();
+    private Block dirt = new Block();
+
+    @Test
+    public void editsGroupedByChunk() {
+        BlockEditSet edits = new BlockEditSet();
+        edits.set(new Vector3i(1, 2, 3), stone);
+        edits.set(new Vector3i(-1, 2, 3), dirt);
+        edits.set(new Vector3i(5, 6, 7), dirt);
+
+        assertEquals(3, edits.size());
+        List<BlockEditSet.ChunkEdits> chunks = Lists.newArrayList(edits.getChunkEdits());
+        assertEquals(2, chunks.size());
+        assertEquals(new Vector3i(0, 0, 0), chunks.get(0).getChunkPos());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(new Vector3i(1, 2, 3), chunks.get(0).getWorldPosition(0));
+        assertSame(stone, chunks.get(0).getBlock(0));
+        assertEquals(new Vector3i(5, 6, 7), chunks.get(0).getWorldPosition(1));
+        assertEquals(new Vector3i(-1, 0, 0), chunks.get(1).getChunkPos());
+        assertEquals(15, chunks.get(1).getX(0));
+        assertEquals(new Vector3i(-1, 2, 3), chunks.get(1).getWorldPosition(0));
+    }
+
+    @Test
+    public void lastSetWins() {
+        BlockEditSet edits = new BlockEditSet();
+        edits.set(4, 5, 6, stone);
+        edits.set(4, 5, 6, dirt);
+
+        assertEquals(1, edits.size());
+        assertSame(dirt, edits.getChunkEdits().iterator().next().getBlock(0));
+    }
+
+    @Test
+    public void positionsOutsideWorldHeightIgnored() {
+        BlockEditSet edits = new BlockEditSet();
+        edits.set(0, -1, 0, stone);
+        edits.set(0, 10000, 0, stone);
+
+        assertTrue(edits.isEmpty());
+        assertTrue(edits.getChunkEdits().isEmpty());
+    }
+
+    @Test
+    public void fillRegion() {
+        BlockEditSet edits = new BlockEditSet();
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(10, 20, -3), new Vector3i(10, 2, 6));
+        edits.fill(region, stone);
+
+        assertEquals(10 * 2 * 6, edits.size());
+        assertEquals(4, edits.getChunkEdits().size());
+        int count = 0;
+        for (BlockEditSet.ChunkEdits chunkEdits : edits.getChunkEdits()) {
+            for (int i = 0; i < chunkEdits.size(); ++i) {
+                assertTrue(region.encompasses(chunkEdits.getWorldPosition(i)));
+                count++;
+            }
+        }
+        assertEquals(edits.size(), count);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks;
+
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkRegionCursorTest {
+
+    @Test
+    public void regionWithinChunk() {
+        ChunkRegionCursor cursor = new ChunkRegionCursor(Region3i.createFromMinMax(new Vector3i(2, 3, 4), new Vector3i(5, 6, 7)));
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.getChunkX());
+        assertEquals(0, cursor.getChunkZ());
+        assertEquals(2, cursor.getLocalMinX());
+        assertEquals(3, cursor.getLocalMinY());
+        assertEquals(4, cursor.getLocalMinZ());
+        assertEquals(5, cursor.getLocalMaxX());
+        assertEquals(6, cursor.getLocalMaxY());
+        assertEquals(7, cursor.getLocalMaxZ());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void regionAcrossChunks() {
+        ChunkRegionCursor cursor = new ChunkRegionCursor(Region3i.createFromMinMax(new Vector3i(-2, 0, 14), new Vector3i(20, 0, 17)));
+
+        int[][] expected = {
+                {-1, 0, 14, 15, 14, 15}, {0, 0, 0, 15, 14, 15}, {1, 0, 0, 4, 14, 15},
+                {-1, 1, 14, 15, 0, 1}, {0, 1, 0, 15, 0, 1}, {1, 1, 0, 4, 0, 1}};
+        for (int[] chunk : expected) {
+            assertTrue(cursor.next());
+            assertEquals(chunk[0], cursor.getChunkX());
+            assertEquals(chunk[1], cursor.getChunkZ());
+            assertEquals(chunk[2], cursor.getLocalMinX());
+            assertEquals(chunk[3], cursor.getLocalMaxX());
+            assertEquals(chunk[4], cursor.getLocalMinZ());
+            assertEquals(chunk[5], cursor.getLocalMaxZ());
+        }
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void regionCutToWorldHeight() {
+        ChunkRegionCursor cursor = new ChunkRegionCursor(Region3i.createFromMinMax(new Vector3i(0, -10, 0), new Vector3i(0, ChunkConstants.SIZE_Y + 10, 0)));
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.getLocalMinY());
+        assertEquals(ChunkConstants.SIZE_Y - 1, cursor.getLocalMaxY());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void regionOutsideWorldHeight() {
+        ChunkRegionCursor cursor = new ChunkRegionCursor(Region3i.createFromMinMax(new Vector3i(0, -10, 0), new Vector3i(40, -1, 40)));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void emptyRegion() {
+        assertFalse(new ChunkRegionCursor(Region3i.EMPTY).next());
+    }
+}
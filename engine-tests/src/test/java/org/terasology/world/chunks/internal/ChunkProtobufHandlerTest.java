@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Vector3i;
+import org.terasology.protobuf.ChunksProtobuf;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.Chunks;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraArrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ChunkProtobufHandlerTest {
+
+    private ChunkImpl.ProtobufHandler handler = new ChunkImpl.ProtobufHandler();
+    private ChunkImpl chunk;
+
+    @Before
+    public void setup() {
+        Chunks c = Chunks.getInstance();
+        TeraArray blocks = c.getBlockDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        TeraArray liquid = TeraArrays.getInstance().getEntry(ChunksProtobuf.Type.SparseArray8Bit).factory
+                .create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        for (int x = 0; x < ChunkConstants.SIZE_X; ++x) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; ++z) {
+                for (int y = 0; y < 40 + x + z; ++y) {
+                    blocks.set(x, y, z, 1 + (x * 31 + y * 7 + z) % 300);
+                }
+                liquid.set(x, 30, z, 0x17);
+            }
+        }
+        chunk = new ChunkImpl(new Vector3i(3, 0, -7), ChunkImpl.State.INTERNAL_LIGHT_GENERATION_PENDING, blocks,
+                c.getSunlightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                c.getLightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                liquid, false);
+    }
+
+    @Test
+    public void streamedChunkMatchesMessage() {
+        assertArrayEquals(handler.encode(chunk, false).build().toByteArray(), handler.toByteArray(chunk, false, null));
+    }
+
+    @Test
+    public void streamedCoreChunkMatchesMessage() {
+        assertArrayEquals(handler.encode(chunk, true).build().toByteArray(), handler.toByteArray(chunk, true, null));
+    }
+
+    @Test
+    public void streamedChunkWithEntitiesMatchesMessage() {
+        EntityData.EntityStore entityStore = EntityData.EntityStore.newBuilder().addComponentClass("engine:location").build();
+        byte[] expected = handler.encode(chunk, false).setStore(entityStore).build().toByteArray();
+
+        assertArrayEquals(expected, handler.toByteArray(chunk, false, entityStore));
+    }
+
+    @Test
+    public void decodedChunkEncodesToSameBytes() throws Exception {
+        EntityData.EntityStore entityStore = EntityData.EntityStore.newBuilder().addComponentClass("engine:location").build();
+        byte[] data = handler.toByteArray(chunk, false, entityStore);
+
+        EntityData.EntityStore.Builder decodedStore = EntityData.EntityStore.newBuilder();
+        ChunkImpl decoded = handler.decode(data, decodedStore);
+
+        assertEquals(chunk.getPos(), decoded.getPos());
+        assertEquals(chunk.getChunkState(), decoded.getChunkState());
+        assertEquals(entityStore, decodedStore.build());
+        assertArrayEquals(data, handler.toByteArray(decoded, false, entityStore));
+    }
+
+    @Test
+    public void decodesMessageBytes() throws Exception {
+        byte[] data = handler.encode(chunk, true).build().toByteArray();
+
+        ChunkImpl decoded = handler.decode(data, null);
+
+        assertArrayEquals(data, handler.toByteArray(decoded, true, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodingWithoutBlockDataFails() throws Exception {
+        byte[] data = EntityData.ChunkStore.newBuilder().setX(1).setY(0).setZ(2).setState(EntityData.ChunkState.COMPLETE).build().toByteArray();
+        handler.decode(data, null);
+    }
+}
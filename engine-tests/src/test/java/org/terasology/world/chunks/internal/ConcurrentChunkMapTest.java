@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.math.Vector3i;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentChunkMapTest {
+
+    private ConcurrentChunkMap<String> map = new ConcurrentChunkMap<>();
+
+    @Test
+    public void packingRoundTrips() {
+        int[] values = {0, 1, -1, 12345, -12345, (1 << 26) - 1, -(1 << 26)};
+        int[] yValues = {0, 1, -1, 511, -512};
+        for (int x : values) {
+            for (int y : yValues) {
+                for (int z : values) {
+                    long key = ConcurrentChunkMap.packPosition(x, y, z);
+                    assertEquals(x, ConcurrentChunkMap.unpackX(key));
+                    assertEquals(y, ConcurrentChunkMap.unpackY(key));
+                    assertEquals(z, ConcurrentChunkMap.unpackZ(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyMap() {
+        assertTrue(map.isEmpty());
+        assertNull(map.get(new Vector3i(0, 0, 0)));
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    public void putAndGet() {
+        assertNull(map.put(new Vector3i(1, 0, -2), "a"));
+        assertEquals("a", map.get(new Vector3i(1, 0, -2)));
+        assertEquals("a", map.get(1, 0, -2));
+        assertNull(map.get(-2, 0, 1));
+        assertEquals(1, map.size());
+
+        assertEquals("a", map.put(new Vector3i(1, 0, -2), "b"));
+        assertEquals("b", map.get(1, 0, -2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void putIfAbsentKeepsExistingValue() {
+        assertNull(map.putIfAbsent(new Vector3i(3, 0, 3), "a"));
+        assertEquals("a", map.putIfAbsent(new Vector3i(3, 0, 3), "b"));
+        assertEquals("a", map.get(3, 0, 3));
+    }
+
+    @Test
+    public void remove() {
+        map.put(new Vector3i(1, 0, 1), "a");
+        map.put(new Vector3i(2, 0, 2), "b");
+        assertEquals("a", map.remove(new Vector3i(1, 0, 1)));
+        assertNull(map.get(1, 0, 1));
+        assertNull(map.remove(new Vector3i(1, 0, 1)));
+        assertEquals("b", map.get(2, 0, 2));
+        assertEquals(1, map.size());
+
+        map.put(new Vector3i(1, 0, 1), "c");
+        assertEquals("c", map.get(1, 0, 1));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void conditionalRemove() {
+        map.put(new Vector3i(1, 0, 1), "a");
+        assertFalse(map.remove(new Vector3i(1, 0, 1), "b"));
+        assertEquals("a", map.get(1, 0, 1));
+        assertTrue(map.remove(new Vector3i(1, 0, 1), "a"));
+        assertNull(map.get(1, 0, 1));
+    }
+
+    @Test
+    public void growsAndShrinks() {
+        for (int x = -100; x < 100; ++x) {
+            for (int z = -100; z < 100; ++z) {
+                map.put(new Vector3i(x, 0, z), x + "," + z);
+            }
+        }
+        assertEquals(40000, map.size());
+        for (int x = -100; x < 100; ++x) {
+            for (int z = -100; z < 100; ++z) {
+                assertEquals(x + "," + z, map.get(x, 0, z));
+            }
+        }
+        for (int x = -100; x < 100; ++x) {
+            for (int z = -100; z < 100; ++z) {
+                if (x != z) {
+                    map.remove(new Vector3i(x, 0, z));
+                }
+            }
+        }
+        assertEquals(200, map.size());
+        for (int i = 0; i < 10000; ++i) {
+            map.put(new Vector3i(i, 0, 1000), "x");
+            map.remove(new Vector3i(i, 0, 1000));
+        }
+        assertEquals(200, map.size());
+        for (int x = -100; x < 100; ++x) {
+            assertEquals(x + "," + x, map.get(x, 0, x));
+        }
+    }
+
+    @Test
+    public void iterateAndRemove() {
+        for (int i = 0; i < 100; ++i) {
+            map.put(new Vector3i(i, 0, 0), Integer.toString(i));
+        }
+        Set<String> seen = Sets.newHashSet();
+        Iterator<String> iterator = map.values().iterator();
+        while (iterator.hasNext()) {
+            String value = iterator.next();
+            seen.add(value);
+            if (Integer.parseInt(value) % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(100, seen.size());
+        assertEquals(50, map.size());
+        for (String value : map.values()) {
+            assertEquals(1, Integer.parseInt(value) % 2);
+        }
+    }
+
+    @Test
+    public void clear() {
+        map.put(new Vector3i(1, 0, 1), "a");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1, 0, 1));
+    }
+}
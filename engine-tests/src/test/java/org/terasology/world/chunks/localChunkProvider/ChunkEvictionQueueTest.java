@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.NullWorldAtlas;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkEvictionQueueTest extends TerasologyTestingEnvironment {
+
+    private List<ChunkImpl> chunks = Lists.newArrayList();
+    private List<ChunkImpl> unloaded = Lists.newArrayList();
+    private int chunkBytes;
+
+    private Predicate<ChunkImpl> unloader = new Predicate<ChunkImpl>() {
+        @Override
+        public boolean apply(ChunkImpl chunk) {
+            unloaded.add(chunk);
+            return true;
+        }
+    };
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        CoreRegistry.put(BlockManager.class, new BlockManagerImpl(new NullWorldAtlas(), new DefaultBlockFamilyFactoryRegistry()));
+        for (int i = 0; i < 10; ++i) {
+            chunks.add(new ChunkImpl(new Vector3i(i, 0, 0)));
+        }
+        chunkBytes = chunks.get(0).getEstimatedMemoryConsumptionInBytes();
+    }
+
+    @Test
+    public void tracksMemoryOfQueuedChunks() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(Long.MAX_VALUE);
+        queue.add(chunks.get(0));
+        queue.add(chunks.get(1));
+        queue.add(chunks.get(1));
+        assertEquals(2, queue.size());
+        assertEquals(2L * chunkBytes, queue.getBytes());
+
+        assertTrue(queue.remove(new Vector3i(0, 0, 0)));
+        assertFalse(queue.remove(new Vector3i(0, 0, 0)));
+        assertEquals(1, queue.size());
+        assertEquals(chunkBytes, queue.getBytes());
+        assertEquals(1, queue.getWarmHits());
+    }
+
+    @Test
+    public void withinBudgetNothingIsEvicted() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(10L * chunkBytes);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        assertFalse(queue.isOverBudget());
+        assertEquals(0, queue.evict(unloader, 100, false));
+        assertTrue(unloaded.isEmpty());
+    }
+
+    @Test
+    public void evictsOldestUntilWithinBudget() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(7L * chunkBytes);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        assertEquals(3, queue.evict(unloader, 100, false));
+        assertEquals(chunks.subList(0, 3), unloaded);
+        assertFalse(queue.isOverBudget());
+        assertEquals(3, queue.getEvictions());
+    }
+
+    @Test
+    public void recentlyReturnedChunksAreNotEvicted() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(8L * chunkBytes);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        queue.remove(new Vector3i(0, 0, 0));
+        assertEquals(1, queue.evict(unloader, 100, false));
+        assertEquals(chunks.subList(1, 2), unloaded);
+    }
+
+    @Test
+    public void evictionIsBoundedPerCall() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(0);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        assertEquals(4, queue.evict(unloader, 4, false));
+        assertEquals(6, queue.size());
+        assertEquals(4, queue.evict(unloader, 4, false));
+        assertEquals(2, queue.evict(unloader, 4, false));
+        assertTrue(queue.isEmpty());
+        assertEquals(chunks, unloaded);
+    }
+
+    @Test
+    public void chunksInUseAreSkipped() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(0);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        assertEquals(0, queue.evict(Predicates.<ChunkImpl>alwaysFalse(), 4, false));
+        assertEquals(10, queue.size());
+        assertEquals(10L * chunkBytes, queue.getBytes());
+    }
+
+    @Test
+    public void drainEvictsRegardlessOfBudget() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(Long.MAX_VALUE);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        assertEquals(10, queue.evict(unloader, 100, true));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getBytes());
+    }
+
+    @Test
+    public void removeAllTakesRelevantChunksOffTheQueue() {
+        ChunkEvictionQueue queue = new ChunkEvictionQueue(Long.MAX_VALUE);
+        for (ChunkImpl chunk : chunks) {
+            queue.add(chunk);
+        }
+        queue.removeAll(new Predicate<ChunkImpl>() {
+            @Override
+            public boolean apply(ChunkImpl chunk) {
+                return chunk.getPos().x < 5;
+            }
+        });
+        assertEquals(5, queue.size());
+        assertEquals(5, queue.getWarmHits());
+        queue.evict(unloader, 100, true);
+        assertEquals(chunks.subList(5, 10), unloaded);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.monitoring.ChunkMonitor;
+
+import javax.vecmath.Vector3f;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkPrefetcherTest {
+
+    private static final Vector3i EXTENTS = new Vector3i(4, 0, 4);
+
+    private ChunkPrefetcher prefetcher = new ChunkPrefetcher();
+    private Predicate<Vector3i> neverReady = Predicates.alwaysFalse();
+
+    @Test
+    public void nothingPrefetchedWhenStationary() {
+        moveFor(0, 0, 0, 0, 0, 1000, neverReady);
+        assertTrue(prefetcher.getRegion().isEmpty());
+        assertEquals(0, prefetcher.getPendingCount());
+    }
+
+    @Test
+    public void nothingPrefetchedWhenSlow() {
+        moveFor(0, 0, 4, 0, 0, 1000, neverReady);
+        assertTrue(prefetcher.getRegion().isEmpty());
+    }
+
+    @Test
+    public void prefetchesAlongHeading() {
+        moveFor(0, 0, 16, 0, 0, 1000, neverReady);
+        assertEquals(new Vector3i(3, 0, 0), prefetcher.getHeading());
+        assertEquals(relevanceRegionAround(new Vector3f(16, 0, 0)).move(new Vector3i(3, 0, 0)), prefetcher.getRegion());
+        // Only the chunks beyond the relevance region are tracked
+        assertEquals(3 * 9, prefetcher.getPendingCount());
+    }
+
+    @Test
+    public void headingLimitedToHalfTheRelevanceRegion() {
+        moveFor(0, 0, 0, 0, -200, 1000, neverReady);
+        assertEquals(new Vector3i(0, 0, -4), prefetcher.getHeading());
+    }
+
+    @Test
+    public void teleportRestartsHistory() {
+        moveFor(0, 0, 16, 0, 0, 1000, neverReady);
+        assertFalse(prefetcher.getRegion().isEmpty());
+        prefetcher.update(new Vector3f(100000, 0, 0), 1100, relevanceRegionAround(new Vector3f(100000, 0, 0)), neverReady);
+        assertTrue(prefetcher.getRegion().isEmpty());
+    }
+
+    @Test
+    public void headingChangeCancelsUnreadyChunks() {
+        long cancelledBefore = ChunkMonitor.getPrefetchCancellations();
+        moveFor(0, 0, 16, 0, 0, 1000, neverReady);
+        Region3i oldRegion = prefetcher.getRegion();
+        // Turning to head along -z
+        moveFor(1100, 16, 0, 0, -16, 2000, neverReady);
+        assertFalse(oldRegion.equals(prefetcher.getRegion()));
+        assertTrue(ChunkMonitor.getPrefetchCancellations() > cancelledBefore);
+    }
+
+    @Test
+    public void readyPrefetchedChunksAreHits() {
+        final Set<Vector3i> ready = Sets.newHashSet();
+        Predicate<Vector3i> isReady = new Predicate<Vector3i>() {
+            @Override
+            public boolean apply(Vector3i input) {
+                return ready.contains(input);
+            }
+        };
+        for (Vector3i pos : relevanceRegionAround(new Vector3f(0, 0, 0))) {
+            ready.add(pos);
+        }
+        moveFor(0, 0, 12, 0, 0, 1000, isReady);
+        for (Vector3i pos : prefetcher.getRegion()) {
+            ready.add(pos);
+        }
+        long hitsBefore = ChunkMonitor.getPrefetchHits();
+        long missesBefore = ChunkMonitor.getPrefetchMisses();
+        moveFor(1100, 12, 12, 0, 0, 1500, isReady);
+        assertEquals(9, ChunkMonitor.getPrefetchHits() - hitsBefore);
+        assertEquals(0, ChunkMonitor.getPrefetchMisses() - missesBefore);
+    }
+
+    @Test
+    public void unreadyChunksEnteringRelevanceAreMisses() {
+        moveFor(0, 0, 12, 0, 0, 1000, neverReady);
+        long missesBefore = ChunkMonitor.getPrefetchMisses();
+        moveFor(1100, 12, 12, 0, 0, 1500, neverReady);
+        assertEquals(9, ChunkMonitor.getPrefetchMisses() - missesBefore);
+    }
+
+    /**
+     * Updates the prefetcher every frame while moving in a straight line from (startX, 0, startZ).
+     */
+    private void moveFor(long startTime, float startX, float velocityX, float startZ, float velocityZ, long endTime,
+                         Predicate<Vector3i> ready) {
+        for (long time = startTime; time <= endTime; time += 20) {
+            float seconds = (time - startTime) / 1000.0f;
+            Vector3f pos = new Vector3f(startX + velocityX * seconds, 0, startZ + velocityZ * seconds);
+            prefetcher.update(pos, time, relevanceRegionAround(pos), ready);
+        }
+    }
+
+    private Region3i relevanceRegionAround(Vector3f worldPos) {
+        Vector3i center = new Vector3i(worldPos.x / 16, 0, worldPos.z / 16);
+        return Region3i.createFromCenterExtents(center, EXTENTS);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Charsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.persistence.StorageManager;
+import org.terasology.world.chunks.pipeline.ChunkPipelineStatistics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorldPregeneratorTest {
+
+    private LocalChunkProvider chunkProvider;
+    private StorageManager storageManager;
+    private Path progressFile;
+
+    @Before
+    public void setup() throws IOException {
+        chunkProvider = mock(LocalChunkProvider.class);
+        when(chunkProvider.getPipelineStatistics()).thenReturn(new ChunkPipelineStatistics());
+        when(chunkProvider.isChunkAvailable(any(Vector3i.class))).thenReturn(true);
+        storageManager = mock(StorageManager.class);
+        progressFile = Files.createTempFile("pregeneration", ".txt");
+        Files.delete(progressFile);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(progressFile);
+    }
+
+    @Test
+    public void squareRoundedOutToTiles() throws IOException {
+        WorldPregenerator pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 1, progressFile);
+        // -1 and 1 are in different tiles on both axes
+        assertEquals(4, pregenerator.getTotalTiles());
+
+        pregenerator = new WorldPregenerator(chunkProvider, storageManager, new Vector3i(3, 0, 3), 3, progressFile);
+        assertEquals(1, pregenerator.getTotalTiles());
+    }
+
+    @Test
+    public void generatesAndRecordsAllTiles() throws IOException {
+        WorldPregenerator pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 8, progressFile);
+        assertEquals(9, pregenerator.getTotalTiles());
+        runToCompletion(pregenerator);
+
+        assertEquals(9, pregenerator.getStoredTiles());
+        verify(chunkProvider, times(9)).pinRegion(any(Region3i.class));
+        verify(chunkProvider, times(9)).unpinRegion(any(Region3i.class));
+        verify(storageManager, times(1)).flush();
+        assertEquals(9, Files.readAllLines(progressFile, Charsets.UTF_8).size());
+    }
+
+    @Test
+    public void resumesFromProgressFile() throws IOException {
+        runToCompletion(new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 1, progressFile));
+        verify(chunkProvider, times(4)).pinRegion(any(Region3i.class));
+
+        WorldPregenerator larger = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 8, progressFile);
+        assertEquals(4, larger.getStoredTiles());
+        runToCompletion(larger);
+        verify(chunkProvider, times(9)).pinRegion(any(Region3i.class));
+        assertEquals(9, larger.getStoredTiles());
+    }
+
+    @Test
+    public void waitsForChunksToBeUnloaded() throws IOException {
+        when(chunkProvider.isChunkLoaded(any(Vector3i.class))).thenReturn(true);
+        WorldPregenerator pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 1, progressFile);
+        for (int i = 0; i < 10; ++i) {
+            assertFalse(pregenerator.update());
+        }
+        verify(chunkProvider, times(4)).unpinRegion(any(Region3i.class));
+        verify(storageManager, never()).flush();
+
+        when(chunkProvider.isChunkLoaded(any(Vector3i.class))).thenReturn(false);
+        assertTrue(pregenerator.update());
+        assertEquals(4, pregenerator.getStoredTiles());
+    }
+
+    @Test
+    public void chunksKeptForPlayersAreNotRecorded() throws IOException {
+        when(chunkProvider.isChunkLoaded(any(Vector3i.class))).thenReturn(true);
+        when(chunkProvider.isChunkKeptForRelevanceEntity(any(Vector3i.class))).thenReturn(true);
+        WorldPregenerator pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 1, progressFile);
+        runToCompletion(pregenerator);
+        assertEquals(0, pregenerator.getStoredTiles());
+        assertEquals(4, pregenerator.getKeptTiles());
+        verify(storageManager, never()).flush();
+        assertFalse(Files.exists(progressFile));
+    }
+
+    @Test
+    public void onlyTilesWithAllChunksUnloadedAreRecorded() throws IOException {
+        Vector3i keptChunk = new Vector3i(-1, 0, -1);
+        when(chunkProvider.isChunkLoaded(keptChunk)).thenReturn(true);
+        when(chunkProvider.isChunkKeptForRelevanceEntity(keptChunk)).thenReturn(true);
+        WorldPregenerator pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), 1, progressFile);
+        runToCompletion(pregenerator);
+        assertEquals(3, pregenerator.getStoredTiles());
+        assertEquals(1, pregenerator.getKeptTiles());
+        List<String> recorded = Files.readAllLines(progressFile, Charsets.UTF_8);
+        assertEquals(3, recorded.size());
+        assertFalse(recorded.contains("-1 -1"));
+    }
+
+    private void runToCompletion(WorldPregenerator pregenerator) throws IOException {
+        for (int i = 0; i < 100; ++i) {
+            if (pregenerator.update()) {
+                return;
+            }
+        }
+        throw new AssertionError("Pregeneration did not complete");
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.math.Side;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.NullWorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.light.InternalLightProcessor;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.LightWorldView;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+import org.terasology.world.propagation.light.SunlightWorldView;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChunkLightingStageTest extends TerasologyTestingEnvironment {
+
+    private static final int WORLD_CHUNKS = 5;
+
+    private final ChunkLightingStage.RoundPlanner planner = new ChunkLightingStage.RoundPlanner();
+
+    @Test
+    public void distantEdgesShareRound() {
+        assertEquals(0, planner.plan(new Vector3i(0, 0, 0), new Vector3i(1, 0, 0)));
+        assertEquals(0, planner.plan(new Vector3i(4, 0, 0), new Vector3i(5, 0, 0)));
+        assertEquals(0, planner.plan(new Vector3i(0, 0, 3), new Vector3i(0, 0, 4)));
+    }
+
+    @Test
+    public void edgesSharingChunksAreSeparated() {
+        assertEquals(0, planner.plan(new Vector3i(0, 0, 0), new Vector3i(1, 0, 0)));
+        // Shares neighbouring chunks with the first edge
+        assertEquals(1, planner.plan(new Vector3i(3, 0, 0), new Vector3i(4, 0, 0)));
+        assertEquals(1, planner.plan(new Vector3i(0, 0, -1), new Vector3i(0, 0, 0)));
+    }
+
+    @Test
+    public void edgeComesAfterEveryEarlierEdgeItTouches() {
+        assertEquals(0, planner.plan(new Vector3i(0, 0, 0), new Vector3i(1, 0, 0)));
+        assertEquals(1, planner.plan(new Vector3i(1, 0, 0), new Vector3i(2, 0, 0)));
+        assertEquals(0, planner.plan(new Vector3i(10, 0, 0), new Vector3i(11, 0, 0)));
+        assertEquals(2, planner.plan(new Vector3i(2, 0, 0), new Vector3i(3, 0, 0)));
+        // Touches the edges of rounds 1 and 2, so must come after both
+        assertEquals(3, planner.plan(new Vector3i(4, 0, 0), new Vector3i(5, 0, 0)));
+        assertEquals(1, planner.plan(new Vector3i(8, 0, 0), new Vector3i(9, 0, 0)));
+    }
+
+    @Test
+    public void parallelLightingMatchesSerial() {
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), new DefaultBlockFamilyFactoryRegistry());
+        CoreRegistry.put(BlockManager.class, blockManager);
+        Block stone = new Block();
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:stone"), stone), true);
+        Block torch = new Block();
+        torch.setTranslucent(true);
+        torch.setLuminance(ChunkConstants.MAX_LIGHT);
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:torch"), torch), true);
+        stone = blockManager.getBlock("engine:stone");
+        torch = blockManager.getBlock("engine:torch");
+
+        Map<Vector3i, ChunkImpl> parallelWorld = createWorld(stone, torch);
+        Map<Vector3i, ChunkImpl> serialWorld = createWorld(stone, torch);
+        Map<Vector3i, ChunkImpl> unlitWorld = createWorld(stone, torch);
+
+        ChunkLightingStage stage = new ChunkLightingStage(createProvider(parallelWorld), 4);
+        try {
+            stage.lightEdges(parallelWorld.values());
+        } finally {
+            stage.shutdown();
+        }
+
+        ChunkProvider serialProvider = createProvider(serialWorld);
+        BatchPropagator lightPropagator = new BatchPropagator(new LightPropagationRules(), new LightWorldView(serialProvider));
+        BatchPropagator sunlightPropagator = new BatchPropagator(new SunlightPropagationRules(), new SunlightWorldView(serialProvider));
+        for (ChunkImpl chunk : serialWorld.values()) {
+            for (Side side : Side.horizontalSides()) {
+                ChunkImpl adjChunk = serialWorld.get(side.getAdjacentPos(chunk.getPos()));
+                if (adjChunk != null) {
+                    lightPropagator.propagateBetween(chunk, adjChunk, side);
+                    sunlightPropagator.propagateBetween(chunk, adjChunk, side);
+                }
+            }
+        }
+        lightPropagator.process();
+        sunlightPropagator.process();
+
+        int litByEdges = 0;
+        for (Map.Entry<Vector3i, ChunkImpl> entry : parallelWorld.entrySet()) {
+            ChunkImpl chunk = entry.getValue();
+            ChunkImpl serialChunk = serialWorld.get(entry.getKey());
+            ChunkImpl unlitChunk = unlitWorld.get(entry.getKey());
+            for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
+                assertEquals("Light at " + chunk.getBlockWorldPos(pos), serialChunk.getLight(pos), chunk.getLight(pos));
+                assertEquals("Sunlight at " + chunk.getBlockWorldPos(pos), serialChunk.getSunlight(pos), chunk.getSunlight(pos));
+                if (chunk.getLight(pos) != unlitChunk.getLight(pos) || chunk.getSunlight(pos) != unlitChunk.getSunlight(pos)) {
+                    litByEdges++;
+                }
+            }
+        }
+        assertTrue(litByEdges > 0);
+    }
+
+    /**
+     * Creates a square of chunks with uneven stone terrain, overhangs that sunlight has to reach under from the sides,
+     * and torches, with only the lighting within each chunk done. The same world is created every time.
+     */
+    private Map<Vector3i, ChunkImpl> createWorld(Block stone, Block torch) {
+        Random random = new Random(42);
+        Map<Vector3i, ChunkImpl> world = Maps.newHashMap();
+        for (int chunkX = 0; chunkX < WORLD_CHUNKS; ++chunkX) {
+            for (int chunkZ = 0; chunkZ < WORLD_CHUNKS; ++chunkZ) {
+                ChunkImpl chunk = new ChunkImpl(chunkX, 0, chunkZ);
+                for (int x = 0; x < ChunkConstants.SIZE_X; ++x) {
+                    for (int z = 0; z < ChunkConstants.SIZE_Z; ++z) {
+                        int height = 40 + random.nextInt(8);
+                        for (int y = 0; y < height; ++y) {
+                            chunk.setBlock(x, y, z, stone);
+                        }
+                        if (random.nextInt(3) == 0) {
+                            chunk.setBlock(x, height + 6, z, stone);
+                        }
+                        if (random.nextInt(40) == 0) {
+                            chunk.setBlock(x, height, z, torch);
+                        }
+                    }
+                }
+                InternalLightProcessor.generateInternalLighting(chunk);
+                world.put(chunk.getPos(), chunk);
+            }
+        }
+        return world;
+    }
+
+    private ChunkProvider createProvider(final Map<Vector3i, ChunkImpl> world) {
+        ChunkProvider provider = mock(ChunkProvider.class);
+        when(provider.getChunk(any(Vector3i.class))).thenAnswer(new Answer<ChunkImpl>() {
+            @Override
+            public ChunkImpl answer(InvocationOnMock invocation) {
+                return world.get(invocation.getArguments()[0]);
+            }
+        });
+        when(provider.getChunk(anyInt(), anyInt(), anyInt())).thenAnswer(new Answer<ChunkImpl>() {
+            @Override
+            public ChunkImpl answer(InvocationOnMock invocation) {
+                Object[] args = invocation.getArguments();
+                return world.get(new Vector3i((Integer) args[0], (Integer) args[1], (Integer) args[2]));
+            }
+        });
+        return provider;
+    }
+}
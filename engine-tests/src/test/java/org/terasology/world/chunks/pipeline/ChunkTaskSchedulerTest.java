@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ChunkTaskSchedulerTest {
+
+    private ChunkTaskScheduler scheduler;
+    private volatile int relevantUpTo = Integer.MAX_VALUE;
+
+    private final List<Integer> runOrder = Collections.synchronizedList(Lists.<Integer>newArrayList());
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    private final ChunkTaskPrioritizer prioritizer = new ChunkTaskPrioritizer() {
+        @Override
+        public int getPriority(Vector3i chunkPos) {
+            return (chunkPos.x <= relevantUpTo) ? Math.abs(chunkPos.x) : IRRELEVANT;
+        }
+    };
+
+    @After
+    public void teardown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void runsAllTasks() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 4, prioritizer);
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; ++i) {
+            scheduler.submit(new TestTask(i, done));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1000, runOrder.size());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    public void runsMostUrgentTaskFirst() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 1, prioritizer);
+        CountDownLatch blocker = blockWorker();
+        CountDownLatch done = new CountDownLatch(5);
+        for (int x : new int[]{3, -1, 4, 0, 2}) {
+            scheduler.submit(new TestTask(x, done));
+        }
+        blocker.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList(0, -1, 2, 3, 4), runOrder);
+    }
+
+    @Test
+    public void reprioritizeCancelsIrrelevantTasks() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 1, prioritizer);
+        CountDownLatch blocker = blockWorker();
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 10; ++i) {
+            scheduler.submit(new TestTask(i, done));
+        }
+        relevantUpTo = 4;
+        scheduler.reprioritize();
+        assertEquals(5, cancelled.get());
+
+        blocker.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList(0, 1, 2, 3, 4), runOrder);
+    }
+
+    @Test
+    public void cancelledChunkStagesRequestReview() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 1, prioritizer);
+        ChunkGenerationPipeline pipeline = mock(ChunkGenerationPipeline.class);
+        CountDownLatch blocker = blockWorker();
+        scheduler.submit(new SecondPassChunkTask(pipeline, new Vector3i(5, 0, 0), null));
+        scheduler.submit(new InternalLightingChunkTask(pipeline, new Vector3i(6, 0, 0), null));
+        relevantUpTo = 4;
+        scheduler.reprioritize();
+        blocker.countDown();
+
+        verify(pipeline).requestReview(Region3i.createFromMinAndSize(new Vector3i(5, 0, 0), Vector3i.one()));
+        verify(pipeline).requestReview(Region3i.createFromMinAndSize(new Vector3i(6, 0, 0), Vector3i.one()));
+    }
+
+    @Test
+    public void reprioritizeReordersTasks() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 1, prioritizer);
+        CountDownLatch blocker = blockWorker();
+        CountDownLatch done = new CountDownLatch(3);
+        // Submitted while irrelevant, so they all score the same and would run in submission order
+        relevantUpTo = -1;
+        scheduler.submit(new TestTask(2, done));
+        scheduler.submit(new TestTask(1, done));
+        scheduler.submit(new TestTask(0, done));
+        relevantUpTo = Integer.MAX_VALUE;
+        scheduler.reprioritize();
+
+        blocker.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList(0, 1, 2), runOrder);
+    }
+
+    @Test
+    public void shutdownCancelsQueuedTasks() throws Exception {
+        scheduler = new ChunkTaskScheduler("Test", 1, prioritizer);
+        CountDownLatch blocker = blockWorker();
+        for (int i = 0; i < 10; ++i) {
+            scheduler.submit(new TestTask(i, new CountDownLatch(1)));
+        }
+        blocker.countDown();
+        scheduler.shutdown();
+        assertEquals(10, runOrder.size() + cancelled.get());
+
+        scheduler.submit(new TestTask(11, new CountDownLatch(1)));
+        assertEquals(11, runOrder.size() + cancelled.get());
+    }
+
+    /**
+     * Occupies the worker of a single threaded scheduler until the returned latch is released
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        scheduler.submit(new AbstractChunkTask(null, new Vector3i(0, 0, 0), null) {
+            @Override
+            public String getName() {
+                return "Blocker";
+            }
+
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private class TestTask extends AbstractChunkTask {
+        private final int id;
+        private final CountDownLatch done;
+
+        public TestTask(int id, CountDownLatch done) {
+            super(null, new Vector3i(id, 0, 0), null);
+            this.id = id;
+            this.done = done;
+        }
+
+        @Override
+        public String getName() {
+            return "Test " + id;
+        }
+
+        @Override
+        public void run() {
+            runOrder.add(id);
+            done.countDown();
+        }
+
+        @Override
+        public void onCancelled() {
+            cancelled.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.internal;
+
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class BlockEntityIndexTest {
+
+    private BlockEntityIndex index = new BlockEntityIndex();
+    private EntityRef entityA = mock(EntityRef.class);
+    private EntityRef entityB = mock(EntityRef.class);
+
+    @Test
+    public void blockEntities() {
+        assertNull(index.putBlockEntity(new Vector3i(1, 2, 3), entityA));
+        assertNull(index.putBlockEntity(new Vector3i(-1, 2, 3), entityB));
+
+        assertSame(entityA, index.getBlockEntity(1, 2, 3));
+        assertSame(entityB, index.getBlockEntity(new Vector3i(-1, 2, 3)));
+        assertNull(index.getBlockEntity(1, 3, 3));
+        assertNull(index.getBlockEntity(17, 2, 3));
+        assertEquals(2, index.getBlockEntityCount());
+
+        assertSame(entityA, index.putBlockEntity(new Vector3i(1, 2, 3), entityB));
+        assertEquals(2, index.getBlockEntityCount());
+    }
+
+    @Test
+    public void removeBlockEntityOnlyIfCurrent() {
+        index.putBlockEntity(new Vector3i(1, 2, 3), entityA);
+
+        assertFalse(index.removeBlockEntity(new Vector3i(1, 2, 3), entityB));
+        assertSame(entityA, index.getBlockEntity(1, 2, 3));
+        assertTrue(index.removeBlockEntity(new Vector3i(1, 2, 3), entityA));
+        assertNull(index.getBlockEntity(1, 2, 3));
+        assertEquals(0, index.getBlockEntityCount());
+    }
+
+    @Test
+    public void removeBlockEntityLeavesRestOfChunk() {
+        index.putBlockEntity(new Vector3i(0, 2, 0), entityA);
+        index.putBlockEntity(new Vector3i(15, 200, 15), entityB);
+        index.putBlockEntity(new Vector3i(16, 2, 3), entityB);
+
+        assertTrue(index.removeBlockEntity(new Vector3i(15, 200, 15), entityB));
+        assertSame(entityA, index.getBlockEntity(0, 2, 0));
+        assertNull(index.getBlockEntity(15, 200, 15));
+        assertSame(entityB, index.getBlockEntity(16, 2, 3));
+        assertEquals(2, index.getBlockEntityCount());
+    }
+
+    @Test
+    public void regionsAcrossChunks() {
+        index.putRegion(entityA, Region3i.createFromMinMax(new Vector3i(-2, 10, 14), new Vector3i(20, 12, 17)));
+
+        assertSame(entityA, index.getRegionEntity(-2, 10, 14));
+        assertSame(entityA, index.getRegionEntity(20, 12, 17));
+        assertSame(entityA, index.getRegionEntity(new Vector3i(5, 11, 16)));
+        assertNull(index.getRegionEntity(5, 13, 16));
+        assertNull(index.getRegionEntity(21, 12, 17));
+        assertNull(index.getBlockEntity(5, 11, 16));
+    }
+
+    @Test
+    public void laterRegionWinsWhereRegionsOverlap() {
+        index.putRegion(entityA, Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(4, 4, 4)));
+        index.putRegion(entityB, Region3i.createFromMinMax(new Vector3i(2, 2, 2), new Vector3i(6, 6, 6)));
+
+        assertSame(entityA, index.getRegionEntity(1, 1, 1));
+        assertSame(entityB, index.getRegionEntity(3, 3, 3));
+
+        index.removeRegion(entityB);
+        assertSame(entityA, index.getRegionEntity(3, 3, 3));
+        assertNull(index.getRegionEntity(5, 5, 5));
+        assertEquals(1, index.getRegionCount());
+    }
+
+    @Test
+    public void changeRegion() {
+        index.putRegion(entityA, Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(4, 4, 4)));
+        index.putRegion(entityA, Region3i.createFromMinMax(new Vector3i(30, 0, 30), new Vector3i(34, 4, 34)));
+
+        assertNull(index.getRegionEntity(1, 1, 1));
+        assertSame(entityA, index.getRegionEntity(31, 1, 31));
+        assertEquals(1, index.getRegionCount());
+    }
+}
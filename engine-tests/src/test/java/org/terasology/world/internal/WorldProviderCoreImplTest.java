@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.BlockChangeJournal;
+import org.terasology.world.BlockEditSet;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.NullWorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.GeneratingChunkProvider;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WorldProviderCoreImplTest extends TerasologyTestingEnvironment {
+
+    private static final Vector3i UNLOADED_CHUNK = new Vector3i(-1, 0, 0);
+
+    private Block air;
+    private Block stone;
+    private Block dirt;
+
+    @Before
+    @Override
+    public void setup() throws Exception {
+        super.setup();
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), new DefaultBlockFamilyFactoryRegistry());
+        CoreRegistry.put(BlockManager.class, blockManager);
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:stone"), new Block()), true);
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:dirt"), new Block()), true);
+        air = BlockManager.getAir();
+        stone = blockManager.getBlock("engine:stone");
+        dirt = blockManager.getBlock("engine:dirt");
+    }
+
+    @Test
+    public void getBlocksMatchesGetBlock() {
+        Map<Vector3i, ChunkImpl> chunks = createWorld();
+        WorldProviderCoreImpl world = createProvider(chunks);
+        // Spans three chunks each way on negative coordinates, including the unloaded one, and goes past the world's top
+        Region3i region = Region3i.createFromMinMax(new Vector3i(-27, ChunkConstants.SIZE_Y - 3, -20), new Vector3i(5, ChunkConstants.SIZE_Y + 1, 3));
+        Vector3i min = region.min();
+        Vector3i size = region.size();
+        short[] result = new short[size.x * size.y * size.z];
+
+        assertFalse(world.getBlocks(region, result));
+        for (Vector3i pos : region) {
+            int index = ((pos.y - min.y) * size.z + pos.z - min.z) * size.x + pos.x - min.x;
+            assertEquals("Block at " + pos, getExpectedId(chunks, pos), result[index]);
+        }
+    }
+
+    @Test
+    public void getBlocksCompleteWhenAllChunksLoaded() {
+        Map<Vector3i, ChunkImpl> chunks = createWorld();
+        WorldProviderCoreImpl world = createProvider(chunks);
+        Region3i region = Region3i.createFromMinMax(new Vector3i(-20, 4, -20), new Vector3i(-17, 6, 15));
+        Vector3i size = region.size();
+        short[] result = new short[size.x * size.y * size.z];
+
+        assertTrue(world.getBlocks(region, result));
+        int index = 0;
+        for (int y = region.min().y; y <= region.max().y; ++y) {
+            for (int z = region.min().z; z <= region.max().z; ++z) {
+                for (int x = region.min().x; x <= region.max().x; ++x) {
+                    assertEquals(world.getBlock(x, y, z).getId(), result[index++]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void setBlocksMatchesSetBlock() {
+        Map<Vector3i, ChunkImpl> batchChunks = createWorld();
+        Map<Vector3i, ChunkImpl> singleChunks = createWorld();
+        WorldProviderCoreImpl batchWorld = createProvider(batchChunks);
+        WorldProviderCoreImpl singleWorld = createProvider(singleChunks);
+        for (ChunkImpl chunk : batchChunks.values()) {
+            chunk.setDirty(false);
+        }
+        for (ChunkImpl chunk : singleChunks.values()) {
+            chunk.setDirty(false);
+        }
+
+        BlockEditSet edits = new BlockEditSet();
+        // Corner of chunk (-2, -2), bordering three chunks
+        edits.set(-17, 10, -17, dirt);
+        // Middle of chunk (-2, -1), dirtying no other chunk
+        edits.set(-24, 10, -8, dirt);
+        // Edge of chunk (0, -1), bordering chunk (-1, -1)
+        edits.set(0, 10, -4, dirt);
+        // In the unloaded chunk
+        edits.set(-3, 10, 4, dirt);
+        // The block already there, so not a change
+        Vector3i unchanged = new Vector3i(-9, 20, -9);
+        edits.set(unchanged, batchWorld.getBlock(unchanged.x, unchanged.y, unchanged.z));
+
+        Map<Vector3i, Block> oldBlocks = batchWorld.setBlocks(edits);
+
+        Map<Vector3i, Block> expectedOldBlocks = Maps.newHashMap();
+        for (BlockEditSet.ChunkEdits chunkEdits : edits.getChunkEdits()) {
+            for (int i = 0; i < chunkEdits.size(); ++i) {
+                Vector3i pos = chunkEdits.getWorldPosition(i);
+                Block old = singleWorld.setBlock(pos, chunkEdits.getBlock(i));
+                if (old != null && old != chunkEdits.getBlock(i)) {
+                    expectedOldBlocks.put(pos, old);
+                }
+            }
+        }
+        assertEquals(expectedOldBlocks, oldBlocks);
+        assertEquals(3, oldBlocks.size());
+        assertSame(getExpectedBlock(new Vector3i(-17, 10, -17)), oldBlocks.get(new Vector3i(-17, 10, -17)));
+        assertNull(oldBlocks.get(unchanged));
+
+        for (Map.Entry<Vector3i, ChunkImpl> entry : singleChunks.entrySet()) {
+            ChunkImpl batchChunk = batchChunks.get(entry.getKey());
+            assertEquals("Dirty " + entry.getKey(), entry.getValue().isDirty(), batchChunk.isDirty());
+            for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
+                assertEquals(entry.getValue().getBlockId(pos.x, pos.y, pos.z), batchChunk.getBlockId(pos.x, pos.y, pos.z));
+            }
+        }
+        assertTrue(batchChunks.get(new Vector3i(-1, 0, -2)).isDirty());
+        assertTrue(batchChunks.get(new Vector3i(-1, 0, -1)).isDirty());
+        assertTrue(batchChunks.get(new Vector3i(-2, 0, -1)).isDirty());
+        assertFalse(batchChunks.get(new Vector3i(-2, 0, 0)).isDirty());
+    }
+
+    @Test
+    public void blockChangedByListenerPassedOnNextTick() {
+        final WorldProviderCoreImpl world = createProvider(createWorld());
+        final Vector3i changed = new Vector3i(-5, 30, -5);
+        final Vector3i changedByListener = new Vector3i(-20, 30, -20);
+        final List<List<Vector3i>> received = Lists.newArrayList();
+        world.registerListener(new WorldChangeListener() {
+            @Override
+            public void onBlocksChanged(BlockChangeJournal changes) {
+                List<Vector3i> positions = Lists.newArrayList();
+                for (BlockChangeJournal.ChunkChanges chunkChanges : changes.getChunkChanges()) {
+                    for (int i = 0; i < chunkChanges.size(); ++i) {
+                        positions.add(chunkChanges.getWorldPosition(i));
+                    }
+                }
+                received.add(positions);
+                if (received.size() == 1) {
+                    world.setBlock(changedByListener, getOtherBlock(changedByListener));
+                }
+            }
+        });
+
+        world.setBlock(changed, getOtherBlock(changed));
+        world.processPropagation();
+        world.processPropagation();
+
+        assertEquals(2, received.size());
+        assertEquals(Arrays.asList(changed), received.get(0));
+        assertEquals(Arrays.asList(changedByListener), received.get(1));
+    }
+
+    /**
+     * Creates the chunks from (-2, -2) to (0, 0), apart from the unloaded one, with blocks that depend on the position.
+     */
+    private Map<Vector3i, ChunkImpl> createWorld() {
+        Map<Vector3i, ChunkImpl> chunks = Maps.newHashMap();
+        for (int chunkX = -2; chunkX <= 0; ++chunkX) {
+            for (int chunkZ = -2; chunkZ <= 0; ++chunkZ) {
+                Vector3i chunkPos = new Vector3i(chunkX, 0, chunkZ);
+                if (chunkPos.equals(UNLOADED_CHUNK)) {
+                    continue;
+                }
+                ChunkImpl chunk = new ChunkImpl(chunkPos);
+                for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
+                    chunk.setBlock(pos, getExpectedBlock(chunk.getBlockWorldPos(pos)));
+                }
+                chunks.put(chunkPos, chunk);
+            }
+        }
+        return chunks;
+    }
+
+    private Block getExpectedBlock(Vector3i worldPos) {
+        switch (Math.abs(worldPos.x * 7 + worldPos.y * 3 + worldPos.z * 5) % 3) {
+            case 0:
+                return air;
+            case 1:
+                return stone;
+            default:
+                return dirt;
+        }
+    }
+
+    private Block getOtherBlock(Vector3i worldPos) {
+        return (getExpectedBlock(worldPos) == dirt) ? stone : dirt;
+    }
+
+    private short getExpectedId(Map<Vector3i, ChunkImpl> chunks, Vector3i worldPos) {
+        if (worldPos.y < 0 || worldPos.y >= ChunkConstants.SIZE_Y || !chunks.containsKey(TeraMath.calcChunkPos(worldPos))) {
+            return air.getId();
+        }
+        return getExpectedBlock(worldPos).getId();
+    }
+
+    private WorldProviderCoreImpl createProvider(final Map<Vector3i, ChunkImpl> chunks) {
+        GeneratingChunkProvider chunkProvider = mock(GeneratingChunkProvider.class);
+        when(chunkProvider.getChunk(any(Vector3i.class))).thenAnswer(new Answer<ChunkImpl>() {
+            @Override
+            public ChunkImpl answer(InvocationOnMock invocation) {
+                return chunks.get(invocation.getArguments()[0]);
+            }
+        });
+        when(chunkProvider.getChunk(anyInt(), anyInt(), anyInt())).thenAnswer(new Answer<ChunkImpl>() {
+            @Override
+            public ChunkImpl answer(InvocationOnMock invocation) {
+                Object[] args = invocation.getArguments();
+                return chunks.get(new Vector3i((Integer) args[0], (Integer) args[1], (Integer) args[2]));
+            }
+        });
+        return new WorldProviderCoreImpl("test", "test", 0, null, chunkProvider);
+    }
+}
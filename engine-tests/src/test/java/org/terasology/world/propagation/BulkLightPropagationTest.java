@@ -361,6 +361,8 @@ public void betweenChunks() throws Exception {
         ChunkProvider provider = mock(ChunkProvider.class);
         when(provider.getChunk(Vector3i.zero())).thenReturn(main);
         when(provider.getChunk(new Vector3i(1, 0, 0))).thenReturn(adjacent);
+        when(provider.getChunk(0, 0, 0)).thenReturn(main);
+        when(provider.getChunk(1, 0, 0)).thenReturn(adjacent);
 
         BatchPropagator prop = new BatchPropagator(new SunlightPropagationRules(), new SunlightWorldView(provider));
         prop.propagateBetween(main, adjacent, Side.RIGHT);
@@ -38,7 +38,7 @@ public byte getValueAt(Vector3i pos) {
 
     @Override
     public void setValueAt(Vector3i pos, byte value) {
-        lightData.put(pos, value);
+        lightData.put(new Vector3i(pos), value);
     }
 
     @Override
@@ -50,7 +50,12 @@ public Block getBlockAt(Vector3i pos) {
         return result;
     }
 
+    @Override
+    public PropagatorChunkView getChunkAt(int chunkX, int chunkY, int chunkZ) {
+        return null;
+    }
+
     public void setBlockAt(Vector3i pos, Block block) {
-        blockData.put(pos, block);
+        blockData.put(new Vector3i(pos), block);
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.characters;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.logic.characters.MovementRecording;
+import org.terasology.logic.characters.ParallelCharacterMover;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compares stepping the movement of many characters on one thread against stepping it in parallel, replaying a
+ * recording made on a server with the startMovementRecording and stopMovementRecording commands.
+ */
+public final class CharacterMovementBenchmark {
+
+    private CharacterMovementBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: CharacterMovementBenchmark <movement recording>");
+            return;
+        }
+        MovementRecording recording = MovementRecording.load(Paths.get(args[0]));
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new CharacterReplayBenchmark(recording, 1));
+        benchmarks.add(new CharacterReplayBenchmark(recording, ParallelCharacterMover.getDefaultThreadCount()));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.characters;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.config.Config;
+import org.terasology.engine.subsystem.headless.device.TimeSystem;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.entitySystem.event.internal.EventSystemImpl;
+import org.terasology.entitySystem.metadata.EntitySystemLibrary;
+import org.terasology.entitySystem.prefab.internal.PojoPrefabManager;
+import org.terasology.logic.characters.CharacterMoveInputEvent;
+import org.terasology.logic.characters.CharacterMovementComponent;
+import org.terasology.logic.characters.CharacterStateEvent;
+import org.terasology.logic.characters.MovementMode;
+import org.terasology.logic.characters.MovementRecording;
+import org.terasology.logic.characters.ParallelCharacterMover;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.physics.bullet.BulletPhysics;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.List;
+
+/**
+ * Replays a recording of the movement input of many players on a flat world, the way the server steps it each update,
+ * and reports the inputs stepped per second. Run with one thread to compare against stepping on the main thread alone.
+ * <p/>
+ * Each character replays one stream of the recording, starting over once at its end.
+ */
+public class CharacterReplayBenchmark extends AbstractBenchmark {
+
+    private static final int INPUTS_PER_UPDATE = 3;
+
+    private final List<List<CharacterMoveInputEvent>> recordings;
+    private final int threads;
+
+    private ParallelCharacterMover mover;
+    private List<EntityRef> characters;
+    private CharacterStateEvent[] states;
+    private int replayPosition;
+
+    private long inputsStepped;
+    private long elapsedNanos;
+    private long runStart;
+
+    public CharacterReplayBenchmark(MovementRecording recording, int threads) {
+        super("Step " + recording.getStreams().size() + " characters on " + threads + " thread(s)", 20, new int[]{200, 200, 200});
+        this.recordings = recording.getStreams();
+        this.threads = threads;
+    }
+
+    @Override
+    public void setup() {
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        TypeSerializationLibrary serializationLibrary = new TypeSerializationLibrary(reflectFactory, copyStrategies);
+        EntitySystemLibrary entitySystemLibrary = new EntitySystemLibrary(reflectFactory, copyStrategies, serializationLibrary);
+
+        PojoEntityManager entityManager = new PojoEntityManager();
+        entityManager.setEntitySystemLibrary(entitySystemLibrary);
+        entityManager.setPrefabManager(new PojoPrefabManager());
+        CoreRegistry.put(Config.class, new Config());
+        entityManager.setEventSystem(new EventSystemImpl(entitySystemLibrary.getEventLibrary(), new NetworkSystemImpl(new TimeSystem())));
+
+        Block ground = new Block();
+        ground.setId((short) 1);
+        ground.setCollision(new Vector3f(), new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f)));
+        ground.buildCollisionInfo();
+        WorldProviderWrapper world = new WorldProviderWrapper(new FlatWorldProviderCore(ground, BlockManager.getAir()));
+        mover = new ParallelCharacterMover(world, new BulletPhysics(world), threads);
+
+        int count = recordings.size();
+        int rowLength = (int) Math.ceil(Math.sqrt(count));
+        characters = Lists.newArrayListWithCapacity(count);
+        states = new CharacterStateEvent[count];
+        for (int i = 0; i < count; ++i) {
+            Vector3f position = new Vector3f(4 * (i % rowLength), 1, 4 * (i / rowLength));
+            characters.add(entityManager.create(new LocationComponent(position), new CharacterMovementComponent()));
+            states[i] = new CharacterStateEvent(0, 0, position, new Quat4f(0, 0, 0, 1), new Vector3f(), 0, 0, MovementMode.WALKING, false);
+        }
+    }
+
+    @Override
+    public void prerun() {
+        runStart = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        List<ParallelCharacterMover.Job> jobs = Lists.newArrayListWithCapacity(characters.size());
+        for (int i = 0; i < characters.size(); ++i) {
+            List<CharacterMoveInputEvent> recorded = recordings.get(i);
+            List<CharacterMoveInputEvent> inputs = Lists.newArrayListWithCapacity(INPUTS_PER_UPDATE);
+            for (int j = 0; j < INPUTS_PER_UPDATE && !recorded.isEmpty(); ++j) {
+                inputs.add(MovementRecording.copy(recorded.get((replayPosition + j) % recorded.size())));
+            }
+            jobs.add(mover.createJob(characters.get(i), states[i], inputs));
+            inputsStepped += inputs.size();
+        }
+        mover.stepAll(jobs);
+        for (int i = 0; i < characters.size(); ++i) {
+            List<CharacterStateEvent> result = jobs.get(i).getStates();
+            if (!result.isEmpty()) {
+                states[i] = result.get(result.size() - 1);
+            }
+        }
+        replayPosition += INPUTS_PER_UPDATE;
+    }
+
+    @Override
+    public void postrun() {
+        elapsedNanos += System.nanoTime() - runStart;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        mover.shutdown();
+        if (!aborted) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.println(getTitle() + ": " + Math.round(inputsStepped / seconds) + " inputs/s");
+        }
+    }
+}
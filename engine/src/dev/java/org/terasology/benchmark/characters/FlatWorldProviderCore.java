@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.characters;
+
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.BlockEditSet;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.ChunkViewCore;
+import org.terasology.world.internal.WorldInfo;
+import org.terasology.world.internal.WorldProviderCore;
+import org.terasology.world.liquid.LiquidData;
+import org.terasology.world.time.WorldTime;
+
+import java.util.Map;
+
+/**
+ * A read only world of solid ground below y = 0 and air above it, for moving characters around without loading chunks.
+ */
+class FlatWorldProviderCore implements WorldProviderCore {
+
+    private final Block ground;
+    private final Block air;
+
+    public FlatWorldProviderCore(Block ground, Block air) {
+        this.ground = ground;
+        this.air = air;
+    }
+
+    @Override
+    public EntityRef getWorldEntity() {
+        return EntityRef.NULL;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Flat";
+    }
+
+    @Override
+    public String getSeed() {
+        return "";
+    }
+
+    @Override
+    public WorldInfo getWorldInfo() {
+        return null;
+    }
+
+    @Override
+    public void processPropagation() {
+    }
+
+    @Override
+    public void registerListener(WorldChangeListener listener) {
+    }
+
+    @Override
+    public void unregisterListener(WorldChangeListener listener) {
+    }
+
+    @Override
+    public ChunkViewCore getLocalView(Vector3i chunkPos) {
+        return null;
+    }
+
+    @Override
+    public ChunkViewCore getWorldViewAround(Vector3i chunk) {
+        return null;
+    }
+
+    @Override
+    public boolean isBlockRelevant(int x, int y, int z) {
+        return true;
+    }
+
+    @Override
+    public Block setBlock(Vector3i pos, Block type) {
+        throw new UnsupportedOperationException("The flat world is read only");
+    }
+
+    @Override
+    public Map<Vector3i, Block> setBlocks(BlockEditSet edits) {
+        throw new UnsupportedOperationException("The flat world is read only");
+    }
+
+    @Override
+    public boolean setLiquid(int x, int y, int z, LiquidData newData, LiquidData oldData) {
+        return false;
+    }
+
+    @Override
+    public LiquidData getLiquid(int x, int y, int z) {
+        return new LiquidData();
+    }
+
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        return (y < 0) ? ground : air;
+    }
+
+    @Override
+    public boolean getBlocks(Region3i region, short[] result) {
+        Vector3i min = region.min();
+        Vector3i size = region.size();
+        int index = 0;
+        for (int y = min.y; y < min.y + size.y; ++y) {
+            short id = getBlock(0, y, 0).getId();
+            for (int i = 0; i < size.x * size.z; ++i) {
+                result[index++] = id;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public byte getLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public byte getSunlight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public byte getTotalLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public WorldTime getTime() {
+        return null;
+    }
+
+    @Override
+    public float getFog(float x, float y, float z) {
+        return 0;
+    }
+
+    @Override
+    public float getTemperature(float x, float y, float z) {
+        return 0;
+    }
+
+    @Override
+    public float getHumidity(float x, float y, float z) {
+        return 0;
+    }
+}
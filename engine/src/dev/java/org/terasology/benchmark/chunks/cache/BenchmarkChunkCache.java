@@ -15,50 +15,77 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
-import org.terasology.benchmark.Benchmark;
-
-public class BenchmarkChunkCache implements Benchmark {
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * BenchmarkChunkCache is the base class for benchmarking chunk caches with the lookup pattern of block access: every
+ * block of an area is read together with its six neighbours, and each read looks up the chunk holding the block, as
+ * the world provider and the light propagators do.
+ */
+public abstract class BenchmarkChunkCache extends AbstractBenchmark {
 
-    public BenchmarkChunkCache() {
-    }
+    /**
+     * Size of the cached area, in chunks along x and z
+     */
+    protected static final int CHUNKS = 16;
 
-    @Override
-    public String getTitle() {
-        return null;
-    }
+    private static final int AREA_X = 4 * ChunkConstants.SIZE_X;
+    private static final int AREA_Z = 4 * ChunkConstants.SIZE_Z;
+    private static final int LAYERS = 8;
 
-    @Override
-    public int getWarmupRepetitions() {
-        return 1;
-    }
+    private int sink;
 
-    @Override
-    public int[] getRepetitions() {
-        return new int[]{1, 10};
+    public BenchmarkChunkCache(String title) {
+        super(title, 5, new int[]{20, 20, 20});
     }
 
     @Override
     public void setup() {
-
-    }
-
-    @Override
-    public void prerun() {
-
+        for (int x = 0; x < CHUNKS; ++x) {
+            for (int z = 0; z < CHUNKS; ++z) {
+                put(x, 0, z, new Vector3i(x, 0, z));
+            }
+        }
     }
 
     @Override
     public void run() {
-    }
-
-    @Override
-    public void postrun() {
-
+        int minX = (CHUNKS / 2) * ChunkConstants.SIZE_X - AREA_X / 2;
+        int minZ = (CHUNKS / 2) * ChunkConstants.SIZE_Z - AREA_Z / 2;
+        int result = 0;
+        for (int y = 64; y < 64 + LAYERS; ++y) {
+            for (int z = minZ; z < minZ + AREA_Z; ++z) {
+                for (int x = minX; x < minX + AREA_X; ++x) {
+                    result += lookup(x, y, z);
+                    result += lookup(x + 1, y, z);
+                    result += lookup(x - 1, y, z);
+                    result += lookup(x, y + 1, z);
+                    result += lookup(x, y - 1, z);
+                    result += lookup(x, y, z + 1);
+                    result += lookup(x, y, z - 1);
+                }
+            }
+        }
+        sink += result;
     }
 
     @Override
     public void finish(boolean aborted) {
+        if (!aborted) {
+            // Printed so the lookups cannot be optimised away
+            System.out.println(getTitle() + ": checksum " + sink);
+        }
+    }
 
+    private int lookup(int blockX, int blockY, int blockZ) {
+        Vector3i chunk = get(TeraMath.calcChunkPosX(blockX), TeraMath.calcChunkPosY(blockY), TeraMath.calcChunkPosZ(blockZ));
+        return chunk.x;
     }
 
+    protected abstract void put(int chunkX, int chunkY, int chunkZ, Vector3i chunk);
+
+    protected abstract Vector3i get(int chunkX, int chunkY, int chunkZ);
 }
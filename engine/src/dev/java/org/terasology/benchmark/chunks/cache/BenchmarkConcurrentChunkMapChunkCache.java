@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.cache;
+
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+
+/**
+ * Chunk lookups through the long-keyed ConcurrentChunkMap used by the chunk providers.
+ */
+public class BenchmarkConcurrentChunkMapChunkCache extends BenchmarkChunkCache {
+
+    private final ConcurrentChunkMap<Vector3i> cache = new ConcurrentChunkMap<>();
+
+    public BenchmarkConcurrentChunkMapChunkCache() {
+        super("ConcurrentChunkMap chunk lookups");
+    }
+
+    @Override
+    protected void put(int chunkX, int chunkY, int chunkZ, Vector3i chunk) {
+        cache.put(new Vector3i(chunkX, chunkY, chunkZ), chunk);
+    }
+
+    @Override
+    protected Vector3i get(int chunkX, int chunkY, int chunkZ) {
+        return cache.get(chunkX, chunkY, chunkZ);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.cache;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.Vector3i;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Chunk lookups through a ConcurrentMap keyed on Vector3i, allocating a key for each lookup as
+ * getChunk(int, int, int) used to.
+ */
+public class BenchmarkConcurrentHashMapChunkCache extends BenchmarkChunkCache {
+
+    private final ConcurrentMap<Vector3i, Vector3i> cache = Maps.newConcurrentMap();
+
+    public BenchmarkConcurrentHashMapChunkCache() {
+        super("ConcurrentHashMap<Vector3i, ...> chunk lookups");
+    }
+
+    @Override
+    protected void put(int chunkX, int chunkY, int chunkZ, Vector3i chunk) {
+        cache.put(new Vector3i(chunkX, chunkY, chunkZ), chunk);
+    }
+
+    @Override
+    protected Vector3i get(int chunkX, int chunkY, int chunkZ) {
+        return cache.get(new Vector3i(chunkX, chunkY, chunkZ));
+    }
+}
@@ -15,13 +15,25 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+
+import java.util.List;
+
+/**
+ * Compares chunk lookups in the Vector3i-keyed map the chunk providers used before with ConcurrentChunkMap.
+ */
 public final class ChunkCachesBenchmark {
 
     private ChunkCachesBenchmark() {
     }
 
     public static void main(String[] args) {
-
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new BenchmarkConcurrentHashMapChunkCache());
+        benchmarks.add(new BenchmarkConcurrentChunkMapChunkCache());
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
     }
-
 }
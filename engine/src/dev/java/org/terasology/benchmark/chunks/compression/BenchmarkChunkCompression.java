@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.compression;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.compression.Compression;
+import org.terasology.utilities.compression.CompressionCodec;
+
+import java.util.List;
+
+/**
+ * Compresses a set of encoded chunks with a given codec.
+ */
+public class BenchmarkChunkCompression extends AbstractBenchmark {
+
+    private final CompressionCodec codec;
+    private final String codecName;
+    private final List<byte[]> chunks;
+
+    public BenchmarkChunkCompression(String codecName, CompressionCodec codec, List<byte[]> chunks) {
+        super("Compress " + chunks.size() + " chunks with " + codecName, 5, new int[]{20, 20, 20});
+        this.codecName = codecName;
+        this.codec = codec;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public void run() {
+        for (byte[] chunk : chunks) {
+            Compression.compress(codec, chunk);
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            long uncompressed = 0;
+            long compressed = 0;
+            for (byte[] chunk : chunks) {
+                uncompressed += chunk.length;
+                compressed += Compression.compress(codec, chunk).length;
+            }
+            System.out.println(String.format("%s: %,d bytes -> %,d bytes, ratio %.2f", codecName, uncompressed, compressed, (double) uncompressed / compressed));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.compression;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.compression.Compression;
+import org.terasology.utilities.compression.CompressionCodec;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decompresses a set of chunks compressed with a given codec.
+ */
+public class BenchmarkChunkDecompression extends AbstractBenchmark {
+
+    private final CompressionCodec codec;
+    private final List<byte[]> chunks;
+    private List<byte[]> compressedChunks;
+
+    public BenchmarkChunkDecompression(String codecName, CompressionCodec codec, List<byte[]> chunks) {
+        super("Decompress " + chunks.size() + " chunks with " + codecName, 5, new int[]{20, 20, 20});
+        this.codec = codec;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public void setup() {
+        compressedChunks = Lists.newArrayListWithCapacity(chunks.size());
+        for (byte[] chunk : chunks) {
+            compressedChunks.add(Compression.compress(codec, chunk));
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (byte[] chunk : compressedChunks) {
+                Compression.decompress(chunk);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decompress chunk", e);
+        }
+    }
+}
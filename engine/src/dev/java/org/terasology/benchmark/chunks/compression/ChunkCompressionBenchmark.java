@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.compression;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.config.Config;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.compression.Compression;
+import org.terasology.utilities.compression.CompressionCodec;
+import org.terasology.utilities.compression.DeflateCodec;
+import org.terasology.utilities.compression.Lz4Codec;
+import org.terasology.utilities.compression.NoCompressionCodec;
+import org.terasology.utilities.procedural.BrownianNoise3D;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.Chunks;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the ratio and throughput of the chunk compression codecs.
+ * <p/>
+ * By default this runs on generated terrain chunks. Pass the path of a world directory saved with loose chunk files
+ * (see StorageManagerInternal) to run on real saved chunks instead.
+ */
+public final class ChunkCompressionBenchmark {
+
+    private static final int GENERATED_CHUNKS = 64;
+
+    private ChunkCompressionBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        CoreRegistry.put(Config.class, new Config());
+
+        final List<byte[]> chunks;
+        if (args.length > 0) {
+            chunks = loadChunks(Paths.get(args[0]));
+        } else {
+            chunks = generateChunks();
+        }
+
+        List<CompressionCodec> codecs = Lists.newArrayList();
+        codecs.add(new NoCompressionCodec());
+        codecs.add(new Lz4Codec());
+        codecs.add(new DeflateCodec(Deflater.BEST_SPEED));
+        codecs.add(new DeflateCodec(Deflater.DEFAULT_COMPRESSION));
+        codecs.add(new DeflateCodec(Deflater.BEST_COMPRESSION));
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        for (CompressionCodec codec : codecs) {
+            String name = codec.getType().toString();
+            if (codec instanceof DeflateCodec) {
+                name += " (level " + ((DeflateCodec) codec).getLevel() + ")";
+            }
+            benchmarks.add(new BenchmarkChunkCompression(name, codec, chunks));
+            benchmarks.add(new BenchmarkChunkDecompression(name, codec, chunks));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static List<byte[]> loadChunks(Path worldPath) throws IOException {
+        List<byte[]> result = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldPath, "*.chunk")) {
+            for (Path chunkPath : stream) {
+                result.add(Compression.decompress(Files.readAllBytes(chunkPath)));
+            }
+        }
+        return result;
+    }
+
+    private static List<byte[]> generateChunks() {
+        BrownianNoise3D noise = new BrownianNoise3D(new PerlinNoise(42), 6);
+        Chunks c = Chunks.getInstance();
+        ChunkImpl.ProtobufHandler handler = new ChunkImpl.ProtobufHandler();
+        List<byte[]> result = Lists.newArrayList();
+        int side = (int) Math.sqrt(GENERATED_CHUNKS);
+        for (int chunkX = 0; chunkX < side; ++chunkX) {
+            for (int chunkZ = 0; chunkZ < side; ++chunkZ) {
+                TeraArray blocks = c.getBlockDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+                TeraArray liquid = c.getExtraDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+                for (int x = 0; x < ChunkConstants.SIZE_X; ++x) {
+                    for (int z = 0; z < ChunkConstants.SIZE_Z; ++z) {
+                        int worldX = chunkX * ChunkConstants.SIZE_X + x;
+                        int worldZ = chunkZ * ChunkConstants.SIZE_Z + z;
+                        int height = 64 + (int) (40 * noise.noise(worldX * 0.01, 0, worldZ * 0.01));
+                        for (int y = 0; y < ChunkConstants.SIZE_Y; ++y) {
+                            if (y < height - 4) {
+                                // Stone, with the occasional ore or cave
+                                double density = noise.noise(worldX * 0.05, y * 0.05, worldZ * 0.05);
+                                blocks.set(x, y, z, (density > 0.4) ? 0 : (density < -0.45) ? 5 : 1);
+                            } else if (y < height) {
+                                blocks.set(x, y, z, 2);
+                            } else if (y == height) {
+                                blocks.set(x, y, z, 3);
+                            } else if (y < 60) {
+                                blocks.set(x, y, z, 4);
+                                liquid.set(x, y, z, 0x17);
+                            }
+                        }
+                    }
+                }
+                ChunkImpl chunk = new ChunkImpl(new Vector3i(chunkX, 0, chunkZ), ChunkImpl.State.COMPLETE, blocks,
+                        c.getSunlightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                        c.getLightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                        liquid, true);
+                chunk.deflate();
+                result.add(handler.encode(chunk, false).build().toByteArray());
+            }
+        }
+        return result;
+    }
+}
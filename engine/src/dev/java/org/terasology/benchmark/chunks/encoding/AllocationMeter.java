@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.encoding;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the memory allocated by the current thread, where the JVM supports it.
+ */
+final class AllocationMeter {
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @return The bytes allocated while running the task, or -1 if the JVM cannot tell
+     */
+    public static long measure(Runnable task) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        task.run();
+        return allocationBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    public static void print(String title, long bytes, int count) {
+        if (bytes >= 0) {
+            System.out.println(String.format("%s: %,d bytes allocated per chunk", title, bytes / count));
+        } else {
+            System.out.println(title + ": allocation measurement not supported");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.encoding;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decodes a set of encoded chunks, either by parsing ChunkStore messages or by reading the arrays in place.
+ */
+public class BenchmarkChunkDecode extends AbstractBenchmark {
+
+    private final ChunkImpl.ProtobufHandler handler = new ChunkImpl.ProtobufHandler();
+    private final boolean streaming;
+    private final List<byte[]> chunks;
+
+    public BenchmarkChunkDecode(boolean streaming, List<byte[]> chunks) {
+        super("Decode " + chunks.size() + " chunks via " + (streaming ? "stream" : "message"), 10, new int[]{50, 50, 50});
+        this.streaming = streaming;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (byte[] chunk : chunks) {
+                if (streaming) {
+                    handler.decode(chunk, null);
+                } else {
+                    handler.decode(EntityData.ChunkStore.parseFrom(chunk));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode chunk", e);
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            AllocationMeter.print(getTitle(), AllocationMeter.measure(new Runnable() {
+                @Override
+                public void run() {
+                    BenchmarkChunkDecode.this.run();
+                }
+            }), chunks.size());
+        }
+    }
+}
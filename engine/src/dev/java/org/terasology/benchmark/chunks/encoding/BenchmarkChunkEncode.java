@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.encoding;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.List;
+
+/**
+ * Encodes a set of chunks, either by building ChunkStore messages or by streaming them straight into byte arrays.
+ */
+public class BenchmarkChunkEncode extends AbstractBenchmark {
+
+    private final ChunkImpl.ProtobufHandler handler = new ChunkImpl.ProtobufHandler();
+    private final boolean streaming;
+    private final List<ChunkImpl> chunks;
+
+    public BenchmarkChunkEncode(boolean streaming, List<ChunkImpl> chunks) {
+        super("Encode " + chunks.size() + " chunks via " + (streaming ? "stream" : "message"), 10, new int[]{50, 50, 50});
+        this.streaming = streaming;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public void run() {
+        for (ChunkImpl chunk : chunks) {
+            if (streaming) {
+                handler.toByteArray(chunk, false, null);
+            } else {
+                handler.encode(chunk, false).build().toByteArray();
+            }
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            AllocationMeter.print(getTitle(), AllocationMeter.measure(new Runnable() {
+                @Override
+                public void run() {
+                    BenchmarkChunkEncode.this.run();
+                }
+            }), chunks.size());
+        }
+    }
+}
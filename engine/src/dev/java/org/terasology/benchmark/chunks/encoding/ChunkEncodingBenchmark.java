@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.encoding;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.config.Config;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.procedural.BrownianNoise3D;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.Chunks;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares encoding chunks into ChunkStore messages with streaming them, and decoding them from parsed messages with
+ * reading them in place. Reports the time taken and the memory allocated per chunk. The benchmarks only run if both
+ * ways produce the same bytes.
+ */
+public final class ChunkEncodingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkEncodingBenchmark.class);
+
+    private static final int GENERATED_CHUNKS = 64;
+
+    private ChunkEncodingBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        CoreRegistry.put(Config.class, new Config());
+
+        List<ChunkImpl> chunks = generateChunks();
+        List<byte[]> encodedChunks = Lists.newArrayListWithCapacity(chunks.size());
+        ChunkImpl.ProtobufHandler handler = new ChunkImpl.ProtobufHandler();
+        for (ChunkImpl chunk : chunks) {
+            byte[] message = handler.encode(chunk, false).build().toByteArray();
+            byte[] streamed = handler.toByteArray(chunk, false, null);
+            if (!Arrays.equals(message, streamed)) {
+                logger.error("Streamed encoding of chunk {} differs from its message", chunk.getPos());
+                return;
+            }
+            byte[] decoded = handler.toByteArray(handler.decode(streamed, null), false, null);
+            if (!Arrays.equals(message, decoded)) {
+                logger.error("Chunk {} does not survive decoding in place", chunk.getPos());
+                return;
+            }
+            encodedChunks.add(message);
+        }
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new BenchmarkChunkEncode(false, chunks));
+        benchmarks.add(new BenchmarkChunkEncode(true, chunks));
+        benchmarks.add(new BenchmarkChunkDecode(false, encodedChunks));
+        benchmarks.add(new BenchmarkChunkDecode(true, encodedChunks));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static List<ChunkImpl> generateChunks() {
+        BrownianNoise3D noise = new BrownianNoise3D(new PerlinNoise(42), 6);
+        Chunks c = Chunks.getInstance();
+        List<ChunkImpl> result = Lists.newArrayList();
+        int side = (int) Math.sqrt(GENERATED_CHUNKS);
+        for (int chunkX = 0; chunkX < side; ++chunkX) {
+            for (int chunkZ = 0; chunkZ < side; ++chunkZ) {
+                TeraArray blocks = c.getBlockDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+                TeraArray liquid = c.getExtraDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+                for (int x = 0; x < ChunkConstants.SIZE_X; ++x) {
+                    for (int z = 0; z < ChunkConstants.SIZE_Z; ++z) {
+                        int worldX = chunkX * ChunkConstants.SIZE_X + x;
+                        int worldZ = chunkZ * ChunkConstants.SIZE_Z + z;
+                        int height = 64 + (int) (40 * noise.noise(worldX * 0.01, 0, worldZ * 0.01));
+                        for (int y = 0; y < height; ++y) {
+                            blocks.set(x, y, z, (y < height - 4) ? 1 : 2);
+                        }
+                        for (int y = height; y < 60; ++y) {
+                            blocks.set(x, y, z, 4);
+                            liquid.set(x, y, z, 0x17);
+                        }
+                    }
+                }
+                ChunkImpl chunk = new ChunkImpl(new Vector3i(chunkX, 0, chunkZ), ChunkImpl.State.COMPLETE, blocks,
+                        c.getSunlightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                        c.getLightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+                        liquid, true);
+                chunk.deflate();
+                result.add(chunk);
+            }
+        }
+        return result;
+    }
+}
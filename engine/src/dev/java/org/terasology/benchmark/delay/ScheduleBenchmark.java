@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+
+/**
+ * Schedules a million actions over an hour of game time, cancels a tenth of them and reschedules another tenth, then
+ * steps through the hour a frame at a time triggering the due actions. Reports the time taken per run.
+ */
+public abstract class ScheduleBenchmark extends AbstractBenchmark {
+
+    protected static final int ACTIONS = 1000000;
+    protected static final long SPAN_MS = 60 * 60 * 1000;
+    protected static final long FRAME_MS = 16;
+
+    private long[] wakeUps;
+    private long[] rescheduledWakeUps;
+
+    private long triggered;
+    private long elapsedNanos;
+    private int runs;
+    private long runStart;
+
+    public ScheduleBenchmark(String title) {
+        super(title, 2, new int[]{5, 5, 5});
+    }
+
+    @Override
+    public void setup() {
+        FastRandom rand = new FastRandom(0L);
+        wakeUps = new long[ACTIONS];
+        rescheduledWakeUps = new long[ACTIONS];
+        for (int i = 0; i < ACTIONS; ++i) {
+            wakeUps[i] = (long) (rand.nextFloat() * SPAN_MS);
+            rescheduledWakeUps[i] = (long) (rand.nextFloat() * SPAN_MS);
+        }
+    }
+
+    @Override
+    public void prerun() {
+        runStart = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        reset();
+        for (int i = 0; i < ACTIONS; ++i) {
+            schedule(i, wakeUps[i]);
+        }
+        for (int i = 0; i < ACTIONS; i += 10) {
+            cancel(i);
+        }
+        for (int i = 5; i < ACTIONS; i += 10) {
+            cancel(i);
+            schedule(i, rescheduledWakeUps[i]);
+        }
+        List<Integer> due = Lists.newArrayList();
+        for (long time = 0; time <= SPAN_MS; time += FRAME_MS) {
+            advance(time, due);
+            triggered += due.size();
+            due.clear();
+        }
+    }
+
+    @Override
+    public void postrun() {
+        elapsedNanos += System.nanoTime() - runStart;
+        runs++;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            System.out.println(getTitle() + ": " + (elapsedNanos / runs / 1000000) + " ms per run, " + (triggered / runs) + " actions triggered");
+        }
+    }
+
+    /**
+     * Empties the schedule, starting at time 0
+     */
+    protected abstract void reset();
+
+    protected abstract void schedule(int action, long wakeUp);
+
+    protected abstract void cancel(int action);
+
+    /**
+     * Adds the actions due at or before the given time to the list, removing them from the schedule
+     */
+    protected abstract void advance(long time, List<Integer> due);
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Lists;
+import org.terasology.utilities.collection.TimingWheel;
+
+import java.util.List;
+
+/**
+ * Schedules actions on a timing wheel, the way the DelayedActionSystem does.
+ */
+public class TimingWheelScheduleBenchmark extends ScheduleBenchmark {
+
+    private TimingWheel<Integer> wheel;
+    private TimingWheel.Entry<Integer>[] entries;
+    private List<TimingWheel.Entry<Integer>> expired = Lists.newArrayList();
+
+    public TimingWheelScheduleBenchmark() {
+        super("Timing wheel");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void reset() {
+        wheel = new TimingWheel<>(0);
+        entries = new TimingWheel.Entry[ACTIONS];
+    }
+
+    @Override
+    protected void schedule(int action, long wakeUp) {
+        entries[action] = wheel.schedule(action, wakeUp);
+    }
+
+    @Override
+    protected void cancel(int action) {
+        wheel.cancel(entries[action]);
+    }
+
+    @Override
+    protected void advance(long time, List<Integer> due) {
+        wheel.advance(time, expired);
+        for (TimingWheel.Entry<Integer> entry : expired) {
+            due.add(entry.getValue());
+        }
+        expired.clear();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Schedules actions in a multimap sorted by time, the way the DelayedActionSystem used to.
+ */
+public class TreeMultimapScheduleBenchmark extends ScheduleBenchmark {
+
+    private SortedSetMultimap<Long, Integer> actionsByTime;
+    private long[] scheduledWakeUps;
+
+    public TreeMultimapScheduleBenchmark() {
+        super("Sorted multimap");
+    }
+
+    @Override
+    protected void reset() {
+        actionsByTime = TreeMultimap.create(Ordering.natural(), Ordering.natural());
+        scheduledWakeUps = new long[ACTIONS];
+    }
+
+    @Override
+    protected void schedule(int action, long wakeUp) {
+        actionsByTime.put(wakeUp, action);
+        scheduledWakeUps[action] = wakeUp;
+    }
+
+    @Override
+    protected void cancel(int action) {
+        actionsByTime.remove(scheduledWakeUps[action], action);
+    }
+
+    @Override
+    protected void advance(long time, List<Integer> due) {
+        Iterator<Long> iterator = actionsByTime.keySet().iterator();
+        while (iterator.hasNext()) {
+            long wakeUp = iterator.next();
+            if (wakeUp > time) {
+                break;
+            }
+            due.addAll(actionsByTime.get(wakeUp));
+            iterator.remove();
+        }
+    }
+}
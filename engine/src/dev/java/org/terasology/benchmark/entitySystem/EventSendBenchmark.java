@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.config.Config;
+import org.terasology.engine.subsystem.headless.device.TimeSystem;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.entitySystem.event.AbstractConsumableEvent;
+import org.terasology.entitySystem.event.EventPriority;
+import org.terasology.entitySystem.event.ReceiveEvent;
+import org.terasology.entitySystem.event.internal.EventSystemImpl;
+import org.terasology.entitySystem.metadata.EntitySystemLibrary;
+import org.terasology.entitySystem.prefab.internal.PojoPrefabManager;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.logic.inventory.InventoryComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.rendering.logic.MeshComponent;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.BlockComponent;
+
+import java.util.List;
+
+/**
+ * Sends an event to a thousand entities with different components, handled by systems filtering on one or more of
+ * those components, and reports the events sent per second.
+ */
+public class EventSendBenchmark extends AbstractBenchmark {
+
+    private List<EntityRef> entities;
+    private EventSystemImpl eventSystem;
+    private CountingSystem countingSystem = new CountingSystem();
+
+    private long eventsSent;
+    private long elapsedNanos;
+    private long runStart;
+
+    public EventSendBenchmark() {
+        super("Send events to entities", 1000, new int[]{5000, 5000, 5000});
+    }
+
+    @Override
+    public void setup() {
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        TypeSerializationLibrary serializationLibrary = new TypeSerializationLibrary(reflectFactory, copyStrategies);
+        EntitySystemLibrary entitySystemLibrary = new EntitySystemLibrary(reflectFactory, copyStrategies, serializationLibrary);
+
+        PojoEntityManager entityManager = new PojoEntityManager();
+        entityManager.setEntitySystemLibrary(entitySystemLibrary);
+        entityManager.setPrefabManager(new PojoPrefabManager());
+        CoreRegistry.put(Config.class, new Config());
+        eventSystem = new EventSystemImpl(entitySystemLibrary.getEventLibrary(), new NetworkSystemImpl(new TimeSystem()));
+        entityManager.setEventSystem(eventSystem);
+        eventSystem.registerEventHandler(countingSystem);
+
+        FastRandom rand = new FastRandom(0L);
+        entities = Lists.newArrayList();
+        for (int i = 0; i < 1000; ++i) {
+            List<Component> entityData = Lists.newArrayList();
+            if (rand.nextFloat() < 0.75f) {
+                entityData.add(new LocationComponent());
+            }
+            if (rand.nextFloat() < 0.5f) {
+                entityData.add(new MeshComponent());
+            }
+            if (rand.nextFloat() < 0.5f) {
+                entityData.add(new InventoryComponent());
+            }
+            if (rand.nextFloat() < 0.25f) {
+                entityData.add(new BlockComponent());
+            }
+            entities.add(entityManager.create(entityData));
+        }
+    }
+
+    @Override
+    public void prerun() {
+        runStart = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        for (EntityRef entity : entities) {
+            eventSystem.send(entity, new BenchmarkEvent());
+        }
+        eventsSent += entities.size();
+    }
+
+    @Override
+    public void postrun() {
+        elapsedNanos += System.nanoTime() - runStart;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.println(getTitle() + ": " + Math.round(eventsSent / seconds) + " events/s, " + countingSystem.handled + " handler calls");
+        }
+    }
+
+    public static class BenchmarkEvent extends AbstractConsumableEvent {
+    }
+
+    public static class CountingSystem extends BaseComponentSystem {
+        private long handled;
+
+        @ReceiveEvent(priority = EventPriority.PRIORITY_HIGH)
+        public void onAny(BenchmarkEvent event, EntityRef entity) {
+            handled++;
+        }
+
+        @ReceiveEvent(components = LocationComponent.class)
+        public void onLocation(BenchmarkEvent event, EntityRef entity) {
+            handled++;
+        }
+
+        @ReceiveEvent
+        public void onLocatedMesh(BenchmarkEvent event, EntityRef entity, LocationComponent location, MeshComponent mesh) {
+            handled++;
+        }
+
+        @ReceiveEvent(components = {InventoryComponent.class, BlockComponent.class})
+        public void onBlockInventory(BenchmarkEvent event, EntityRef entity, InventoryComponent inventory) {
+            handled++;
+        }
+
+        @ReceiveEvent(components = BlockComponent.class, priority = EventPriority.PRIORITY_LOW)
+        public void onBlock(BenchmarkEvent event, EntityRef entity) {
+            handled++;
+        }
+    }
+}
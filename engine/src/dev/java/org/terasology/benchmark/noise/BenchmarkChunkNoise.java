@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.procedural.Noise3D;
+import org.terasology.utilities.procedural.NoiseGrid;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * Samples the noise a terrain generator needs for one chunk per run, either point by point or in bulk.
+ * <p/>
+ * The sampling follows the legacy Perlin terrain generator: three 2D terrain noises and two 3D density noises on a
+ * coarse grid of every 4th block, and a cave noise for every block of the lower half of the chunk.
+ */
+public class BenchmarkChunkNoise extends AbstractBenchmark {
+
+    static final int SAMPLE_RATE = 4;
+    static final int SAMPLES_HOR = ChunkConstants.SIZE_X / SAMPLE_RATE + 1;
+    static final int SAMPLES_VERT = ChunkConstants.SIZE_Y / SAMPLE_RATE + 1;
+    static final int CAVE_HEIGHT = ChunkConstants.SIZE_Y / 2;
+
+    private final Noise3D terrain;
+    private final Noise3D density;
+    private final Noise3D caves;
+    private final boolean bulk;
+
+    private final double[] terrainValues = new double[SAMPLES_HOR * SAMPLES_HOR * 3];
+    private final double[] densityValues = new double[SAMPLES_HOR * SAMPLES_VERT * SAMPLES_HOR * 2];
+    private final double[] caveValues = new double[ChunkConstants.SIZE_X * CAVE_HEIGHT * ChunkConstants.SIZE_Z];
+
+    private int chunkX;
+    private double checksum;
+
+    public BenchmarkChunkNoise(String title, Noise3D terrain, Noise3D density, Noise3D caves, boolean bulk) {
+        super(title + (bulk ? " (bulk)" : " (scalar)"), 10, new int[]{100, 100, 100});
+        this.terrain = terrain;
+        this.density = density;
+        this.caves = caves;
+        this.bulk = bulk;
+    }
+
+    @Override
+    public void setup() {
+        chunkX = 0;
+        checksum = 0;
+    }
+
+    @Override
+    public void run() {
+        int worldX = chunkX * ChunkConstants.SIZE_X;
+        int worldZ = -chunkX * ChunkConstants.SIZE_Z;
+        if (bulk) {
+            sampleBulk(worldX, worldZ);
+        } else {
+            sampleScalar(worldX, worldZ);
+        }
+        checksum += terrainValues[0] + densityValues[densityValues.length - 1] + caveValues[caveValues.length / 2];
+        chunkX++;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            System.out.println(getTitle() + ": checksum " + checksum);
+        }
+    }
+
+    private void sampleBulk(int worldX, int worldZ) {
+        int columns = SAMPLES_HOR * SAMPLES_HOR;
+        double[] buffer = new double[columns];
+        for (int layer = 0; layer < 3; layer++) {
+            double scale = 0.004 / (layer + 1);
+            NoiseGrid.sample(terrain, buffer, worldX * scale, 0, worldZ * scale, SAMPLE_RATE * scale, 0, SAMPLE_RATE * scale, SAMPLES_HOR, 1, SAMPLES_HOR);
+            System.arraycopy(buffer, 0, terrainValues, layer * columns, columns);
+        }
+
+        int samples = SAMPLES_HOR * SAMPLES_VERT * SAMPLES_HOR;
+        buffer = new double[samples];
+        for (int layer = 0; layer < 2; layer++) {
+            double scale = 0.002 * (layer * 3 + 1);
+            NoiseGrid.sample(density, buffer, worldX * scale, 0, worldZ * scale, SAMPLE_RATE * scale, SAMPLE_RATE * scale / 2, SAMPLE_RATE * scale,
+                    SAMPLES_HOR, SAMPLES_VERT, SAMPLES_HOR);
+            System.arraycopy(buffer, 0, densityValues, layer * samples, samples);
+        }
+
+        NoiseGrid.sample(caves, caveValues, worldX * 0.02, 0, worldZ * 0.02, 0.02, 0.02, 0.02, ChunkConstants.SIZE_X, CAVE_HEIGHT, ChunkConstants.SIZE_Z);
+    }
+
+    private void sampleScalar(int worldX, int worldZ) {
+        int columns = SAMPLES_HOR * SAMPLES_HOR;
+        for (int layer = 0; layer < 3; layer++) {
+            double scale = 0.004 / (layer + 1);
+            for (int k = 0; k < SAMPLES_HOR; k++) {
+                for (int i = 0; i < SAMPLES_HOR; i++) {
+                    double x = worldX + i * SAMPLE_RATE;
+                    double z = worldZ + k * SAMPLE_RATE;
+                    terrainValues[layer * columns + i + SAMPLES_HOR * k] = terrain.noise(x * scale, 0, z * scale);
+                }
+            }
+        }
+
+        int samples = SAMPLES_HOR * SAMPLES_VERT * SAMPLES_HOR;
+        for (int layer = 0; layer < 2; layer++) {
+            double scale = 0.002 * (layer * 3 + 1);
+            int index = layer * samples;
+            for (int k = 0; k < SAMPLES_HOR; k++) {
+                for (int j = 0; j < SAMPLES_VERT; j++) {
+                    for (int i = 0; i < SAMPLES_HOR; i++) {
+                        double x = worldX + i * SAMPLE_RATE;
+                        double y = j * SAMPLE_RATE;
+                        double z = worldZ + k * SAMPLE_RATE;
+                        densityValues[index++] = density.noise(x * scale, y * scale / 2, z * scale);
+                    }
+                }
+            }
+        }
+
+        int index = 0;
+        for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+            for (int y = 0; y < CAVE_HEIGHT; y++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    caveValues[index++] = caves.noise((worldX + x) * 0.02, y * 0.02, (worldZ + z) * 0.02);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.config.Config;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.procedural.BrownianNoise3D;
+import org.terasology.utilities.procedural.Noise3D;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+
+import java.util.List;
+
+/**
+ * Compares the time taken to sample the noise for a chunk point by point with sampling it in bulk, for fractional
+ * Brownian motion over Perlin and over simplex noise. The checksums printed at the end should agree between the two, up to rounding.
+ */
+public final class NoiseBenchmark {
+
+    private NoiseBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        CoreRegistry.put(Config.class, new Config());
+
+        int seed = "benchmark".hashCode();
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        for (boolean bulk : new boolean[]{false, true}) {
+            benchmarks.add(new BenchmarkChunkNoise("Perlin fBm chunk", new BrownianNoise3D(new PerlinNoise(seed), 8),
+                    new BrownianNoise3D(new PerlinNoise(seed + 1)), new BrownianNoise3D(new PerlinNoise(seed + 2)), bulk));
+        }
+        for (boolean bulk : new boolean[]{false, true}) {
+            Noise3D simplex = new SimplexNoise(seed);
+            benchmarks.add(new BenchmarkChunkNoise("Simplex fBm chunk", new BrownianNoise3D(simplex, 8),
+                    new BrownianNoise3D(simplex), new BrownianNoise3D(simplex), bulk));
+        }
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.world.block.Block;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.PropagationRules;
+import org.terasology.world.propagation.PropagatorWorldView;
+
+import java.util.List;
+
+/**
+ * Applies a change to a cave world and then reverts it, propagating after each, with either BatchPropagator or the
+ * reference propagator it replaced. Both work through the light or sunlight world view the game uses.
+ */
+public class BenchmarkLightPropagation extends AbstractBenchmark {
+
+    private final Block stone;
+    private final PropagationRules rules;
+    private final boolean sunlight;
+    private final List<BlockChange> changes;
+    private final List<BlockChange> revertChanges;
+    private final boolean reference;
+
+    private CaveWorld world;
+    private BatchPropagator propagator;
+    private ReferenceBatchPropagator referencePropagator;
+
+    public BenchmarkLightPropagation(String title, Block stone, PropagationRules rules, boolean sunlight,
+                                     List<BlockChange> changes, List<BlockChange> revertChanges, boolean reference) {
+        super(title + (reference ? " (reference)" : ""), 20, new int[]{100, 100, 100});
+        this.stone = stone;
+        this.rules = rules;
+        this.sunlight = sunlight;
+        this.changes = changes;
+        this.revertChanges = revertChanges;
+        this.reference = reference;
+    }
+
+    @Override
+    public void setup() {
+        world = new CaveWorld(stone);
+        PropagatorWorldView view = world.createView(sunlight);
+        if (reference) {
+            referencePropagator = new ReferenceBatchPropagator(rules, view);
+        } else {
+            propagator = new BatchPropagator(rules, view);
+        }
+    }
+
+    @Override
+    public void run() {
+        world.applyChanges(changes);
+        process(changes);
+        world.applyChanges(revertChanges);
+        process(revertChanges);
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted && !world.hasSameValues(new CaveWorld(stone), sunlight)) {
+            System.out.println(getTitle() + ": values differ from the initial world after reverting the change");
+        }
+    }
+
+    private void process(List<BlockChange> blockChanges) {
+        if (reference) {
+            referencePropagator.process(blockChanges);
+        } else {
+            propagator.process(blockChanges);
+        }
+    }
+}
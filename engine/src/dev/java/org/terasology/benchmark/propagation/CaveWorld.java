@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import org.terasology.benchmark.world.InMemoryChunkProvider;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.PropagatorWorldView;
+import org.terasology.world.propagation.light.LightWorldView;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+import org.terasology.world.propagation.light.SunlightWorldView;
+
+import java.util.List;
+
+/**
+ * A large cave under solid rock, held in real chunks: stone up to a flat surface with open sky above it, and a
+ * spherical cave in the rock. The sunlight of the open air is filled in; the cave is dark.
+ */
+final class CaveWorld {
+
+    public static final int SIZE = 64;
+    public static final int SURFACE = 56;
+    public static final int CAVE_RADIUS = 20;
+    public static final Vector3i CAVE_CENTER = new Vector3i(SIZE / 2, 28, SIZE / 2);
+
+    private final InMemoryChunkProvider chunkProvider;
+
+    public CaveWorld(Block stone) {
+        chunkProvider = new InMemoryChunkProvider(Region3i.createFromMinMax(Vector3i.zero(),
+                new Vector3i(TeraMath.calcChunkPosX(SIZE - 1), 0, TeraMath.calcChunkPosZ(SIZE - 1))));
+        int radiusSquared = CAVE_RADIUS * CAVE_RADIUS;
+        for (int x = 0; x < SIZE; ++x) {
+            for (int z = 0; z < SIZE; ++z) {
+                ChunkImpl chunk = getChunk(x, z);
+                int blockX = TeraMath.calcBlockPosX(x);
+                int blockZ = TeraMath.calcBlockPosZ(z);
+                for (int y = 0; y < ChunkConstants.SIZE_Y; ++y) {
+                    int dx = x - CAVE_CENTER.x;
+                    int dy = y - CAVE_CENTER.y;
+                    int dz = z - CAVE_CENTER.z;
+                    if (y >= SURFACE) {
+                        chunk.setSunlight(blockX, y, blockZ, SunlightPropagationRules.MAX_VALUE);
+                    } else if (dx * dx + dy * dy + dz * dz > radiusSquared) {
+                        chunk.setBlock(blockX, y, blockZ, stone);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A view of the block light of the world, or of its sunlight
+     */
+    public PropagatorWorldView createView(boolean sunlight) {
+        return sunlight ? new SunlightWorldView(chunkProvider) : new LightWorldView(chunkProvider);
+    }
+
+    public Block getBlockAt(Vector3i pos) {
+        return getChunk(pos.x, pos.z).getBlock(TeraMath.calcBlockPosX(pos.x), pos.y, TeraMath.calcBlockPosZ(pos.z));
+    }
+
+    public void applyChanges(List<BlockChange> blockChanges) {
+        for (BlockChange change : blockChanges) {
+            Vector3i pos = change.getPosition();
+            getChunk(pos.x, pos.z).setBlock(TeraMath.calcBlockPosX(pos.x), pos.y, TeraMath.calcBlockPosZ(pos.z), change.getTo());
+        }
+    }
+
+    public boolean hasSameValues(CaveWorld other, boolean sunlight) {
+        for (int x = 0; x < SIZE; ++x) {
+            for (int z = 0; z < SIZE; ++z) {
+                ChunkImpl chunk = getChunk(x, z);
+                ChunkImpl otherChunk = other.getChunk(x, z);
+                int blockX = TeraMath.calcBlockPosX(x);
+                int blockZ = TeraMath.calcBlockPosZ(z);
+                for (int y = 0; y < ChunkConstants.SIZE_Y; ++y) {
+                    byte value = sunlight ? chunk.getSunlight(blockX, y, blockZ) : chunk.getLight(blockX, y, blockZ);
+                    byte otherValue = sunlight ? otherChunk.getSunlight(blockX, y, blockZ) : otherChunk.getLight(blockX, y, blockZ);
+                    if (value != otherValue) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private ChunkImpl getChunk(int x, int z) {
+        return chunkProvider.getChunk(TeraMath.calcChunkPosX(x), 0, TeraMath.calcChunkPosZ(z));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.config.Config;
+import org.terasology.math.Side;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.NullWorldAtlas;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.PropagationRules;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+
+import java.util.List;
+
+/**
+ * Compares BatchPropagator with the set based propagator it replaced, on a large cave under solid rock spanning
+ * several chunks: placing and removing a torch in the cave for block light, and digging and refilling a shaft into
+ * the cave for sunlight. Both propagate through the light and sunlight world views the game uses. Before timing,
+ * checks that both produce the same values.
+ */
+public final class LightPropagationBenchmark {
+
+    private LightPropagationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        CoreRegistry.put(Config.class, new Config());
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), new DefaultBlockFamilyFactoryRegistry());
+        CoreRegistry.put(BlockManager.class, blockManager);
+
+        Block stone = new Block();
+        stone.setDisplayName("Stone");
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:stone"), stone), true);
+        Block torch = new Block();
+        torch.setDisplayName("Torch");
+        torch.setTranslucent(true);
+        torch.setLuminance((byte) 15);
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:torch"), torch), true);
+        stone = blockManager.getBlock("engine:stone");
+        torch = blockManager.getBlock("engine:torch");
+        Block air = BlockManager.getAir();
+
+        Vector3i caveCenter = CaveWorld.CAVE_CENTER;
+        List<BlockChange> placeTorch = Lists.newArrayList(new BlockChange(caveCenter, air, torch));
+        List<BlockChange> removeTorch = Lists.newArrayList(new BlockChange(caveCenter, torch, air));
+
+        CaveWorld world = new CaveWorld(stone);
+        List<BlockChange> digShaft = Lists.newArrayList();
+        List<BlockChange> fillShaft = Lists.newArrayList();
+        for (int y = CaveWorld.SURFACE - 1; y > caveCenter.y && world.getBlockAt(new Vector3i(caveCenter.x, y, caveCenter.z)) == stone; --y) {
+            Vector3i pos = new Vector3i(caveCenter.x, y, caveCenter.z);
+            digShaft.add(new BlockChange(pos, stone, air));
+            fillShaft.add(new BlockChange(pos, air, stone));
+        }
+
+        LightPropagationRules lightRules = new LightPropagationRules();
+        SunlightPropagationRules sunlightRules = new SunlightPropagationRules();
+        compare("Block light", stone, lightRules, false, placeTorch, removeTorch);
+        compare("Sunlight", stone, sunlightRules, true, digShaft, fillShaft);
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        for (boolean reference : new boolean[]{true, false}) {
+            benchmarks.add(new BenchmarkLightPropagation("Place and remove a torch in a cave", stone, lightRules, false, placeTorch, removeTorch, reference));
+            benchmarks.add(new BenchmarkLightPropagation("Dig and fill a shaft into a cave", stone, sunlightRules, true, digShaft, fillShaft, reference));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static void compare(String name, Block stone, PropagationRules rules, boolean sunlight,
+                                List<BlockChange> changes, List<BlockChange> revertChanges) {
+        CaveWorld world = new CaveWorld(stone);
+        CaveWorld referenceWorld = new CaveWorld(stone);
+        BatchPropagator propagator = new BatchPropagator(rules, world.createView(sunlight));
+        ReferenceBatchPropagator referencePropagator = new ReferenceBatchPropagator(rules, referenceWorld.createView(sunlight));
+
+        world.applyChanges(changes);
+        referenceWorld.applyChanges(changes);
+        propagator.process(changes);
+        referencePropagator.process(changes);
+        boolean same = world.hasSameValues(referenceWorld, sunlight);
+
+        world.applyChanges(revertChanges);
+        referenceWorld.applyChanges(revertChanges);
+        propagator.process(revertChanges);
+        referencePropagator.process(revertChanges);
+        same &= world.hasSameValues(referenceWorld, sunlight);
+
+        System.out.println(name + ": " + (same ? "same values as the reference propagator" : "VALUES DIFFER from the reference propagator"));
+    }
+}
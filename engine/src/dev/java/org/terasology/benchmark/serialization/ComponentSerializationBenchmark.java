@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.serialization;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.health.HealthComponent;
+import org.terasology.persistence.serializers.ComponentCodecGenerator;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.mathTypes.Vector3fTypeHandler;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.rendering.logic.LightComponent;
+import org.terasology.utilities.random.FastRandom;
+
+import javax.vecmath.Vector3f;
+import java.util.List;
+
+/**
+ * Compares serializing components through the type handlers with serializing them through generated codecs. The
+ * benchmarks only run if both produce the same messages and components.
+ */
+public final class ComponentSerializationBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ComponentSerializationBenchmark.class);
+
+    private ComponentSerializationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        CopyStrategyLibrary copyStrategyLibrary = new CopyStrategyLibrary(reflectFactory);
+        ComponentLibrary componentLibrary = new ComponentLibrary(reflectFactory, copyStrategyLibrary);
+        componentLibrary.register(new SimpleUri("engine", "health"), HealthComponent.class);
+        componentLibrary.register(new SimpleUri("engine", "displayName"), DisplayNameComponent.class);
+        componentLibrary.register(new SimpleUri("engine", "light"), LightComponent.class);
+
+        TypeSerializationLibrary serializationLibrary = new TypeSerializationLibrary(reflectFactory, copyStrategyLibrary);
+        serializationLibrary.add(Vector3f.class, new Vector3fTypeHandler());
+
+        ComponentSerializer handlerSerializer = new ComponentSerializer(componentLibrary, serializationLibrary);
+        ComponentSerializer generatedSerializer = new ComponentSerializer(componentLibrary, serializationLibrary);
+        generatedSerializer.setCodecGenerator(new ComponentCodecGenerator());
+
+        List<Component> components = createComponents();
+        if (!outputsMatch(handlerSerializer, generatedSerializer, components)) {
+            return;
+        }
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new ComponentSerializeBenchmark("type handlers", handlerSerializer, components));
+        benchmarks.add(new ComponentSerializeBenchmark("generated codecs", generatedSerializer, components));
+        benchmarks.add(new ComponentDeserializeBenchmark("type handlers", handlerSerializer, components));
+        benchmarks.add(new ComponentDeserializeBenchmark("generated codecs", generatedSerializer, components));
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static List<Component> createComponents() {
+        FastRandom rand = new FastRandom(0L);
+        List<Component> components = Lists.newArrayList();
+        for (int i = 0; i < 100; ++i) {
+            HealthComponent health = new HealthComponent(rand.nextInt(100), rand.nextFloat(), rand.nextFloat(0, 10));
+            health.nextRegenTick = rand.nextLong();
+            health.destroyEntityOnNoHealth = rand.nextBoolean();
+            components.add(health);
+
+            DisplayNameComponent displayName = new DisplayNameComponent();
+            displayName.name = "Entity " + i;
+            displayName.description = (rand.nextBoolean()) ? null : "Description of entity " + i;
+            components.add(displayName);
+
+            LightComponent light = new LightComponent();
+            light.lightColorDiffuse.set(rand.nextFloat(), rand.nextFloat(), rand.nextFloat());
+            light.lightAttenuationRange = rand.nextFloat(1, 32);
+            light.simulateFading = rand.nextBoolean();
+            components.add(light);
+        }
+        return components;
+    }
+
+    /**
+     * Checks that both serializers write the same message for each component, and read each message back into the same
+     * component.
+     */
+    private static boolean outputsMatch(ComponentSerializer expected, ComponentSerializer actual, List<Component> components) {
+        for (Component component : components) {
+            EntityData.Component expectedMessage = expected.serialize(component);
+            EntityData.Component actualMessage = actual.serialize(component);
+            if (!expectedMessage.equals(actualMessage)) {
+                logger.error("Serialized {} differs:\n{}\n{}", component.getClass().getSimpleName(), expectedMessage, actualMessage);
+                return false;
+            }
+            EntityData.Component expectedRoundTrip = expected.serialize(expected.deserialize(expectedMessage));
+            EntityData.Component actualRoundTrip = expected.serialize(actual.deserialize(actualMessage));
+            if (!expectedRoundTrip.equals(actualRoundTrip)) {
+                logger.error("Deserialized {} differs:\n{}\n{}", component.getClass().getSimpleName(), expectedRoundTrip, actualRoundTrip);
+                return false;
+            }
+        }
+        return true;
+    }
+}
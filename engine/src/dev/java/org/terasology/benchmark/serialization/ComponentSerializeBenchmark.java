@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.serialization;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.Component;
+import org.terasology.persistence.serializers.ComponentSerializer;
+
+import java.util.List;
+
+/**
+ * Serializes a list of components into protobuf messages.
+ */
+public class ComponentSerializeBenchmark extends AbstractBenchmark {
+
+    private final ComponentSerializer serializer;
+    private final List<Component> components;
+
+    public ComponentSerializeBenchmark(String mode, ComponentSerializer serializer, List<Component> components) {
+        super("Serialize " + components.size() + " components via " + mode, 1000, new int[]{1000, 5000});
+        this.serializer = serializer;
+        this.components = components;
+    }
+
+    @Override
+    public void run() {
+        for (Component component : components) {
+            serializer.serialize(component);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.world;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.internal.WorldProviderCore;
+
+/**
+ * Reads the ids of all blocks in a region, either a block at a time through getBlock or all at once through getBlocks.
+ */
+public class BenchmarkBlockRead extends AbstractBenchmark {
+
+    private final WorldProviderCore world;
+    private final Region3i region;
+    private final boolean batch;
+    private final short[] ids;
+    private long checksum;
+
+    public BenchmarkBlockRead(WorldProviderCore world, Region3i region, boolean batch) {
+        super("Read " + region.size() + (batch ? " (getBlocks)" : " (getBlock)"), 10, new int[]{50, 50, 50});
+        this.world = world;
+        this.region = region;
+        this.batch = batch;
+        this.ids = new short[region.size().x * region.size().y * region.size().z];
+    }
+
+    @Override
+    public void run() {
+        if (batch) {
+            world.getBlocks(region, ids);
+        } else {
+            int index = 0;
+            for (Vector3i pos : region) {
+                ids[index++] = world.getBlock(pos.x, pos.y, pos.z).getId();
+            }
+        }
+        // Keeps the reads from being optimised away
+        for (short id : ids) {
+            checksum += id;
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            System.out.println(getTitle() + ": checksum " + checksum);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.world;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.BlockEditSet;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.WorldProviderCore;
+
+/**
+ * Fills a region with a block and then clears it again, either a block at a time through setBlock or as one edit set
+ * through setBlocks.
+ */
+public class BenchmarkBlockWrite extends AbstractBenchmark {
+
+    private final WorldProviderCore world;
+    private final Region3i region;
+    private final Block block;
+    private final Block air;
+    private final boolean batch;
+
+    public BenchmarkBlockWrite(WorldProviderCore world, Region3i region, Block block, Block air, boolean batch) {
+        super("Write " + region.size() + (batch ? " (setBlocks)" : " (setBlock)"), 10, new int[]{50, 50, 50});
+        this.world = world;
+        this.region = region;
+        this.block = block;
+        this.air = air;
+        this.batch = batch;
+    }
+
+    @Override
+    public void run() {
+        if (batch) {
+            BlockEditSet edits = new BlockEditSet();
+            edits.fill(region, block);
+            world.setBlocks(edits);
+            edits.clear();
+            edits.fill(region, air);
+            world.setBlocks(edits);
+        } else {
+            for (Vector3i pos : region) {
+                world.setBlock(pos, block);
+            }
+            for (Vector3i pos : region) {
+                world.setBlock(pos, air);
+            }
+        }
+    }
+}
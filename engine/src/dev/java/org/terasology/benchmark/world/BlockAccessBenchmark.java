@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.world;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.config.Config;
+import org.terasology.engine.SimpleUri;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.NullWorldAtlas;
+import org.terasology.world.internal.WorldProviderCoreImpl;
+
+import java.util.List;
+
+/**
+ * Compares reading and writing a region of blocks a block at a time with the batch getBlocks and setBlocks, on a
+ * region spanning several chunks, as an explosion or a placed structure would.
+ */
+public final class BlockAccessBenchmark {
+
+    private BlockAccessBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        CoreRegistry.put(Config.class, new Config());
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), new DefaultBlockFamilyFactoryRegistry());
+        CoreRegistry.put(BlockManager.class, blockManager);
+        blockManager.addBlockFamily(new SymmetricFamily(new BlockUri("engine:stone"), new Block()), true);
+        Block stone = blockManager.getBlock("engine:stone");
+        Block air = BlockManager.getAir();
+
+        InMemoryChunkProvider chunkProvider = new InMemoryChunkProvider(Region3i.createFromMinMax(new Vector3i(-1, 0, -1), new Vector3i(4, 0, 4)));
+        WorldProviderCoreImpl world = new WorldProviderCoreImpl("benchmark", "seed", 0, new SimpleUri("engine:flat"), chunkProvider);
+
+        List<Region3i> regions = Lists.newArrayList(
+                Region3i.createFromMinAndSize(new Vector3i(10, 40, 10), new Vector3i(8, 8, 8)),
+                Region3i.createFromMinAndSize(new Vector3i(4, 32, 4), new Vector3i(48, 32, 48)));
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        for (Region3i region : regions) {
+            benchmarks.add(new BenchmarkBlockRead(world, region, false));
+            benchmarks.add(new BenchmarkBlockRead(world, region, true));
+            benchmarks.add(new BenchmarkBlockWrite(world, region, stone, air, false));
+            benchmarks.add(new BenchmarkBlockWrite(world, region, stone, air, true));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
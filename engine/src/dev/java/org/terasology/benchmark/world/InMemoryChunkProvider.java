@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.world;
+
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkRegionListener;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.GeneratingChunkProvider;
+import org.terasology.world.generator.WorldGenerator;
+import org.terasology.world.internal.ChunkViewCore;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A chunk provider holding a fixed set of empty chunks in memory, enough for a world provider to read and write blocks.
+ */
+public class InMemoryChunkProvider implements GeneratingChunkProvider {
+
+    private final Map<Vector3i, ChunkImpl> chunks = Maps.newHashMap();
+
+    /**
+     * @param chunkRegion The chunk positions to create chunks for
+     */
+    public InMemoryChunkProvider(Region3i chunkRegion) {
+        for (Vector3i pos : chunkRegion) {
+            ChunkImpl chunk = new ChunkImpl(pos);
+            chunk.setChunkState(ChunkImpl.State.COMPLETE);
+            chunks.put(pos, chunk);
+        }
+    }
+
+    @Override
+    public ChunkImpl getChunk(int x, int y, int z) {
+        return getChunk(new Vector3i(x, y, z));
+    }
+
+    @Override
+    public ChunkImpl getChunk(Vector3i chunkPos) {
+        return chunks.get(chunkPos);
+    }
+
+    @Override
+    public boolean isChunkReady(Vector3i pos) {
+        return chunks.containsKey(pos);
+    }
+
+    @Override
+    public ChunkImpl getChunkForProcessing(Vector3i pos) {
+        return getChunk(pos);
+    }
+
+    @Override
+    public ChunkViewCore getLocalView(Vector3i centerChunkPos) {
+        return null;
+    }
+
+    @Override
+    public ChunkViewCore getSubviewAroundBlock(Vector3i blockPos, int extent) {
+        return null;
+    }
+
+    @Override
+    public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
+        return null;
+    }
+
+    @Override
+    public ChunkViewCore getViewAround(Vector3i chunkPos) {
+        return null;
+    }
+
+    @Override
+    public void setWorldEntity(EntityRef entity) {
+    }
+
+    @Override
+    public void addRelevanceEntity(EntityRef entity, int distance) {
+    }
+
+    @Override
+    public void addRelevanceEntity(EntityRef entity, int distance, ChunkRegionListener listener) {
+    }
+
+    @Override
+    public void updateRelevanceEntity(EntityRef entity, int distance) {
+    }
+
+    @Override
+    public void removeRelevanceEntity(EntityRef entity) {
+    }
+
+    @Override
+    public List<Region3i> getRelevanceRegions() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void update() {
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public void purgeChunks() {
+    }
+
+    @Override
+    public void createOrLoadChunk(Vector3i position) {
+    }
+
+    @Override
+    public void onChunkIsReady(Vector3i position) {
+    }
+
+    @Override
+    public WorldGenerator getWorldGenerator() {
+        return null;
+    }
+}
@@ -20,8 +20,10 @@
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.utilities.compression.CompressionType;
 
 /**
  * @author Immortius
@@ -34,6 +36,10 @@ public class NetworkConfig implements Iterable<ServerInfo> {
     // the port that is used for hosting
     private int serverPort = TerasologyConstants.DEFAULT_PORT;
 
+    // compression applied by the server to messages sent to clients
+    private CompressionType compression = CompressionType.LZ4;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
     public void clear() {
         servers.clear();
     }
@@ -54,6 +60,22 @@ public void setServerPort(int serverPort) {
         this.serverPort = serverPort;
     }
 
+    public CompressionType getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionType compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
     @Override
     public Iterator<ServerInfo> iterator() {
         return servers.iterator();
@@ -16,6 +16,10 @@
 
 package org.terasology.config;
 
+import org.terasology.utilities.compression.CompressionType;
+
+import java.util.zip.Deflater;
+
 /**
  * @author Immortius
  */
@@ -27,6 +31,12 @@ public class SystemConfig {
     private boolean debugEnabled;//是否可调试
     private boolean monitoringEnabled;//是否可以监控
     private boolean reflectionsCacheEnabled;//反射缓存开启
+    private CompressionType chunkCompression = CompressionType.LZ4;
+    private int chunkCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private long chunkCacheBudget;
+    private boolean chunkPrefetchEnabled = true;
+    private boolean componentCodecsEnabled = true;
+    private transient int pregenerationRadius;
 
     public long getDayNightLengthInMs() {
         return dayNightLengthInMs;
@@ -68,6 +78,75 @@ public void setReflectionsCacheEnabled(boolean reflectionsCacheEnabled) {
         this.reflectionsCacheEnabled = reflectionsCacheEnabled;
     }
     
+    /**
+     * @return The compression used when saving chunks. Saved chunks are readable regardless of this setting.
+     */
+    public CompressionType getChunkCompression() {
+        return chunkCompression;
+    }
+
+    public void setChunkCompression(CompressionType chunkCompression) {
+        this.chunkCompression = chunkCompression;
+    }
+
+    /**
+     * @return The deflate level used when saving chunks, if chunk compression is DEFLATE
+     */
+    public int getChunkCompressionLevel() {
+        return chunkCompressionLevel;
+    }
+
+    public void setChunkCompressionLevel(int chunkCompressionLevel) {
+        this.chunkCompressionLevel = chunkCompressionLevel;
+    }
+
+    /**
+     * @return The memory, in bytes, that loaded chunks no player needs may take up before they are unloaded.
+     *         0 to use a quarter of the maximum heap size.
+     */
+    public long getChunkCacheBudget() {
+        return chunkCacheBudget;
+    }
+
+    public void setChunkCacheBudget(long chunkCacheBudget) {
+        this.chunkCacheBudget = chunkCacheBudget;
+    }
+
+    /**
+     * @return Whether chunks are produced ahead of fast moving players, along their heading
+     */
+    public boolean isChunkPrefetchEnabled() {
+        return chunkPrefetchEnabled;
+    }
+
+    public void setChunkPrefetchEnabled(boolean chunkPrefetchEnabled) {
+        this.chunkPrefetchEnabled = chunkPrefetchEnabled;
+    }
+
+    /**
+     * @return Whether the simple fields of components are stored and sent through generated code, rather than through
+     *         the type handlers. Takes effect on restart.
+     */
+    public boolean isComponentCodecsEnabled() {
+        return componentCodecsEnabled;
+    }
+
+    public void setComponentCodecsEnabled(boolean componentCodecsEnabled) {
+        this.componentCodecsEnabled = componentCodecsEnabled;
+    }
+
+    /**
+     * @return The radius, in chunks, around the origin to generate and store before shutting down, or 0 to play
+     *         normally. Only set from the command line, and never saved.
+     */
+    public int getPregenerationRadius() {
+        return pregenerationRadius;
+    }
+
+    public void setPregenerationRadius(int pregenerationRadius) {
+        this.pregenerationRadius = pregenerationRadius;
+    }
+
     public boolean isMonitoringEnabled() {
         return monitoringEnabled;
     }
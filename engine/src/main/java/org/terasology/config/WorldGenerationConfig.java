@@ -24,6 +24,7 @@
 public class WorldGenerationConfig {
     private String worldTitle = "New World";
     private String defaultSeed = "nowater4";
+    private transient String commandLineSeed;
 
     private SimpleUri defaultGenerator = new SimpleUri("core:perlin");
 
@@ -43,6 +44,18 @@ public void setDefaultSeed(String defaultSeed) {
         this.defaultSeed = defaultSeed;
     }
 
+    /**
+     * @return The seed given on the command line for a headless game, or null to use the default seed. Never saved, so a
+     *         one-off run does not replace the default seed.
+     */
+    public String getCommandLineSeed() {
+        return commandLineSeed;
+    }
+
+    public void setCommandLineSeed(String commandLineSeed) {
+        this.commandLineSeed = commandLineSeed;
+    }
+
     public SimpleUri getDefaultGenerator() {
         return defaultGenerator;
     }
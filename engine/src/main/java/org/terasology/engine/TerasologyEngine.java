@@ -48,6 +48,7 @@
 import org.terasology.monitoring.gui.AdvancedMonitor;
 import org.terasology.network.NetworkSystem;
 import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.serializers.ComponentCodecGenerator;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.physics.CollisionGroupManager;
 import org.terasology.reflection.copy.CopyStrategyLibrary;
@@ -341,6 +342,9 @@ private void initManagers() {
         CopyStrategyLibrary copyStrategyLibrary = CoreRegistry.putPermanently(CopyStrategyLibrary.class, new CopyStrategyLibrary(reflectFactory));
 
         CoreRegistry.putPermanently(TypeSerializationLibrary.class, new TypeSerializationLibrary(reflectFactory, copyStrategyLibrary));
+        if (config.getSystem().isComponentCodecsEnabled()) {
+            CoreRegistry.putPermanently(ComponentCodecGenerator.class, new ComponentCodecGenerator());
+        }
 
         AssetManager assetManager = CoreRegistry.putPermanently(AssetManager.class, new AssetManager(moduleManager.getEnvironment()));
         assetManager.setEnvironment(moduleManager.getEnvironment());
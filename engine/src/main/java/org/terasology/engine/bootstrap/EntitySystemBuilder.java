@@ -23,6 +23,7 @@
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.ComponentStorageType;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.PojoEntityManager;
 import org.terasology.entitySystem.event.Event;
@@ -85,13 +86,28 @@
 // TODO: Review - This could be a static class but its existence is also questionable.
 public class EntitySystemBuilder {
 
+    private ComponentStorageType storageType = ComponentStorageType.MAPPED;
+
+    public ComponentStorageType getStorageType() {
+        return storageType;
+    }
+
+    /**
+     * @param storageType How the entity manager built should store components
+     * @return This builder
+     */
+    public EntitySystemBuilder setStorageType(ComponentStorageType storageType) {
+        this.storageType = storageType;
+        return this;
+    }
+
     public EngineEntityManager build(ModuleEnvironment environment, NetworkSystem networkSystem, ReflectFactory reflectFactory) {
         return build(environment, networkSystem, reflectFactory, new CopyStrategyLibrary(reflectFactory));
     }
 
     public EngineEntityManager build(ModuleEnvironment environment, NetworkSystem networkSystem, ReflectFactory reflectFactory, CopyStrategyLibrary copyStrategyLibrary) {
         // Entity Manager
-        PojoEntityManager entityManager = CoreRegistry.put(EntityManager.class, new PojoEntityManager());
+        PojoEntityManager entityManager = CoreRegistry.put(EntityManager.class, new PojoEntityManager(storageType));
         CoreRegistry.put(EngineEntityManager.class, entityManager);
 
         // Standard serialization library
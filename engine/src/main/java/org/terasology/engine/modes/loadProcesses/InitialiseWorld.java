@@ -18,6 +18,8 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.config.SystemConfig;
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.reflection.copy.CopyStrategyLibrary;
@@ -38,11 +40,13 @@
 import org.terasology.physics.engine.PhysicsEngine;
 import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.world.WorldRenderer;
+import org.terasology.utilities.compression.Compression;
 import org.terasology.utilities.random.FastRandom;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.chunks.localChunkProvider.LocalChunkProvider;
 import org.terasology.world.chunks.localChunkProvider.RelevanceSystem;
+import org.terasology.world.chunks.localChunkProvider.WorldPregenerationSystem;
 import org.terasology.world.generator.UnresolvedWorldGeneratorException;
 import org.terasology.world.generator.WorldGenerator;
 import org.terasology.world.generator.internal.WorldGeneratorManager;
@@ -76,8 +80,10 @@ public boolean step() {
         CoreRegistry.put(WorldGeneratorPluginLibrary.class, new WorldGeneratorPluginLibrary(CoreRegistry.get(ModuleManager.class).getEnvironment(),
                 CoreRegistry.get(ReflectFactory.class), CoreRegistry.get(CopyStrategyLibrary.class)));
 
+        SystemConfig systemConfig = CoreRegistry.get(Config.class).getSystem();
         StorageManager storageManager = CoreRegistry.put(StorageManager.class,
-                new StorageManagerInternal(CoreRegistry.get(ModuleManager.class).getEnvironment(), (EngineEntityManager) CoreRegistry.get(EntityManager.class)));
+                new StorageManagerInternal(CoreRegistry.get(ModuleManager.class).getEnvironment(), (EngineEntityManager) CoreRegistry.get(EntityManager.class), true,
+                        Compression.createCodec(systemConfig.getChunkCompression(), systemConfig.getChunkCompressionLevel())));
         WorldInfo worldInfo = gameManifest.getWorldInfo(TerasologyConstants.MAIN_WORLD);
         if (worldInfo.getSeed() == null || worldInfo.getSeed().isEmpty()) {
             FastRandom random = new FastRandom();
@@ -98,8 +104,14 @@ public boolean step() {
         }
 
         // Init. a new world
-        LocalChunkProvider chunkProvider = new LocalChunkProvider(storageManager, worldGenerator);
+        long chunkCacheBudget = systemConfig.getChunkCacheBudget();
+        if (chunkCacheBudget <= 0) {
+            chunkCacheBudget = LocalChunkProvider.getDefaultCacheBudget();
+        }
+        LocalChunkProvider chunkProvider = new LocalChunkProvider(storageManager, worldGenerator, chunkCacheBudget);
+        chunkProvider.setPrefetchEnabled(systemConfig.isChunkPrefetchEnabled());
         CoreRegistry.get(ComponentSystemManager.class).register(new RelevanceSystem(chunkProvider), "engine:relevanceSystem");
+        CoreRegistry.get(ComponentSystemManager.class).register(new WorldPregenerationSystem(chunkProvider, storageManager), "engine:worldPregenerationSystem");
         EntityAwareWorldProvider entityWorldProvider = new EntityAwareWorldProvider(new WorldProviderCoreImpl(worldInfo, chunkProvider));
         WorldProvider worldProvider = new WorldProviderWrapper(entityWorldProvider);
         CoreRegistry.put(WorldProvider.class, worldProvider);
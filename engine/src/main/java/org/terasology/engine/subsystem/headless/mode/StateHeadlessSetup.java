@@ -64,7 +64,11 @@ public void init(GameEngine gameEngine) {
         SimpleUri worldGeneratorUri = worldGenConfig.getDefaultGenerator();
 
         gameManifest.setTitle(worldGenConfig.getWorldTitle());
-        gameManifest.setSeed(worldGenConfig.getDefaultSeed());
+        if (worldGenConfig.getCommandLineSeed() != null) {
+            gameManifest.setSeed(worldGenConfig.getCommandLineSeed());
+        } else {
+            gameManifest.setSeed(worldGenConfig.getDefaultSeed());
+        }
 
         WorldInfo worldInfo = new WorldInfo(TerasologyConstants.MAIN_WORLD, gameManifest.getSeed(),
                 (long) (WorldTime.DAY_LENGTH * 0.025f), worldGeneratorUri);
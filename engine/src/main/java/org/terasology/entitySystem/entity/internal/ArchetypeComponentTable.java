@@ -0,0 +1,500 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import org.terasology.entitySystem.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A table for storing entities and components that groups entities by the set of component types they have.
+ * <p/>
+ * Each such set, an archetype, stores the ids of its entities and each of their component types in dense arrays. Queries
+ * for several component types walk the arrays of the matching archetypes, rather than looking up every entity with the
+ * first type in the maps of the others. In exchange adding or removing a component type moves the entity to another
+ * archetype, which copies its components over.
+ * <p/>
+ * Query results refer to the id arrays of the matching archetypes rather than copying them. An archetype only copies
+ * its id array when it next changes after a query, so the results stay as they were when the query was made.
+ * <p/>
+ * This table is not thread safe. As entities move between archetypes whenever a component type is added or removed,
+ * it must not be read from other threads while the main thread changes it.
+ */
+class ArchetypeComponentTable implements ComponentStore {
+    private static final int INITIAL_ARCHETYPE_CAPACITY = 8;
+
+    private static final EntityIdSnapshot EMPTY_SNAPSHOT = new ArchetypeIdSnapshot(new int[0][], new int[0]);
+
+    private final Archetype emptyArchetype = new Archetype(ImmutableSet.<Class<? extends Component>>of());
+    private final Map<Set<Class<? extends Component>>, Archetype> archetypes = Maps.newHashMap();
+    private final Map<Class<? extends Component>, List<Archetype>> archetypesByComponent = Maps.newHashMap();
+    private final TIntObjectMap<Location> locations = new TIntObjectHashMap<>();
+
+    @Override
+    public <T extends Component> T get(int entityId, Class<T> componentClass) {
+        Location location = locations.get(entityId);
+        if (location != null) {
+            return componentClass.cast(location.archetype.get(location.row, componentClass));
+        }
+        return null;
+    }
+
+    @Override
+    public Component put(int entityId, Component component) {
+        Class<? extends Component> componentClass = component.getClass();
+        Location location = locations.get(entityId);
+        if (location == null) {
+            location = new Location();
+            location.archetype = emptyArchetype;
+            locations.put(entityId, location);
+        }
+        int column = location.archetype.columnOf(componentClass);
+        if (column >= 0) {
+            Component old = location.archetype.columns[column][location.row];
+            location.archetype.columns[column][location.row] = component;
+            return old;
+        }
+        Archetype target = location.archetype.with(componentClass);
+        move(entityId, location, target);
+        target.columns[target.columnOf(componentClass)][location.row] = component;
+        return null;
+    }
+
+    @Override
+    public <T extends Component> Component remove(int entityId, Class<T> componentClass) {
+        Location location = locations.get(entityId);
+        if (location == null) {
+            return null;
+        }
+        int column = location.archetype.columnOf(componentClass);
+        if (column < 0) {
+            return null;
+        }
+        Component old = location.archetype.columns[column][location.row];
+        Archetype target = location.archetype.without(componentClass);
+        if (target == emptyArchetype) {
+            location.archetype.removeRow(location.row);
+            locations.remove(entityId);
+        } else {
+            move(entityId, location, target);
+        }
+        return old;
+    }
+
+    @Override
+    public void remove(int entityId) {
+        Location location = locations.remove(entityId);
+        if (location != null) {
+            location.archetype.removeRow(location.row);
+        }
+    }
+
+    @Override
+    public void clear() {
+        archetypes.clear();
+        archetypesByComponent.clear();
+        emptyArchetype.transitions.clear();
+        locations.clear();
+    }
+
+    @Override
+    public int getComponentCount(Class<? extends Component> componentClass) {
+        List<Archetype> matches = archetypesByComponent.get(componentClass);
+        if (matches == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Archetype archetype : matches) {
+            count += archetype.size;
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Component> iterateComponents(int entityId) {
+        Location location = locations.get(entityId);
+        if (location == null) {
+            return Collections.emptyList();
+        }
+        List<Component> components = Lists.newArrayListWithCapacity(location.archetype.columns.length);
+        for (Component[] column : location.archetype.columns) {
+            components.add(column[location.row]);
+        }
+        return components;
+    }
+
+    @Override
+    public <T extends Component> TIntObjectIterator<T> componentIterator(Class<T> componentClass) {
+        List<Archetype> matches = archetypesByComponent.get(componentClass);
+        if (matches == null) {
+            return null;
+        }
+        return new ComponentIterator<>(matches, componentClass);
+    }
+
+    @SafeVarargs
+    @Override
+    public final EntityIdSnapshot getEntitiesWith(Class<? extends Component>... componentClasses) {
+        List<Archetype> candidates = null;
+        for (Class<? extends Component> componentClass : componentClasses) {
+            List<Archetype> matches = archetypesByComponent.get(componentClass);
+            if (matches == null) {
+                return EMPTY_SNAPSHOT;
+            }
+            if (candidates == null || matches.size() < candidates.size()) {
+                candidates = matches;
+            }
+        }
+
+        int matchCount = 0;
+        for (Archetype archetype : candidates) {
+            if (archetype.size > 0 && archetype.hasAll(componentClasses)) {
+                matchCount++;
+            }
+        }
+        if (matchCount == 0) {
+            return EMPTY_SNAPSHOT;
+        }
+        int[][] ids = new int[matchCount][];
+        int[] sizes = new int[matchCount];
+        int index = 0;
+        for (Archetype archetype : candidates) {
+            if (archetype.size > 0 && archetype.hasAll(componentClasses)) {
+                ids[index] = archetype.shareIds();
+                sizes[index] = archetype.size;
+                index++;
+            }
+        }
+        return new ArchetypeIdSnapshot(ids, sizes);
+    }
+
+    @Override
+    public TIntIterator entityIdIterator() {
+        return new TIntArrayList(locations.keys()).iterator();
+    }
+
+    @Override
+    public int numEntities() {
+        return locations.size();
+    }
+
+    /**
+     * Moves an entity, and the components it has in common with the target, to the target archetype
+     */
+    private void move(int entityId, Location location, Archetype target) {
+        Archetype source = location.archetype;
+        int row = target.addRow(entityId);
+        if (source != emptyArchetype) {
+            for (int i = 0; i < source.types.length; ++i) {
+                int column = target.columnOf(source.types[i]);
+                if (column >= 0) {
+                    target.columns[column][row] = source.columns[i][location.row];
+                }
+            }
+            source.removeRow(location.row);
+        }
+        location.archetype = target;
+        location.row = row;
+    }
+
+    private Archetype getArchetype(Set<Class<? extends Component>> types) {
+        Archetype archetype = archetypes.get(types);
+        if (archetype == null) {
+            archetype = new Archetype(types);
+            archetypes.put(types, archetype);
+            for (Class<? extends Component> type : types) {
+                List<Archetype> matches = archetypesByComponent.get(type);
+                if (matches == null) {
+                    matches = Lists.newArrayList();
+                    archetypesByComponent.put(type, matches);
+                }
+                matches.add(archetype);
+            }
+        }
+        return archetype;
+    }
+
+    /**
+     * Where in the tables an entity's components are
+     */
+    private static final class Location {
+        private Archetype archetype;
+        private int row;
+    }
+
+    private final class Archetype {
+        private final Class<? extends Component>[] types;
+        private final Set<Class<? extends Component>> typeSet;
+        private final Component[][] columns;
+        private int[] ids;
+        private int size;
+
+        /**
+         * Whether a query result refers to the ids array, which then has to be copied before it is changed
+         */
+        private boolean idsShared;
+
+        /**
+         * The archetypes reached by adding or removing a single component type, so moves don't need a set lookup
+         */
+        private final Map<Class<? extends Component>, Archetype> transitions = Maps.newHashMap();
+
+        @SuppressWarnings("unchecked")
+        public Archetype(Set<Class<? extends Component>> typeSet) {
+            this.typeSet = typeSet;
+            this.types = typeSet.toArray(new Class[typeSet.size()]);
+            this.columns = new Component[types.length][INITIAL_ARCHETYPE_CAPACITY];
+            this.ids = new int[INITIAL_ARCHETYPE_CAPACITY];
+        }
+
+        /**
+         * @return The column holding the component type, or -1 if this archetype does not have it
+         */
+        public int columnOf(Class<?> componentClass) {
+            // Archetypes rarely have more than a dozen types, for which a scan beats hashing
+            for (int i = 0; i < types.length; ++i) {
+                if (types[i] == componentClass) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public Component get(int row, Class<?> componentClass) {
+            int column = columnOf(componentClass);
+            return (column >= 0) ? columns[column][row] : null;
+        }
+
+        public boolean hasAll(Class<? extends Component>[] componentClasses) {
+            for (Class<? extends Component> componentClass : componentClasses) {
+                if (!typeSet.contains(componentClass)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Archetype with(Class<? extends Component> componentClass) {
+            Archetype result = transitions.get(componentClass);
+            if (result == null) {
+                result = getArchetype(ImmutableSet.<Class<? extends Component>>builder().addAll(typeSet).add(componentClass).build());
+                transitions.put(componentClass, result);
+            }
+            return result;
+        }
+
+        public Archetype without(Class<? extends Component> componentClass) {
+            Archetype result = transitions.get(componentClass);
+            if (result == null) {
+                Set<Class<? extends Component>> remaining = Sets.newLinkedHashSet(typeSet);
+                remaining.remove(componentClass);
+                result = remaining.isEmpty() ? emptyArchetype : getArchetype(ImmutableSet.copyOf(remaining));
+                transitions.put(componentClass, result);
+            }
+            return result;
+        }
+
+        /**
+         * @return The ids array, which is left unchanged from now on
+         */
+        public int[] shareIds() {
+            idsShared = true;
+            return ids;
+        }
+
+        public int addRow(int entityId) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                idsShared = false;
+                for (int i = 0; i < columns.length; ++i) {
+                    columns[i] = Arrays.copyOf(columns[i], capacity);
+                }
+            } else {
+                ensureIdsOwned();
+            }
+            ids[size] = entityId;
+            return size++;
+        }
+
+        /**
+         * Removes a row by moving the last row into its place
+         */
+        public void removeRow(int row) {
+            int last = --size;
+            if (row != last) {
+                ensureIdsOwned();
+                ids[row] = ids[last];
+                for (Component[] column : columns) {
+                    column[row] = column[last];
+                }
+                locations.get(ids[row]).row = row;
+            }
+            for (Component[] column : columns) {
+                column[last] = null;
+            }
+        }
+
+        private void ensureIdsOwned() {
+            if (idsShared) {
+                ids = Arrays.copyOf(ids, ids.length);
+                idsShared = false;
+            }
+        }
+    }
+
+    private static final class ArchetypeIdSnapshot implements EntityIdSnapshot {
+        private final int[][] ids;
+        private final int[] sizes;
+
+        public ArchetypeIdSnapshot(int[][] ids, int[] sizes) {
+            this.ids = ids;
+            this.sizes = sizes;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ids.length == 0;
+        }
+
+        @Override
+        public TIntIterator iterator() {
+            return new TIntIterator() {
+                private int array;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return array < ids.length;
+                }
+
+                @Override
+                public int next() {
+                    if (array >= ids.length) {
+                        throw new NoSuchElementException();
+                    }
+                    int result = ids[array][index];
+                    if (++index == sizes[array]) {
+                        array++;
+                        index = 0;
+                    }
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    private final class ComponentIterator<T extends Component> implements TIntObjectIterator<T> {
+        private final List<Archetype> matches;
+        private final Class<T> componentClass;
+        private int archetypeIndex;
+        private int row = -1;
+        private Archetype current;
+        private boolean removed;
+
+        public ComponentIterator(List<Archetype> matches, Class<T> componentClass) {
+            this.matches = matches;
+            this.componentClass = componentClass;
+            if (!matches.isEmpty()) {
+                current = matches.get(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current == null) {
+                return false;
+            }
+            if (row + 1 < current.size) {
+                return true;
+            }
+            for (int i = archetypeIndex + 1; i < matches.size(); ++i) {
+                if (matches.get(i).size > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void advance() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            removed = false;
+            row++;
+            while (row >= current.size) {
+                if (++archetypeIndex >= matches.size()) {
+                    throw new NoSuchElementException();
+                }
+                current = matches.get(archetypeIndex);
+                row = 0;
+            }
+        }
+
+        @Override
+        public int key() {
+            return current.ids[row];
+        }
+
+        @Override
+        public T value() {
+            return componentClass.cast(current.get(row, componentClass));
+        }
+
+        @Override
+        public T setValue(T val) {
+            Preconditions.checkState(!removed, "The current component has been removed");
+            Preconditions.checkArgument(val.getClass() == componentClass, "Expected a %s, got %s", componentClass, val.getClass());
+            int column = current.columnOf(componentClass);
+            T old = componentClass.cast(current.columns[column][row]);
+            current.columns[column][row] = val;
+            return old;
+        }
+
+        /**
+         * Removes the component from the current entity, which moves the entity to an archetype without it. The last
+         * entity of the current archetype takes its row, so the row is visited again.
+         */
+        @Override
+        public void remove() {
+            Preconditions.checkState(row >= 0 && !removed, "No current component to remove");
+            ArchetypeComponentTable.this.remove(current.ids[row], componentClass);
+            removed = true;
+            row--;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+/**
+ * The ways a {@link PojoEntityManager} can store the components of its entities.
+ */
+public enum ComponentStorageType {
+    /**
+     * A map from entity id to component for each component type. Adding and removing components is cheap, queries for
+     * several component types look up every entity with the first type in the maps of the others. Components may be
+     * read from other threads.
+     */
+    MAPPED {
+        @Override
+        ComponentStore createStore() {
+            return new ComponentTable();
+        }
+    },
+
+    /**
+     * Dense arrays for each set of component types in use. Queries for several component types walk these arrays,
+     * adding and removing component types copies the entity's components to another set. As entities move between
+     * arrays, the entity manager must only be accessed from the main thread.
+     */
+    ARCHETYPE {
+        @Override
+        ComponentStore createStore() {
+            return new ArchetypeComponentTable();
+        }
+    };
+
+    abstract ComponentStore createStore();
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import org.terasology.entitySystem.Component;
+
+/**
+ * Storage for the components of the entities of an entity manager. Changes are only made from the main thread.
+ * Whether other threads may read the store while it changes depends on the implementation.
+ *
+ * @see ComponentStorageType
+ */
+interface ComponentStore {
+
+    <T extends Component> T get(int entityId, Class<T> componentClass);
+
+    /**
+     * @return The component of the same type the entity previously had, or null
+     */
+    Component put(int entityId, Component component);
+
+    <T extends Component> Component remove(int entityId, Class<T> componentClass);
+
+    /**
+     * Removes all components of an entity
+     */
+    void remove(int entityId);
+
+    void clear();
+
+    int getComponentCount(Class<? extends Component> componentClass);
+
+    Iterable<Component> iterateComponents(int entityId);
+
+    /**
+     * @return An iterator over the entities that have the component and their instance of it, or null if no entity has
+     *         ever had the component. Setting a value through the iterator replaces the entity's component, and
+     *         removing through it removes the component from the entity.
+     */
+    <T extends Component> TIntObjectIterator<T> componentIterator(Class<T> componentClass);
+
+    /**
+     * @return The ids of all entities that have every one of the given components, which must not be empty
+     */
+    EntityIdSnapshot getEntitiesWith(Class<? extends Component>... componentClasses);
+
+    /**
+     * Produces an iterator for iterating over all entities
+     * <p/>
+     * This is not designed to be performant, and in general usage entities should not be iterated over.
+     *
+     * @return An iterator over all entity ids.
+     */
+    TIntIterator entityIdIterator();
+
+    int numEntities();
+}
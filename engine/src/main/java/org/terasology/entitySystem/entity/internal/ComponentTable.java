@@ -19,6 +19,8 @@
 import com.google.common.collect.Maps;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
@@ -33,9 +35,10 @@
  *
  * @author Immortius <immortius@gmail.com>
  */
-class ComponentTable {
+class ComponentTable implements ComponentStore {
     private Map<Class, TIntObjectMap<Component>> store = Maps.newConcurrentMap();
 
+    @Override
     public <T extends Component> T get(int entityId, Class<T> componentClass) {
         TIntObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
@@ -44,6 +47,7 @@ public <T extends Component> T get(int entityId, Class<T> componentClass) {
         return null;
     }
 
+    @Override
     public Component put(int entityId, Component component) {
         TIntObjectMap<Component> entityMap = store.get(component.getClass());
         if (entityMap == null) {
@@ -53,6 +57,7 @@ public Component put(int entityId, Component component) {
         return entityMap.put(entityId, component);
     }
 
+    @Override
     public <T extends Component> Component remove(int entityId, Class<T> componentClass) {
         TIntObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
@@ -61,21 +66,25 @@ public <T extends Component> Component remove(int entityId, Class<T> componentCl
         return null;
     }
 
+    @Override
     public void remove(int entityId) {
         for (TIntObjectMap<Component> entityMap : store.values()) {
             entityMap.remove(entityId);
         }
     }
 
+    @Override
     public void clear() {
         store.clear();
     }
 
+    @Override
     public int getComponentCount(Class<? extends Component> componentClass) {
         TIntObjectMap<Component> map = store.get(componentClass);
         return (map == null) ? 0 : map.size();
     }
 
+    @Override
     public Iterable<Component> iterateComponents(int entityId) {
         List<Component> components = Lists.newArrayList();
         for (TIntObjectMap<Component> componentMap : store.values()) {
@@ -87,6 +96,7 @@ public Iterable<Component> iterateComponents(int entityId) {
         return components;
     }
 
+    @Override
     public <T extends Component> TIntObjectIterator<T> componentIterator(Class<T> componentClass) {
         TIntObjectMap<T> entityMap = (TIntObjectMap<T>) store.get(componentClass);
         if (entityMap != null) {
@@ -95,6 +105,33 @@ public <T extends Component> TIntObjectIterator<T> componentIterator(Class<T> co
         return null;
     }
 
+    @SafeVarargs
+    @Override
+    public final EntityIdSnapshot getEntitiesWith(Class<? extends Component>... componentClasses) {
+        TIntList idList = new TIntArrayList();
+        TIntObjectMap<Component> primeMap = store.get(componentClasses[0]);
+        if (primeMap == null) {
+            return new IdListSnapshot(idList);
+        }
+
+        TIntObjectIterator<Component> primeIterator = primeMap.iterator();
+        while (primeIterator.hasNext()) {
+            primeIterator.advance();
+            int id = primeIterator.key();
+            boolean discard = false;
+            for (int i = 1; i < componentClasses.length; ++i) {
+                if (get(id, componentClasses[i]) == null) {
+                    discard = true;
+                    break;
+                }
+            }
+            if (!discard) {
+                idList.add(id);
+            }
+        }
+        return new IdListSnapshot(idList);
+    }
+
     /**
      * Produces an iterator for iterating over all entities
      * <p/>
@@ -102,6 +139,7 @@ public <T extends Component> TIntObjectIterator<T> componentIterator(Class<T> co
      *
      * @return An iterator over all entity ids.
      */
+    @Override
     public TIntIterator entityIdIterator() {
         TIntSet idSet = new TIntHashSet();
         for (TIntObjectMap<Component> componentMap : store.values()) {
@@ -110,6 +148,7 @@ public TIntIterator entityIdIterator() {
         return idSet.iterator();
     }
 
+    @Override
     public int numEntities() {
         TIntSet idSet = new TIntHashSet();
         for (TIntObjectMap<Component> componentMap : store.values()) {
@@ -118,4 +157,21 @@ public int numEntities() {
         return idSet.size();
     }
 
+    private static final class IdListSnapshot implements EntityIdSnapshot {
+        private final TIntList ids;
+
+        public IdListSnapshot(TIntList ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ids.isEmpty();
+        }
+
+        @Override
+        public TIntIterator iterator() {
+            return ids.iterator();
+        }
+    }
 }
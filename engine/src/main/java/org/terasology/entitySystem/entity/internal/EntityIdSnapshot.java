@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import gnu.trove.iterator.TIntIterator;
+
+/**
+ * The ids of the entities that matched a query, as they were when the query was made. Changes to the entities made
+ * afterwards, including while iterating, do not affect the ids returned.
+ */
+interface EntityIdSnapshot {
+
+    boolean isEmpty();
+
+    /**
+     * @return An iterator over the ids. It does not support removal.
+     */
+    TIntIterator iterator();
+}
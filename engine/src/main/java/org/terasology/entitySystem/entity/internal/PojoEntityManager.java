@@ -23,8 +23,6 @@
 import com.google.common.primitives.UnsignedInts;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.iterator.TIntObjectIterator;
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.slf4j.Logger;
@@ -71,7 +69,7 @@ public class PojoEntityManager implements LowLevelEntityManager, EngineEntityMan
     private TIntSet loadedIds = new TIntHashSet();
     private TIntSet freedIds = new TIntHashSet();
     private Map<Integer, BaseEntityRef> entityCache = new MapMaker().weakValues().concurrencyLevel(4).initialCapacity(1000).makeMap();
-    private ComponentTable store = new ComponentTable();
+    private final ComponentStore store;
 
     private Set<EntityChangeSubscriber> subscribers = Sets.newLinkedHashSet();
     private Set<EntityDestroySubscriber> destroySubscribers = Sets.newLinkedHashSet();
@@ -84,6 +82,11 @@ public class PojoEntityManager implements LowLevelEntityManager, EngineEntityMan
     private TypeSerializationLibrary typeSerializerLibrary;
 
     public PojoEntityManager() {
+        this(ComponentStorageType.MAPPED);
+    }
+
+    public PojoEntityManager(ComponentStorageType storageType) {
+        this.store = storageType.createStore();
     }
 
     public void setTypeSerializerLibrary(TypeSerializationLibrary serializerLibrary) {
@@ -312,45 +315,11 @@ public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... c
         if (componentClasses.length == 0) {
             return getAllEntities();
         }
-        if (componentClasses.length == 1) {
-            return iterateEntities(componentClasses[0]);
-        }
-        TIntList idList = new TIntArrayList();
-        TIntObjectIterator<? extends Component> primeIterator = store.componentIterator(componentClasses[0]);
-        if (primeIterator == null) {
+        EntityIdSnapshot ids = store.getEntitiesWith(componentClasses);
+        if (ids.isEmpty()) {
             return Collections.emptyList();
         }
-
-        while (primeIterator.hasNext()) {
-            primeIterator.advance();
-            int id = primeIterator.key();
-            boolean discard = false;
-            for (int i = 1; i < componentClasses.length; ++i) {
-                if (store.get(id, componentClasses[i]) == null) {
-                    discard = true;
-                    break;
-                }
-            }
-            if (!discard) {
-                idList.add(primeIterator.key());
-            }
-        }
-        return new EntityIterable(idList);
-    }
-
-    private Iterable<EntityRef> iterateEntities(Class<? extends Component> componentClass) {
-        TIntList idList = new TIntArrayList();
-        TIntObjectIterator<? extends Component> primeIterator = store.componentIterator(componentClass);
-        if (primeIterator == null) {
-            return Collections.emptyList();
-        }
-
-        while (primeIterator.hasNext()) {
-            primeIterator.advance();
-            int id = primeIterator.key();
-            idList.add(primeIterator.key());
-        }
-        return new EntityIterable(idList);
+        return new EntityIterable(ids);
     }
 
     @Override
@@ -738,14 +707,14 @@ public T setValue(T newValue) {
     }
 
     private class EntityIterable implements Iterable<EntityRef> {
-        private TIntList list;
+        private EntityIdSnapshot ids;
 
-        public EntityIterable(TIntList list) {
-            this.list = list;
+        public EntityIterable(EntityIdSnapshot ids) {
+            this.ids = ids;
         }
 
         public Iterator<EntityRef> iterator() {
-            return new EntityIterator(list.iterator());
+            return new EntityIterator(ids.iterator());
         }
     }
 
@@ -29,7 +29,8 @@
 public interface EventSystem {
 
     /**
-     * Process all pending events
+     * Process events sent from other threads. Implementations may limit the time spent per call, leaving the
+     * remaining events for the next call.
      */
     void process();
 
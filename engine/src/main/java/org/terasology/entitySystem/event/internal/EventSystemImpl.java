@@ -15,7 +15,6 @@
  */
 package org.terasology.entitySystem.event.internal;
 
-import com.esotericsoftware.reflectasm.MethodAccess;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicates;
 import com.google.common.collect.BiMap;
@@ -24,9 +23,10 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.reflections.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +41,7 @@
 import org.terasology.entitySystem.metadata.EventLibrary;
 import org.terasology.entitySystem.metadata.EventMetadata;
 import org.terasology.entitySystem.systems.ComponentSystem;
+import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.BroadcastEvent;
 import org.terasology.network.Client;
 import org.terasology.network.NetworkComponent;
@@ -51,18 +52,20 @@
 import org.terasology.network.ServerEvent;
 import org.terasology.world.block.BlockComponent;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An implementation of the EventSystem.
@@ -73,16 +76,31 @@ public class EventSystemImpl implements EventSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(EventSystemImpl.class);
 
+    private static final int PENDING_EVENT_CAPACITY = 1 << 14;
+    private static final long DEFAULT_PROCESS_BUDGET_MS = 4;
+
+    /**
+     * How many pending events are dispatched between checks of the time budget
+     */
+    private static final int EVENTS_PER_BUDGET_CHECK = 32;
+
     private Map<Class<? extends Event>, SetMultimap<Class<? extends Component>, EventHandlerInfo>> componentSpecificHandlers = Maps.newHashMap();
     private SetMultimap<Class<? extends Event>, EventHandlerInfo> generalHandlers = HashMultimap.create();
     private Comparator<EventHandlerInfo> priorityComparator = new EventHandlerPriorityComparator();
 
+    /**
+     * The handlers for each event type, sorted by priority. Dropped whenever handlers or events are registered.
+     */
+    private Map<Class<? extends Event>, DispatchTable> dispatchTables = Maps.newHashMap();
+
     // Event metadata
     private BiMap<SimpleUri, Class<? extends Event>> eventIdMap = HashBiMap.create();
     private SetMultimap<Class<? extends Event>, Class<? extends Event>> childEvents = HashMultimap.create();
 
     private Thread mainThread;
-    private BlockingQueue<PendingEvent> pendingEvents = Queues.newLinkedBlockingQueue();
+    private PendingEventQueue pendingEvents = new PendingEventQueue(PENDING_EVENT_CAPACITY);
+    private PendingEvent polledEvent = new PendingEvent();
+    private long processBudget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_PROCESS_BUDGET_MS);
 
     private EventLibrary eventLibrary;
     private NetworkSystem networkSystem;
@@ -93,18 +111,49 @@ public EventSystemImpl(EventLibrary eventLibrary, NetworkSystem networkSystem) {
         this.networkSystem = networkSystem;
     }
 
+    /**
+     * Sets how long a single call to {@link #process()} may spend dispatching pending events. Events left over are
+     * dispatched on the next call.
+     *
+     * @param milliseconds The time budget, at least some events are always dispatched
+     */
+    public void setProcessBudget(long milliseconds) {
+        this.processBudget = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+    }
+
+    public long getProcessBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(processBudget);
+    }
+
+    @Override
     public void process() {
-        for (PendingEvent event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
-            if (event.getComponent() != null) {
-                send(event.getEntity(), event.getEvent(), event.getComponent());
+        int queued = pendingEvents.size();
+        long start = System.nanoTime();
+        long longestWait = 0;
+        int processed = 0;
+        while (pendingEvents.poll(polledEvent)) {
+            EntityRef entity = polledEvent.getEntity();
+            Event event = polledEvent.getEvent();
+            Component component = polledEvent.getComponent();
+            longestWait = Math.max(longestWait, start - polledEvent.getEnqueueTime());
+            polledEvent.set(null, null, null, 0);
+
+            if (component != null) {
+                send(entity, event, component);
             } else {
-                send(event.getEntity(), event.getEvent());
+                send(entity, event);
+            }
+            if (++processed % EVENTS_PER_BUDGET_CHECK == 0 && System.nanoTime() - start > processBudget) {
+                break;
             }
         }
+        PerformanceMonitor.recordValue("Pending Events", queued);
+        PerformanceMonitor.recordValue("Pending Event Wait (ms)", longestWait / 1e6);
     }
 
     @Override
     public void registerEvent(SimpleUri uri, Class<? extends Event> eventType) {
+        dispatchTables.clear();
         eventIdMap.put(uri, eventType);
         logger.debug("Registering event {}", eventType.getSimpleName());
         for (Class parent : ReflectionUtils.getAllSuperTypes(eventType, Predicates.assignableFrom(Event.class))) {
@@ -165,14 +214,19 @@ public void registerEventHandler(ComponentSystem handler) {
                     componentParams.add((Class<? extends Component>) types[i]);
                 }
 
-                ByteCodeEventHandlerInfo handlerInfo = new ByteCodeEventHandlerInfo(handler, method, receiveEventAnnotation.priority(), requiredComponents, componentParams);
-                addEventHandler((Class<? extends Event>) types[0], handlerInfo, requiredComponents);
+                try {
+                    EventHandlerInfo handlerInfo = new MethodHandleEventHandlerInfo(handler, method, receiveEventAnnotation.priority(), requiredComponents, componentParams);
+                    addEventHandler((Class<? extends Event>) types[0], handlerInfo, requiredComponents);
+                } catch (IllegalAccessException e) {
+                    logger.error("Failed to access event handler method: {}", method.getName(), e);
+                }
             }
         }
     }
 
     @Override
     public void unregisterEventHandler(ComponentSystem handler) {
+        dispatchTables.clear();
         for (SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlers : componentSpecificHandlers.values()) {
             Iterator<EventHandlerInfo> eventHandlerIterator = eventHandlers.values().iterator();
             while (eventHandlerIterator.hasNext()) {
@@ -193,6 +247,7 @@ public void unregisterEventHandler(ComponentSystem handler) {
     }
 
     private void addEventHandler(Class<? extends Event> type, EventHandlerInfo handler, Collection<Class<? extends Component>> components) {
+        dispatchTables.clear();
         if (components.isEmpty()) {
             generalHandlers.put(type, handler);
             for (Class<? extends Event> childType : childEvents.get(type)) {
@@ -230,6 +285,7 @@ public <T extends Event> void registerEventReceiver(EventReceiver<T> eventReceiv
 
     @Override
     public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventReceiver, Class<T> eventClass, Class<? extends Component>... componentTypes) {
+        dispatchTables.clear();
         SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlerMap = componentSpecificHandlers.get(eventClass);
         if (eventHandlerMap != null) {
             ReceiverEventHandlerInfo testReceiver = new ReceiverEventHandlerInfo<T>(eventReceiver, 0, componentTypes);
@@ -245,14 +301,11 @@ public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventRece
     @Override
     public void send(EntityRef entity, Event event) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event));
+            pendingEvents.offer(entity, event, null);
         } else {
             networkReplicate(entity, event);
 
-            Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
-            List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
-            Collections.sort(selectedHandlers, priorityComparator);
-
+            EventHandlerInfo[] selectedHandlers = getDispatchTable(event.getClass()).selectHandlers(entity);
             if (event instanceof ConsumableEvent) {
                 sendConsumableEvent(entity, event, selectedHandlers);
             } else {
@@ -261,7 +314,7 @@ public void send(EntityRef entity, Event event) {
         }
     }
 
-    private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
+    private void sendStandardEvent(EntityRef entity, Event event, EventHandlerInfo[] selectedHandlers) {
         for (EventHandlerInfo handler : selectedHandlers) {
             // Check isValid at each stage in case components were removed.
             if (handler.isValidFor(entity)) {
@@ -270,7 +323,7 @@ private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerI
         }
     }
 
-    private void sendConsumableEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
+    private void sendConsumableEvent(EntityRef entity, Event event, EventHandlerInfo[] selectedHandlers) {
         ConsumableEvent consumableEvent = (ConsumableEvent) event;
         for (EventHandlerInfo handler : selectedHandlers) {
             // Check isValid at each stage in case components were removed.
@@ -345,39 +398,124 @@ private void broadcastEvent(EntityRef entity, Event event, EventMetadata metadat
     @Override
     public void send(EntityRef entity, Event event, Component component) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event, component));
+            pendingEvents.offer(entity, event, component);
         } else {
-            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(event.getClass());
-            if (handlers != null) {
-                List<EventHandlerInfo> eventHandlers = Lists.newArrayList(handlers.get(component.getClass()));
-                Collections.sort(eventHandlers, priorityComparator);
-                for (EventHandlerInfo eventHandler : eventHandlers) {
-                    if (eventHandler.isValidFor(entity)) {
-                        eventHandler.invoke(entity, event);
-                    }
+            for (EventHandlerInfo eventHandler : getDispatchTable(event.getClass()).getComponentHandlers(component.getClass())) {
+                if (eventHandler.isValidFor(entity)) {
+                    eventHandler.invoke(entity, event);
                 }
             }
         }
     }
 
-    private Set<EventHandlerInfo> selectEventHandlers(Class<? extends Event> eventType, EntityRef entity) {
-        Set<EventHandlerInfo> result = Sets.newHashSet();
-        result.addAll(generalHandlers.get(eventType));
-        SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
-        if (handlers == null) {
+    private DispatchTable getDispatchTable(Class<? extends Event> eventType) {
+        DispatchTable table = dispatchTables.get(eventType);
+        if (table == null) {
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+            if (handlers == null) {
+                handlers = HashMultimap.create();
+            }
+            table = new DispatchTable(generalHandlers.get(eventType), handlers, priorityComparator);
+            dispatchTables.put(eventType, table);
+        }
+        return table;
+    }
+
+    /**
+     * The handlers of a single event type, sorted by priority.
+     * <p/>
+     * The handlers that apply to an entity only depend on which of the components handled for the event type it has.
+     * The entity's signature, a bit per such component, is worked out on each send and the sorted handlers for each
+     * signature are kept, so sending an event doesn't need to collect and sort handlers.
+     */
+    private static final class DispatchTable {
+        private static final EventHandlerInfo[] NO_HANDLERS = new EventHandlerInfo[0];
+
+        private final Comparator<EventHandlerInfo> priorityComparator;
+        private final EventHandlerInfo[] generalHandlers;
+        private final Class<? extends Component>[] componentTypes;
+        private final Map<Class<? extends Component>, EventHandlerInfo[]> componentHandlers = Maps.newHashMap();
+        private final TLongObjectMap<EventHandlerInfo[]> handlersBySignature = new TLongObjectHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        public DispatchTable(Collection<EventHandlerInfo> general, SetMultimap<Class<? extends Component>, EventHandlerInfo> componentSpecific,
+                             Comparator<EventHandlerInfo> priorityComparator) {
+            this.priorityComparator = priorityComparator;
+            this.generalHandlers = sort(general);
+            this.componentTypes = componentSpecific.keySet().toArray(new Class[componentSpecific.keySet().size()]);
+            for (Class<? extends Component> componentType : componentTypes) {
+                componentHandlers.put(componentType, sort(componentSpecific.get(componentType)));
+            }
+        }
+
+        /**
+         * @return The handlers for components of the given type, sorted by priority
+         */
+        public EventHandlerInfo[] getComponentHandlers(Class<? extends Component> componentType) {
+            EventHandlerInfo[] result = componentHandlers.get(componentType);
+            return (result != null) ? result : NO_HANDLERS;
+        }
+
+        /**
+         * @return The handlers that apply to the entity, sorted by priority
+         */
+        public EventHandlerInfo[] selectHandlers(EntityRef entity) {
+            if (componentTypes.length == 0) {
+                return generalHandlers;
+            }
+            if (componentTypes.length > Long.SIZE) {
+                return collectHandlers(entity, 0);
+            }
+
+            long signature = 0;
+            for (int i = 0; i < componentTypes.length; ++i) {
+                if (entity.hasComponent(componentTypes[i])) {
+                    signature |= 1L << i;
+                }
+            }
+            EventHandlerInfo[] result = handlersBySignature.get(signature);
+            if (result == null) {
+                result = collectHandlers(null, signature);
+                handlersBySignature.put(signature, result);
+            }
             return result;
         }
 
-        for (Class<? extends Component> compClass : handlers.keySet()) {
-            if (entity.hasComponent(compClass)) {
-                for (EventHandlerInfo eventHandler : handlers.get(compClass)) {
-                    if (eventHandler.isValidFor(entity)) {
-                        result.add(eventHandler);
+        /**
+         * Collects the handlers for either an entity or a signature.
+         *
+         * @param entity    The entity, or null to work from the signature
+         * @param signature The component types present, one bit per entry of componentTypes
+         */
+        private EventHandlerInfo[] collectHandlers(EntityRef entity, long signature) {
+            Set<EventHandlerInfo> result = Sets.newLinkedHashSet(Arrays.asList(generalHandlers));
+            for (int i = 0; i < componentTypes.length; ++i) {
+                if (entity != null ? entity.hasComponent(componentTypes[i]) : (signature & (1L << i)) != 0) {
+                    for (EventHandlerInfo eventHandler : componentHandlers.get(componentTypes[i])) {
+                        if (entity != null ? eventHandler.isValidFor(entity) : hasAll(signature, eventHandler.getFilterComponents())) {
+                            result.add(eventHandler);
+                        }
                     }
                 }
             }
+            return sort(result);
+        }
+
+        private boolean hasAll(long signature, Collection<Class<? extends Component>> components) {
+            for (Class<? extends Component> component : components) {
+                int index = Arrays.asList(componentTypes).indexOf(component);
+                if (index < 0 || (signature & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private EventHandlerInfo[] sort(Collection<EventHandlerInfo> handlers) {
+            EventHandlerInfo[] result = handlers.toArray(new EventHandlerInfo[handlers.size()]);
+            Arrays.sort(result, priorityComparator);
+            return result;
         }
-        return result;
     }
 
     private static class EventHandlerPriorityComparator implements Comparator<EventHandlerInfo> {
@@ -391,6 +529,11 @@ public int compare(EventHandlerInfo o1, EventHandlerInfo o2) {
     private interface EventHandlerInfo {
         boolean isValidFor(EntityRef entity);
 
+        /**
+         * @return The components an entity needs for this handler to receive events
+         */
+        Collection<Class<? extends Component>> getFilterComponents();
+
         void invoke(EntityRef entity, Event event);
 
         int getPriority();
@@ -448,32 +591,38 @@ public int getPriority() {
             return priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public ComponentSystem getHandler() {
             return handler;
         }
     }
 
-    private static class ByteCodeEventHandlerInfo implements EventHandlerInfo {
+    /**
+     * Invokes the handler method through a method handle, which needs no parameter array for up to three components.
+     */
+    private static class MethodHandleEventHandlerInfo implements EventHandlerInfo {
         private ComponentSystem handler;
-        private MethodAccess methodAccess;
-        private int methodIndex;
+        private MethodHandle methodHandle;
         private ImmutableList<Class<? extends Component>> filterComponents;
-        private ImmutableList<Class<? extends Component>> componentParams;
+        private Class<? extends Component>[] componentParams;
         private int priority;
 
-        public ByteCodeEventHandlerInfo(ComponentSystem handler,
-                                        Method method,
-                                        int priority,
-                                        Collection<Class<? extends Component>> filterComponents,
-                                        Collection<Class<? extends Component>> componentParams) {
-
-
+        @SuppressWarnings("unchecked")
+        public MethodHandleEventHandlerInfo(ComponentSystem handler,
+                                            Method method,
+                                            int priority,
+                                            Collection<Class<? extends Component>> filterComponents,
+                                            Collection<Class<? extends Component>> componentParams) throws IllegalAccessException {
             this.handler = handler;
-            this.methodAccess = MethodAccess.get(handler.getClass());
-            methodIndex = methodAccess.getIndex(method.getName(), method.getParameterTypes());
+            this.methodHandle = MethodHandles.lookup().unreflect(method).bindTo(handler)
+                    .asType(MethodType.genericMethodType(method.getParameterTypes().length).changeReturnType(void.class));
             this.filterComponents = ImmutableList.copyOf(filterComponents);
-            this.componentParams = ImmutableList.copyOf(componentParams);
+            this.componentParams = componentParams.toArray(new Class[componentParams.size()]);
             this.priority = priority;
         }
 
@@ -488,22 +637,49 @@ public boolean isValidFor(EntityRef entity) {
 
         public void invoke(EntityRef entity, Event event) {
             try {
-                Object[] params = new Object[2 + componentParams.size()];
-                params[0] = event;
-                params[1] = entity;
-                for (int i = 0; i < componentParams.size(); ++i) {
-                    params[i + 2] = entity.getComponent(componentParams.get(i));
+                switch (componentParams.length) {
+                    case 0:
+                        methodHandle.invokeExact((Object) event, (Object) entity);
+                        break;
+                    case 1:
+                        methodHandle.invokeExact((Object) event, (Object) entity, getParam(entity, 0));
+                        break;
+                    case 2:
+                        methodHandle.invokeExact((Object) event, (Object) entity, getParam(entity, 0), getParam(entity, 1));
+                        break;
+                    case 3:
+                        methodHandle.invokeExact((Object) event, (Object) entity, getParam(entity, 0), getParam(entity, 1), getParam(entity, 2));
+                        break;
+                    default:
+                        Object[] params = new Object[2 + componentParams.length];
+                        params[0] = event;
+                        params[1] = entity;
+                        for (int i = 0; i < componentParams.length; ++i) {
+                            params[i + 2] = getParam(entity, i);
+                        }
+                        methodHandle.invokeWithArguments(params);
+                        break;
                 }
-                methodAccess.invoke(handler, methodIndex, params);
-            } catch (IllegalArgumentException ex) {
-                logger.error("Failed to invoke event", ex);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                logger.error("Failed to invoke event", e);
             }
         }
 
+        private Object getParam(EntityRef entity, int index) {
+            return entity.getComponent(componentParams[index]);
+        }
+
         public int getPriority() {
             return priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public ComponentSystem getHandler() {
             return handler;
@@ -541,6 +717,11 @@ public int getPriority() {
             return priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return Arrays.asList(components);
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (obj == this) {
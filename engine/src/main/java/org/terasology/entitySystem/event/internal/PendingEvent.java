@@ -27,6 +27,10 @@ class PendingEvent {
     private EntityRef entity;
     private Event event;
     private Component component;
+    private long enqueueTime;
+
+    public PendingEvent() {
+    }
 
     public PendingEvent(EntityRef entity, Event event) {
         this.event = event;
@@ -39,6 +43,23 @@ public PendingEvent(EntityRef entity, Event event, Component component) {
         this.component = component;
     }
 
+    public PendingEvent(EntityRef entity, Event event, Component component, long enqueueTime) {
+        this.entity = entity;
+        this.event = event;
+        this.component = component;
+        this.enqueueTime = enqueueTime;
+    }
+
+    /**
+     * Replaces the contents of this pending event, so it can be reused
+     */
+    public void set(EntityRef newEntity, Event newEvent, Component newComponent, long newEnqueueTime) {
+        this.entity = newEntity;
+        this.event = newEvent;
+        this.component = newComponent;
+        this.enqueueTime = newEnqueueTime;
+    }
+
     public EntityRef getEntity() {
         return entity;
     }
@@ -50,4 +71,11 @@ public Event getEvent() {
     public Component getComponent() {
         return component;
     }
+
+    /**
+     * @return When the event was queued, as given by System.nanoTime()
+     */
+    public long getEnqueueTime() {
+        return enqueueTime;
+    }
 }
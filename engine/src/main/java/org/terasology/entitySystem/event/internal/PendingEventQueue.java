@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The events sent from other threads, waiting for the main thread to dispatch them.
+ * <p/>
+ * Any number of threads may add events, only a single thread may take them. Events are kept in a fixed size ring
+ * buffer without locks or per-event allocation: producers claim a slot by advancing the tail, and publish it by
+ * advancing the slot's sequence number, which the consumer waits for. Adding never blocks or fails - while the ring is
+ * full, and until what did not fit has been taken, events go to an unbounded overflow queue instead. This keeps the
+ * events of each producer in the order they were added.
+ */
+final class PendingEventQueue {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final EntityRef[] entities;
+    private final Event[] events;
+    private final Component[] components;
+    private final long[] enqueueTimes;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final Queue<PendingEvent> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * @param capacity The size of the ring buffer, which must be a power of two
+     */
+    public PendingEventQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            sequences.set(i, i);
+        }
+        entities = new EntityRef[capacity];
+        events = new Event[capacity];
+        components = new Component[capacity];
+        enqueueTimes = new long[capacity];
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The number of waiting events
+     */
+    public int size() {
+        return (int) (tail.get() - head) + overflowSize.get();
+    }
+
+    /**
+     * @return How many events have gone to the overflow queue because the ring was full
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Adds an event. May be called from any thread.
+     *
+     * @param component The component the event is for, or null to send it to all the entity's components
+     */
+    public void offer(EntityRef entity, Event event, Component component) {
+        long now = System.nanoTime();
+        if (overflowSize.get() == 0 && offerToRing(entity, event, component, now)) {
+            return;
+        }
+        // Counted first, so producers stay off the ring until this event has been taken
+        overflowSize.incrementAndGet();
+        overflow.add(new PendingEvent(entity, event, component, now));
+        overflowCount.incrementAndGet();
+    }
+
+    private boolean offerToRing(EntityRef entity, Event event, Component component, long now) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entities[index] = entity;
+                    events[index] = event;
+                    components[index] = component;
+                    enqueueTimes[index] = now;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                // The consumer has not taken the event from a lap ago yet
+                return false;
+            }
+            // Otherwise another producer claimed the slot first, so retry with the new tail
+        }
+    }
+
+    /**
+     * Takes the oldest event. Must only be called from the consuming thread.
+     *
+     * @param result Receives the event
+     * @return Whether there was an event
+     */
+    public boolean poll(PendingEvent result) {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) == position + 1) {
+            result.set(entities[index], events[index], components[index], enqueueTimes[index]);
+            entities[index] = null;
+            events[index] = null;
+            components[index] = null;
+            sequences.set(index, position + mask + 1);
+            head = position + 1;
+            return true;
+        }
+        if (tail.get() != position) {
+            // A producer has claimed the slot but not filled it yet. Later events may be in the overflow queue.
+            return false;
+        }
+
+        PendingEvent event = overflow.poll();
+        if (event != null) {
+            result.set(event.getEntity(), event.getEvent(), event.getComponent(), event.getEnqueueTime());
+            overflowSize.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
@@ -16,9 +16,11 @@
 package org.terasology.logic.characters;
 
 import com.bulletphysics.linearmath.QuaternionUtil;
+import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.logic.characters.events.FootstepEvent;
 import org.terasology.logic.characters.events.HorizontalCollisionEvent;
 import org.terasology.logic.characters.events.JumpEvent;
@@ -38,6 +40,8 @@
 
 import javax.vecmath.AxisAngle4f;
 import javax.vecmath.Vector3f;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Calculates character movement using a physics-engine provided CharacterCollider.
@@ -94,6 +98,11 @@ public class KinematicCharacterMover implements CharacterMover {//Kinematic 运
     private WorldProvider worldProvider;//
     private PhysicsEngine physics;//物理引擎
 
+    // Set while stepping with deferred effects
+    private CharacterCollider knownCollider;
+    private Map<MovementMode, Float> knownMaxSpeeds;
+    private List<Event> deferredEvents;
+
     public KinematicCharacterMover(WorldProvider wp, PhysicsEngine physicsEngine) {
         this.worldProvider = wp;
         physics = physicsEngine;
@@ -123,7 +132,65 @@ public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputE
         return result;
     }
 
+    /**
+     * Steps like {@link #step(CharacterStateEvent, CharacterMoveInputEvent, EntityRef)}, but only reads from the entity
+     * system and the physics engine, so that it can run off the main thread while the main thread waits. The collider
+     * is only swept, never moved. Events are added to the given list instead of being sent, and max speeds are taken
+     * from the given map instead of being asked for.
+     *
+     * @param collider  The collider of the character, looked up on the main thread
+     * @param maxSpeeds The max speeds of the character, as returned by {@link #queryMaxSpeeds(EntityRef)}
+     * @param events    The list to add the events of this step to, for the caller to send from the main thread
+     */
+    public CharacterStateEvent stepDeferred(CharacterStateEvent initial, CharacterMoveInputEvent input, EntityRef entity,
+                                            CharacterCollider collider, Map<MovementMode, Float> maxSpeeds, List<Event> events) {
+        knownCollider = collider;
+        knownMaxSpeeds = maxSpeeds;
+        deferredEvents = events;
+        try {
+            return step(initial, input, entity);
+        } finally {
+            knownCollider = null;
+            knownMaxSpeeds = null;
+            deferredEvents = null;
+        }
+    }
+
+    /**
+     * Asks for the max speed of the character in each movement mode that has one. Must be called from the main thread.
+     *
+     * @return The max speeds, for {@link #stepDeferred}
+     */
+    public Map<MovementMode, Float> queryMaxSpeeds(EntityRef character) {
+        CharacterMovementComponent movementComp = character.getComponent(CharacterMovementComponent.class);
+        Map<MovementMode, Float> result = Maps.newEnumMap(MovementMode.class);
+        result.put(MovementMode.WALKING, getMaxSpeed(character, MovementMode.WALKING, movementComp.maxGroundSpeed));
+        result.put(MovementMode.CLIMBING, getMaxSpeed(character, MovementMode.CLIMBING, movementComp.maxClimbSpeed));
+        result.put(MovementMode.SWIMMING, getMaxSpeed(character, MovementMode.SWIMMING, movementComp.maxWaterSpeed));
+        result.put(MovementMode.GHOSTING, getMaxSpeed(character, MovementMode.GHOSTING, movementComp.maxGhostSpeed));
+        return result;
+    }
+
+    private CharacterCollider getCollider(EntityRef entity) {
+        if (knownCollider != null) {
+            return knownCollider;
+        }
+        // Creates the collider if missing, which changes the physics world
+        return physics.getCharacterCollider(entity);
+    }
+
+    private void send(EntityRef entity, Event event) {
+        if (deferredEvents != null) {
+            deferredEvents.add(event);
+        } else {
+            entity.send(event);
+        }
+    }
+
     private float getMaxSpeed(EntityRef character, MovementMode movementMode, float baseMaxSpeed) {
+        if (knownMaxSpeeds != null) {
+            return knownMaxSpeeds.get(movementMode);
+        }
         GetMaxSpeedEvent speedEvent = new GetMaxSpeedEvent(baseMaxSpeed, movementMode);
         character.send(speedEvent);
         return Math.max(0, speedEvent.getResultValue());
@@ -154,7 +221,7 @@ private void checkBlockEntry(EntityRef entity, Vector3i oldPosition, Vector3i ne
 
             for (int i = 0; i < characterHeight; i++) {//
                 // send a block enter/leave event for this character
-                entity.send(new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));//不知道干什么用的
+                send(entity, new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));//不知道干什么用的
             }
         }
     }
@@ -276,13 +343,13 @@ private void climb(final CharacterMovementComponent movementComp, final Characte
         endVelocity.z += velocityDiff.z;
         Vector3f moveDelta = new Vector3f(endVelocity);
         moveDelta.scale(input.getDelta());
-        CharacterCollider collider = physics.getCharacterCollider(entity);
+        CharacterCollider collider = getCollider(entity);
         MoveResult moveResult = move(state.getPosition(), moveDelta, 0, movementComp.slopeFactor, collider);
         Vector3f distanceMoved = new Vector3f(moveResult.getFinalPosition());
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            send(entity, new MovedEvent(distanceMoved, state.getPosition()));
         }
 
         if (moveResult.isBottomHit()) {
@@ -290,7 +357,7 @@ private void climb(final CharacterMovementComponent movementComp, final Characte
                 if (input.isFirstRun()) {
                     Vector3f landVelocity = new Vector3f(state.getVelocity());
                     landVelocity.y += (distanceMoved.y / moveDelta.y) * (endVelocity.y - state.getVelocity().y);
-                    entity.send(new VerticalCollisionEvent(state.getPosition(), landVelocity));
+                    send(entity, new VerticalCollisionEvent(state.getPosition(), landVelocity));
                 }
                 state.setGrounded(true);
             }
@@ -303,7 +370,7 @@ private void climb(final CharacterMovementComponent movementComp, final Characte
         }
         state.getVelocity().set(endVelocity);
         if (input.isFirstRun() && moveResult.isHorizontalHit()) {
-            entity.send(new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
+            send(entity, new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
         }
         if (state.isGrounded()) {
             state.setFootstepDelta(
@@ -311,7 +378,7 @@ private void climb(final CharacterMovementComponent movementComp, final Characte
             if (state.getFootstepDelta() > 1) {
                 state.setFootstepDelta(state.getFootstepDelta() - 1);
                 if (input.isFirstRun()) {
-                    entity.send(new FootstepEvent());
+                    send(entity, new FootstepEvent());
                 }
             }
         }
@@ -371,7 +438,7 @@ private void ghost(final CharacterMovementComponent movementComp, final Characte
         deltaPos.scale(input.getDelta());
         state.getPosition().add(deltaPos);
         if (input.isFirstRun() && deltaPos.length() > 0) {
-            entity.send(new MovedEvent(deltaPos, state.getPosition()));
+            send(entity, new MovedEvent(deltaPos, state.getPosition()));
         }
     }
 
@@ -599,7 +666,7 @@ private void swim(final CharacterMovementComponent movementComp, final Character
         }
         Vector3f moveDelta = new Vector3f(state.getVelocity());
         moveDelta.scale(input.getDelta());
-        CharacterCollider collider = physics.getCharacterCollider(entity);
+        CharacterCollider collider = getCollider(entity);
 
         // Note: No stepping underwater, no issue with slopes
         MoveResult moveResult = move(state.getPosition(), moveDelta, 0, 0.1f, collider);
@@ -607,13 +674,13 @@ private void swim(final CharacterMovementComponent movementComp, final Character
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            send(entity, new MovedEvent(distanceMoved, state.getPosition()));
             state.setFootstepDelta(
                     state.getFootstepDelta() + distanceMoved.length() / movementComp.distanceBetweenSwimStrokes);
             if (state.getFootstepDelta() > 1) {
                 state.setFootstepDelta(state.getFootstepDelta() - 1);
                 if (input.isFirstRun()) {
-                    entity.send(new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
+                    send(entity, new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
                 }
             }
         }
@@ -691,14 +758,14 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         endVelocity.y = Math.max(-TERMINAL_VELOCITY, state.getVelocity().y - GRAVITY * input.getDelta());
         Vector3f moveDelta = new Vector3f(endVelocity);
         moveDelta.scale(input.getDelta());
-        CharacterCollider collider = physics.getCharacterCollider(entity);
+        CharacterCollider collider = getCollider(entity);
         MoveResult moveResult = move(state.getPosition(), moveDelta, (state.isGrounded()) ? movementComp.stepHeight : 0,
                 movementComp.slopeFactor, collider);
         Vector3f distanceMoved = new Vector3f(moveResult.getFinalPosition());
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            send(entity, new MovedEvent(distanceMoved, state.getPosition()));
         }
 
         if (moveResult.isBottomHit()) {
@@ -707,7 +774,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                     Vector3f landVelocity = new Vector3f(state.getVelocity());
                     landVelocity.y += (distanceMoved.y / moveDelta.y) * (endVelocity.y - state.getVelocity().y);
                     logger.debug("Landed at " + landVelocity);
-                    entity.send(new VerticalCollisionEvent(state.getPosition(), landVelocity));
+                    send(entity, new VerticalCollisionEvent(state.getPosition(), landVelocity));
                 }
                 state.setGrounded(true);
             }
@@ -718,7 +785,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                 state.setGrounded(false);
                 endVelocity.y += movementComp.jumpSpeed;
                 if (input.isFirstRun()) {
-                    entity.send(new JumpEvent());
+                    send(entity, new JumpEvent());
                 }
             }
         } else {
@@ -729,7 +796,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         }
         state.getVelocity().set(endVelocity);
         if (input.isFirstRun() && moveResult.isHorizontalHit()) {
-            entity.send(new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
+            send(entity, new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
         }
         if (state.isGrounded()) {
             state.setFootstepDelta(
@@ -737,7 +804,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
             if (state.getFootstepDelta() > 1) {
                 state.setFootstepDelta(state.getFootstepDelta() - 1);
                 if (input.isFirstRun()) {
-                    entity.send(new FootstepEvent());
+                    send(entity, new FootstepEvent());
                 }
             }
         }
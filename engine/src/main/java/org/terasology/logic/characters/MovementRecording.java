@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+
+import javax.vecmath.Vector3f;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The movement input received from a number of characters, one stream of inputs per character in the order received.
+ * Recorded on a server by {@link MovementRecordingSystem}, and replayed by the character movement benchmark.
+ */
+public final class MovementRecording {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<List<CharacterMoveInputEvent>> streams;
+
+    public MovementRecording(List<List<CharacterMoveInputEvent>> streams) {
+        this.streams = streams;
+    }
+
+    /**
+     * @return The input streams, one per character
+     */
+    public List<List<CharacterMoveInputEvent>> getStreams() {
+        return Collections.unmodifiableList(streams);
+    }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(streams.size());
+            for (List<CharacterMoveInputEvent> stream : streams) {
+                out.writeInt(stream.size());
+                for (CharacterMoveInputEvent input : stream) {
+                    Vector3f direction = input.getMovementDirection();
+                    out.writeInt(input.getSequenceNumber());
+                    out.writeFloat(input.getPitch());
+                    out.writeFloat(input.getYaw());
+                    out.writeFloat(direction.x);
+                    out.writeFloat(direction.y);
+                    out.writeFloat(direction.z);
+                    out.writeBoolean(input.isRunning());
+                    out.writeBoolean(input.isJumpRequested());
+                    out.writeLong(input.getDeltaMs());
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IOException If the file cannot be read, or is not a movement recording
+     */
+    public static MovementRecording load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported movement recording version " + version + " in " + file);
+            }
+            int streamCount = in.readInt();
+            List<List<CharacterMoveInputEvent>> streams = Lists.newArrayListWithCapacity(streamCount);
+            for (int i = 0; i < streamCount; ++i) {
+                int inputCount = in.readInt();
+                List<CharacterMoveInputEvent> stream = Lists.newArrayListWithCapacity(inputCount);
+                for (int j = 0; j < inputCount; ++j) {
+                    int sequenceNumber = in.readInt();
+                    float pitch = in.readFloat();
+                    float yaw = in.readFloat();
+                    Vector3f direction = new Vector3f(in.readFloat(), in.readFloat(), in.readFloat());
+                    boolean running = in.readBoolean();
+                    boolean jumpRequested = in.readBoolean();
+                    long deltaMs = in.readLong();
+                    stream.add(new CharacterMoveInputEvent(sequenceNumber, pitch, yaw, direction, running, jumpRequested, deltaMs));
+                }
+                streams.add(stream);
+            }
+            return new MovementRecording(streams);
+        }
+    }
+
+    /**
+     * @return A copy of the input, as stepping an input marks it as run
+     */
+    public static CharacterMoveInputEvent copy(CharacterMoveInputEvent input) {
+        return new CharacterMoveInputEvent(input.getSequenceNumber(), input.getPitch(), input.getYaw(), input.getMovementDirection(),
+                input.isRunning(), input.isJumpRequested(), input.getDeltaMs());
+    }
+}
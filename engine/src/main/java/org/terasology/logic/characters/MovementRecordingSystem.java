@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.ReceiveEvent;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.RegisterMode;
+import org.terasology.entitySystem.systems.RegisterSystem;
+import org.terasology.logic.console.Command;
+import org.terasology.logic.location.LocationComponent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the movement input the server receives from each character, for replaying in the character movement
+ * benchmark.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class MovementRecordingSystem extends BaseComponentSystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementRecordingSystem.class);
+
+    private static final String RECORDING_FILE = "movement.recording";
+
+    private Map<EntityRef, List<CharacterMoveInputEvent>> streams;
+
+    @Command(shortDescription = "Starts recording the movement input of all characters", runOnServer = true)
+    public String startMovementRecording() {
+        if (streams != null) {
+            return "Already recording movement";
+        }
+        streams = Maps.newLinkedHashMap();
+        return "Recording movement";
+    }
+
+    @Command(shortDescription = "Stops recording movement input and saves the recording",
+            helpText = "Saves the movement input recorded since startMovementRecording to " + RECORDING_FILE + " in the home directory",
+            runOnServer = true)
+    public String stopMovementRecording() {
+        if (streams == null) {
+            return "Not recording movement";
+        }
+        MovementRecording recording = new MovementRecording(Lists.newArrayList(streams.values()));
+        streams = null;
+        Path file = PathManager.getInstance().getHomePath().resolve(RECORDING_FILE);
+        try {
+            recording.save(file);
+        } catch (IOException e) {
+            logger.error("Failed to save movement recording", e);
+            return "Failed to save the recording, see the log for details";
+        }
+        return "Saved the movement of " + recording.getStreams().size() + " characters to " + file;
+    }
+
+    @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
+    public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
+        if (streams == null) {
+            return;
+        }
+        List<CharacterMoveInputEvent> stream = streams.get(entity);
+        if (stream == null) {
+            stream = Lists.newArrayList();
+            streams.put(entity, stream);
+        }
+        stream.add(MovementRecording.copy(input));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.monitoring.ThreadMonitor;
+import org.terasology.physics.engine.CharacterCollider;
+import org.terasology.physics.engine.PhysicsEngine;
+import org.terasology.world.WorldProvider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Steps the queued movement input of many characters at once, spreading the characters over a pool of worker threads.
+ * <p/>
+ * The inputs of one character are stepped in order by a single worker. Workers only read the world and the entity
+ * system, and only sweep the character colliders through the physics world, which does not change any physics state.
+ * The colliders are looked up when the jobs are created, and are only moved by the main thread, when it applies the
+ * results after {@link #stepAll(List)} returns. As the main thread waits for the workers, every sweep runs against the
+ * collider positions as they were when stepping started, and handing the jobs to the workers and waiting for them
+ * orders the main thread's writes before and after. So a character meets the others where they stood at the start,
+ * whatever the number of threads or the order the jobs are taken in, and stepping on one thread gives the same results.
+ * <p/>
+ * What movement would do to the entity system is handled on the main thread instead: the max speeds of each character
+ * are asked for when its job is created, and the events of each step are kept with the job, to be sent when its results
+ * are applied.
+ */
+public final class ParallelCharacterMover {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCharacterMover.class);
+
+    private final PhysicsEngine physics;
+    private final KinematicCharacterMover[] movers;
+    private final ExecutorService executorService;
+
+    public ParallelCharacterMover(WorldProvider worldProvider, PhysicsEngine physics, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Must have at least one thread.");
+        }
+        this.physics = physics;
+        this.movers = new KinematicCharacterMover[threads];
+        for (int i = 0; i < threads; ++i) {
+            movers[i] = new KinematicCharacterMover(worldProvider, physics);
+        }
+        this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Character-Movement-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return The number of threads to step characters on: one per processor, leaving one for the main thread.
+     */
+    public static int getDefaultThreadCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public int getThreadCount() {
+        return movers.length;
+    }
+
+    /**
+     * Creates the job for stepping a character through the given inputs. Must be called from the main thread.
+     *
+     * @param initial The state to start from
+     */
+    public Job createJob(EntityRef character, CharacterStateEvent initial, List<CharacterMoveInputEvent> inputs) {
+        // Creating the collider changes the physics world, so it cannot be left to the workers
+        CharacterCollider collider = physics.getCharacterCollider(character);
+        return new Job(character, collider, initial, inputs, movers[0].queryMaxSpeeds(character));
+    }
+
+    /**
+     * Steps all the given jobs. Blocks until done. Must be called from the main thread.
+     */
+    public void stepAll(List<Job> jobs) {
+        int workers = Math.min(movers.length, jobs.size());
+        if (workers <= 1) {
+            for (Job job : jobs) {
+                job.run(movers[0]);
+            }
+            return;
+        }
+        AtomicInteger nextJob = new AtomicInteger();
+        List<Callable<Void>> tasks = Lists.newArrayListWithCapacity(workers);
+        for (int i = 0; i < workers; ++i) {
+            tasks.add(new Worker(movers[i], jobs, nextJob));
+        }
+        try {
+            for (Future<Void> result : executorService.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            logger.error("Interrupted stepping characters", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ThreadMonitor.addError(e.getCause());
+            logger.error("Error stepping characters", e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(20, TimeUnit.SECONDS)) {
+                logger.warn("Timed out awaiting thread termination");
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted awaiting character movement thread termination");
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * The inputs of one character to step, and once stepped, the resulting states and the events of each step.
+     */
+    public static final class Job {
+        private final EntityRef character;
+        private final CharacterCollider collider;
+        private final CharacterStateEvent initial;
+        private final List<CharacterMoveInputEvent> inputs;
+        private final Map<MovementMode, Float> maxSpeeds;
+
+        private final List<CharacterStateEvent> states;
+        private final List<List<Event>> events;
+
+        private Job(EntityRef character, CharacterCollider collider, CharacterStateEvent initial, List<CharacterMoveInputEvent> inputs,
+                    Map<MovementMode, Float> maxSpeeds) {
+            this.character = character;
+            this.collider = collider;
+            this.initial = initial;
+            this.inputs = inputs;
+            this.maxSpeeds = maxSpeeds;
+            this.states = Lists.newArrayListWithCapacity(inputs.size());
+            this.events = Lists.newArrayListWithCapacity(inputs.size());
+        }
+
+        public EntityRef getCharacter() {
+            return character;
+        }
+
+        public List<CharacterMoveInputEvent> getInputs() {
+            return inputs;
+        }
+
+        /**
+         * @return The state after each input, in input order. May be shorter than the inputs if stepping failed.
+         */
+        public List<CharacterStateEvent> getStates() {
+            return Collections.unmodifiableList(states);
+        }
+
+        /**
+         * @return The events caused by the input with the given index, to send when the resulting state is applied
+         */
+        public List<Event> getEvents(int index) {
+            return Collections.unmodifiableList(events.get(index));
+        }
+
+        private void run(KinematicCharacterMover mover) {
+            CharacterStateEvent state = initial;
+            for (CharacterMoveInputEvent input : inputs) {
+                List<Event> stepEvents = Lists.newArrayListWithCapacity(2);
+                state = mover.stepDeferred(state, input, character, collider, maxSpeeds, stepEvents);
+                states.add(state);
+                events.add(stepEvents);
+            }
+        }
+    }
+
+    /**
+     * Takes jobs until there are none left, so that characters with many inputs do not hold up the others
+     */
+    private static final class Worker implements Callable<Void> {
+        private final KinematicCharacterMover mover;
+        private final List<Job> jobs;
+        private final AtomicInteger nextJob;
+
+        public Worker(KinematicCharacterMover mover, List<Job> jobs, AtomicInteger nextJob) {
+            this.mover = mover;
+            this.jobs = jobs;
+            this.nextJob = nextJob;
+        }
+
+        @Override
+        public Void call() {
+            int index = nextJob.getAndIncrement();
+            while (index < jobs.size()) {
+                jobs.get(index).run(mover);
+                index = nextJob.getAndIncrement();
+            }
+            return null;
+        }
+    }
+}
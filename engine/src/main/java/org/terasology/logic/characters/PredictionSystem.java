@@ -33,4 +33,10 @@ public interface PredictionSystem {
     void lagCompensate(EntityRef client, long timeMs);
 
     void restoreToPresent();
+
+    /**
+     * Steps the movement input received from clients that has not been stepped yet. Input is collected while the
+     * messages of all clients are processed, so that it can be stepped for all characters at once.
+     */
+    void applyPendingInput();
 }
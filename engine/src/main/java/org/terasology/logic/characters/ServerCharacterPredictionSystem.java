@@ -16,6 +16,7 @@
 
 package org.terasology.logic.characters;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.physics.engine.CharacterCollider;
@@ -40,6 +42,8 @@
 import org.terasology.world.WorldProvider;
 
 import javax.vecmath.Vector3f;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -72,17 +76,23 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
     @In
     private NetworkSystem networkSystem;
 
-    private CharacterMover characterMover;
+    private ParallelCharacterMover characterMover;
     private Map<EntityRef, CircularBuffer<CharacterStateEvent>> characterStates = Maps.newHashMap();
     private Map<EntityRef, CharacterMoveInputEvent> lastInputEvent = Maps.newHashMap();
+    private Map<EntityRef, List<CharacterMoveInputEvent>> pendingInputs = Maps.newLinkedHashMap();
     private long nextSendState;
 
     @Override
     public void initialise() {
-        characterMover = new KinematicCharacterMover(worldProvider, physics);
+        characterMover = new ParallelCharacterMover(worldProvider, physics, ParallelCharacterMover.getDefaultThreadCount());
         nextSendState = time.getGameTimeInMs() + TIME_BETWEEN_STATE_REPLICATE;
     }
 
+    @Override
+    public void shutdown() {
+        characterMover.shutdown();
+    }
+
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
     public void onCreate(final OnActivatedComponent event, final EntityRef entity) {
         physics.getCharacterCollider(entity);
@@ -96,10 +106,16 @@ public void onDestroy(final BeforeDeactivateComponent event, final EntityRef ent
         physics.removeCharacterCollider(entity);
         characterStates.remove(entity);
         lastInputEvent.remove(entity);
+        pendingInputs.remove(entity);
     }
 
     @ReceiveEvent
     public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef character, CharacterMovementComponent movementComponent) {
+        // The new mode applies after the input received so far
+        List<CharacterMoveInputEvent> inputs = pendingInputs.remove(character);
+        if (inputs != null) {
+            stepInputs(Collections.singletonList(characterMover.createJob(character, characterStates.get(character).getLast(), inputs)));
+        }
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(character);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -125,13 +141,24 @@ public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
             return;
         }
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
-        CharacterStateEvent lastState = stateBuffer.getLast();
-        if (input.getDelta() + lastState.getTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
-            CharacterStateEvent newState = stepState(input, lastState, entity);
-            stateBuffer.add(newState);
-
-            CharacterStateEvent.setToState(entity, newState);
+        List<CharacterMoveInputEvent> inputs = pendingInputs.get(entity);
+        long lastTime = stateBuffer.getLast().getTime();
+        if (inputs != null) {
+            for (CharacterMoveInputEvent pendingInput : inputs) {
+                lastTime += pendingInput.getDeltaMs();
+            }
+        }
+        if (input.getDelta() + lastTime < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
+            if (inputs == null) {
+                inputs = Lists.newArrayList();
+                pendingInputs.put(entity, inputs);
+            }
+            inputs.add(input);
             lastInputEvent.put(entity, input);
+            if (entity.equals(localPlayer.getCharacterEntity())) {
+                // Nothing to batch the local player's input with, and waiting would delay the player's own view
+                stepInputs(Collections.singletonList(characterMover.createJob(entity, stateBuffer.getLast(), pendingInputs.remove(entity))));
+            }
         } else {
             logger.warn("Received too much input from {}, dropping input.", entity);
         }
@@ -142,12 +169,43 @@ private CharacterStateEvent createInitialState(EntityRef entity) {
         return new CharacterStateEvent(time.getGameTimeInMs(), 0, location.getWorldPosition(), location.getWorldRotation(), new Vector3f(), 0, 0, MovementMode.WALKING, false);
     }
 
-    private CharacterStateEvent stepState(CharacterMoveInputEvent input, CharacterStateEvent lastState, EntityRef entity) {
-        return characterMover.step(lastState, input, entity);
+    /**
+     * Steps the input received from clients for all characters, in parallel, and applies the results. Called once the
+     * network system has processed the messages of all clients, before any other event from a client, and at the
+     * start of each update, so input is applied in the same update it is received in.
+     */
+    @Override
+    public void applyPendingInput() {
+        if (pendingInputs.isEmpty()) {
+            return;
+        }
+        List<ParallelCharacterMover.Job> jobs = Lists.newArrayListWithCapacity(pendingInputs.size());
+        for (Map.Entry<EntityRef, List<CharacterMoveInputEvent>> entry : pendingInputs.entrySet()) {
+            jobs.add(characterMover.createJob(entry.getKey(), characterStates.get(entry.getKey()).getLast(), entry.getValue()));
+        }
+        pendingInputs.clear();
+        stepInputs(jobs);
+    }
+
+    private void stepInputs(List<ParallelCharacterMover.Job> jobs) {
+        characterMover.stepAll(jobs);
+        for (ParallelCharacterMover.Job job : jobs) {
+            EntityRef entity = job.getCharacter();
+            CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
+            List<CharacterStateEvent> states = job.getStates();
+            for (int i = 0; i < states.size() && characterStates.get(entity) == stateBuffer; ++i) {
+                for (Event event : job.getEvents(i)) {
+                    entity.send(event);
+                }
+                stateBuffer.add(states.get(i));
+                CharacterStateEvent.setToState(entity, states.get(i));
+            }
+        }
     }
 
     @Override
     public void update(float delta) {
+        applyPendingInput();
         if (nextSendState < time.getGameTimeInMs()) {
             long lastSendTime = nextSendState - TIME_BETWEEN_STATE_REPLICATE;
             for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
@@ -167,6 +225,7 @@ public void update(float delta) {
                 }
             }
             nextSendState += TIME_BETWEEN_STATE_REPLICATE;
+            applyPendingInput();
         }
         long renderTime = time.getGameTimeInMs() - RENDER_DELAY;
         for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
@@ -179,17 +238,22 @@ public void update(float delta) {
     }
 
     private void setToTime(long renderTime, EntityRef entity, CircularBuffer<CharacterStateEvent> buffer) {
-        CharacterStateEvent previous = null;
-        CharacterStateEvent next = null;
-        for (CharacterStateEvent state : buffer) {
-            if (state.getTime() <= renderTime) {
-                previous = state;
+        // States are in time order, so find the last one at or before the render time by bisection
+        int low = 0;
+        int high = buffer.size() - 1;
+        int previousIndex = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.get(mid).getTime() <= renderTime) {
+                previousIndex = mid;
+                low = mid + 1;
             } else {
-                next = state;
-                break;
+                high = mid - 1;
             }
         }
-        if (previous != null) {
+        if (previousIndex >= 0) {
+            CharacterStateEvent previous = buffer.get(previousIndex);
+            CharacterStateEvent next = (previousIndex + 1 < buffer.size()) ? buffer.get(previousIndex + 1) : null;
             if (next != null) {
                 CharacterStateEvent.setToInterpolateState(entity, previous, next, renderTime);
             } else {
@@ -200,6 +264,7 @@ private void setToTime(long renderTime, EntityRef entity, CircularBuffer<Charact
 
     @Override
     public void lagCompensate(EntityRef client, long timeMs) {
+        applyPendingInput();
         for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
             if (networkSystem.getOwnerEntity(entry.getKey()).equals(client)) {
                 CharacterStateEvent.setToState(entry.getKey(), entry.getValue().getLast());
@@ -26,26 +26,24 @@
 import java.util.Set;
 
 /**
+ * The actions waiting to be triggered on an entity, stored with it. Only the wake up time of each action is stored, the
+ * schedule of the actions is kept by the {@link DelayedActionSystem}.
+ *
  * @author Marcin Sciesinski <marcins78@gmail.com>
  */
 @ForceBlockActive
 public final class DelayedActionComponent implements Component {
     private Map<String, Long> actionIdsWakeUp = new HashMap<>();
-    private long lowestWakeUp = Long.MAX_VALUE;
 
     public DelayedActionComponent() {
     }
 
     public void addActionId(String actionId, long wakeUp) {
         actionIdsWakeUp.put(actionId, wakeUp);
-        lowestWakeUp = Math.min(lowestWakeUp, wakeUp);
     }
 
     public void removeActionId(String actionId) {
-        final long removedWakeUp = actionIdsWakeUp.remove(actionId);
-        if (removedWakeUp == lowestWakeUp) {
-            lowestWakeUp = findSmallestWakeUp();
-        }
+        actionIdsWakeUp.remove(actionId);
     }
 
     public Set<String> removeActionsUpTo(final long worldTime) {
@@ -58,16 +56,10 @@ public Set<String> removeActionsUpTo(final long worldTime) {
                 entryIterator.remove();
             }
         }
-        lowestWakeUp = findSmallestWakeUp();
-
         return result;
     }
 
     public long getLowestWakeUp() {
-        return lowestWakeUp;
-    }
-
-    private long findSmallestWakeUp() {
         long result = Long.MAX_VALUE;
         for (long value : actionIdsWakeUp.values()) {
             result = Math.min(result, value);
@@ -15,9 +15,8 @@
  */
 package org.terasology.logic.delay;
 
-import com.google.common.collect.Ordering;
-import com.google.common.collect.SortedSetMultimap;
-import com.google.common.collect.TreeMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.terasology.engine.Time;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
@@ -29,13 +28,16 @@
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
+import org.terasology.utilities.collection.TimingWheel;
 
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
+ * Triggers the delayed actions of active entities. Each action is scheduled on a timing wheel, so adding, cancelling and
+ * triggering an action takes constant time however many actions are waiting, and only the entities whose actions are due
+ * are looked at.
+ *
  * @author Marcin Sciesinski <marcins78@gmail.com>
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
@@ -44,39 +46,33 @@ public class DelayedActionSystem extends BaseComponentSystem implements UpdateSu
     @In
     private Time time;
 
-    private SortedSetMultimap<Long, EntityRef> delayedOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
+    /**
+     * Created on first use, see {@link #getScheduledActions()}
+     */
+    private TimingWheel<DelayedAction> scheduledActions;
+    private Map<EntityRef, Map<String, TimingWheel.Entry<DelayedAction>>> scheduledActionsByEntity = Maps.newHashMap();
+    private List<TimingWheel.Entry<DelayedAction>> dueActions = Lists.newArrayList();
 
     @Override
     public void update(float delta) {
         final long currentWorldTime = time.getGameTimeInMs();
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = delayedOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
-            }
-            operationsToInvoke.addAll(delayedOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
-        }
+        getScheduledActions().advance(currentWorldTime, dueActions);
 
-        for (EntityRef delayedEntity : operationsToInvoke) {
-            if (delayedEntity.exists()) {
+        for (TimingWheel.Entry<DelayedAction> dueAction : dueActions) {
+            EntityRef delayedEntity = dueAction.getValue().entity;
+            String actionId = dueAction.getValue().actionId;
+            // An earlier action of this update may have cancelled or rescheduled this one
+            if (forget(delayedEntity, actionId, dueAction) && delayedEntity.exists()) {
                 final DelayedActionComponent delayedActions = delayedEntity.getComponent(DelayedActionComponent.class);
+                if (delayedActions != null && delayedActions.getActionIdsWakeUp().containsKey(actionId)) {
+                    delayedActions.removeActionId(actionId);
+                    saveOrRemoveComponent(delayedEntity, delayedActions);
 
-                final Set<String> actionIds = delayedActions.removeActionsUpTo(currentWorldTime);
-                saveOrRemoveComponent(delayedEntity, delayedActions);
-
-                if (!delayedActions.isEmpty()) {
-                    delayedOperationsSortedByTime.put(delayedActions.getLowestWakeUp(), delayedEntity);
-                }
-
-                for (String actionId : actionIds) {
                     delayedEntity.send(new DelayedActionTriggeredEvent(actionId));
                 }
             }
         }
+        dueActions.clear();
     }
 
     private void saveOrRemoveComponent(EntityRef delayedEntity, DelayedActionComponent delayedActionComponent) {
@@ -87,16 +83,84 @@ private void saveOrRemoveComponent(EntityRef delayedEntity, DelayedActionCompone
         }
     }
 
+    private void schedule(EntityRef entity, String actionId, long wakeUp) {
+        Map<String, TimingWheel.Entry<DelayedAction>> entityActions = scheduledActionsByEntity.get(entity);
+        if (entityActions == null) {
+            entityActions = Maps.newHashMap();
+            scheduledActionsByEntity.put(entity, entityActions);
+        }
+        TimingWheel<DelayedAction> wheel = getScheduledActions();
+        TimingWheel.Entry<DelayedAction> previous = entityActions.put(actionId, wheel.schedule(new DelayedAction(entity, actionId), wakeUp));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    /**
+     * The wheel only works out which actions are due relative to the time it started at, so it is not created before
+     * it is needed, and is rebuilt whenever game time has gone back since, as when the time of a saved game is restored.
+     */
+    private TimingWheel<DelayedAction> getScheduledActions() {
+        long currentWorldTime = time.getGameTimeInMs();
+        if (scheduledActions == null) {
+            scheduledActions = new TimingWheel<>(currentWorldTime);
+        } else if (currentWorldTime < scheduledActions.getCurrentTime()) {
+            TimingWheel<DelayedAction> rebased = new TimingWheel<>(currentWorldTime);
+            for (Map<String, TimingWheel.Entry<DelayedAction>> entityActions : scheduledActionsByEntity.values()) {
+                for (Map.Entry<String, TimingWheel.Entry<DelayedAction>> action : entityActions.entrySet()) {
+                    TimingWheel.Entry<DelayedAction> scheduled = action.getValue();
+                    action.setValue(rebased.schedule(scheduled.getValue(), scheduled.getTime()));
+                }
+            }
+            scheduledActions = rebased;
+        }
+        return scheduledActions;
+    }
+
+    private void unschedule(EntityRef entity, String actionId) {
+        Map<String, TimingWheel.Entry<DelayedAction>> entityActions = scheduledActionsByEntity.get(entity);
+        if (entityActions != null) {
+            TimingWheel.Entry<DelayedAction> scheduled = entityActions.get(actionId);
+            if (scheduled != null) {
+                forget(entity, actionId, scheduled);
+                scheduledActions.cancel(scheduled);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of an action from the actions of its entity.
+     *
+     * @return Whether the entry was the current one for the action
+     */
+    private boolean forget(EntityRef entity, String actionId, TimingWheel.Entry<DelayedAction> scheduled) {
+        Map<String, TimingWheel.Entry<DelayedAction>> entityActions = scheduledActionsByEntity.get(entity);
+        if (entityActions == null || entityActions.get(actionId) != scheduled) {
+            return false;
+        }
+        entityActions.remove(actionId);
+        if (entityActions.isEmpty()) {
+            scheduledActionsByEntity.remove(entity);
+        }
+        return true;
+    }
+
     @ReceiveEvent(components = {DelayedActionComponent.class})
     public void componentActivated(OnActivatedComponent event, EntityRef entity) {
         DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        delayedOperationsSortedByTime.put(delayedComponent.getLowestWakeUp(), entity);
+        for (Map.Entry<String, Long> action : delayedComponent.getActionIdsWakeUp().entrySet()) {
+            schedule(entity, action.getKey(), action.getValue());
+        }
     }
 
     @ReceiveEvent(components = {DelayedActionComponent.class})
     public void componentDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
-        DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        delayedOperationsSortedByTime.remove(delayedComponent.getLowestWakeUp(), entity);
+        Map<String, TimingWheel.Entry<DelayedAction>> entityActions = scheduledActionsByEntity.remove(entity);
+        if (entityActions != null) {
+            for (TimingWheel.Entry<DelayedAction> scheduled : entityActions.values()) {
+                scheduledActions.cancel(scheduled);
+            }
+        }
     }
 
     @ReceiveEvent(components = {DelayedActionComponent.class})
@@ -120,25 +184,21 @@ public void addDelayedAction(EntityRef entity, String actionId, long delay) {
 
         DelayedActionComponent delayedActionComponent = entity.getComponent(DelayedActionComponent.class);
         if (delayedActionComponent != null) {
-            final long oldWakeUp = delayedActionComponent.getLowestWakeUp();
             delayedActionComponent.addActionId(actionId, scheduleTime);
             entity.saveComponent(delayedActionComponent);
-            final long newWakeUp = delayedActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-                delayedOperationsSortedByTime.put(newWakeUp, entity);
-            }
         } else {
             delayedActionComponent = new DelayedActionComponent();
             delayedActionComponent.addActionId(actionId, scheduleTime);
             entity.addComponent(delayedActionComponent);
         }
+        schedule(entity, actionId, scheduleTime);
     }
 
     @Override
     public void cancelDelayedAction(EntityRef entity, String actionId) {
         DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
         delayedComponent.removeActionId(actionId);
+        unschedule(entity, actionId);
         saveOrRemoveComponent(entity, delayedComponent);
     }
 
@@ -152,4 +212,13 @@ public boolean hasDelayedAction(EntityRef entity, String actionId) {
         }
     }
 
+    private static final class DelayedAction {
+        private final EntityRef entity;
+        private final String actionId;
+
+        public DelayedAction(EntityRef entity, String actionId) {
+            this.entity = entity;
+            this.actionId = actionId;
+        }
+    }
 }
@@ -27,12 +27,17 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class ChunkMonitor {
 
     private static final EventBus EVENT_BUS = new EventBus("ChunkMonitor");
     private static final Map<Vector3i, ChunkMonitorEntry> CHUNKS = Maps.newConcurrentMap();
 
+    private static final AtomicLong PREFETCH_HITS = new AtomicLong();
+    private static final AtomicLong PREFETCH_MISSES = new AtomicLong();
+    private static final AtomicLong PREFETCH_CANCELLATIONS = new AtomicLong();
+
     private ChunkMonitor() {
     }
 
@@ -58,6 +63,9 @@ public static void registerForEvents(Object object) {
     }
 
     public static void fireChunkProviderInitialized(ChunkProvider provider) {
+        PREFETCH_HITS.set(0);
+        PREFETCH_MISSES.set(0);
+        PREFETCH_CANCELLATIONS.set(0);
         post(new ChunkMonitorEvent.ChunkProviderInitialized(provider));
     }
 
@@ -99,6 +107,39 @@ public static void fireChunkTessellated(Vector3i chunkPos, ChunkMesh[] mesh) {
         post(new ChunkMonitorEvent.Tessellated(chunkPos, mesh));
     }
 
+    /**
+     * A chunk that was produced ahead of a moving relevance entity was ready when it became relevant
+     */
+    public static void firePrefetchHit() {
+        PREFETCH_HITS.incrementAndGet();
+    }
+
+    /**
+     * A chunk became relevant to a moving relevance entity before it was ready, whether or not it was prefetched
+     */
+    public static void firePrefetchMiss() {
+        PREFETCH_MISSES.incrementAndGet();
+    }
+
+    /**
+     * A chunk being produced ahead of a relevance entity was dropped unready, because the entity changed heading
+     */
+    public static void firePrefetchCancelled() {
+        PREFETCH_CANCELLATIONS.incrementAndGet();
+    }
+
+    public static long getPrefetchHits() {
+        return PREFETCH_HITS.get();
+    }
+
+    public static long getPrefetchMisses() {
+        return PREFETCH_MISSES.get();
+    }
+
+    public static long getPrefetchCancellations() {
+        return PREFETCH_CANCELLATIONS.get();
+    }
+
     public static synchronized void getChunks(List<ChunkMonitorEntry> output) {
         Preconditions.checkNotNull(output, "The parameter 'output' must not be null");
         output.addAll(CHUNKS.values());
@@ -59,6 +59,16 @@ public static void endActivity() {
         instance.endActivity();
     }
 
+    /**
+     * Records the current value of a quantity, such as the length of a queue. Only the latest value is kept.
+     *
+     * @param name  The name of the value
+     * @param value The value
+     */
+    public static void recordValue(String name, double value) {
+        instance.recordValue(name, value);
+    }
+
     /**
      * Should be called once per frame, drops old information and updates the metrics.
      */
@@ -80,6 +90,13 @@ public static TObjectDoubleMap<String> getDecayingSpikes() {
         return instance.getDecayingSpikes();
     }
 
+    /**
+     * @return A mapping of recorded quantities to their latest value.
+     */
+    public static TObjectDoubleMap<String> getRecordedValues() {
+        return instance.getRecordedValues();
+    }
+
     /**
      * Allows the enabling/deactivation of the Performance Monitoring system.
      * When disabled calls to startActivity()/endActivity() and rollCycle() are ignored
@@ -42,6 +42,9 @@ public void startActivity(String activity) {
     public void endActivity() {
     }
 
+    public void recordValue(String name, double value) {
+    }
+
     public TObjectDoubleMap<String> getRunningMean() {
         return metrics;
     }
@@ -50,6 +53,10 @@ public TObjectDoubleMap<String> getDecayingSpikes() {
         return metrics;
     }
 
+    public TObjectDoubleMap<String> getRecordedValues() {
+        return metrics;
+    }
+
     public TObjectIntMap<String> getRunningThreads() {
         return threads;
     }
@@ -56,6 +56,7 @@ public class PerformanceMonitorImpl implements PerformanceMonitorInternal {
     private TObjectDoubleMap<String> spikeData;
     private double timeFactor;
     private TObjectIntMap<String> lastRunningThreads;
+    private TObjectDoubleMap<String> recordedValues;
 
     private Thread mainThread;
     private EngineTime timer;
@@ -71,6 +72,7 @@ public PerformanceMonitorImpl() {
         runningThreads = TCollections.synchronizedMap(new TObjectIntHashMap<String>());
         stoppedThreads = TCollections.synchronizedMap(new TObjectIntHashMap<String>());
         lastRunningThreads = new TObjectIntHashMap<>();
+        recordedValues = new TObjectDoubleHashMap<>();
         timeFactor = 1000.0 / timerTicksPerSecond;
         mainThread = Thread.currentThread();
 
@@ -157,6 +159,13 @@ public void endActivity() {
         }
     }
 
+    public void recordValue(String name, double value) {
+        if (Thread.currentThread() != mainThread) {
+            return;
+        }
+        recordedValues.put(name, value);
+    }
+
     public TObjectDoubleMap<String> getRunningMean() {
         final TObjectDoubleMap<String> result = new TObjectDoubleHashMap<String>();
         final double factor = timeFactor / metricData.size();
@@ -175,6 +184,10 @@ public TObjectDoubleMap<String> getDecayingSpikes() {
         return spikeData;
     }
 
+    public TObjectDoubleMap<String> getRecordedValues() {
+        return recordedValues;
+    }
+
     public void startThread(String name) {
         runningThreads.adjustOrPutValue(name, 1, 1);
     }
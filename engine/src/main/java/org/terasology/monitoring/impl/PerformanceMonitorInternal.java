@@ -29,7 +29,11 @@ public interface PerformanceMonitorInternal {
 
     void endActivity();
 
+    void recordValue(String name, double value);
+
     TObjectDoubleMap<String> getRunningMean();
 
     TObjectDoubleMap<String> getDecayingSpikes();
+
+    TObjectDoubleMap<String> getRecordedValues();
 }
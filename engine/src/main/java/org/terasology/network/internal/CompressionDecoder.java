@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+import org.terasology.utilities.compression.Compression;
+
+/**
+ * Decompresses frames produced by a {@link CompressionEncoder}. The codec is read from each frame, so the client
+ * doesn't need to know the compression settings of the server.
+ * <p/>
+ * Frames claiming to uncompress to more than the maximum length are rejected before anything is allocated for them,
+ * so a corrupt or hostile frame cannot exhaust memory.
+ */
+public class CompressionDecoder extends OneToOneDecoder {
+
+    /**
+     * The largest frame accepted from the network, in bytes. The same limit applies to a frame as received, checked by
+     * the length field decoder ahead of this decoder, and to the frame once decompressed, so neither a long frame nor
+     * a short one that expands can make a client buffer more than this.
+     */
+    public static final int MAX_FRAME_LENGTH = 8 * 1024 * 1024;
+
+    private final int maxLength;
+
+    public CompressionDecoder() {
+        this(MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxLength The largest uncompressed frame to accept, in bytes
+     */
+    public CompressionDecoder(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer buffer = (ChannelBuffer) msg;
+        byte[] payload = new byte[buffer.readableBytes()];
+        buffer.readBytes(payload);
+        return ChannelBuffers.wrappedBuffer(Compression.decompress(payload, maxLength));
+    }
+}
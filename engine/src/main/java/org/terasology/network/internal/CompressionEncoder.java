@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.terasology.utilities.compression.Compression;
+import org.terasology.utilities.compression.CompressionCodec;
+import org.terasology.utilities.compression.NoCompressionCodec;
+
+/**
+ * Compresses each outgoing frame separately into a self-describing payload (see {@link Compression}), to be read
+ * by a {@link CompressionDecoder}. Frames too small to benefit are sent uncompressed.
+ * <p/>
+ * Compressing frames separately means the receiver needs no state from earlier frames to read a frame, at the cost of
+ * some compression ratio on small messages.
+ */
+public class CompressionEncoder extends OneToOneEncoder {
+
+    private static final int MIN_COMPRESSED_SIZE = 64;
+
+    private final CompressionCodec codec;
+    private final CompressionCodec smallFrameCodec = new NoCompressionCodec();
+
+    public CompressionEncoder(CompressionCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer buffer = (ChannelBuffer) msg;
+        byte[] data = new byte[buffer.readableBytes()];
+        buffer.readBytes(data);
+        if (data.length < MIN_COMPRESSED_SIZE) {
+            return ChannelBuffers.wrappedBuffer(Compression.compress(smallFrameCodec, data));
+        }
+        return ChannelBuffers.wrappedBuffer(Compression.compress(codec, data));
+    }
+}
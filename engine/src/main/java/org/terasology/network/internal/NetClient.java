@@ -25,6 +25,8 @@
 import com.google.common.collect.Sets;
 
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
@@ -42,6 +44,7 @@
 import org.terasology.entitySystem.metadata.EventMetadata;
 import org.terasology.entitySystem.metadata.NetworkEventType;
 import org.terasology.identity.PublicIdentityCertificate;
+import org.terasology.logic.characters.CharacterMoveInputEvent;
 import org.terasology.logic.characters.PredictionSystem;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.TeraMath;
@@ -52,12 +55,14 @@
 import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.serialization.ServerComponentFieldCheck;
+import org.terasology.persistence.serializers.EntityBaseline;
 import org.terasology.persistence.serializers.EventSerializer;
 import org.terasology.persistence.serializers.NetworkEntitySerializer;
 import org.terasology.protobuf.EntityData;
 import org.terasology.protobuf.NetData;
 import org.terasology.rendering.nui.Color;
 import org.terasology.rendering.world.ViewDistance;
+import org.terasology.world.BlockChangeJournal;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
@@ -102,6 +107,7 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private SetMultimap<Integer, Class<? extends Component>> dirtyComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> addedComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> removedComponents = LinkedHashMultimap.create();
+    private TIntObjectMap<EntityBaseline> entityBaselines = new TIntObjectHashMap<>();
 
     private String name = "Unknown";
     private long lastReceivedTime;
@@ -282,6 +288,7 @@ private void sendChunkInvalidations(NetData.NetMessage.Builder message) {
 
     public void setNetInitial(int netId) {
         netInitial.add(netId);
+        entityBaselines.remove(netId);
     }
 
     public void setNetRemoved(int netId) {
@@ -293,6 +300,7 @@ public void setNetRemoved(int netId) {
         removedComponents.keySet().remove(netId);
         netDirty.remove(netId);
         netRelevant.remove(netId);
+        entityBaselines.remove(netId);
     }
 
     public void setComponentAdded(int networkId, Class<? extends Component> component) {
@@ -384,13 +392,18 @@ public void onChunkIrrelevant(Vector3i pos) {
     }
 
     @Override
-    public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
-        Vector3i chunkPos = TeraMath.calcChunkPos(pos);
-        if (relevantChunks.contains(chunkPos)) {
-            queuedOutgoingBlockChanges.add(NetData.BlockChangeMessage.newBuilder()
-                    .setPos(NetMessageUtil.convert(pos))
-                    .setNewBlock(newBlock.getId())
-                    .build());
+    public void onBlocksChanged(BlockChangeJournal changes) {
+        for (BlockChangeJournal.ChunkChanges chunkChanges : changes.getChunkChanges()) {
+            if (relevantChunks.contains(chunkChanges.getChunkPos())) {
+                for (int i = 0; i < chunkChanges.size(); ++i) {
+                    if (!chunkChanges.isReverted(i)) {
+                        queuedOutgoingBlockChanges.add(NetData.BlockChangeMessage.newBuilder()
+                                .setPos(NetMessageUtil.convert(chunkChanges.getWorldPosition(i)))
+                                .setNewBlock(chunkChanges.getToId(i))
+                                .build());
+                    }
+                }
+            }
         }
     }
 
@@ -435,8 +448,15 @@ private void sendDirtyEntities(NetData.NetMessage.Builder message) {
                 logger.error("Sending non-existent entity update for netId {}", netId);
             }
             boolean isOwner = networkSystem.getOwner(entity) == this;
+            EntityBaseline baseline = entityBaselines.get(netId);
+            if (baseline == null) {
+                baseline = new EntityBaseline();
+                entityBaselines.put(netId, baseline);
+            }
+            // Only fields that differ from what this client was last sent go out. The connection is reliable and
+            // ordered, so what was last sent is what the client will have by the time this update arrives.
             EntityData.PackedEntity entityData = entitySerializer.serialize(entity, addedComponents.get(netId), dirtyComponents.get(netId), removedComponents.get(netId),
-                    new ServerComponentFieldCheck(isOwner, false));
+                    new ServerComponentFieldCheck(isOwner, false), baseline);
             if (entityData != null) {
                 message.addUpdateEntity(NetData.UpdateEntityMessage.newBuilder().setEntity(entityData).setNetId(netId));
             }
@@ -490,6 +510,10 @@ private void processEvents(NetData.NetMessage message) {
                 logger.warn("Received non-server event '{}' from client '{}'", metadata, getName());
                 continue;
             }
+            if (predictionSystem != null && !(event instanceof CharacterMoveInputEvent)) {
+                // Other events see the characters as moved by the input received before them
+                predictionSystem.applyPendingInput();
+            }
             if (!lagCompensated && metadata.isLagCompensated()) {
                 if (predictionSystem != null) {
                     predictionSystem.lagCompensate(getEntity(), lastReceivedTime);
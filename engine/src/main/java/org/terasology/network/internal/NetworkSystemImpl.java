@@ -53,6 +53,7 @@
 import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.metadata.EntitySystemLibrary;
 import org.terasology.entitySystem.metadata.EventMetadata;
+import org.terasology.logic.characters.PredictionSystem;
 import org.terasology.module.Module;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.Client;
@@ -68,6 +69,8 @@
 import org.terasology.network.internal.pipelineFactory.TerasologyServerPipelineFactory;
 import org.terasology.network.serialization.NetComponentSerializeCheck;
 import org.terasology.network.serialization.NetEntityRefTypeHandler;
+import org.terasology.network.serialization.QuantizedQuat4fTypeHandler;
+import org.terasology.network.serialization.QuantizedVector3fTypeHandler;
 import org.terasology.persistence.PlayerStore;
 import org.terasology.persistence.StorageManager;
 import org.terasology.persistence.serializers.EventSerializer;
@@ -79,12 +82,15 @@
 import org.terasology.reflection.metadata.FieldMetadata;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.nui.Color;
+import org.terasology.utilities.compression.Compression;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.remoteChunkProvider.RemoteChunkProvider;
 
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
 import java.net.BindException;
 import java.net.InetSocketAddress;
 import java.util.List;
@@ -153,7 +159,8 @@ public void host(int port, boolean dedicatedServer) throws HostingFailedExceptio
 
                 factory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
                 ServerBootstrap bootstrap = new ServerBootstrap(factory);
-                bootstrap.setPipelineFactory(new TerasologyServerPipelineFactory(this));
+                bootstrap.setPipelineFactory(new TerasologyServerPipelineFactory(this,
+                        Compression.createCodec(config.getCompression(), config.getCompressionLevel())));
                 bootstrap.setOption("child.tcpNoDelay", true);
                 bootstrap.setOption("child.keepAlive", true);
                 Channel listenChannel = bootstrap.bind(new InetSocketAddress(port));
@@ -274,6 +281,10 @@ public void update() {
                 for (Client client : clientList) {
                     client.update(netTick);
                 }
+                PredictionSystem predictionSystem = CoreRegistry.get(PredictionSystem.class);
+                if (predictionSystem != null) {
+                    predictionSystem.applyPendingInput();
+                }
                 PerformanceMonitor.endActivity();
                 if (server != null) {
                     server.update(netTick);
@@ -501,8 +512,13 @@ public void connectToEntitySystem(EngineEntityManager newEntityManager, EntitySy
         typeSerializationLibrary.add(EntityRef.class, new NetEntityRefTypeHandler(this, blockEntityRegistry));
         // TODO: Add network override types here (that use id lookup tables)
 
+        // Replicated component state is quantized, events keep full precision
+        TypeSerializationLibrary componentSerializationLibrary = new TypeSerializationLibrary(typeSerializationLibrary);
+        componentSerializationLibrary.add(Vector3f.class, new QuantizedVector3fTypeHandler());
+        componentSerializationLibrary.add(Quat4f.class, new QuantizedQuat4fTypeHandler());
+
         eventSerializer = new EventSerializer(library.getEventLibrary(), typeSerializationLibrary);
-        entitySerializer = new NetworkEntitySerializer(newEntityManager, entityManager.getComponentLibrary(), typeSerializationLibrary);
+        entitySerializer = new NetworkEntitySerializer(newEntityManager, entityManager.getComponentLibrary(), componentSerializationLibrary);
         entitySerializer.setComponentSerializeCheck(new NetComponentSerializeCheck());
 
         if (mode == NetworkMode.CLIENT) {
@@ -18,18 +18,19 @@
 
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
-import org.jboss.netty.handler.codec.compression.ZlibEncoder;
 import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
 import org.jboss.netty.handler.codec.protobuf.ProtobufDecoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.terasology.network.internal.CompressionEncoder;
 import org.terasology.network.internal.MetricRecordingHandler;
 import org.terasology.network.internal.NetworkSystemImpl;
 import org.terasology.network.internal.ServerConnectionHandler;
 import org.terasology.network.internal.ServerHandler;
 import org.terasology.network.internal.ServerHandshakeHandler;
 import org.terasology.protobuf.NetData;
+import org.terasology.utilities.compression.CompressionCodec;
 
 import static org.jboss.netty.channel.Channels.pipeline;
 
@@ -41,9 +42,15 @@
 public class TerasologyServerPipelineFactory implements ChannelPipelineFactory {
 
     private NetworkSystemImpl networkSystem;
+    private CompressionCodec compressionCodec;
 
-    public TerasologyServerPipelineFactory(NetworkSystemImpl networkSystem) {
+    /**
+     * @param networkSystem
+     * @param compressionCodec The codec used to compress messages sent to clients
+     */
+    public TerasologyServerPipelineFactory(NetworkSystemImpl networkSystem, CompressionCodec compressionCodec) {
         this.networkSystem = networkSystem;
+        this.compressionCodec = compressionCodec;
     }
 
     @Override
@@ -55,7 +62,7 @@ public ChannelPipeline getPipeline() throws Exception {
         p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
 
         p.addLast("frameLengthEncoder", new LengthFieldPrepender(3));
-        p.addLast("deflateEncoder", new ZlibEncoder());
+        p.addLast("compressionEncoder", new CompressionEncoder(compressionCodec));
         p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
         p.addLast("protobufEncoder", new ProtobufEncoder());
 
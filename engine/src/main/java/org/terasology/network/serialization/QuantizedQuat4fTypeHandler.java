@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.serialization;
+
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.TLongList;
+import org.terasology.persistence.typeHandling.DeserializationContext;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.PersistedDataArray;
+import org.terasology.persistence.typeHandling.SerializationContext;
+import org.terasology.persistence.typeHandling.SimpleTypeHandler;
+
+import javax.vecmath.Quat4f;
+
+/**
+ * This type handler encodes rotations for network transferals in a single long, using the "smallest three" encoding:
+ * the index of the largest component, and the other three quantized to 15 bits each. The largest component is
+ * recovered from the others, as the quaternion has unit length, and is made positive as q and -q are the same rotation.
+ * <p/>
+ * Quaternions that are not of unit length are sent as floats.
+ */
+public class QuantizedQuat4fTypeHandler extends SimpleTypeHandler<Quat4f> {
+
+    private static final int BITS = 15;
+    private static final long MASK = (1L << BITS) - 1;
+    /**
+     * An even number of steps, so a component of zero is represented exactly
+     */
+    private static final long STEPS = MASK - 1;
+    /**
+     * No component other than the largest can be bigger than this in a unit quaternion
+     */
+    private static final float MAX_COMPONENT = (float) (1.0 / Math.sqrt(2.0));
+    private static final float UNIT_TOLERANCE = 0.001f;
+
+    @Override
+    public PersistedData serialize(Quat4f value, SerializationContext context) {
+        float lengthSquared = value.x * value.x + value.y * value.y + value.z * value.z + value.w * value.w;
+        if (!(Math.abs(lengthSquared - 1) < UNIT_TOLERANCE)) {
+            return context.create(value.x, value.y, value.z, value.w);
+        }
+        float[] components = {value.x, value.y, value.z, value.w};
+        int largest = 0;
+        for (int i = 1; i < components.length; ++i) {
+            if (Math.abs(components[i]) > Math.abs(components[largest])) {
+                largest = i;
+            }
+        }
+        float sign = (components[largest] < 0) ? -1 : 1;
+        long packed = largest;
+        for (int i = 0; i < components.length; ++i) {
+            if (i != largest) {
+                packed = (packed << BITS) | quantize(sign * components[i]);
+            }
+        }
+        return context.create(packed);
+    }
+
+    @Override
+    public Quat4f deserialize(PersistedData data, DeserializationContext context) {
+        if (data.isArray()) {
+            PersistedDataArray dataArray = data.getAsArray();
+            if (dataArray.isNumberArray()) {
+                TLongList longs = dataArray.getAsLongArray();
+                if (longs.size() == 1) {
+                    return unpack(longs.get(0));
+                }
+                TFloatList floats = dataArray.getAsFloatArray();
+                if (floats.size() > 3) {
+                    return new Quat4f(floats.get(0), floats.get(1), floats.get(2), floats.get(3));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Quat4f unpack(long packed) {
+        float[] components = new float[4];
+        int largest = (int) ((packed >>> (3 * BITS)) & 3);
+        float sumSquares = 0;
+        for (int i = components.length - 1; i >= 0; --i) {
+            if (i != largest) {
+                components[i] = dequantize(packed & MASK);
+                sumSquares += components[i] * components[i];
+                packed >>>= BITS;
+            }
+        }
+        components[largest] = (float) Math.sqrt(Math.max(0, 1 - sumSquares));
+        return new Quat4f(components[0], components[1], components[2], components[3]);
+    }
+
+    private static long quantize(float component) {
+        float normalized = (component + MAX_COMPONENT) / (2 * MAX_COMPONENT);
+        return Math.max(0, Math.min(STEPS, Math.round(normalized * STEPS)));
+    }
+
+    private static float dequantize(long value) {
+        return ((float) value / STEPS) * 2 * MAX_COMPONENT - MAX_COMPONENT;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.serialization;
+
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.TLongList;
+import org.terasology.persistence.typeHandling.DeserializationContext;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.PersistedDataArray;
+import org.terasology.persistence.typeHandling.SerializationContext;
+import org.terasology.persistence.typeHandling.SimpleTypeHandler;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * This type handler encodes Vector3f for network transferals as fixed point values, with a precision of 1/1024th of a
+ * block. Small values such as velocities and positions near the origin take far fewer bytes than floats, and changes
+ * below the precision serialize to the same value so they are not replicated at all.
+ * <p/>
+ * Values that are not finite are sent as floats.
+ */
+public class QuantizedVector3fTypeHandler extends SimpleTypeHandler<Vector3f> {
+
+    public static final float SCALE = 1024f;
+
+    @Override
+    public PersistedData serialize(Vector3f value, SerializationContext context) {
+        if (!isFinite(value.x) || !isFinite(value.y) || !isFinite(value.z)) {
+            return context.create(value.x, value.y, value.z);
+        }
+        return context.create(quantize(value.x), quantize(value.y), quantize(value.z));
+    }
+
+    @Override
+    public Vector3f deserialize(PersistedData data, DeserializationContext context) {
+        if (data.isArray()) {
+            PersistedDataArray dataArray = data.getAsArray();
+            if (dataArray.isNumberArray()) {
+                TLongList longs = dataArray.getAsLongArray();
+                if (longs.size() > 2) {
+                    return new Vector3f(longs.get(0) / SCALE, longs.get(1) / SCALE, longs.get(2) / SCALE);
+                }
+                TFloatList floats = dataArray.getAsFloatArray();
+                if (floats.size() > 2) {
+                    return new Vector3f(floats.get(0), floats.get(1), floats.get(2));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long quantize(float value) {
+        return Math.round((double) value * SCALE);
+    }
+
+    private static boolean isFinite(float value) {
+        return !Float.isNaN(value) && !Float.isInfinite(value);
+    }
+}
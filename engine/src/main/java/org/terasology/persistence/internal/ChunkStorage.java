@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.terasology.math.Vector3i;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Backing storage for compressed chunk data, as used by the StorageManagerInternal.
+ * <p/>
+ * Implementations must support concurrent calls to {@link #contains(Vector3i)} and {@link #load(Vector3i)} from
+ * chunk loading threads. {@link #save(Map)} may be called at any time, concurrently with those, from the background
+ * chunk writer thread, or from the thread flushing the save while the writer is stopped. Calls to save are never
+ * concurrent with each other. {@link #close()} is only called while the writer is stopped.
+ */
+interface ChunkStorage {
+
+    /**
+     * @param chunkPos
+     * @return Whether this storage has data for the given chunk
+     */
+    boolean contains(Vector3i chunkPos);
+
+    /**
+     * @param chunkPos
+     * @return The compressed data for the given chunk, or null if there is none
+     */
+    byte[] load(Vector3i chunkPos);
+
+    /**
+     * Persists the given compressed chunks, replacing any data previously stored for them.
+     *
+     * @param chunks
+     * @throws IOException
+     */
+    void save(Map<Vector3i, byte[]> chunks) throws IOException;
+
+    /**
+     * Releases any open files. The storage may still be used afterwards, in which case files are reopened as needed.
+     */
+    void close();
+}
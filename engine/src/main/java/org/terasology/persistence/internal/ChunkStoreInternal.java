@@ -27,6 +27,7 @@
 import org.terasology.protobuf.EntityData;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -37,6 +38,7 @@ final class ChunkStoreInternal implements ChunkStore {
     private StorageManagerInternal storageManager;
     private Vector3i chunkPosition;
     private ChunkImpl chunk;
+    private ChunkImpl snapshot;
 
     private EngineEntityManager entityManager;
     private EntityData.EntityStore entityStore;
@@ -50,13 +52,22 @@ public ChunkStoreInternal(ChunkImpl chunk, StorageManagerInternal storageManager
         this.entityManager = entityManager;
     }
 
-    public ChunkStoreInternal(EntityData.ChunkStore chunkData, TIntSet externalRefs, StorageManagerInternal storageManager, EngineEntityManager entityManager) {
-        this.chunkPosition = new Vector3i(chunkData.getX(), chunkData.getY(), chunkData.getZ());
+    /**
+     * @param chunkData The bytes of the stored ChunkStore message, which the chunk's data is read from in place
+     * @throws IOException If the bytes are not a valid ChunkStore message
+     */
+    public ChunkStoreInternal(byte[] chunkData, TIntSet externalRefs, StorageManagerInternal storageManager, EngineEntityManager entityManager)
+            throws IOException {
         this.storageManager = storageManager;
         this.entityManager = entityManager;
 
-        this.chunk = new ChunkImpl.ProtobufHandler().decode(chunkData);
-        this.entityStore = chunkData.getStore();
+        EntityData.EntityStore.Builder storeData = EntityData.EntityStore.newBuilder();
+        this.chunk = new ChunkImpl.ProtobufHandler().decode(chunkData, storeData);
+        this.chunkPosition = new Vector3i(chunk.getPos());
+        if (!storeData.isInitialized()) {
+            throw new IOException("Stored entities of chunk " + chunkPosition + " are incomplete");
+        }
+        this.entityStore = storeData.build();
         this.externalRefs = externalRefs;
     }
 
@@ -84,6 +95,7 @@ public void save(boolean deactivateEntities) {
         }
         entityStore = storer.finaliseStore();
         externalRefs = storer.getExternalReferences();
+        snapshot = chunk.createSnapshot();
         storageManager.store(this, externalRefs);
         entitiesToStore.clear();
     }
@@ -117,14 +129,12 @@ public void restoreEntities() {
         new EntityRestorer(entityManager).restore(entityStore, externalRefs);
     }
 
-    public EntityData.ChunkStore getStore() {
-        chunk.lock();
-        try {
-            EntityData.ChunkStore.Builder encoded = new ChunkImpl.ProtobufHandler().encode(chunk, false);
-            encoded.setStore(entityStore);
-            return encoded.build();
-        } finally {
-            chunk.unlock();
-        }
+    /**
+     * Encodes the chunk as it was when this store was saved. This is safe to call from any thread.
+     *
+     * @return The bytes of the ChunkStore message holding the encoded chunk and its entities
+     */
+    public byte[] getStoreData() {
+        return new ChunkImpl.ProtobufHandler().toByteArray(snapshot, false, entityStore);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Vector3i;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Stores each chunk in its own file. This works on any file system, including virtual ones.
+ */
+final class FileChunkStorage implements ChunkStorage {
+    private static final Logger logger = LoggerFactory.getLogger(FileChunkStorage.class);
+
+    private final Path worldPath;
+
+    public FileChunkStorage(Path worldPath) {
+        this.worldPath = worldPath;
+    }
+
+    @Override
+    public boolean contains(Vector3i chunkPos) {
+        return Files.isRegularFile(worldPath.resolve(getChunkFilename(chunkPos)));
+    }
+
+    @Override
+    public byte[] load(Vector3i chunkPos) {
+        Path chunkPath = worldPath.resolve(getChunkFilename(chunkPos));
+        if (Files.isRegularFile(chunkPath)) {
+            try {
+                return Files.readAllBytes(chunkPath);
+            } catch (IOException e) {
+                logger.error("Failed to load chunk {}", chunkPos, e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void save(Map<Vector3i, byte[]> chunks) throws IOException {
+        Files.createDirectories(worldPath);
+        for (Map.Entry<Vector3i, byte[]> chunkStoreEntry : chunks.entrySet()) {
+            Path chunkPath = worldPath.resolve(getChunkFilename(chunkStoreEntry.getKey()));
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
+                out.write(chunkStoreEntry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static String getChunkFilename(Vector3i pos) {
+        return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
+    }
+}
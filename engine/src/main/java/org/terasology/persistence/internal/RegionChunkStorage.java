@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Vector3i;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores chunks in region files, each holding a REGION_DIM^3 block of chunks. Checking whether a chunk exists is a
+ * lookup in the region's memory mapped header, and loading a chunk is a single positioned read. Saving a chunk only
+ * writes that chunk's data, rather than rewriting the whole region.
+ * <p/>
+ * Region files are kept open once accessed, until the storage is closed. Regions found not to exist are remembered, so
+ * looking up chunks in unexplored terrain does not check the file system every time. Only this storage creates region
+ * files in its directory.
+ * <p/>
+ * Chunks not found in a region file are looked up in the legacy storage, if any, so that older saves remain readable.
+ * Such chunks move into the region files the next time they are saved. The legacy storage is only ever read from.
+ */
+final class RegionChunkStorage implements ChunkStorage {
+    private static final Logger logger = LoggerFactory.getLogger(RegionChunkStorage.class);
+
+    private static final int REGION_POWER = 4;
+    private static final int REGION_DIM = 1 << REGION_POWER;
+    private static final int REGION_MASK = REGION_DIM - 1;
+    private static final int REGION_ENTRIES = REGION_DIM * REGION_DIM * REGION_DIM;
+
+    private final Path worldPath;
+    private final ChunkStorage legacyStorage;
+    private final Map<Vector3i, RegionFile> openRegions = Maps.newHashMap();
+    private final Set<Vector3i> missingRegions = Sets.newHashSet();
+
+    /**
+     * @param worldPath     The directory holding the region files. Must be on the default file system.
+     * @param legacyStorage Storage to fall back to for chunks not in a region file, or null
+     */
+    public RegionChunkStorage(Path worldPath, ChunkStorage legacyStorage) {
+        this.worldPath = worldPath;
+        this.legacyStorage = legacyStorage;
+    }
+
+    @Override
+    public boolean contains(Vector3i chunkPos) {
+        try {
+            RegionFile region = getRegion(getRegionPosition(chunkPos), false);
+            if (region != null && region.contains(getRegionIndex(chunkPos))) {
+                return true;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to access region for chunk {}", chunkPos, e);
+        }
+        return legacyStorage != null && legacyStorage.contains(chunkPos);
+    }
+
+    @Override
+    public byte[] load(Vector3i chunkPos) {
+        try {
+            RegionFile region = getRegion(getRegionPosition(chunkPos), false);
+            if (region != null) {
+                byte[] data = region.read(getRegionIndex(chunkPos));
+                if (data != null) {
+                    return data;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load chunk {}", chunkPos, e);
+        }
+        if (legacyStorage != null) {
+            return legacyStorage.load(chunkPos);
+        }
+        return null;
+    }
+
+    @Override
+    public void save(Map<Vector3i, byte[]> chunks) throws IOException {
+        Files.createDirectories(worldPath);
+        Set<RegionFile> modifiedRegions = Sets.newHashSet();
+        for (Map.Entry<Vector3i, byte[]> chunkStoreEntry : chunks.entrySet()) {
+            RegionFile region = getRegion(getRegionPosition(chunkStoreEntry.getKey()), true);
+            region.write(getRegionIndex(chunkStoreEntry.getKey()), chunkStoreEntry.getValue());
+            modifiedRegions.add(region);
+        }
+        for (RegionFile region : modifiedRegions) {
+            region.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (openRegions) {
+            for (Map.Entry<Vector3i, RegionFile> entry : openRegions.entrySet()) {
+                try {
+                    entry.getValue().close();
+                } catch (IOException e) {
+                    logger.error("Failed to close region {}", entry.getKey(), e);
+                }
+            }
+            openRegions.clear();
+            missingRegions.clear();
+        }
+        if (legacyStorage != null) {
+            legacyStorage.close();
+        }
+    }
+
+    private RegionFile getRegion(Vector3i regionPos, boolean create) throws IOException {
+        synchronized (openRegions) {
+            RegionFile region = openRegions.get(regionPos);
+            if (region == null) {
+                if (!create && missingRegions.contains(regionPos)) {
+                    return null;
+                }
+                Path regionPath = worldPath.resolve(getRegionFilename(regionPos));
+                if (!create && !Files.isRegularFile(regionPath)) {
+                    missingRegions.add(regionPos);
+                    return null;
+                }
+                region = new RegionFile(regionPath, REGION_ENTRIES);
+                openRegions.put(regionPos, region);
+                missingRegions.remove(regionPos);
+            }
+            return region;
+        }
+    }
+
+    private static Vector3i getRegionPosition(Vector3i chunkPos) {
+        return new Vector3i(chunkPos.x >> REGION_POWER, chunkPos.y >> REGION_POWER, chunkPos.z >> REGION_POWER);
+    }
+
+    private static int getRegionIndex(Vector3i chunkPos) {
+        return (chunkPos.x & REGION_MASK) + REGION_DIM * ((chunkPos.y & REGION_MASK) + REGION_DIM * (chunkPos.z & REGION_MASK));
+    }
+
+    private static String getRegionFilename(Vector3i regionPos) {
+        return String.format("%d.%d.%d.region", regionPos.x, regionPos.y, regionPos.z);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A single file holding a fixed number of variable length entries.
+ * <p/>
+ * The file starts with a header of one (sector offset, byte length) pair of ints per entry, which is memory mapped,
+ * followed by the entry data allocated in whole sectors of SECTOR_SIZE bytes. An entry is always written to the first
+ * free run of sectors large enough to hold it (or appended to the end of the file), and its header entry only points
+ * there once the data is on the storage device. Its old sectors are freed after that, so a write that fails or is
+ * interrupted leaves the previous content of the entry intact. Free sectors are recovered from the header when the file
+ * is opened.
+ * <p/>
+ * An offset of 0 denotes an empty entry, as sector 0 always belongs to the header.
+ * <p/>
+ * Closing the file unmaps the header straight away, rather than leaving it to the garbage collector, so the file is not
+ * kept locked (on Windows) after it is closed. Any further access fails with a ClosedChannelException.
+ */
+final class RegionFile implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RegionFile.class);
+
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int HEADER_ENTRY_SIZE = 8;
+
+    private final int entryCount;
+    private final int headerSectors;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final BitSet usedSectors = new BitSet();
+    private int sectorCount;
+    private boolean closed;
+
+    /**
+     * Opens the region file at the given path, creating it if necessary.
+     *
+     * @param path       The file to open. Must be on the default file system, as it is memory mapped.
+     * @param entryCount The number of entries the file holds. Must be the same every time a given file is opened.
+     * @throws IOException
+     */
+    public RegionFile(Path path, int entryCount) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE), entryCount);
+    }
+
+    /**
+     * Opens a region file on the given channel, which is closed along with the region file.
+     *
+     * @param channel    A channel open for reading and writing, which can be memory mapped
+     * @param entryCount The number of entries the file holds. Must be the same every time a given file is opened.
+     * @throws IOException
+     */
+    RegionFile(FileChannel channel, int entryCount) throws IOException {
+        this.channel = channel;
+        try {
+            Preconditions.checkArgument(entryCount > 0, "entryCount must be greater than zero");
+            this.entryCount = entryCount;
+            this.headerSectors = sectorsFor(entryCount * HEADER_ENTRY_SIZE);
+            long fileSize = channel.size();
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) headerSectors * SECTOR_SIZE);
+            this.sectorCount = Math.max(headerSectors, (int) ((fileSize + SECTOR_SIZE - 1) / SECTOR_SIZE));
+            usedSectors.set(0, headerSectors);
+            for (int i = 0; i < entryCount; ++i) {
+                int offset = getOffset(i);
+                int length = getLength(i);
+                if (offset == 0) {
+                    continue;
+                }
+                int sectors = sectorsFor(length);
+                if (offset < headerSectors || length <= 0 || offset + sectors > sectorCount) {
+                    // Corrupt entry (e.g. an interrupted write), drop it rather than reading garbage later
+                    setEntry(i, 0, 0);
+                } else {
+                    usedSectors.set(offset, offset + sectors);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @param index
+     * @return Whether the entry with the given index holds data
+     * @throws IOException
+     */
+    public synchronized boolean contains(int index) throws IOException {
+        checkIndex(index);
+        ensureOpen();
+        return getOffset(index) != 0;
+    }
+
+    /**
+     * Reads an entry with a single positioned read.
+     *
+     * @param index
+     * @return The content of the entry, or null if it is empty
+     * @throws IOException
+     */
+    public synchronized byte[] read(int index) throws IOException {
+        checkIndex(index);
+        ensureOpen();
+        int offset = getOffset(index);
+        int length = getLength(index);
+        if (offset == 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = (long) offset * SECTOR_SIZE;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of region file reading entry " + index);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes the content of an entry to free sectors, then points the entry at them. If writing fails the entry keeps
+     * its previous content.
+     *
+     * @param index
+     * @param data
+     * @throws IOException
+     */
+    public synchronized void write(int index, byte[] data) throws IOException {
+        checkIndex(index);
+        Preconditions.checkArgument(data.length > 0, "Cannot write an empty entry");
+        ensureOpen();
+        int neededSectors = sectorsFor(data.length);
+        int offset = allocate(neededSectors);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = (long) offset * SECTOR_SIZE;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            usedSectors.clear(offset, offset + neededSectors);
+            throw e;
+        }
+
+        int oldOffset = getOffset(index);
+        int oldSectors = (oldOffset == 0) ? 0 : sectorsFor(getLength(index));
+        setEntry(index, offset, data.length);
+        header.force();
+        if (oldOffset != 0) {
+            usedSectors.clear(oldOffset, oldOffset + oldSectors);
+        }
+    }
+
+    /**
+     * Removes an entry, freeing its sectors for reuse.
+     *
+     * @param index
+     * @throws IOException
+     */
+    public synchronized void remove(int index) throws IOException {
+        checkIndex(index);
+        ensureOpen();
+        int offset = getOffset(index);
+        if (offset != 0) {
+            usedSectors.clear(offset, offset + sectorsFor(getLength(index)));
+            setEntry(index, 0, 0);
+        }
+    }
+
+    /**
+     * Forces all written data and the header to the storage device.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        channel.force(false);
+        header.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            unmap(header);
+            channel.close();
+        }
+    }
+
+    private int allocate(int sectors) {
+        int start = usedSectors.nextClearBit(headerSectors);
+        while (start < sectorCount) {
+            int end = usedSectors.nextSetBit(start);
+            if (end == -1 || end > sectorCount) {
+                end = sectorCount;
+            }
+            if (end - start >= sectors) {
+                usedSectors.set(start, start + sectors);
+                return start;
+            }
+            if (end == sectorCount) {
+                break;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        // Append, reusing any free space at the end of the file
+        int result = Math.min(start, sectorCount);
+        sectorCount = Math.max(sectorCount, result + sectors);
+        usedSectors.set(result, result + sectors);
+        return result;
+    }
+
+    private int getOffset(int index) {
+        return header.getInt(index * HEADER_ENTRY_SIZE);
+    }
+
+    private int getLength(int index) {
+        return header.getInt(index * HEADER_ENTRY_SIZE + 4);
+    }
+
+    private void setEntry(int index, int offset, int length) {
+        header.putInt(index * HEADER_ENTRY_SIZE, offset);
+        header.putInt(index * HEADER_ENTRY_SIZE + 4, length);
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void checkIndex(int index) {
+        Preconditions.checkElementIndex(index, entryCount);
+    }
+
+    private static int sectorsFor(int bytes) {
+        return (bytes + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    /**
+     * Releases the mapping of the buffer. There is no public API for this, so it goes through the buffer's cleaner
+     * where the JVM has one. Otherwise the mapping is released when the buffer is garbage collected. The buffer must
+     * not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Unable to unmap region header, leaving it to the garbage collector", e);
+        }
+    }
+}
@@ -38,6 +38,9 @@
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.protobuf.EntityData;
 import org.terasology.utilities.FilesUtil;
+import org.terasology.utilities.compression.Compression;
+import org.terasology.utilities.compression.CompressionCodec;
+import org.terasology.utilities.compression.Lz4Codec;
 import org.terasology.utilities.concurrency.AbstractTask;
 import org.terasology.utilities.concurrency.ShutdownTask;
 import org.terasology.utilities.concurrency.Task;
@@ -46,24 +49,15 @@
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.spi.FileSystemProvider;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Immortius
@@ -74,12 +68,13 @@ public final class StorageManagerInternal implements StorageManager, EntityDestr
     private static final String PLAYER_STORE_EXTENSION = ".player";
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
     private static final int BACKGROUND_THREADS = 4;
-    private static final int CHUNK_ZIP_DIM = 32;
-    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS = ImmutableMap.of("create", "true", "encoding", "UTF-8");
+    private static final int CHUNK_SAVE_QUEUE_SIZE = 128;
 
     private static final Logger logger = LoggerFactory.getLogger(StorageManagerInternal.class);
 
     private final TaskMaster<Task> storageTaskMaster;
+    private final TaskMaster<Task> chunkWriterTaskMaster;
+    private final AtomicBoolean chunkWriteScheduled = new AtomicBoolean();
 
     private Path playersPath;
 
@@ -91,37 +86,61 @@ public final class StorageManagerInternal implements StorageManager, EntityDestr
     private TIntObjectMap<List<StoreMetadata>> externalRefHolderLookup = new TIntObjectHashMap<>();
     private Map<StoreId, StoreMetadata> storeMetadata = Maps.newHashMap();
 
-    private Map<Vector3i, ChunkStoreInternal> pendingProcessingChunkStore = Maps.newConcurrentMap();
-    private Map<Vector3i, byte[]> compressedChunkStore = Maps.newConcurrentMap();
+    private ConcurrentMap<Vector3i, ChunkStoreInternal> pendingProcessingChunkStore = Maps.newConcurrentMap();
+    private ConcurrentMap<Vector3i, byte[]> compressedChunkStore = Maps.newConcurrentMap();
 
     private EntityData.GlobalStore globalStore;
 
-    private boolean storeChunksInZips = true;
+    private final ChunkStorage chunkStorage;
+    private final CompressionCodec chunkCodec;
 
     public StorageManagerInternal(ModuleEnvironment environment, EngineEntityManager entityManager) {
         this(environment, entityManager, true);
     }
 
-    public StorageManagerInternal(ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips) {
+    public StorageManagerInternal(ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInRegions) {
+        this(environment, entityManager, storeChunksInRegions, new Lz4Codec());
+    }
+
+    /**
+     * @param environment
+     * @param entityManager
+     * @param storeChunksInRegions Whether to store chunks in region files. Region files are memory mapped, so this
+     *                             requires the save to be on the default file system. Otherwise each chunk is stored
+     *                             in its own file.
+     * @param chunkCodec           The compression to apply to saved chunks. Chunks saved with any codec, or with the
+     *                             gzip compression of older saves, can be loaded regardless.
+     */
+    public StorageManagerInternal(ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInRegions, CompressionCodec chunkCodec) {
         this.entityManager = entityManager;
         this.environment = environment;
-        this.storeChunksInZips = storeChunksInZips;
+        this.chunkCodec = chunkCodec;
+        if (storeChunksInRegions) {
+            this.chunkStorage = new RegionChunkStorage(getWorldPath(), new ZipChunkStorage(getWorldPath()));
+        } else {
+            this.chunkStorage = new FileChunkStorage(getWorldPath());
+        }
         this.prefabSerializer = new PrefabSerializer(entityManager.getComponentLibrary(), entityManager.getTypeSerializerLibrary());
         entityManager.subscribe(this);
         playersPath = PathManager.getInstance().getCurrentSavePath().resolve(PLAYERS_PATH);
-        storageTaskMaster = TaskMaster.createFIFOTaskMaster("Storage", BACKGROUND_THREADS);
+        storageTaskMaster = TaskMaster.createFIFOTaskMaster("Storage", BACKGROUND_THREADS, CHUNK_SAVE_QUEUE_SIZE);
+        chunkWriterTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Writer", 1);
     }
 
     @Override
     public void shutdown() {
         storageTaskMaster.shutdown(new ShutdownTask(), true);
+        chunkWriterTaskMaster.shutdown(new ShutdownTask(), true);
+        chunkStorage.close();
     }
 
     @Override
     public void purgeChunks() {
         storageTaskMaster.shutdown(new ShutdownTask(), true);
+        chunkWriterTaskMaster.shutdown(new ShutdownTask(), true);
         pendingProcessingChunkStore.clear();
         compressedChunkStore.clear();
+        chunkStorage.close();
 
         try {
             FilesUtil.recursiveDelete(PathManager.getInstance().getCurrentSavePath()
@@ -132,6 +151,7 @@ public void purgeChunks() {
         }
 
         storageTaskMaster.restart();
+        chunkWriterTaskMaster.restart();
     }
 
     @Override
@@ -244,21 +264,7 @@ public ChunkStore loadChunkStore(Vector3i chunkPos) {
         if (store == null) {
             byte[] chunkData = compressedChunkStore.get(chunkPos);
             if (chunkData == null) {
-                if (storeChunksInZips) {
-                    chunkData = loadChunkZip(chunkPos);
-                } else {
-                    Path chunkPath = PathManager.getInstance().getCurrentSavePath()
-                            .resolve(WORLDS_PATH)
-                            .resolve(TerasologyConstants.MAIN_WORLD)
-                            .resolve(getChunkFilename(chunkPos));
-                    if (Files.isRegularFile(chunkPath)) {
-                        try {
-                            chunkData = Files.readAllBytes(chunkPath);
-                        } catch (IOException e) {
-                            logger.error("Failed to load chunk {}", chunkPos, e);
-                        }
-                    }
-                }
+                chunkData = chunkStorage.load(chunkPos);
             }
             if (chunkData != null) {
                 TIntSet validRefs = null;
@@ -266,156 +272,82 @@ public ChunkStore loadChunkStore(Vector3i chunkPos) {
                 if (table != null) {
                     validRefs = table.getExternalReferences();
                 }
-                ByteArrayInputStream bais = new ByteArrayInputStream(chunkData);
-                try (GZIPInputStream gzipIn = new GZIPInputStream(bais)) {
-                    EntityData.ChunkStore storeData = EntityData.ChunkStore.parseFrom(gzipIn);
-                    store = new ChunkStoreInternal(storeData, validRefs, this, entityManager);
+                try {
+                    store = new ChunkStoreInternal(Compression.decompress(chunkData), validRefs, this, entityManager);
                 } catch (IOException e) {
-                    logger.error("Failed to read existing saved chunk {}", chunkPos);
+                    logger.error("Failed to read existing saved chunk {}", chunkPos, e);
                 }
             }
         }
         return store;
     }
 
-    private byte[] loadChunkZip(Vector3i chunkPos) {
-        byte[] chunkData = null;
-        Path chunkPath = getWorldPath().resolve(getChunkZipFilename(getChunkZipPosition(chunkPos)));
-        if (Files.isRegularFile(chunkPath)) {
-            try (FileSystem chunkZip = FileSystems.newFileSystem(chunkPath, null)) {
-                Path targetChunk = chunkZip.getPath(getChunkFilename(chunkPos));
-                if (Files.isRegularFile(targetChunk)) {
-                    chunkData = Files.readAllBytes(targetChunk);
-                }
-            } catch (IOException e) {
-                logger.error("Failed to load chunk zip {}", chunkPath, e);
-            }
-        }
-        return chunkData;
-    }
-
     @Override
     public boolean containsChunkStoreFor(Vector3i chunkPos) {
         if (pendingProcessingChunkStore.containsKey(chunkPos) || compressedChunkStore.containsKey(chunkPos)) {
             return true;
         }
-        if (storeChunksInZips) {
-            Path chunkZipPath = getWorldPath().resolve(getChunkZipFilename(getChunkZipPosition(chunkPos)));
-            if (Files.isRegularFile(chunkZipPath)) {
-                try (FileSystem zip = FileSystems.newFileSystem(chunkZipPath, null)) {
-                    return Files.isRegularFile(zip.getPath(getChunkFilename(chunkPos)));
-                } catch (IOException e) {
-                    logger.error("Failed to access chunk zip {}", chunkZipPath, e);
-                }
-            }
-            return false;
-        } else {
-            return Files.isRegularFile(getWorldPath().resolve(getChunkFilename(chunkPos)));
-        }
+        return chunkStorage.contains(chunkPos);
     }
 
+    /**
+     * Acts as a barrier for chunk saving: waits for all chunks submitted so far to be compressed and written, and
+     * writes any that the background writer has not got to.
+     *
+     * @throws IOException
+     */
     private void flushChunkStores() throws IOException {
-        // This is a little bit of a hack to get around a JAVA 7 bug (hopefully fixed in JAVA 8
-        FileSystemProvider zipProvider = null;
-        for (FileSystemProvider provider : FileSystemProvider.installedProviders()) {
-            if ("jar".equalsIgnoreCase(provider.getScheme())) {
-                zipProvider = provider;
-            }
-        }
-
-        if (zipProvider == null) {
-            logger.error("Zip archive support missing! Unable to save chunks.");
-            return;
-        }
-
         storageTaskMaster.shutdown(new ShutdownTask(), true);
+        chunkWriterTaskMaster.shutdown(new ShutdownTask(), true);
         try {
-            Path chunksPath = getWorldPath();
-            Files.createDirectories(chunksPath);
-            if (storeChunksInZips) {
-                Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
-                for (Map.Entry<Vector3i, byte[]> chunkStoreEntry : compressedChunkStore.entrySet()) {
-                    Vector3i chunkZipPos = getChunkZipPosition(chunkStoreEntry.getKey());
-                    FileSystem zip = newChunkZips.get(chunkZipPos);
-                    if (zip == null) {
-                        Path targetPath = chunksPath.resolve(getChunkZipTempFilename(chunkZipPos));
-                        Files.deleteIfExists(targetPath);
-                        zip = zipProvider.newFileSystem(targetPath, CREATE_ZIP_OPTIONS);
-                        newChunkZips.put(chunkZipPos, zip);
-                    }
-                    Path chunkPath = zip.getPath(getChunkFilename(chunkStoreEntry.getKey()));
-                    try (BufferedOutputStream bos = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                        bos.write(chunkStoreEntry.getValue());
-                    }
-                }
-                // Copy existing, unmodified content into the zips, close them, replace previous.
-                for (Map.Entry<Vector3i, FileSystem> chunkZipEntry : newChunkZips.entrySet()) {
-                    Path oldChunkZipPath = chunksPath.resolve(getChunkZipFilename(chunkZipEntry.getKey()));
-                    final FileSystem zip = chunkZipEntry.getValue();
-                    if (Files.isRegularFile(oldChunkZipPath)) {
-                        try (FileSystem oldZip = FileSystems.newFileSystem(oldChunkZipPath, null)) {
-                            for (Path root : oldZip.getRootDirectories()) {
-                                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-                                    @Override
-                                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                                            throws IOException {
-                                        if (!Files.isRegularFile(zip.getPath(file.toString()))) {
-                                            Files.copy(file, zip.getPath(file.toString()));
-                                        }
-                                        return FileVisitResult.CONTINUE;
-                                    }
-                                });
-                            }
-                        }
-                    }
-                    zip.close();
-                    Path sourcePath = chunksPath.resolve(getChunkZipTempFilename(chunkZipEntry.getKey()));
-                    Path targetPath = chunksPath.resolve(getChunkZipFilename(chunkZipEntry.getKey()));
-                    Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                }
-            } else {
-                for (Map.Entry<Vector3i, byte[]> chunkStoreEntry : compressedChunkStore.entrySet()) {
-                    Path chunkPath = chunksPath.resolve(getChunkFilename(chunkStoreEntry.getKey()));
-                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                        out.write(chunkStoreEntry.getValue());
-                    }
-                }
-            }
+            writeCompressedChunks();
         } finally {
             storageTaskMaster.restart();
+            chunkWriterTaskMaster.restart();
         }
-        compressedChunkStore.clear();
     }
 
-    private Path getWorldPath() {
-        return PathManager.getInstance().getCurrentSavePath().resolve(WORLDS_PATH).resolve(TerasologyConstants.MAIN_WORLD);
-    }
+    private void scheduleChunkWrite() {
+        if (chunkWriteScheduled.compareAndSet(false, true)) {
+            chunkWriterTaskMaster.offer(new AbstractTask() {
+                @Override
+                public String getName() {
+                    return "Write chunks";
+                }
 
-    private Vector3i getChunkZipPosition(Vector3i chunkPos) {
-        Vector3i result = new Vector3i(chunkPos);
-        result.divide(CHUNK_ZIP_DIM);
-        if (chunkPos.x < 0) {
-            result.x -= 1;
-        }
-        if (chunkPos.y < 0) {
-            result.y -= 1;
-        }
-        if (chunkPos.z < 0) {
-            result.z -= 1;
+                @Override
+                public void run() {
+                    chunkWriteScheduled.set(false);
+                    try {
+                        writeCompressedChunks();
+                    } catch (IOException e) {
+                        logger.error("Failed to write chunks, will retry on the next save", e);
+                    }
+                }
+            });
         }
-        return result;
     }
 
-    private String getChunkZipFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunks.zip", pos.x, pos.y, pos.z);
-    }
-
-    private String getChunkZipTempFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunks.tmp", pos.x, pos.y, pos.z);
+    /**
+     * Writes all currently compressed chunks to the chunk storage. Chunks are only removed from the in-memory store
+     * after they have been written, and only if they haven't been replaced by a newer version meanwhile, so loading
+     * never misses a chunk.
+     *
+     * @throws IOException
+     */
+    private void writeCompressedChunks() throws IOException {
+        Map<Vector3i, byte[]> batch = ImmutableMap.copyOf(compressedChunkStore);
+        if (batch.isEmpty()) {
+            return;
+        }
+        chunkStorage.save(batch);
+        for (Map.Entry<Vector3i, byte[]> entry : batch.entrySet()) {
+            compressedChunkStore.remove(entry.getKey(), entry.getValue());
+        }
     }
 
-    private String getChunkFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
+    private Path getWorldPath() {
+        return PathManager.getInstance().getCurrentSavePath().resolve(WORLDS_PATH).resolve(TerasologyConstants.MAIN_WORLD);
     }
 
     public void store(final ChunkStoreInternal chunkStore, TIntSet externalRefs) {
@@ -433,16 +365,10 @@ public String getName() {
 
                 @Override
                 public void run() {
-                    EntityData.ChunkStore store = chunkStore.getStore();
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
-                        store.writeTo(gzipOut);
-                    } catch (IOException e) {
-                        logger.error("Failed to compress chunk {} for storage.", chunkStore.getChunkPosition(), e);
-                    }
-                    byte[] b = baos.toByteArray();
+                    byte[] b = Compression.compress(chunkCodec, chunkStore.getStoreData());
                     compressedChunkStore.put(chunkStore.getChunkPosition(), b);
-                    pendingProcessingChunkStore.remove(chunkStore.getChunkPosition());
+                    pendingProcessingChunkStore.remove(chunkStore.getChunkPosition(), chunkStore);
+                    scheduleChunkWrite();
                 }
             });
         } catch (InterruptedException e) {
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Vector3i;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads chunks from the zip files of CHUNK_ZIP_DIM^3 chunks used by the original save format, so older saves still
+ * load. Chunks are only ever saved to region files now, so this storage is read-only.
+ * <p/>
+ * The content of each zip is listed the first time it is accessed. Looking up a chunk that is not in its zip, or whose
+ * zip does not exist, then needs no file system access at all.
+ */
+final class ZipChunkStorage implements ChunkStorage {
+    private static final Logger logger = LoggerFactory.getLogger(ZipChunkStorage.class);
+
+    private static final int CHUNK_ZIP_DIM = 32;
+
+    private final Path worldPath;
+    private final ConcurrentMap<Vector3i, Set<String>> zipContents = Maps.newConcurrentMap();
+
+    public ZipChunkStorage(Path worldPath) {
+        this.worldPath = worldPath;
+    }
+
+    @Override
+    public boolean contains(Vector3i chunkPos) {
+        return getZipContents(getChunkZipPosition(chunkPos)).contains(FileChunkStorage.getChunkFilename(chunkPos));
+    }
+
+    @Override
+    public byte[] load(Vector3i chunkPos) {
+        if (!contains(chunkPos)) {
+            return null;
+        }
+        Path chunkZipPath = worldPath.resolve(getChunkZipFilename(getChunkZipPosition(chunkPos)));
+        try (FileSystem chunkZip = FileSystems.newFileSystem(chunkZipPath, null)) {
+            Path targetChunk = chunkZip.getPath(FileChunkStorage.getChunkFilename(chunkPos));
+            if (Files.isRegularFile(targetChunk)) {
+                return Files.readAllBytes(targetChunk);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load chunk zip {}", chunkZipPath, e);
+        }
+        return null;
+    }
+
+    /**
+     * Not supported, as chunks are saved to region files instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void save(Map<Vector3i, byte[]> chunks) {
+        throw new UnsupportedOperationException("Chunk zips are read-only, chunks are saved to region files");
+    }
+
+    @Override
+    public void close() {
+        zipContents.clear();
+    }
+
+    private Set<String> getZipContents(Vector3i chunkZipPos) {
+        Set<String> contents = zipContents.get(chunkZipPos);
+        if (contents == null) {
+            contents = listZip(chunkZipPos);
+            if (contents == null) {
+                return Collections.emptySet();
+            }
+            Set<String> existing = zipContents.putIfAbsent(chunkZipPos, contents);
+            if (existing != null) {
+                contents = existing;
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * @return The names of the chunk files in the zip, which is empty if there is no zip, or null if the zip could not
+     *         be read
+     */
+    private Set<String> listZip(Vector3i chunkZipPos) {
+        Path chunkZipPath = worldPath.resolve(getChunkZipFilename(chunkZipPos));
+        if (!Files.isRegularFile(chunkZipPath)) {
+            return Collections.emptySet();
+        }
+        final Set<String> result = Sets.newHashSet();
+        try (FileSystem zip = FileSystems.newFileSystem(chunkZipPath, null)) {
+            for (Path root : zip.getRootDirectories()) {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        result.add(file.getFileName().toString());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } catch (IOException e) {
+            logger.error("Failed to access chunk zip {}", chunkZipPath, e);
+            return null;
+        }
+        return result;
+    }
+
+    private Vector3i getChunkZipPosition(Vector3i chunkPos) {
+        Vector3i result = new Vector3i(chunkPos);
+        result.divide(CHUNK_ZIP_DIM);
+        if (chunkPos.x < 0) {
+            result.x -= 1;
+        }
+        if (chunkPos.y < 0) {
+            result.y -= 1;
+        }
+        if (chunkPos.z < 0) {
+            result.z -= 1;
+        }
+        return result;
+    }
+
+    private String getChunkZipFilename(Vector3i pos) {
+        return String.format("%d.%d.%d.chunks.zip", pos.x, pos.y, pos.z);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.ImmutableMap;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+import java.util.Map;
+
+/**
+ * The generated field codec for a component type, along with the fields it handles. Fields it does not handle have to
+ * go through the component's {@link org.terasology.persistence.typeHandling.Serializer}.
+ * <p/>
+ * The static factory methods are used by the generated code, and produce the same values as
+ * {@link org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext}.
+ */
+public final class ComponentCodec {
+
+    private final ComponentFieldCodec fieldCodec;
+    private final Map<FieldMetadata<?, ?>, Integer> slots;
+
+    public ComponentCodec(ComponentFieldCodec fieldCodec, Map<FieldMetadata<?, ?>, Integer> slots) {
+        this.fieldCodec = fieldCodec;
+        this.slots = ImmutableMap.copyOf(slots);
+    }
+
+    /**
+     * @return Whether this codec handles the given field
+     */
+    public boolean handles(FieldMetadata<?, ?> field) {
+        return slots.containsKey(field);
+    }
+
+    /**
+     * @return The number of fields this codec handles
+     */
+    public int getFieldCount() {
+        return slots.size();
+    }
+
+    /**
+     * @param field     A field this codec handles
+     * @param component The component to read the field from
+     * @return The serialized value of the field, or null if the field is null
+     */
+    public EntityData.Value serialize(FieldMetadata<?, ?> field, Object component) {
+        return fieldCodec.serialize(slots.get(field), component);
+    }
+
+    /**
+     * Sets a field this codec handles from a serialized value, leaving it unaltered if the value does not fit the field.
+     */
+    public void deserializeOnto(FieldMetadata<?, ?> field, Object component, EntityData.Value value) {
+        fieldCodec.deserializeOnto(slots.get(field), component, value);
+    }
+
+    public static EntityData.Value ofFloat(float value) {
+        return EntityData.Value.newBuilder().addFloat(value).build();
+    }
+
+    public static EntityData.Value ofDouble(double value) {
+        return EntityData.Value.newBuilder().addDouble(value).build();
+    }
+
+    public static EntityData.Value ofInteger(int value) {
+        return EntityData.Value.newBuilder().addInteger(value).build();
+    }
+
+    public static EntityData.Value ofLong(long value) {
+        return EntityData.Value.newBuilder().addLong(value).build();
+    }
+
+    public static EntityData.Value ofBoolean(boolean value) {
+        return EntityData.Value.newBuilder().addBoolean(value).build();
+    }
+
+    public static EntityData.Value ofString(String value) {
+        return EntityData.Value.newBuilder().addString(value).build();
+    }
+}
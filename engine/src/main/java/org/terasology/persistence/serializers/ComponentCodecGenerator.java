@@ -0,0 +1,298 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.BooleanTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.DoubleTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.FloatTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.IntTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.LongTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.StringTypeHandler;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufValues;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.utilities.ReflectionUtil;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * Generates a {@link ComponentCodec} for a component type using javassist, so that its simple fields can be serialized
+ * straight into protobuf values and back without creating PersistedData or boxing the values.
+ * <p/>
+ * Fields of the primitive types, their boxed forms and String are handled, as long as they use the core type handler
+ * and are either public or have a public getter and setter. All other fields are left to the component's Serializer.
+ * <p/>
+ * When enabled in the system config, the engine registers one generator in the CoreRegistry, which the entity, prefab
+ * and network entity serializers pick up. Codecs are kept per Serializer, so they can be shared between threads and
+ * serializer instances.
+ */
+public class ComponentCodecGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(ComponentCodecGenerator.class);
+
+    private static final String CLASS_SUFFIX = "_ComponentCodec";
+    private static final String VALUE_TYPE = EntityData.Value.class.getName();
+    private static final String CODEC_TYPE = ComponentCodec.class.getName();
+    private static final String VALUES_TYPE = ProtobufValues.class.getName();
+
+    private ClassPool pool;
+    private final Map<Serializer, Optional<ComponentCodec>> codecs = new MapMaker().weakKeys().makeMap();
+
+    public ComponentCodecGenerator() {
+        pool = ClassPool.getDefault();
+    }
+
+    public void setClassPool(ClassPool classPool) {
+        pool = classPool;
+    }
+
+    /**
+     * @param metadata   The component type to get the codec for
+     * @param serializer The serializer of the component type, which determines the type handler of each field
+     * @return The codec, generated on first request, or null if there is none for the component type
+     */
+    public ComponentCodec getCodec(ComponentMetadata<? extends Component> metadata, Serializer serializer) {
+        Optional<ComponentCodec> codec = codecs.get(serializer);
+        if (codec == null) {
+            synchronized (this) {
+                codec = codecs.get(serializer);
+                if (codec == null) {
+                    codec = Optional.fromNullable(generate(metadata, serializer));
+                    codecs.put(serializer, codec);
+                }
+            }
+        }
+        return codec.orNull();
+    }
+
+    /**
+     * @param metadata   The component type to generate the codec for
+     * @param serializer The serializer of the component type, which determines the type handler of each field
+     * @return The codec, or null if no field of the component can be handled or the codec could not be generated
+     */
+    public ComponentCodec generate(ComponentMetadata<? extends Component> metadata, Serializer serializer) {
+        Class<?> type = metadata.getType();
+        if (!Modifier.isPublic(type.getModifiers()) || !canLinkCodec(type)) {
+            return null;
+        }
+
+        Map<FieldMetadata<?, ?>, Integer> slots = Maps.newLinkedHashMap();
+        StringBuilder serializeCases = new StringBuilder();
+        StringBuilder deserializeCases = new StringBuilder();
+        for (FieldMetadata<?, ?> field : metadata.getFields()) {
+            ValueKind kind = ValueKind.of(field, serializer.getHandlerFor(field));
+            FieldAccess access = FieldAccess.of(field);
+            if (kind != null && access != null) {
+                int slot = slots.size();
+                slots.put(field, slot);
+                serializeCases.append("case ").append(slot).append(": ").append(kind.serializeSource(field.getType(), access.read("c"))).append('\n');
+                deserializeCases.append("case ").append(slot).append(": ").append(kind.deserializeSource(field.getType(), access, "c")).append(" return;\n");
+            }
+        }
+        if (slots.isEmpty()) {
+            return null;
+        }
+
+        ComponentFieldCodec fieldCodec = createFieldCodec(type, serializeCases.toString(), deserializeCases.toString());
+        if (fieldCodec == null) {
+            return null;
+        }
+        return new ComponentCodec(fieldCodec, slots);
+    }
+
+    /**
+     * The codec is defined in the class loader of its component type, so that class loader has to resolve the engine
+     * classes the generated code uses. Module class loaders only resolve API classes, so components of sandboxed modules
+     * stay with the type handlers.
+     */
+    private boolean canLinkCodec(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        for (Class<?> used : new Class<?>[]{ComponentFieldCodec.class, ComponentCodec.class, ProtobufValues.class, EntityData.Value.class}) {
+            try {
+                if (classLoader == null || classLoader.loadClass(used.getName()) != used) {
+                    return false;
+                }
+            } catch (ClassNotFoundException | SecurityException e) {
+                logger.debug("Component '{}' cannot reach '{}', using type handlers", type, used);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ComponentFieldCodec createFieldCodec(Class<?> type, String serializeCases, String deserializeCases) {
+        String codecClassName = type.getName() + CLASS_SUFFIX;
+        try {
+            return (ComponentFieldCodec) type.getClassLoader().loadClass(codecClassName).getConstructor().newInstance();
+        } catch (ClassNotFoundException ignored) {
+            try {
+                CtClass codecClass = pool.makeClass(codecClassName);
+                codecClass.setInterfaces(new CtClass[]{pool.get(ComponentFieldCodec.class.getName())});
+
+                String componentType = type.getName();
+                codecClass.addMethod(CtNewMethod.make("public " + VALUE_TYPE + " serialize(int slot, Object component) {\n"
+                        + componentType + " c = (" + componentType + ") component;\n"
+                        + "Object boxed;\n"
+                        + "switch (slot) {\n"
+                        + serializeCases
+                        + "}\n"
+                        + "throw new IllegalArgumentException(\"Unknown field slot \" + slot);\n}", codecClass));
+                codecClass.addMethod(CtNewMethod.make("public void deserializeOnto(int slot, Object component, " + VALUE_TYPE + " value) {\n"
+                        + componentType + " c = (" + componentType + ") component;\n"
+                        + "Object boxed;\n"
+                        + "switch (slot) {\n"
+                        + deserializeCases
+                        + "}\n"
+                        + "throw new IllegalArgumentException(\"Unknown field slot \" + slot);\n}", codecClass));
+                return (ComponentFieldCodec) codecClass.toClass(type.getClassLoader(), type.getProtectionDomain()).getConstructor().newInstance();
+            } catch (NotFoundException | CannotCompileException | NoSuchMethodException | InstantiationException
+                    | IllegalAccessException | InvocationTargetException e) {
+                logger.warn("Failed to generate component codec for '{}', falling back on type handlers", type, e);
+                return null;
+            }
+        } catch (NoSuchMethodException | InvocationTargetException | InstantiationException | IllegalAccessException e) {
+            logger.warn("Failed to instantiate component codec for '{}', falling back on type handlers", type, e);
+            return null;
+        }
+    }
+
+    /**
+     * The types of value the generated code can write and read directly.
+     */
+    private enum ValueKind {
+        FLOAT(Float.TYPE, Float.class, FloatTypeHandler.class, "Float", "floatValue", "isNumber"),
+        DOUBLE(Double.TYPE, Double.class, DoubleTypeHandler.class, "Double", "doubleValue", "isNumber"),
+        INTEGER(Integer.TYPE, Integer.class, IntTypeHandler.class, "Integer", "intValue", "isNumber"),
+        LONG(Long.TYPE, Long.class, LongTypeHandler.class, "Long", "longValue", "isNumber"),
+        BOOLEAN(Boolean.TYPE, Boolean.class, BooleanTypeHandler.class, "Boolean", "booleanValue", "isBoolean"),
+        STRING(null, String.class, StringTypeHandler.class, "String", null, null);
+
+        private final Class<?> primitiveType;
+        private final Class<?> boxedType;
+        private final Class<?> handlerType;
+        private final String valueName;
+        private final String unboxMethod;
+        private final String checkMethod;
+
+        private ValueKind(Class<?> primitiveType, Class<?> boxedType, Class<?> handlerType, String valueName, String unboxMethod, String checkMethod) {
+            this.primitiveType = primitiveType;
+            this.boxedType = boxedType;
+            this.handlerType = handlerType;
+            this.valueName = valueName;
+            this.unboxMethod = unboxMethod;
+            this.checkMethod = checkMethod;
+        }
+
+        public static ValueKind of(FieldMetadata<?, ?> field, TypeHandler<?> handler) {
+            if (handler == null) {
+                return null;
+            }
+            for (ValueKind kind : values()) {
+                if ((field.getType() == kind.primitiveType || field.getType() == kind.boxedType) && handler.getClass() == kind.handlerType) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return A statement returning the serialized form of the value read by the given expression
+         */
+        public String serializeSource(Class<?> fieldType, String read) {
+            if (fieldType.isPrimitive()) {
+                return "return " + CODEC_TYPE + ".of" + valueName + "(" + read + ");";
+            }
+            String unboxed = (unboxMethod != null) ? "((" + boxedType.getName() + ") boxed)." + unboxMethod + "()" : "(String) boxed";
+            return "boxed = " + read + "; if (boxed == null) { return null; } return " + CODEC_TYPE + ".of" + valueName + "(" + unboxed + ");";
+        }
+
+        /**
+         * @return Statements setting the field from "value", if it holds a value of this kind
+         */
+        public String deserializeSource(Class<?> fieldType, FieldAccess access, String target) {
+            String read = VALUES_TYPE + ".getAs" + valueName + "(value)";
+            if (checkMethod == null) {
+                return "boxed = " + read + "; if (boxed != null) { " + access.write(target, "(String) boxed") + " }";
+            }
+            if (!fieldType.isPrimitive()) {
+                read = boxedType.getName() + ".valueOf(" + read + ")";
+            }
+            return "if (" + VALUES_TYPE + "." + checkMethod + "(value)) { " + access.write(target, read) + " }";
+        }
+    }
+
+    /**
+     * How the generated code reaches a field: through its public getter and setter if it has both, as the reflect
+     * factories do, or else directly if the field is public.
+     */
+    private static final class FieldAccess {
+        private final String getterName;
+        private final String setterName;
+        private final String fieldName;
+
+        private FieldAccess(String getterName, String setterName, String fieldName) {
+            this.getterName = getterName;
+            this.setterName = setterName;
+            this.fieldName = fieldName;
+        }
+
+        public static FieldAccess of(FieldMetadata<?, ?> field) {
+            Method getter = ReflectionUtil.findGetter(field.getField());
+            Method setter = ReflectionUtil.findSetter(field.getField());
+            if (getter != null && setter != null) {
+                if (Modifier.isPublic(getter.getModifiers()) && Modifier.isPublic(setter.getModifiers())) {
+                    return new FieldAccess(getter.getName(), setter.getName(), null);
+                }
+                return null;
+            }
+            int modifiers = field.getField().getModifiers();
+            if (Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers)) {
+                return new FieldAccess(null, null, field.getField().getName());
+            }
+            return null;
+        }
+
+        public String read(String target) {
+            if (getterName != null) {
+                return target + "." + getterName + "()";
+            }
+            return target + "." + fieldName;
+        }
+
+        public String write(String target, String value) {
+            if (setterName != null) {
+                return target + "." + setterName + "(" + value + ");";
+            }
+            return target + "." + fieldName + " = " + value + ";";
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import org.terasology.protobuf.EntityData;
+
+/**
+ * Reads and writes fields of a single component type directly from and to protobuf values, without going through
+ * PersistedData. Implementations are generated by {@link ComponentCodecGenerator}, which assigns each field it handles
+ * a slot.
+ */
+public interface ComponentFieldCodec {
+
+    /**
+     * @param slot      The slot of the field
+     * @param component The component to read the field from
+     * @return The serialized value of the field, or null if the field is null
+     */
+    EntityData.Value serialize(int slot, Object component);
+
+    /**
+     * Sets the field from the value. The field is left unaltered if the value cannot be deserialized into it.
+     *
+     * @param slot      The slot of the field
+     * @param component The component to set the field on
+     * @param value     The serialized value of the field
+     */
+    void deserializeOnto(int slot, Object component, EntityData.Value value);
+}
@@ -48,6 +48,9 @@
  * than the names of each component, saving some space.
  * <p/>
  * When serializing, a FieldSerializeCheck can be provided to determine whether each field should be serialized or not
+ * <p/>
+ * If provided with a ComponentCodecGenerator, the simple fields of each component type are serialized and deserialized
+ * by generated code rather than through the type handlers.
  *
  * @author Immortius
  */
@@ -61,6 +64,7 @@ public class ComponentSerializer {
     private TypeSerializationLibrary typeSerializationLibrary;
     private ProtobufSerializationContext serializationContext;
     private ProtobufDeserializationContext deserializationContext;
+    private ComponentCodecGenerator codecGenerator;
 
     /**
      * Creates the component serializer.
@@ -82,6 +86,20 @@ public boolean isUsingFieldIds() {
         return usingFieldIds;
     }
 
+    /**
+     * Sets the generator used to create codecs for the fields of each component type. The generated codecs produce the
+     * same data as the type handlers, only faster.
+     *
+     * @param codecGenerator The generator to use, or null to serialize all fields through the type handlers
+     */
+    public void setCodecGenerator(ComponentCodecGenerator codecGenerator) {
+        this.codecGenerator = codecGenerator;
+    }
+
+    public ComponentCodecGenerator getCodecGenerator() {
+        return codecGenerator;
+    }
+
     /**
      * Sets the mapping between component classes and the ids that are used for serialization
      *
@@ -185,6 +203,7 @@ public Component deserializeOnto(Component target, EntityData.Component componen
     private <T extends Component> Component deserializeOnto(Component targetComponent, EntityData.Component componentData,
                                                             ComponentMetadata<T> componentMetadata, FieldSerializeCheck<Component> fieldCheck) {
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
         DeserializationContext context = new ProtobufDeserializationContext(typeSerializationLibrary);
         Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
         for (EntityData.NameValue field : componentData.getFieldList()) {
@@ -194,7 +213,11 @@ private <T extends Component> Component deserializeOnto(Component targetComponen
             } else if (field.hasName()) {
                 fieldInfo = componentMetadata.getField(field.getName());
             }
-            if (fieldInfo != null) {
+            if (fieldInfo != null && codec != null && codec.handles(fieldInfo)) {
+                if (fieldCheck.shouldDeserialize(componentMetadata, fieldInfo)) {
+                    codec.deserializeOnto(fieldInfo, targetComponent, field.getValue());
+                }
+            } else if (fieldInfo != null) {
                 dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
             } else if (field.hasNameIndex()) {
                 logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
@@ -232,11 +255,17 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         serializeComponentType(componentMetadata, componentMessage);
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (check.shouldSerializeField(field, component)) {
-                PersistedData result = serializer.serialize(field, component, serializationContext);
-                if (!result.isNull()) {
-                    EntityData.Value itemValue = ((ProtobufPersistedData) result).getValue();
+                EntityData.Value itemValue;
+                if (codec != null && codec.handles(field)) {
+                    itemValue = codec.serialize(field, component);
+                } else {
+                    PersistedData result = serializer.serialize(field, component, serializationContext);
+                    itemValue = (result.isNull()) ? null : ((ProtobufPersistedData) result).getValue();
+                }
+                if (itemValue != null) {
                     if (usingFieldIds) {
                         componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(itemValue));
                     } else {
@@ -249,6 +278,13 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         return componentMessage.build();
     }
 
+    /**
+     * @return The generated codec for the component type, or null if there is none
+     */
+    private ComponentCodec getCodec(ComponentMetadata<?> componentMetadata, Serializer serializer) {
+        return (codecGenerator != null) ? codecGenerator.getCodec(componentMetadata, serializer) : null;
+    }
+
     private void serializeComponentType(ComponentMetadata<?> componentMetadata, EntityData.Component.Builder componentMessage) {
         Integer compId = idTable.get(componentMetadata.getType());
         if (compId != null) {
@@ -288,6 +324,7 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
         serializeComponentType(componentMetadata, componentMessage);
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
         boolean changed = false;
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (check.shouldSerializeField(field, delta)) {
@@ -295,9 +332,14 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
                 Object deltaValue = field.getValue(delta);
 
                 if (!Objects.equal(origValue, deltaValue)) {
-                    PersistedData value = serializer.serializeValue(field, deltaValue, serializationContext);
-                    if (!value.isNull()) {
-                        EntityData.Value dataValue = ((ProtobufPersistedData) value).getValue();
+                    EntityData.Value dataValue;
+                    if (codec != null && codec.handles(field)) {
+                        dataValue = codec.serialize(field, delta);
+                    } else {
+                        PersistedData value = serializer.serializeValue(field, deltaValue, serializationContext);
+                        dataValue = (value.isNull()) ? null : ((ProtobufPersistedData) value).getValue();
+                    }
+                    if (dataValue != null) {
                         if (usingFieldIds) {
                             componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(dataValue).build());
                         } else {
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.Component;
+import org.terasology.protobuf.EntityData;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The field values of an entity's components as a client last received them. Updates serialized against a baseline
+ * only carry the fields that differ from it, and bring the baseline up to date.
+ * <p/>
+ * Fields that have never been sent are unknown, and are always sent.
+ */
+public final class EntityBaseline {
+
+    private final Map<Class<? extends Component>, ComponentBaseline> components = Maps.newHashMap();
+
+    /**
+     * Forgets the fields of a component, so all of them are sent with the next update of it.
+     */
+    public void removeComponent(Class<? extends Component> componentType) {
+        components.remove(componentType);
+    }
+
+    public void clear() {
+        components.clear();
+    }
+
+    ComponentBaseline getComponent(Class<? extends Component> componentType) {
+        ComponentBaseline result = components.get(componentType);
+        if (result == null) {
+            result = new ComponentBaseline();
+            components.put(componentType, result);
+        }
+        return result;
+    }
+
+    /**
+     * The sent fields of a single component in their serialized form, indexed by field id. Comparing serialized
+     * forms also drops changes that do not survive serialization, such as those smaller than a quantized type can
+     * represent.
+     */
+    static final class ComponentBaseline {
+        private static final EntityData.Value[] NO_DATA = new EntityData.Value[0];
+
+        private EntityData.Value[] data = NO_DATA;
+
+        /**
+         * @return The serialized value last sent for the field, or null if it has not been sent
+         */
+        EntityData.Value getData(byte fieldId) {
+            return (fieldId < data.length) ? data[fieldId] : null;
+        }
+
+        void set(byte fieldId, EntityData.Value fieldData) {
+            if (fieldId >= data.length) {
+                data = Arrays.copyOf(data, fieldId + 1);
+            }
+            data[fieldId] = fieldData;
+        }
+    }
+}
@@ -28,6 +28,7 @@
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
 
 import java.util.Map;
 import java.util.Set;
@@ -40,6 +41,8 @@
  * <p/>
  * It is also possible to set whether entity ids will be handled or ignored - if ignored then deserialized entities will
  * be given new ids.
+ * <p/>
+ * Components are serialized with the generated codecs of the ComponentCodecGenerator in the CoreRegistry, if there is one.
  *
  * @author Immortius
  */
@@ -64,6 +67,7 @@ public EntitySerializer(EngineEntityManager entityManager, ComponentLibrary comp
         this.prefabManager = entityManager.getPrefabManager();
         this.componentLibrary = componentLibrary;
         this.componentSerializer = new ComponentSerializer(componentLibrary, typeSerializationLibrary);
+        this.componentSerializer.setCodecGenerator(CoreRegistry.get(ComponentCodecGenerator.class));
     }
 
     /**
@@ -41,11 +41,16 @@
 import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext;
 import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
 
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Serializes entities, and changes to them, for sending over the network.
+ * <p/>
+ * Components are serialized with the generated codecs of the ComponentCodecGenerator in the CoreRegistry, if there is one.
+ *
  * @author Immortius
  */
 public class NetworkEntitySerializer {
@@ -57,6 +62,7 @@ public class NetworkEntitySerializer {
     private TypeSerializationLibrary typeSerializationLibrary;
     private ProtobufSerializationContext serializationContext;
     private ProtobufDeserializationContext deserializationContext;
+    private ComponentCodecGenerator codecGenerator;
     private BiMap<Class<? extends Component>, Integer> idTable = ImmutableBiMap.<Class<? extends Component>, Integer>builder().build();
 
     public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary) {
@@ -65,6 +71,7 @@ public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibra
         this.typeSerializationLibrary = typeSerializationLibrary;
         this.serializationContext = new ProtobufSerializationContext(typeSerializationLibrary);
         this.deserializationContext = new ProtobufDeserializationContext(typeSerializationLibrary);
+        this.codecGenerator = CoreRegistry.get(ComponentCodecGenerator.class);
     }
 
     public void setComponentSerializeCheck(ComponentSerializeCheck componentSerializeCheck) {
@@ -153,15 +160,16 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
 
         byte fieldCount = 0;
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (fieldCheck.shouldSerializeField(field, newComponent, componentInitial)) {
                 Object oldValue = field.getValue(oldComponent);
                 Object newValue = field.getValue(newComponent);
                 if (!Objects.equal(oldValue, newValue)) {
-                    PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
-                    if (!data.isNull()) {
+                    EntityData.Value value = serializeField(field, newComponent, serializer, codec);
+                    if (value != null) {
                         entityFieldIds.write(field.getId());
-                        entityData.addFieldValue(((ProtobufPersistedData) data).getValue());
+                        entityData.addFieldValue(value);
                         fieldCount++;
                     } else {
                         logger.error("Exception serializing component type: {}, field: {} - returned null", componentMetadata, field);
@@ -179,6 +187,12 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
     private void serializeComponentFull(Component component, boolean ignoreIfNoFields, FieldSerializeCheck<Component> fieldCheck,
                                         EntityData.PackedEntity.Builder entityData, ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
                                         boolean componentInitial) {
+        serializeComponentFull(component, ignoreIfNoFields, fieldCheck, entityData, entityFieldIds, componentFieldCounts, componentInitial, null);
+    }
+
+    private void serializeComponentFull(Component component, boolean ignoreIfNoFields, FieldSerializeCheck<Component> fieldCheck,
+                                        EntityData.PackedEntity.Builder entityData, ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
+                                        boolean componentInitial, EntityBaseline.ComponentBaseline baseline) {
         ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
         if (componentMetadata == null) {
             logger.error("Unregistered component type: {}", component.getClass());
@@ -186,15 +200,18 @@ private void serializeComponentFull(Component component, boolean ignoreIfNoField
         }
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
         byte fieldCount = 0;
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (fieldCheck.shouldSerializeField(field, component, componentInitial)) {
-                PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
-                if (!fieldValue.isNull()) {
+                EntityData.Value value = serializeField(field, component, serializer, codec);
+                if (value != null) {
                     entityFieldIds.write(field.getId());
-
-                    entityData.addFieldValue(((ProtobufPersistedData) fieldValue).getValue());
+                    entityData.addFieldValue(value);
                     fieldCount++;
+                    if (baseline != null) {
+                        baseline.set(field.getId(), value);
+                    }
                 }
             }
         }
@@ -205,6 +222,63 @@ private void serializeComponentFull(Component component, boolean ignoreIfNoField
         }
     }
 
+    /**
+     * Serializes the fields of a component that differ from those in the baseline, and updates the baseline.
+     * Nothing is written if no field differs.
+     * <p/>
+     * Fields are compared in their serialized form: many field types have no copy strategy, so a kept copy of the
+     * value could be the live object and would never see changes made to it in place.
+     */
+    private void serializeComponentChanges(Component component, FieldSerializeCheck<Component> fieldCheck, EntityData.PackedEntity.Builder entityData,
+                                           ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts, EntityBaseline.ComponentBaseline baseline) {
+        ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
+        if (componentMetadata == null) {
+            logger.error("Unregistered component type: {}", component.getClass());
+            return;
+        }
+
+        Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ComponentCodec codec = getCodec(componentMetadata, serializer);
+        byte fieldCount = 0;
+        for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
+            if (fieldCheck.shouldSerializeField(field, component, false)) {
+                EntityData.Value value = serializeField(field, component, serializer, codec);
+                if (value != null) {
+                    byte fieldId = field.getId();
+                    if (!value.equals(baseline.getData(fieldId))) {
+                        baseline.set(fieldId, value);
+                        entityFieldIds.write(fieldId);
+                        entityData.addFieldValue(value);
+                        fieldCount++;
+                    }
+                }
+            }
+        }
+
+        if (fieldCount != 0) {
+            entityData.addComponentId(idTable.get(component.getClass()));
+            componentFieldCounts.write(fieldCount);
+        }
+    }
+
+    /**
+     * @return The serialized value of the field, or null if the field is null
+     */
+    private EntityData.Value serializeField(ReplicatedFieldMetadata field, Component component, Serializer serializer, ComponentCodec codec) {
+        if (codec != null && codec.handles(field)) {
+            return codec.serialize(field, component);
+        }
+        PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+        return (fieldValue.isNull()) ? null : ((ProtobufPersistedData) fieldValue).getValue();
+    }
+
+    /**
+     * @return The generated codec for the component type, or null if there is none
+     */
+    private ComponentCodec getCodec(ComponentMetadata<?> componentMetadata, Serializer serializer) {
+        return (codecGenerator != null) ? codecGenerator.getCodec(componentMetadata, serializer) : null;
+    }
+
     public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedEntity entityData) {
         deserializeOnto(entity, entityData, FieldSerializeCheck.NullCheck.<Component>newInstance());
     }
@@ -231,12 +305,17 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
                 component = metadata.newInstance();
             }
             Serializer serializer = typeSerializationLibrary.getSerializerFor(metadata);
+            ComponentCodec codec = getCodec(metadata, serializer);
             for (int fieldIndex = 0; fieldIndex < UnsignedBytes.toInt(entityData.getComponentFieldCounts().byteAt(componentIndex)); ++fieldIndex) {
                 byte fieldId = entityData.getFieldIds().byteAt(fieldPos);
                 ReplicatedFieldMetadata fieldMetadata = metadata.getField(fieldId);
                 if (fieldMetadata != null && fieldCheck.shouldDeserialize(metadata, fieldMetadata)) {
                     logger.trace("Deserializing field {} of component {} as value {}", fieldMetadata, metadata, entityData.getFieldValue(fieldPos));
-                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    if (codec != null && codec.handles(fieldMetadata)) {
+                        codec.deserializeOnto(fieldMetadata, component, entityData.getFieldValue(fieldPos));
+                    } else {
+                        serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    }
                 }
                 fieldPos++;
             }
@@ -275,6 +354,19 @@ public EntityRef deserialize(EntityData.PackedEntity entityData) {
 
     public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
                                              Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck) {
+        return serialize(entityRef, added, changed, removed, fieldCheck, null);
+    }
+
+    /**
+     * Serializes the changes to an entity.
+     *
+     * @param baseline The field values the receiver already has, or null to send every field of the changed components.
+     *                 Only the fields of changed components that differ from the baseline are sent, and the baseline is
+     *                 updated with everything that is sent.
+     * @return The serialized changes, or null if there are none
+     */
+    public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
+                                             Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck, EntityBaseline baseline) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
 
         ByteString.Output fieldIds = ByteString.newOutput();
@@ -284,17 +376,27 @@ public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extend
             if (component == null) {
                 logger.error("Non-existent component marked as added: {}", componentType);
             }
-            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+            EntityBaseline.ComponentBaseline componentBaseline = null;
+            if (baseline != null) {
+                baseline.removeComponent(componentType);
+                componentBaseline = baseline.getComponent(componentType);
+            }
+            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true, componentBaseline);
         }
         for (Class<? extends Component> componentType : changed) {
             Component comp = entityRef.getComponent(componentType);
-            if (comp != null) {
-                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false);
-            } else {
+            if (comp == null) {
                 logger.error("Non-existent component marked as changed: {}", componentType);
+            } else if (baseline != null) {
+                serializeComponentChanges(comp, fieldCheck, entity, fieldIds, componentFieldCounts, baseline.getComponent(componentType));
+            } else {
+                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false);
             }
         }
         for (Class<? extends Component> componentType : removed) {
+            if (baseline != null) {
+                baseline.removeComponent(componentType);
+            }
             entity.addRemovedComponent(idTable.get(componentType));
         }
         entity.setFieldIds(fieldIds.toByteString());
@@ -29,6 +29,7 @@
 import org.terasology.persistence.ModuleContext;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
 
 import java.util.Collections;
 import java.util.List;
@@ -54,6 +55,7 @@ public class PrefabSerializer {
     public PrefabSerializer(ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary) {
         this.componentLibrary = componentLibrary;
         this.componentSerializer = new ComponentSerializer(componentLibrary, typeSerializationLibrary);
+        this.componentSerializer.setCodecGenerator(CoreRegistry.get(ComponentCodecGenerator.class));
     }
 
     /**
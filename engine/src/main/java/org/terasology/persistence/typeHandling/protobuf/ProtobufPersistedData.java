@@ -59,93 +59,32 @@ public EntityData.Value getValue() {
 
     @Override
     public String getAsString() {
-        if (data.getStringCount() == 1) {
-            return data.getString(0);
-        } else if (data.getStringCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else if (!isNull()) {
-            throw new ClassCastException("Data is not a String");
-        }
-        return null;
+        return ProtobufValues.getAsString(data);
     }
 
     @Override
     public double getAsDouble() {
-        if (data.getDoubleCount() == 1) {
-            return data.getDouble(0);
-        } else if (data.getFloatCount() == 1) {
-            return data.getFloat(0);
-        } else if (data.getLongCount() == 1) {
-            return data.getLong(0);
-        } else if (data.getIntegerCount() == 1) {
-            return data.getInteger(0);
-        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else {
-            throw new ClassCastException("Data is not a number");
-        }
+        return ProtobufValues.getAsDouble(data);
     }
 
     @Override
     public float getAsFloat() {
-        if (data.getFloatCount() == 1) {
-            return data.getFloat(0);
-        } else if (data.getDoubleCount() == 1) {
-            return (float) data.getDouble(0);
-        } else if (data.getLongCount() == 1) {
-            return data.getLong(0);
-        } else if (data.getIntegerCount() == 1) {
-            return data.getInteger(0);
-        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else {
-            throw new ClassCastException("Data is not a number");
-        }
+        return ProtobufValues.getAsFloat(data);
     }
 
     @Override
     public int getAsInteger() {
-        if (data.getIntegerCount() == 1) {
-            return data.getInteger(0);
-        } else if (data.getDoubleCount() == 1) {
-            return (int) data.getDouble(0);
-        } else if (data.getFloatCount() == 1) {
-            return (int) data.getFloat(0);
-        } else if (data.getLongCount() == 1) {
-            return (int) data.getLong(0);
-        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else {
-            throw new ClassCastException("Data is not a number");
-        }
+        return ProtobufValues.getAsInteger(data);
     }
 
     @Override
     public long getAsLong() {
-        if (data.getLongCount() == 1) {
-            return (int) data.getLong(0);
-        } else if (data.getIntegerCount() == 1) {
-            return data.getInteger(0);
-        } else if (data.getDoubleCount() == 1) {
-            return (int) data.getDouble(0);
-        } else if (data.getFloatCount() == 1) {
-            return (int) data.getFloat(0);
-        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else {
-            throw new ClassCastException("Data is not a number");
-        }
+        return ProtobufValues.getAsLong(data);
     }
 
     @Override
     public boolean getAsBoolean() {
-        if (data.getBooleanCount() == 1) {
-            return data.getBoolean(0);
-        } else if (data.getBooleanCount() > 1) {
-            throw new IllegalStateException("Data is an array of size != 1");
-        } else {
-            throw new ClassCastException("Data is not a boolean");
-        }
+        return ProtobufValues.getAsBoolean(data);
     }
 
     @Override
@@ -198,12 +137,12 @@ public boolean isString() {
 
     @Override
     public boolean isNumber() {
-        return data.getIntegerCount() == 1 || data.getFloatCount() == 1 || data.getLongCount() == 1 || data.getDoubleCount() == 1;
+        return ProtobufValues.isNumber(data);
     }
 
     @Override
     public boolean isBoolean() {
-        return data.getBooleanCount() == 1;
+        return ProtobufValues.isBoolean(data);
     }
 
     @Override
@@ -223,8 +162,7 @@ public boolean isValueMap() {
 
     @Override
     public boolean isNull() {
-        return !data.hasBytes() && data.getBooleanCount() + data.getFloatCount() + data.getDoubleCount() + data.getIntegerCount() + data.getLongCount()
-                + data.getStringCount() + data.getValueCount() + data.getNameValueCount() == 0;
+        return ProtobufValues.isNull(data);
     }
 
     @Override
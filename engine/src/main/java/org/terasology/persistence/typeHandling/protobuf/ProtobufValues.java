@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import org.terasology.protobuf.EntityData;
+
+/**
+ * Reads single values from protobuf values, following the same conversions as {@link ProtobufPersistedData} but without
+ * wrapping the value first.
+ */
+public final class ProtobufValues {
+
+    private ProtobufValues() {
+    }
+
+    public static String getAsString(EntityData.Value data) {
+        if (data.getStringCount() == 1) {
+            return data.getString(0);
+        } else if (data.getStringCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else if (!isNull(data)) {
+            throw new ClassCastException("Data is not a String");
+        }
+        return null;
+    }
+
+    public static double getAsDouble(EntityData.Value data) {
+        if (data.getDoubleCount() == 1) {
+            return data.getDouble(0);
+        } else if (data.getFloatCount() == 1) {
+            return data.getFloat(0);
+        } else if (data.getLongCount() == 1) {
+            return data.getLong(0);
+        } else if (data.getIntegerCount() == 1) {
+            return data.getInteger(0);
+        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else {
+            throw new ClassCastException("Data is not a number");
+        }
+    }
+
+    public static float getAsFloat(EntityData.Value data) {
+        if (data.getFloatCount() == 1) {
+            return data.getFloat(0);
+        } else if (data.getDoubleCount() == 1) {
+            return (float) data.getDouble(0);
+        } else if (data.getLongCount() == 1) {
+            return data.getLong(0);
+        } else if (data.getIntegerCount() == 1) {
+            return data.getInteger(0);
+        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else {
+            throw new ClassCastException("Data is not a number");
+        }
+    }
+
+    public static int getAsInteger(EntityData.Value data) {
+        if (data.getIntegerCount() == 1) {
+            return data.getInteger(0);
+        } else if (data.getDoubleCount() == 1) {
+            return (int) data.getDouble(0);
+        } else if (data.getFloatCount() == 1) {
+            return (int) data.getFloat(0);
+        } else if (data.getLongCount() == 1) {
+            return (int) data.getLong(0);
+        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else {
+            throw new ClassCastException("Data is not a number");
+        }
+    }
+
+    public static long getAsLong(EntityData.Value data) {
+        if (data.getLongCount() == 1) {
+            return (int) data.getLong(0);
+        } else if (data.getIntegerCount() == 1) {
+            return data.getInteger(0);
+        } else if (data.getDoubleCount() == 1) {
+            return (int) data.getDouble(0);
+        } else if (data.getFloatCount() == 1) {
+            return (int) data.getFloat(0);
+        } else if (data.getDoubleCount() + data.getFloatCount() + data.getIntegerCount() + data.getLongCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else {
+            throw new ClassCastException("Data is not a number");
+        }
+    }
+
+    public static boolean getAsBoolean(EntityData.Value data) {
+        if (data.getBooleanCount() == 1) {
+            return data.getBoolean(0);
+        } else if (data.getBooleanCount() > 1) {
+            throw new IllegalStateException("Data is an array of size != 1");
+        } else {
+            throw new ClassCastException("Data is not a boolean");
+        }
+    }
+
+    public static boolean isNumber(EntityData.Value data) {
+        return data.getIntegerCount() == 1 || data.getFloatCount() == 1 || data.getLongCount() == 1 || data.getDoubleCount() == 1;
+    }
+
+    public static boolean isBoolean(EntityData.Value data) {
+        return data.getBooleanCount() == 1;
+    }
+
+    public static boolean isNull(EntityData.Value data) {
+        return !data.hasBytes() && data.getBooleanCount() + data.getFloatCount() + data.getDoubleCount() + data.getIntegerCount() + data.getLongCount()
+                + data.getStringCount() + data.getValueCount() + data.getNameValueCount() == 0;
+    }
+}
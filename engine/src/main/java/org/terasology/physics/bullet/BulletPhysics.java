@@ -38,7 +38,6 @@
 import com.bulletphysics.collision.shapes.CylinderShape;
 import com.bulletphysics.collision.shapes.SphereShape;
 import com.bulletphysics.collision.shapes.voxel.VoxelWorldShape;
-import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
 import com.bulletphysics.dynamics.DynamicsWorld;
 import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
 import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
@@ -55,6 +54,7 @@
 import org.terasology.logic.characters.CharacterMovementComponent;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.physics.CollisionGroup;
@@ -68,6 +68,8 @@
 import org.terasology.physics.engine.PhysicsSystem;
 import org.terasology.physics.engine.PhysicsWorldWrapper;
 import org.terasology.physics.engine.RigidBody;
+import org.terasology.physics.engine.SimulationTier;
+import org.terasology.physics.engine.SimulationTiers;
 import org.terasology.physics.shapes.BoxShapeComponent;
 import org.terasology.physics.shapes.CapsuleShapeComponent;
 import org.terasology.physics.shapes.CylinderShapeComponent;
@@ -84,6 +86,8 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
@@ -99,27 +103,62 @@ public class BulletPhysics implements PhysicsEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(BulletPhysics.class);
 
+    /**
+     * Rigid bodies slower than this count as settled. Higher than the Bullet defaults, so item piles settle sooner.
+     */
+    private static final float SLEEPING_LINEAR_THRESHOLD = 1.2f;
+    private static final float SLEEPING_ANGULAR_THRESHOLD = 1.5f;
+
+    /**
+     * How many times faster than Bullet would on its own settled rigid bodies are put to sleep
+     */
+    private static final float SETTLE_SPEEDUP = 4;
+
+    /**
+     * The fixed time step of the simulation, which also limits the steps taken to catch up bodies at a reduced rate
+     */
+    private static final float FIXED_TIME_STEP = 1f / 60f;
+
+    private static final Comparator<BulletRigidBody> CATCH_UP_TIME_ORDER = new Comparator<BulletRigidBody>() {
+        @Override
+        public int compare(BulletRigidBody o1, BulletRigidBody o2) {
+            return Float.compare(o1.catchUpTime, o2.catchUpTime);
+        }
+    };
+
     private final Deque<RigidBodyRequest> insertionQueue = Lists.newLinkedList();
     private final Deque<BulletRigidBody> removalQueue = Lists.newLinkedList();
 
     private final CollisionDispatcher dispatcher;
     private final BroadphaseInterface broadphase;
-    private final DiscreteDynamicsWorld discreteDynamicsWorld;
+    private final TieredDynamicsWorld discreteDynamicsWorld;
     private final BlockEntityRegistry blockEntityRegistry;
     private final PhysicsWorldWrapper wrapper;
     private final PhysicsLiquidWrapper liquidWrapper;
+    private final CollisionObject worldObject;
+    private final CollisionObject liquidObject;
+    private final PhysicsWorldWrapper rayWrapper;
+    private final VoxelWorldShape rayWorldShape;
+    private final VoxelWorldShape rayLiquidShape;
     private Map<EntityRef, BulletRigidBody> entityRigidBodies = Maps.newHashMap();
     private Map<EntityRef, BulletCharacterMoverCollider> entityColliders = Maps.newHashMap();
     private Map<EntityRef, PairCachingGhostObject> entityTriggers = Maps.newHashMap();
     private List<PhysicsSystem.CollisionPair> collisions = new ArrayList<>();
 
+    private final SimulationTiers simulationTiers = new SimulationTiers();
+    private final List<BulletRigidBody> catchUpBodies = Lists.newArrayList();
+    private int nextSimulationPhase;
+    private int activeBodyCount;
+    private int sleepingBodyCount;
+    private int frozenBodyCount;
+
     public BulletPhysics(WorldProvider world) {
         broadphase = new DbvtBroadphase();
         broadphase.getOverlappingPairCache().setInternalGhostPairCallback(new GhostPairCallback());
         CollisionConfiguration defaultCollisionConfiguration = new DefaultCollisionConfiguration();
         dispatcher = new CollisionDispatcher(defaultCollisionConfiguration);
         SequentialImpulseConstraintSolver sequentialImpulseConstraintSolver = new SequentialImpulseConstraintSolver();
-        discreteDynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, sequentialImpulseConstraintSolver, defaultCollisionConfiguration);
+        discreteDynamicsWorld = new TieredDynamicsWorld(dispatcher, broadphase, sequentialImpulseConstraintSolver, defaultCollisionConfiguration);
         discreteDynamicsWorld.setGravity(new Vector3f(0f, -15f, 0f));//设置重力加速度
         blockEntityRegistry = CoreRegistry.get(BlockEntityRegistry.class);
 
@@ -129,6 +168,11 @@ public BulletPhysics(WorldProvider world) {
         liquidWrapper = new PhysicsLiquidWrapper(world);
         VoxelWorldShape liquidShape = new VoxelWorldShape(liquidWrapper);
 
+        // Ray traces report which block was hit, so they test the voxel worlds through wrappers that attach positions
+        rayWrapper = new PhysicsWorldWrapper(world, true);
+        rayWorldShape = new VoxelWorldShape(rayWrapper);
+        rayLiquidShape = new VoxelWorldShape(new PhysicsLiquidWrapper(world, true));
+
         Matrix3f rot = new Matrix3f();
         rot.setIdentity();//设置为单位矩阵
         DefaultMotionState blockMotionState = new DefaultMotionState(new Transform(new Matrix4f(rot, new Vector3f(0, 0, 0), 1.0f)));
@@ -137,12 +181,14 @@ public BulletPhysics(WorldProvider world) {
         rigidBody.rb.setCollisionFlags(CollisionFlags.STATIC_OBJECT | rigidBody.rb.getCollisionFlags());
         short mask = (short) (~(CollisionFilterGroups.STATIC_FILTER | StandardCollisionGroup.LIQUID.getFlag()));
         discreteDynamicsWorld.addRigidBody(rigidBody.rb, combineGroups(StandardCollisionGroup.WORLD), mask);
+        worldObject = rigidBody.rb;
 
         RigidBodyConstructionInfo liquidConsInfo = new RigidBodyConstructionInfo(0, blockMotionState, liquidShape, new Vector3f());
         BulletRigidBody liquidBody = new BulletRigidBody(liquidConsInfo);
         liquidBody.rb.setCollisionFlags(CollisionFlags.STATIC_OBJECT | rigidBody.rb.getCollisionFlags());
         discreteDynamicsWorld.addRigidBody(liquidBody.rb, combineGroups(StandardCollisionGroup.LIQUID),
                 CollisionFilterGroups.SENSOR_TRIGGER);
+        liquidObject = liquidBody.rb;
     }
 
     //*****************Physics Interface methods******************\\
@@ -158,6 +204,7 @@ public List<PhysicsSystem.CollisionPair> getCollisionPairs() {
     public void dispose() {
         discreteDynamicsWorld.destroy();
         wrapper.dispose();
+        rayWrapper.dispose();
     }
 
     @Override
@@ -210,9 +257,20 @@ public HitResult rayTrace(Vector3f from, Vector3f direction, float distance, Col
         CollisionWorld.ClosestRayResultWithUserDataCallback closest =
                 new CollisionWorld.ClosestRayResultWithUserDataCallback(from, to);
         closest.collisionFilterGroup = CollisionFilterGroups.ALL_FILTER;
-        closest.collisionFilterMask = filter;
-
+        // The shapes of the voxel worlds share block collision information that doesn't say which block was hit,
+        // so those are left out here and tested through their position attaching counterparts below
+        short worldFlags = combineGroups(StandardCollisionGroup.WORLD, StandardCollisionGroup.LIQUID);
+        closest.collisionFilterMask = (short) (filter & ~worldFlags);
         discreteDynamicsWorld.rayTest(from, to, closest);
+
+        Transform rayFrom = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), from, 1.0f));
+        Transform rayTo = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), to, 1.0f));
+        if ((filter & StandardCollisionGroup.WORLD.getFlag()) != 0) {
+            CollisionWorld.rayTestSingle(rayFrom, rayTo, worldObject, rayWorldShape, worldObject.getWorldTransform(new Transform()), closest);
+        }
+        if ((filter & StandardCollisionGroup.LIQUID.getFlag()) != 0) {
+            CollisionWorld.rayTestSingle(rayFrom, rayTo, liquidObject, rayLiquidShape, liquidObject.getWorldTransform(new Transform()), closest);
+        }
         if (closest.hasHit()) {
             if (closest.userData instanceof Vector3i) { //We hit a world block
                 final EntityRef entityAt = blockEntityRegistry.getEntityAt((Vector3i) closest.userData);
@@ -231,10 +289,12 @@ public HitResult rayTrace(Vector3f from, Vector3f direction, float distance, Col
     @Override
     public void update(float delta) {
         processQueuedBodies();
-        applyPendingImpulsesAndForces();
+        applySimulationTiers(delta);
         try {
             PerformanceMonitor.startActivity("Step Simulation");
-            if (discreteDynamicsWorld.stepSimulation(delta, 8) != 0) {
+            catchUpSkippedBodies();
+            applyPendingImpulsesAndForces();
+            if (discreteDynamicsWorld.stepSimulation(delta, 8, FIXED_TIME_STEP) != 0) {
                 for (BulletCharacterMoverCollider collider : entityColliders.values()) {
                     collider.pending = false;
                 }
@@ -246,6 +306,26 @@ public void update(float delta) {
         collisions.addAll(getNewCollisionPairs());
     }
 
+    @Override
+    public void setRelevanceRegions(Collection<Region3i> relevanceRegions) {
+        simulationTiers.setRelevanceRegions(relevanceRegions);
+    }
+
+    @Override
+    public int getActiveBodyCount() {
+        return activeBodyCount;
+    }
+
+    @Override
+    public int getSleepingBodyCount() {
+        return sleepingBodyCount;
+    }
+
+    @Override
+    public int getFrozenBodyCount() {
+        return frozenBodyCount;
+    }
+
     @Override
     public boolean removeRigidBody(EntityRef entity) {
         BulletRigidBody rigidBody = entityRigidBodies.remove(entity);
@@ -390,9 +470,9 @@ public Iterator<EntityRef> physicsEntitiesIterator() {
     @Override
     public void awakenArea(Vector3f pos, float radius) {
         Vector3f min = new Vector3f(pos);
-        min.sub(new Vector3f(0.6f, 0.6f, 0.6f));
+        min.sub(new Vector3f(radius, radius, radius));
         Vector3f max = new Vector3f(pos);
-        max.add(new Vector3f(0.6f, 0.6f, 0.6f));
+        max.add(new Vector3f(radius, radius, radius));
         discreteDynamicsWorld.awakenRigidBodiesInArea(min, max);
     }
 
@@ -483,6 +563,8 @@ private RigidBody newRigidBody(EntityRef entity) {
             collider.rb.setAngularFactor(rigidBody.angularFactor);
             collider.rb.setLinearFactor(rigidBody.linearFactor);
             collider.rb.setFriction(rigidBody.friction);
+            collider.rb.setSleepingThresholds(SLEEPING_LINEAR_THRESHOLD, SLEEPING_ANGULAR_THRESHOLD);
+            collider.simulationPhase = nextSimulationPhase++ & Integer.MAX_VALUE;
             collider.collidesWith = combineGroups(rigidBody.collidesWith);
             updateKinematicSettings(rigidBody, collider);
             BulletRigidBody oldBody = entityRigidBodies.put(entity, collider);
@@ -567,6 +649,99 @@ private void applyPendingImpulsesAndForces() {
         }
     }
 
+    /**
+     * Decides which rigid bodies are stepped in this update, and counts the bodies in each state. Awake bodies that
+     * are not stepped are taken out of the simulation, keeping their velocity, until their turn comes again; waking
+     * them has no effect meanwhile. The time they skip is made up for on their turn, see {@link #catchUpSkippedBodies()}.
+     * Bodies that have been slow for a while are pushed towards sleep faster than Bullet would on its own, so settled
+     * piles of items stop costing simulation time soon.
+     */
+    private void applySimulationTiers(float delta) {
+        simulationTiers.advance(delta);
+        catchUpBodies.clear();
+        int active = 0;
+        int sleeping = 0;
+        int frozen = 0;
+        Vector3f pos = new Vector3f();
+        for (BulletRigidBody body : entityRigidBodies.values()) {
+            com.bulletphysics.dynamics.RigidBody rb = body.rb;
+            int state = rb.getActivationState();
+            if (rb.isKinematicObject()) {
+                active++;
+            } else if (state == CollisionObject.ISLAND_SLEEPING) {
+                body.skippedTime = 0;
+                sleeping++;
+            } else {
+                SimulationTier tier = simulationTiers.getTier(rb.getCenterOfMassPosition(pos));
+                if (simulationTiers.isStepped(tier, body.simulationPhase)) {
+                    if (state == CollisionObject.DISABLE_SIMULATION) {
+                        // Bullet ignores setActivationState() for bodies out of the simulation
+                        rb.forceActivationState(CollisionObject.ACTIVE_TAG);
+                    }
+                    if (rb.getDeactivationTime() > 0) {
+                        rb.setDeactivationTime(rb.getDeactivationTime() + delta * (SETTLE_SPEEDUP - 1));
+                    }
+                    if (body.skippedTime > 0) {
+                        body.catchUpTime = body.skippedTime;
+                        catchUpBodies.add(body);
+                    }
+                    active++;
+                } else {
+                    if (state != CollisionObject.DISABLE_SIMULATION) {
+                        rb.forceActivationState(CollisionObject.DISABLE_SIMULATION);
+                    }
+                    frozen++;
+                }
+                body.skippedTime = simulationTiers.getSkippedTime(tier, body.simulationPhase, body.skippedTime);
+            }
+        }
+        activeBodyCount = active;
+        sleepingBodyCount = sleeping;
+        frozenBodyCount = frozen;
+    }
+
+    /**
+     * Steps the bodies whose turn it is after being skipped by the time they skipped, before the regular step moves
+     * them on with everything else. Only those bodies take part: all others are taken out of the simulation meanwhile.
+     * Bodies that skipped less time, having only just come to a reduced rate, drop out of the catch up early.
+     */
+    private void catchUpSkippedBodies() {
+        if (catchUpBodies.isEmpty()) {
+            return;
+        }
+        Collections.sort(catchUpBodies, CATCH_UP_TIME_ORDER);
+        List<BulletRigidBody> pausedBodies = Lists.newArrayList();
+        for (BulletRigidBody body : entityRigidBodies.values()) {
+            if (body.rb.isActive() && body.catchUpTime == 0) {
+                pause(body);
+                pausedBodies.add(body);
+            }
+        }
+        float caughtUp = 0;
+        for (int i = 0; i < catchUpBodies.size(); ++i) {
+            BulletRigidBody body = catchUpBodies.get(i);
+            discreteDynamicsWorld.stepActiveBodies(body.catchUpTime - caughtUp, FIXED_TIME_STEP);
+            caughtUp = Math.max(caughtUp, body.catchUpTime);
+            pause(body);
+        }
+        for (BulletRigidBody body : catchUpBodies) {
+            body.catchUpTime = 0;
+            resume(body);
+        }
+        for (BulletRigidBody body : pausedBodies) {
+            resume(body);
+        }
+    }
+
+    private void pause(BulletRigidBody body) {
+        body.pausedActivationState = body.rb.getActivationState();
+        body.rb.forceActivationState(CollisionObject.DISABLE_SIMULATION);
+    }
+
+    private void resume(BulletRigidBody body) {
+        body.rb.forceActivationState(body.pausedActivationState);
+    }
+
     private void addRigidBody(BulletRigidBody body) {
         short filter = (short) (CollisionFilterGroups.DEFAULT_FILTER | CollisionFilterGroups.STATIC_FILTER | CollisionFilterGroups.SENSOR_TRIGGER);
         insertionQueue.add(new RigidBodyRequest(body, CollisionFilterGroups.DEFAULT_FILTER, filter));
@@ -720,6 +895,10 @@ public static class BulletRigidBody implements RigidBody {
         private final Transform pooledTransform = new Transform();
         private final Vector3f pendingImpulse = new Vector3f();//冲动 惯性？ 气动？ 
         private final Vector3f pendingForce = new Vector3f();//力 外力？
+        private int simulationPhase;
+        private float skippedTime;
+        private float catchUpTime;
+        private int pausedActivationState;
 
         BulletRigidBody(RigidBodyConstructionInfo info) {
             rb = new com.bulletphysics.dynamics.RigidBody(info);
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.bullet;
+
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.constraintsolver.ConstraintSolver;
+
+/**
+ * A dynamics world that can also step only the bodies that are currently active, to catch up on the time that bodies
+ * simulated at a reduced rate have skipped.
+ */
+class TieredDynamicsWorld extends DiscreteDynamicsWorld {
+
+    /* Allows for rounding in the accumulated time, so a whole number of steps is not rounded up to one more */
+    private static final float STEP_TOLERANCE = 0.001f;
+
+    TieredDynamicsWorld(CollisionDispatcher dispatcher, BroadphaseInterface broadphase, ConstraintSolver solver,
+                        CollisionConfiguration collisionConfiguration) {
+        super(dispatcher, broadphase, solver, collisionConfiguration);
+    }
+
+    /**
+     * Steps the active bodies by the given time, in steps no longer than the given length. The time carried over between
+     * regular calls to stepSimulation is left as it was.
+     *
+     * @param time          The time to step by
+     * @param maxStepLength The longest single step
+     */
+    public void stepActiveBodies(float time, float maxStepLength) {
+        if (time <= 0) {
+            return;
+        }
+        float carriedTime = localTime;
+        int steps = Math.max(1, (int) Math.ceil(time / maxStepLength - STEP_TOLERANCE));
+        for (int i = 0; i < steps; ++i) {
+            // Variable time step, which replaces localTime
+            stepSimulation(time / steps, 0);
+        }
+        localTime = carriedTime;
+    }
+}
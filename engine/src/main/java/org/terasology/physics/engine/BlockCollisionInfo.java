@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import org.terasology.math.Vector3i;
+import org.terasology.world.block.Block;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * The immutable collision information of a block, as the physics engine sees it.
+ * <p/>
+ * One shared instance per block, and per voxel world, is built when the block is registered, so voxel collision queries
+ * can answer without allocating. Shared instances carry no position; {@link #atPosition(Vector3i)} makes a copy that
+ * carries the block position as its user data, for queries that need to know which block was hit.
+ */
+public final class BlockCollisionInfo implements VoxelInfo {
+
+    private final CollisionShape shape;
+    private final Vector3f offset;
+    private final boolean colliding;
+    private final boolean blocking;
+    private final Vector3i position;
+
+    private BlockCollisionInfo(CollisionShape shape, Vector3f offset, boolean colliding, boolean blocking, Vector3i position) {
+        this.shape = shape;
+        this.offset = offset;
+        this.colliding = colliding;
+        this.blocking = blocking;
+        this.position = position;
+    }
+
+    /**
+     * @return The collision information of the block in the solid world
+     */
+    public static BlockCollisionInfo createSolid(Block block) {
+        CollisionShape shape = block.getCollisionShape();
+        return new BlockCollisionInfo(shape, block.getCollisionOffset(), shape != null && block.isTargetable(), shape != null && !block.isPenetrable(), null);
+    }
+
+    /**
+     * @return The collision information of the block in the liquid world
+     */
+    public static BlockCollisionInfo createLiquid(Block block) {
+        return new BlockCollisionInfo(block.getCollisionShape(), block.getCollisionOffset(), block.isLiquid(), false, null);
+    }
+
+    /**
+     * @return A copy of this information whose user data is the given block position
+     */
+    public BlockCollisionInfo atPosition(Vector3i pos) {
+        return new BlockCollisionInfo(shape, offset, colliding, blocking, pos);
+    }
+
+    /**
+     * @return The block position, or null for the shared instance
+     */
+    public Vector3i getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean isColliding() {
+        return colliding;
+    }
+
+    @Override
+    public Object getUserData() {
+        return position;
+    }
+
+    @Override
+    public CollisionShape getCollisionShape() {
+        return shape;
+    }
+
+    @Override
+    public Vector3f getCollisionOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return blocking;
+    }
+}
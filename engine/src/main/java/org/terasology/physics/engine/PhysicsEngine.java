@@ -17,10 +17,12 @@
 package org.terasology.physics.engine;
 
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.physics.CollisionGroup;
 import org.terasology.physics.Physics;
 
 import javax.vecmath.Vector3f;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -211,6 +213,30 @@ public interface PhysicsEngine extends Physics {
      */
     void update(float delta);
 
+    /**
+     * Sets the chunk regions kept around the relevance entities. Rigid bodies far from every region are simulated
+     * less often or not at all, see {@link SimulationTiers}. Takes effect on the next update.
+     *
+     * @param relevanceRegions the regions, in chunk coordinates. Without any region all bodies are simulated.
+     */
+    void setRelevanceRegions(Collection<Region3i> relevanceRegions);
+
+    /**
+     * @return The number of rigid bodies that were stepped in the last update.
+     */
+    int getActiveBodyCount();
+
+    /**
+     * @return The number of rigid bodies that were asleep in the last update.
+     */
+    int getSleepingBodyCount();
+
+    /**
+     * @return The number of awake rigid bodies that were not stepped in the last update, because they are far from
+     *         every relevance region.
+     */
+    int getFrozenBodyCount();
+
     /**
      * Updates the shape and settings of the rigidBody belonging to the given
      * entity. If the given entity had no rigidBody in the physics engine, it
@@ -15,74 +15,46 @@
  */
 package org.terasology.physics.engine;
 
-import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
 import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
 import org.terasology.math.Vector3i;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 
-import javax.vecmath.Vector3f;
-
 /**
  * @author Immortius
  */
 public class PhysicsLiquidWrapper implements VoxelPhysicsWorld {
     private WorldProvider world;
+    private final boolean positionsAttached;
 
     public PhysicsLiquidWrapper(WorldProvider world) {
+        this(world, false);
+    }
+
+    /**
+     * @param positionsAttached Whether the returned information should carry the block position as its user data
+     * @see PhysicsWorldWrapper#PhysicsWorldWrapper(WorldProvider, boolean)
+     */
+    public PhysicsLiquidWrapper(WorldProvider world, boolean positionsAttached) {
         this.world = world;
+        this.positionsAttached = positionsAttached;
     }
 
     @Override
     public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
         Block block = world.getBlock(x, y, z);
-        return new LiquidVoxelInfo(block, new Vector3i(x, y, z));
+        BlockCollisionInfo info = block.getLiquidCollisionInfo();
+        if (info == null) {
+            info = BlockCollisionInfo.createLiquid(block);
+        }
+        if (positionsAttached) {
+            return info.atPosition(new Vector3i(x, y, z));
+        }
+        return info;
     }
 
     public void dispose() {
         world = null;
     }
-
-    private static class LiquidVoxelInfo implements VoxelInfo {
-
-        private boolean colliding;
-        private boolean blocking;
-        private CollisionShape shape;
-        private Vector3i position;
-        private Vector3f offset;
-
-        public LiquidVoxelInfo(Block block, Vector3i position) {
-            this.shape = block.getCollisionShape();
-            this.offset = block.getCollisionOffset();
-            this.colliding = block.isLiquid();
-            this.blocking = false;
-            this.position = position;
-        }
-
-        @Override
-        public boolean isColliding() {
-            return colliding;
-        }
-
-        @Override
-        public Object getUserData() {
-            return position;
-        }
-
-        @Override
-        public CollisionShape getCollisionShape() {
-            return shape;
-        }
-
-        @Override
-        public Vector3f getCollisionOffset() {
-            return offset;
-        }
-
-        @Override
-        public boolean isBlocking() {
-            return blocking;
-        }
-    }
 }
@@ -43,6 +43,7 @@
 import org.terasology.registry.In;
 import org.terasology.world.OnChangedBlock;
 import org.terasology.world.block.BlockComponent;
+import org.terasology.world.chunks.ChunkProvider;
 
 import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3f;
@@ -70,6 +71,8 @@ public class PhysicsSystem extends BaseComponentSystem implements UpdateSubscrib
     private EntityManager entityManager;
     @In
     private PhysicsEngine physics;
+    @In
+    private ChunkProvider chunkProvider;
 
     private long lastNetsync;
 
@@ -139,6 +142,7 @@ public void onBlockAltered(OnChangedBlock event, EntityRef entity) {
     public void update(float delta) {
 
         PerformanceMonitor.startActivity("Physics Renderer");
+        physics.setRelevanceRegions(chunkProvider.getRelevanceRegions());
         physics.update(delta);
         PerformanceMonitor.endActivity();
 
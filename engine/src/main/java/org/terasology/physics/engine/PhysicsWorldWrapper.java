@@ -16,15 +16,12 @@
 
 package org.terasology.physics.engine;
 
-import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
 import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
 import org.terasology.math.Vector3i;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 
-import javax.vecmath.Vector3f;
-
 /**
  * This class links Terasology's voxel world with the physics engine, providing it with the collision information for each block location.
  *
@@ -33,60 +30,39 @@
 public class PhysicsWorldWrapper implements VoxelPhysicsWorld {
 
     private WorldProvider world;
+    private final boolean positionsAttached;
 
+    /**
+     * Returns the shared collision information of each block, which does not tell which block was hit.
+     */
     public PhysicsWorldWrapper(WorldProvider world) {
+        this(world, false);
+    }
+
+    /**
+     * @param positionsAttached Whether the returned information should carry the block position as its user data, for
+     *                          queries such as ray tests that need to know which block was hit. This costs an
+     *                          allocation per block visited.
+     */
+    public PhysicsWorldWrapper(WorldProvider world, boolean positionsAttached) {
         this.world = world;
+        this.positionsAttached = positionsAttached;
     }
 
     @Override
     public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
-        Block block = world.getBlock(x, y, z);//得到当地的block
-        return new TeraVoxelInfo(block, block.isTargetable(), !block.isPenetrable(), new Vector3i(x, y, z));
+        Block block = world.getBlock(x, y, z);
+        BlockCollisionInfo info = block.getCollisionInfo();
+        if (info == null) {
+            info = BlockCollisionInfo.createSolid(block);
+        }
+        if (positionsAttached) {
+            return info.atPosition(new Vector3i(x, y, z));
+        }
+        return info;
     }
 
     public void dispose() {
         world = null;
     }
-
-    private static class TeraVoxelInfo implements VoxelInfo {
-
-        private boolean colliding;
-        private boolean blocking;
-        private CollisionShape shape;
-        private Vector3i position;
-        private Vector3f offset;
-
-        public TeraVoxelInfo(Block block, boolean colliding, boolean blocking, Vector3i position) {
-            this.shape = block.getCollisionShape();
-            this.offset = block.getCollisionOffset();
-            this.colliding = shape != null && colliding;
-            this.blocking = shape != null && blocking;
-            this.position = position;
-        }
-
-        @Override
-        public boolean isColliding() {
-            return colliding;
-        }
-
-        @Override
-        public Object getUserData() {
-            return position;
-        }
-
-        @Override
-        public CollisionShape getCollisionShape() {
-            return shape;
-        }
-
-        @Override
-        public Vector3f getCollisionOffset() {
-            return offset;
-        }
-
-        @Override
-        public boolean isBlocking() {
-            return blocking;
-        }
-    }
 }
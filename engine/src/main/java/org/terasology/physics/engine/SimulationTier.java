@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+/**
+ * How often a rigid body is simulated, depending on how far it is from the chunk regions kept around the players.
+ */
+public enum SimulationTier {
+    /**
+     * Inside a relevance region: stepped every update
+     */
+    FULL,
+    /**
+     * Just outside the relevance regions: stepped once every few updates
+     */
+    REDUCED,
+    /**
+     * Far from every relevance region: not stepped until a region comes near again
+     */
+    FROZEN
+}
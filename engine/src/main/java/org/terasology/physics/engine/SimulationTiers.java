@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Decides the simulation tier of rigid bodies from their distance, in chunks, to the relevance regions.
+ * <p/>
+ * Distances are measured horizontally, as relevance regions span the full height of the world. Without any relevance
+ * regions, for instance on a client that does not track them, every body is simulated at the full rate.
+ */
+public final class SimulationTiers {
+
+    /**
+     * Bodies up to this many chunks outside the nearest relevance region are stepped at a reduced rate
+     */
+    public static final int REDUCED_DISTANCE = 2;
+
+    /**
+     * Bodies at a reduced rate are stepped once every this many updates
+     */
+    public static final int REDUCED_INTERVAL = 4;
+
+    /* The horizontal bounds of the relevance regions, as min x, max x, min z, max z for each region */
+    private int[] bounds = new int[0];
+    private long tick;
+    private float delta;
+
+    public void setRelevanceRegions(Collection<Region3i> relevanceRegions) {
+        int[] newBounds = new int[relevanceRegions.size() * 4];
+        int count = 0;
+        for (Region3i region : relevanceRegions) {
+            if (!region.isEmpty()) {
+                Vector3i min = region.min();
+                Vector3i max = region.max();
+                newBounds[count++] = min.x;
+                newBounds[count++] = max.x;
+                newBounds[count++] = min.z;
+                newBounds[count++] = max.z;
+            }
+        }
+        bounds = Arrays.copyOf(newBounds, count);
+    }
+
+    /**
+     * Moves on to the next update
+     *
+     * @param updateDelta The time the update simulates
+     */
+    public void advance(float updateDelta) {
+        tick++;
+        delta = updateDelta;
+    }
+
+    public SimulationTier getTier(Vector3f worldPos) {
+        if (bounds.length == 0) {
+            return SimulationTier.FULL;
+        }
+        int chunkX = TeraMath.floorToInt(worldPos.x / ChunkConstants.SIZE_X);
+        int chunkZ = TeraMath.floorToInt(worldPos.z / ChunkConstants.SIZE_Z);
+        int distance = Integer.MAX_VALUE;
+        for (int i = 0; i < bounds.length; i += 4) {
+            int dx = Math.max(0, Math.max(bounds[i] - chunkX, chunkX - bounds[i + 1]));
+            int dz = Math.max(0, Math.max(bounds[i + 2] - chunkZ, chunkZ - bounds[i + 3]));
+            distance = Math.min(distance, Math.max(dx, dz));
+        }
+        if (distance == 0) {
+            return SimulationTier.FULL;
+        } else if (distance <= REDUCED_DISTANCE) {
+            return SimulationTier.REDUCED;
+        }
+        return SimulationTier.FROZEN;
+    }
+
+    /**
+     * @param tier  The tier of the body
+     * @param phase A number fixed per body, which spreads the bodies at a reduced rate over the updates
+     * @return Whether a body in the given tier is stepped in the current update
+     */
+    public boolean isStepped(SimulationTier tier, int phase) {
+        switch (tier) {
+            case FULL:
+                return true;
+            case REDUCED:
+                return (tick + phase) % REDUCED_INTERVAL == 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * A body at a reduced rate is stepped by the time it skipped on top of the update's own time when its turn comes, so
+     * it moves as far as it would at the full rate. The time frozen bodies skip is not made up for.
+     *
+     * @param tier        The tier of the body
+     * @param phase       The phase of the body
+     * @param skippedTime The time the body had skipped before the current update
+     * @return The time the body has skipped after the current update
+     */
+    public float getSkippedTime(SimulationTier tier, int phase, float skippedTime) {
+        if (tier == SimulationTier.REDUCED && !isStepped(tier, phase)) {
+            return skippedTime + delta;
+        }
+        return 0;
+    }
+}
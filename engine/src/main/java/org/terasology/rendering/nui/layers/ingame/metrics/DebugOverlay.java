@@ -24,6 +24,7 @@
 import org.terasology.logic.characters.CharacterComponent;
 import org.terasology.logic.players.LocalPlayer;
 import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.physics.engine.PhysicsEngine;
 import org.terasology.registry.In;
 import org.terasology.rendering.nui.CoreScreenLayer;
 import org.terasology.rendering.nui.databinding.ReadOnlyBinding;
@@ -61,7 +62,11 @@ public class DebugOverlay extends CoreScreenLayer {
     @In
     private WorldProvider worldProvider;
 
-    private List<MetricsMode> metricsModes = Lists.newArrayList(new NullMetricsMode(), new RunningMeansMode(), new SpikesMode(), new RunningThreadsMode());
+    @In
+    private PhysicsEngine physics;
+
+    private List<MetricsMode> metricsModes = Lists.newArrayList(new NullMetricsMode(), new RunningMeansMode(), new SpikesMode(),
+            new RecordedValuesMode(), new RunningThreadsMode());
     private int currentMode;
     private UILabel metricsLabel;
 
@@ -92,7 +97,8 @@ public String get() {
             debugLine2.bindText(new ReadOnlyBinding<String>() {
                 @Override
                 public String get() {
-                    return String.format("Active Entities: %s, Current Target: %s", entityManager.getActiveEntityCount(), cameraTarget.toString());
+                    return String.format("Active Entities: %s, Rigid Bodies active/sleeping/frozen: %d/%d/%d, Current Target: %s", entityManager.getActiveEntityCount(),
+                            physics.getActiveBodyCount(), physics.getSleepingBodyCount(), physics.getFrozenBodyCount(), cameraTarget.toString());
                 }
             });
         }
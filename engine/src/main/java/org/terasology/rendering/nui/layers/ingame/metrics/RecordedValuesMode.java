@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui.layers.ingame.metrics;
+
+import com.google.common.collect.Lists;
+import gnu.trove.map.TObjectDoubleMap;
+import org.terasology.monitoring.PerformanceMonitor;
+
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows the latest values recorded with {@link PerformanceMonitor#recordValue(String, double)}, by name.
+ */
+final class RecordedValuesMode extends MetricsMode {
+
+    private NumberFormat format;
+
+    public RecordedValuesMode() {
+        super("Recorded values");
+        format = NumberFormat.getInstance();
+        format.setMaximumFractionDigits(2);
+    }
+
+    @Override
+    public String getMetrics() {
+        TObjectDoubleMap<String> values = PerformanceMonitor.getRecordedValues();
+        List<String> names = Lists.newArrayList(values.keySet());
+        Collections.sort(names);
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(getName());
+        builder.append("\n");
+        for (String name : names) {
+            builder.append(name);
+            builder.append(": ");
+            builder.append(format.format(values.get(name)));
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public boolean isPerformanceManagerMode() {
+        return true;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import java.util.Collection;
+
+/**
+ * A hierarchical timing wheel, holding values that expire at a given time in milliseconds.
+ * <p/>
+ * Scheduling and cancelling take constant time. The wheel has a number of levels of 64 slots each: the slots of the
+ * lowest level are one millisecond wide, and each slot of a level spans a full turn of the level below it. Values are
+ * kept at the lowest level that can tell their time apart from the current time, and are moved down a level each time
+ * the current time enters their slot. Values too far in the future to fit the wheel are kept aside until it comes
+ * around to them. Advancing the wheel skips over the empty parts of it, so large jumps in time are cheap.
+ * <p/>
+ * Not thread safe.
+ *
+ * @param <T> The type of the scheduled values
+ */
+public final class TimingWheel<T> {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final int OVERFLOW = LEVELS;
+    private static final int DUE = LEVELS + 1;
+    private static final int OVERFLOW_SLOT = LEVELS * SLOTS;
+    private static final int DUE_SLOT = OVERFLOW_SLOT + 1;
+
+    /**
+     * The sentinels of the slot lists, followed by the list of values too far ahead to fit the wheel and the list of
+     * values scheduled for a time that has already been processed
+     */
+    private final Entry<T>[] slots;
+    private final int[] levelSizes = new int[DUE + 1];
+
+    /**
+     * The first millisecond that has not been processed yet
+     */
+    private long now;
+    private int size;
+
+    /**
+     * @param startTime The first time the wheel will process. Values scheduled before it expire on the first advance.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTime) {
+        this.now = startTime;
+        slots = new Entry[DUE_SLOT + 1];
+        for (int i = 0; i < slots.length; ++i) {
+            Entry<T> sentinel = new Entry<>(null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The time up to which the wheel has been advanced. Values scheduled at or before it expire on the next advance.
+     */
+    public long getCurrentTime() {
+        return now - 1;
+    }
+
+    /**
+     * Schedules a value to expire at the given time.
+     *
+     * @return The entry of the value, for cancelling it
+     */
+    public Entry<T> schedule(T value, long time) {
+        Entry<T> entry = new Entry<>(value, time);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Removes a scheduled entry without it expiring.
+     *
+     * @return Whether the entry was still scheduled
+     */
+    public boolean cancel(Entry<T> entry) {
+        if (entry.level < 0) {
+            return false;
+        }
+        unlink(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all entries, without them expiring.
+     */
+    public void clear() {
+        for (Entry<T> sentinel : slots) {
+            Entry<T> entry = sentinel.next;
+            while (entry != sentinel) {
+                Entry<T> next = entry.next;
+                entry.level = Entry.UNSCHEDULED;
+                entry.prev = null;
+                entry.next = null;
+                entry = next;
+            }
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+        for (int i = 0; i < levelSizes.length; ++i) {
+            levelSizes[i] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, removing all entries that expire at or before it.
+     *
+     * @param time    The time to advance to. Advancing to an earlier time than before does nothing.
+     * @param expired The collection to add the expired entries to, in the order they expire. Entries expiring at the same
+     *                time are added in the order they were scheduled.
+     */
+    public void advance(long time, Collection<? super Entry<T>> expired) {
+        drain(slots[DUE_SLOT], expired);
+        while (now <= time) {
+            if (size == 0) {
+                now = time + 1;
+                return;
+            }
+            if ((now & SLOT_MASK) == 0) {
+                cascade();
+            }
+            drain(slots[(int) (now & SLOT_MASK)], expired);
+            now = Math.min(nextOccupiedTime(), time + 1);
+        }
+    }
+
+    private void drain(Entry<T> sentinel, Collection<? super Entry<T>> expired) {
+        while (sentinel.next != sentinel) {
+            Entry<T> entry = sentinel.next;
+            unlink(entry);
+            size--;
+            expired.add(entry);
+        }
+    }
+
+    /**
+     * Moves the values of the slots the current time has just entered down to the levels that can now tell them apart.
+     */
+    private void cascade() {
+        // The highest level whose turn the current time is at the start of, with the values kept aside above them all
+        int level = 1;
+        while (level < LEVELS && (now & ((1L << (LEVEL_BITS * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+        // Going from the highest level down, as values may move down several levels at once
+        for (int i = level; i >= 1; --i) {
+            int slot = (i == OVERFLOW) ? OVERFLOW_SLOT : i * SLOTS + slotIndex(now, i);
+            if (levelSizes[i] > 0) {
+                replace(slots[slot]);
+            }
+        }
+    }
+
+    private void replace(Entry<T> sentinel) {
+        Entry<T> entry = sentinel.next;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        while (entry != sentinel) {
+            Entry<T> next = entry.next;
+            levelSizes[entry.level]--;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * @return The first time after the current one that something has to be done at: either a lowest level slot that
+     *         holds values, or the start of a turn of the lowest level that can hold values
+     */
+    private long nextOccupiedTime() {
+        long next = now + 1;
+        if (levelSizes[0] > 0 && (next & SLOT_MASK) != 0) {
+            return next;
+        }
+        int level = 0;
+        while (level < LEVELS && levelSizes[level] == 0) {
+            level++;
+        }
+        if (level == 0) {
+            return next;
+        }
+        // Nothing can happen before the next turn of the lowest level holding values
+        long span = 1L << (LEVEL_BITS * level);
+        return (now | (span - 1)) + 1;
+    }
+
+    private void place(Entry<T> entry) {
+        long time = entry.time;
+        int level;
+        int slot;
+        if (time < now) {
+            level = DUE;
+            slot = DUE_SLOT;
+        } else {
+            level = 0;
+            while (level < LEVELS && (time >> (LEVEL_BITS * (level + 1))) != (now >> (LEVEL_BITS * (level + 1)))) {
+                level++;
+            }
+            slot = (level == OVERFLOW) ? OVERFLOW_SLOT : level * SLOTS + slotIndex(time, level);
+        }
+        Entry<T> sentinel = slots[slot];
+        entry.prev = sentinel.prev;
+        entry.next = sentinel;
+        sentinel.prev.next = entry;
+        sentinel.prev = entry;
+        entry.level = level;
+        levelSizes[level]++;
+    }
+
+    private void unlink(Entry<T> entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+        levelSizes[entry.level]--;
+        entry.level = Entry.UNSCHEDULED;
+    }
+
+    private static int slotIndex(long time, int level) {
+        return (int) ((time >> (LEVEL_BITS * level)) & SLOT_MASK);
+    }
+
+    /**
+     * A value scheduled on a timing wheel.
+     *
+     * @param <T> The type of the value
+     */
+    public static final class Entry<T> {
+        private static final int UNSCHEDULED = -1;
+
+        private final T value;
+        private final long time;
+        private int level = UNSCHEDULED;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(T value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return The time the value was scheduled for
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return Whether the value is still waiting to expire
+         */
+        public boolean isScheduled() {
+            return level != UNSCHEDULED;
+        }
+    }
+}
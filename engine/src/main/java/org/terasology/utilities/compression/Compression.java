@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Produces and reads self-describing compressed payloads.
+ * <p/>
+ * A payload consists of a format marker byte, the id of the {@link CompressionType} used, the uncompressed length as a
+ * four byte big-endian int, then the compressed body. Payloads starting with the gzip magic number instead are read
+ * as gzip streams, so data written before codecs were introduced remains readable.
+ * <p/>
+ * Payloads may come from corrupt files or untrusted peers, so the uncompressed length they claim is checked before
+ * any memory is allocated for it: it must be within the limit given by the caller, and within what the codec could
+ * possibly expand the body to.
+ */
+public final class Compression {
+
+    /**
+     * Marks a payload in this format. Chosen to never clash with the first byte of a gzip stream.
+     */
+    public static final byte FORMAT_MARKER = (byte) 0xCC;
+
+    /**
+     * The default limit on the uncompressed length of a payload. Well above the size of any chunk store.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 16 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 6;
+    private static final int GZIP_MAGIC_FIRST = 0x1F;
+    private static final int GZIP_MAGIC_SECOND = 0x8B;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final CompressionCodec NONE = new NoCompressionCodec();
+    private static final CompressionCodec DEFLATE = new DeflateCodec();
+    private static final CompressionCodec LZ4 = new Lz4Codec();
+
+    private Compression() {
+    }
+
+    /**
+     * @param type
+     * @param level The compression level, only used by deflate. See {@link java.util.zip.Deflater}.
+     * @return A codec for the given compression type
+     */
+    public static CompressionCodec createCodec(CompressionType type, int level) {
+        Preconditions.checkNotNull(type);
+        switch (type) {
+            case NONE:
+                return NONE;
+            case DEFLATE:
+                return new DeflateCodec(level);
+            case LZ4:
+                return LZ4;
+            default:
+                throw new IllegalArgumentException("Unsupported compression type: " + type);
+        }
+    }
+
+    /**
+     * Compresses data into a self-describing payload
+     *
+     * @param codec
+     * @param data
+     * @return The payload
+     */
+    public static byte[] compress(CompressionCodec codec, byte[] data) {
+        byte[] body = codec.compress(data);
+        byte[] result = new byte[HEADER_SIZE + body.length];
+        result[0] = FORMAT_MARKER;
+        result[1] = codec.getType().getId();
+        result[2] = (byte) (data.length >>> 24);
+        result[3] = (byte) (data.length >>> 16);
+        result[4] = (byte) (data.length >>> 8);
+        result[5] = (byte) data.length;
+        System.arraycopy(body, 0, result, HEADER_SIZE, body.length);
+        return result;
+    }
+
+    /**
+     * Decompresses a payload produced by {@link #compress(CompressionCodec, byte[])}, or a legacy gzip stream, of up
+     * to {@link #DEFAULT_MAX_LENGTH} bytes.
+     *
+     * @param payload
+     * @return The original data
+     * @throws IOException If the payload is malformed, too large or uses an unknown compression type
+     */
+    public static byte[] decompress(byte[] payload) throws IOException {
+        return decompress(payload, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Decompresses a payload produced by {@link #compress(CompressionCodec, byte[])}, or a legacy gzip stream.
+     *
+     * @param payload
+     * @param maxLength The largest uncompressed length to accept
+     * @return The original data
+     * @throws IOException If the payload is malformed, uncompresses to more than maxLength bytes or uses an unknown
+     *                     compression type
+     */
+    public static byte[] decompress(byte[] payload, int maxLength) throws IOException {
+        if (isGzip(payload)) {
+            return gunzip(payload, maxLength);
+        }
+        if (payload.length < HEADER_SIZE || payload[0] != FORMAT_MARKER) {
+            throw new IOException("Unrecognised compressed data format");
+        }
+        CompressionType type = CompressionType.lookup(payload[1]);
+        if (type == null) {
+            throw new IOException("Unknown compression type: " + payload[1]);
+        }
+        int length = ((payload[2] & 0xFF) << 24) | ((payload[3] & 0xFF) << 16) | ((payload[4] & 0xFF) << 8) | (payload[5] & 0xFF);
+        if (length < 0) {
+            throw new IOException("Invalid uncompressed length: " + length);
+        }
+        if (length > maxLength) {
+            throw new IOException("Uncompressed length " + length + " exceeds the limit of " + maxLength);
+        }
+        CompressionCodec decoder = getDecoder(type);
+        int bodyLength = payload.length - HEADER_SIZE;
+        if (length > decoder.getMaxUncompressedLength(bodyLength)) {
+            throw new IOException("Uncompressed length " + length + " is impossible for " + bodyLength + " bytes of " + type + " data");
+        }
+        return decoder.decompress(payload, HEADER_SIZE, bodyLength, length);
+    }
+
+    /**
+     * @param payload
+     * @return The compression type of the payload, or null if it is not recognised. Legacy gzip payloads are reported
+     * as DEFLATE.
+     */
+    public static CompressionType getType(byte[] payload) {
+        if (isGzip(payload)) {
+            return CompressionType.DEFLATE;
+        }
+        if (payload.length >= HEADER_SIZE && payload[0] == FORMAT_MARKER) {
+            return CompressionType.lookup(payload[1]);
+        }
+        return null;
+    }
+
+    /**
+     * Compresses data as a gzip stream, as used before the introduction of codecs.
+     *
+     * @param data
+     * @return The gzipped data
+     */
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            // Not possible when writing to memory
+            throw new IllegalStateException("Failed to gzip data", e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static CompressionCodec getDecoder(CompressionType type) {
+        switch (type) {
+            case NONE:
+                return NONE;
+            case DEFLATE:
+                return DEFLATE;
+            case LZ4:
+                return LZ4;
+            default:
+                throw new IllegalArgumentException("Unsupported compression type: " + type);
+        }
+    }
+
+    private static boolean isGzip(byte[] payload) {
+        return payload.length >= 2 && (payload[0] & 0xFF) == GZIP_MAGIC_FIRST && (payload[1] & 0xFF) == GZIP_MAGIC_SECOND;
+    }
+
+    private static byte[] gunzip(byte[] payload, int maxLength) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(maxLength, payload.length * 4L));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                if (count > maxLength - out.size()) {
+                    throw new IOException("Uncompressed gzip data exceeds the limit of " + maxLength);
+                }
+                out.write(buffer, 0, count);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import java.io.IOException;
+
+/**
+ * A compression algorithm for byte payloads, such as encoded chunks.
+ * <p/>
+ * Codecs only handle the raw compressed body. Use {@link Compression} to produce self-describing payloads that record
+ * the codec and uncompressed length, so that they can be read back without knowing how they were written.
+ * <p/>
+ * Implementations must be thread safe.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return The type of compression this codec applies
+     */
+    CompressionType getType();
+
+    /**
+     * @param data
+     * @return The compressed form of data
+     */
+    byte[] compress(byte[] data);
+
+    /**
+     * @param data               The buffer holding the compressed data
+     * @param offset             The offset of the compressed data in the buffer
+     * @param length             The length of the compressed data
+     * @param uncompressedLength The exact length of the original data. Callers must check it against
+     *                           {@link #getMaxUncompressedLength(int)} first, as this much memory is allocated up front.
+     * @return The original data
+     * @throws IOException If the compressed data is malformed
+     */
+    byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) throws IOException;
+
+    /**
+     * @param compressedLength
+     * @return The most data that compressed data of the given length can expand to with this codec
+     */
+    long getMaxUncompressedLength(int compressedLength);
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+/**
+ * The available compression algorithms. The id of each type is written at the start of compressed payloads, so it must
+ * never change once released.
+ */
+public enum CompressionType {
+    /**
+     * Stores data as is. Cheapest on CPU, for when bandwidth and disk space are plentiful.
+     */
+    NONE(0),
+    /**
+     * Deflate, with a configurable compression level. Best ratio, but slowest.
+     */
+    DEFLATE(1),
+    /**
+     * LZ4 block format. Much faster than deflate in both directions, at a somewhat lower ratio.
+     */
+    LZ4(2);
+
+    private final byte id;
+
+    private CompressionType(int id) {
+        this.id = (byte) id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * @param id
+     * @return The type with the given id, or null if there is none
+     */
+    public static CompressionType lookup(byte id) {
+        for (CompressionType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
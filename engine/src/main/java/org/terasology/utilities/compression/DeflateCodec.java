@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses data with raw deflate at a given level, from {@link Deflater#BEST_SPEED} to
+ * {@link Deflater#BEST_COMPRESSION}.
+ */
+public final class DeflateCodec implements CompressionCodec {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The highest compression ratio deflate can reach: a 258 byte match encoded in as little as two bits.
+     */
+    private static final int MAX_RATIO = 1032;
+
+    private final int level;
+
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public DeflateCodec(int level) {
+        Preconditions.checkArgument(level == Deflater.DEFAULT_COMPRESSION || (level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION),
+                "Invalid deflate level: %s", level);
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public CompressionType getType() {
+        return CompressionType.DEFLATE;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            // Raw inflate needs one byte of padding after the input to reliably detect the end of the stream
+            byte[] input = new byte[length + 1];
+            System.arraycopy(data, offset, input, 0, length);
+            inflater.setInput(input);
+            byte[] result = new byte[uncompressedLength];
+            int position = 0;
+            while (position < uncompressedLength) {
+                int count = inflater.inflate(result, position, uncompressedLength - position);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += count;
+            }
+            if (position != uncompressedLength) {
+                throw new IOException("Truncated deflate data, expected " + uncompressedLength + " bytes but got " + position);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed deflate data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public long getMaxUncompressedLength(int compressedLength) {
+        return (long) compressedLength * MAX_RATIO;
+    }
+}
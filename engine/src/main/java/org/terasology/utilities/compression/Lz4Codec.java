@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure Java implementation of the LZ4 block format.
+ * <p/>
+ * The compressor uses a single-probe hash table of 4 byte sequences, skipping ahead faster the longer it goes without
+ * finding a match, as the reference implementation does. The output is a valid LZ4 block, decompressible by any LZ4
+ * implementation given the uncompressed length.
+ */
+public final class Lz4Codec implements CompressionCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int SKIP_STRENGTH = 6;
+    private static final int RUN_MASK = 0x0F;
+
+    @Override
+    public CompressionType getType() {
+        return CompressionType.LZ4;
+    }
+
+    @Override
+    public byte[] compress(byte[] src) {
+        final int srcLength = src.length;
+        byte[] dest = new byte[maxCompressedLength(srcLength)];
+        int destPos = 0;
+        int anchor = 0;
+
+        if (srcLength >= MF_LIMIT + 1) {
+            final int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+            final int matchLimit = srcLength - LAST_LITERALS;
+            final int searchLimit = srcLength - MF_LIMIT;
+
+            int pos = 0;
+            int searchCount = 1 << SKIP_STRENGTH;
+            while (pos < searchLimit) {
+                int sequence = readInt(src, pos);
+                int hash = hash(sequence);
+                int ref = hashTable[hash];
+                hashTable[hash] = pos;
+                if (ref < 0 || pos - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    pos += searchCount++ >>> SKIP_STRENGTH;
+                    continue;
+                }
+                searchCount = 1 << SKIP_STRENGTH;
+
+                // Extend the match backwards over pending literals
+                while (pos > anchor && ref > 0 && src[pos - 1] == src[ref - 1]) {
+                    pos--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (pos + matchLength < matchLimit && src[ref + matchLength] == src[pos + matchLength]) {
+                    matchLength++;
+                }
+
+                destPos = writeSequence(src, anchor, pos - anchor, pos - ref, matchLength, dest, destPos);
+                pos += matchLength;
+                anchor = pos;
+                if (pos - 2 >= 0 && pos - 2 < searchLimit) {
+                    hashTable[hash(readInt(src, pos - 2))] = pos - 2;
+                }
+            }
+        }
+
+        destPos = writeLastLiterals(src, anchor, srcLength - anchor, dest, destPos);
+        return Arrays.copyOf(dest, destPos);
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int offset, int length, int uncompressedLength) throws IOException {
+        final byte[] dest = new byte[uncompressedLength];
+        final int srcEnd = offset + length;
+        int srcPos = offset;
+        int destPos = 0;
+        try {
+            while (true) {
+                int token = src[srcPos++] & 0xFF;
+
+                int literalLength = token >>> 4;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[srcPos++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 0xFF);
+                }
+                if (literalLength > srcEnd - srcPos || literalLength > uncompressedLength - destPos) {
+                    throw new IOException("Malformed LZ4 data: literals overrun buffer");
+                }
+                System.arraycopy(src, srcPos, dest, destPos, literalLength);
+                srcPos += literalLength;
+                destPos += literalLength;
+
+                if (srcPos == srcEnd) {
+                    break;
+                }
+
+                int distance = (src[srcPos++] & 0xFF) | ((src[srcPos++] & 0xFF) << 8);
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[srcPos++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 0xFF);
+                }
+                matchLength += MIN_MATCH;
+
+                int matchPos = destPos - distance;
+                if (distance == 0 || matchPos < 0 || matchLength > uncompressedLength - destPos) {
+                    throw new IOException("Malformed LZ4 data: invalid match");
+                }
+                if (distance >= matchLength) {
+                    System.arraycopy(dest, matchPos, dest, destPos, matchLength);
+                    destPos += matchLength;
+                } else {
+                    // Overlapping match, copy byte by byte to repeat the pattern
+                    for (int i = 0; i < matchLength; ++i) {
+                        dest[destPos++] = dest[matchPos + i];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed LZ4 data: unexpected end of input", e);
+        }
+        if (destPos != uncompressedLength) {
+            throw new IOException("Malformed LZ4 data: expected " + uncompressedLength + " bytes but got " + destPos);
+        }
+        return dest;
+    }
+
+    /**
+     * Every input byte after a sequence's token and offset can extend its match by at most 255 bytes.
+     */
+    @Override
+    public long getMaxUncompressedLength(int compressedLength) {
+        return 0xFFL * compressedLength + MIN_MATCH + RUN_MASK;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int distance, int matchLength, byte[] dest, int destPos) {
+        int pos = destPos;
+        int tokenPos = pos++;
+        int matchCode = matchLength - MIN_MATCH;
+        int token = (Math.min(literalLength, RUN_MASK) << 4) | Math.min(matchCode, RUN_MASK);
+        dest[tokenPos] = (byte) token;
+
+        pos = writeLength(literalLength, dest, pos);
+        System.arraycopy(src, literalStart, dest, pos, literalLength);
+        pos += literalLength;
+
+        dest[pos++] = (byte) distance;
+        dest[pos++] = (byte) (distance >>> 8);
+
+        return writeLength(matchCode, dest, pos);
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literalLength, byte[] dest, int destPos) {
+        int pos = destPos;
+        dest[pos++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+        pos = writeLength(literalLength, dest, pos);
+        System.arraycopy(src, literalStart, dest, pos, literalLength);
+        return pos + literalLength;
+    }
+
+    /**
+     * Writes the continuation bytes of a length whose token nibble is saturated.
+     */
+    private static int writeLength(int length, byte[] dest, int destPos) {
+        if (length < RUN_MASK) {
+            return destPos;
+        }
+        int pos = destPos;
+        int remaining = length - RUN_MASK;
+        while (remaining >= 0xFF) {
+            dest[pos++] = (byte) 0xFF;
+            remaining -= 0xFF;
+        }
+        dest[pos++] = (byte) remaining;
+        return pos;
+    }
+
+    private static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    private static int readInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8) | ((data[pos + 2] & 0xFF) << 16) | ((data[pos + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Leaves data uncompressed.
+ */
+public final class NoCompressionCodec implements CompressionCodec {
+
+    @Override
+    public CompressionType getType() {
+        return CompressionType.NONE;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        return data;
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) throws IOException {
+        if (length != uncompressedLength) {
+            throw new IOException("Expected " + uncompressedLength + " bytes of uncompressed data, found " + length);
+        }
+        return Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    @Override
+    public long getMaxUncompressedLength(int compressedLength) {
+        return compressedLength;
+    }
+}
@@ -54,6 +54,19 @@ public static <T extends Task> TaskMaster<T> createFIFOTaskMaster(String name, i
         return new TaskMaster<>(name, threads, new LinkedBlockingQueue<T>());
     }
 
+    /**
+     * Creates a FIFO task master with a bounded queue. {@link #put(Task)} blocks while the queue is full, which can be
+     * used to apply back-pressure on the producer of the tasks.
+     *
+     * @param name
+     * @param threads
+     * @param queueSize The maximum number of tasks waiting to be processed
+     * @return The new task master
+     */
+    public static <T extends Task> TaskMaster<T> createFIFOTaskMaster(String name, int threads, int queueSize) {
+        return new TaskMaster<>(name, threads, new LinkedBlockingQueue<T>(queueSize));
+    }
+
     public static <T extends Task & Comparable<? super T>> TaskMaster<T> createPriorityTaskMaster(String name, int threads, int queueSize) {
         return new TaskMaster<>(name, threads, new PriorityBlockingQueue<T>(queueSize));
     }
@@ -90,7 +103,12 @@ public void shutdown(T shutdownTask, boolean awaitComplete) {
         }
         for (int i = 0; i < threads; ++i) {
             try {
-                taskQueue.offer(shutdownTask, 250, TimeUnit.MILLISECONDS);
+                if (awaitComplete) {
+                    // The queue may be bounded and full, in which case the shutdown request has to wait its turn
+                    taskQueue.put(shutdownTask);
+                } else {
+                    taskQueue.offer(shutdownTask, 250, TimeUnit.MILLISECONDS);
+                }
             } catch (InterruptedException e) {
                 logger.error("Failed to enqueue shutdown request", e);
             }
@@ -16,12 +16,14 @@
 
 package org.terasology.utilities.procedural;
 
+import java.util.Arrays;
+
 /**
  * Computes Brownian noise based on some noise generator.
  * Originally, Brown integrates white noise, but using other noises can be sometimes useful, too.
  * @author Martin Steiger
  */
-public class BrownianNoise2D extends BrownianNoise implements Noise2D {
+public class BrownianNoise2D extends BrownianNoise implements GridNoise2D {
 
     private final Noise2D other;
     
@@ -63,5 +65,47 @@ public double noise(double x, double y) {
 
         return result;
     }
-    
+
+    /**
+     * Samples Fractional Brownian Motion on a regular grid, using all octaves. Each octave is sampled in bulk if the
+     * underlying noise supports it.
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double stepX, double stepY, int sizeX, int sizeY) {
+        noise(buffer, originX, originY, stepX, stepY, sizeX, sizeY, getOctaves());
+    }
+
+    /**
+     * Samples Fractional Brownian Motion on a regular grid, using only the first few octaves. This does not change the
+     * number of octaves used by the other methods, so it is safe to call from several threads.
+     *
+     * @param octaves the number of octaves to use, at most {@link #getOctaves()}
+     * @see GridNoise2D#noise(double[], double, double, double, double, int, int)
+     */
+    public void noise(double[] buffer, double originX, double originY, double stepX, double stepY, int sizeX, int sizeY, int octaves) {
+        if (octaves > getOctaves()) {
+            throw new IllegalArgumentException("Only " + getOctaves() + " octaves available, " + octaves + " requested");
+        }
+        int size = sizeX * sizeY;
+        double[] octave = new double[size];
+        Arrays.fill(buffer, 0, size, 0);
+
+        double workingOriginX = originX;
+        double workingOriginY = originY;
+        double workingStepX = stepX;
+        double workingStepY = stepY;
+        for (int i = 0; i < octaves; i++) {
+            NoiseGrid.sample(other, octave, workingOriginX, workingOriginY, workingStepX, workingStepY, sizeX, sizeY);
+            double weight = getSpectralWeight(i);
+            for (int n = 0; n < size; n++) {
+                buffer[n] += octave[n] * weight;
+            }
+
+            workingOriginX *= getLacunarity();
+            workingOriginY *= getLacunarity();
+            workingStepX *= getLacunarity();
+            workingStepY *= getLacunarity();
+        }
+    }
+
 }
@@ -16,12 +16,14 @@
 
 package org.terasology.utilities.procedural;
 
+import java.util.Arrays;
+
 /**
  * Computes Brownian noise based on some noise generator.
  * Originally, Brown integrates white noise, but using other noises can be sometimes useful, too.
  * @author Martin Steiger
  */
-public class BrownianNoise3D extends BrownianNoise implements Noise3D {
+public class BrownianNoise3D extends BrownianNoise implements GridNoise3D {
 
     private final Noise3D other;
     
@@ -66,5 +68,51 @@ public double noise(double x, double y, double z) {
 
         return result;
     }
-    
+
+    /**
+     * Samples Fractional Brownian Motion on a regular grid, using all octaves. Each octave is sampled in bulk if the
+     * underlying noise supports it.
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ, int sizeX, int sizeY, int sizeZ) {
+        noise(buffer, originX, originY, originZ, stepX, stepY, stepZ, sizeX, sizeY, sizeZ, getOctaves());
+    }
+
+    /**
+     * Samples Fractional Brownian Motion on a regular grid, using only the first few octaves. This does not change the
+     * number of octaves used by the other methods, so it is safe to call from several threads.
+     *
+     * @param octaves the number of octaves to use, at most {@link #getOctaves()}
+     * @see GridNoise3D#noise(double[], double, double, double, double, double, double, int, int, int)
+     */
+    public void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ, int sizeX, int sizeY, int sizeZ, int octaves) {
+        if (octaves > getOctaves()) {
+            throw new IllegalArgumentException("Only " + getOctaves() + " octaves available, " + octaves + " requested");
+        }
+        int size = sizeX * sizeY * sizeZ;
+        double[] octave = new double[size];
+        Arrays.fill(buffer, 0, size, 0);
+
+        double workingOriginX = originX;
+        double workingOriginY = originY;
+        double workingOriginZ = originZ;
+        double workingStepX = stepX;
+        double workingStepY = stepY;
+        double workingStepZ = stepZ;
+        for (int i = 0; i < octaves; i++) {
+            NoiseGrid.sample(other, octave, workingOriginX, workingOriginY, workingOriginZ, workingStepX, workingStepY, workingStepZ, sizeX, sizeY, sizeZ);
+            double weight = getSpectralWeight(i);
+            for (int n = 0; n < size; n++) {
+                buffer[n] += octave[n] * weight;
+            }
+
+            workingOriginX *= getLacunarity();
+            workingOriginY *= getLacunarity();
+            workingOriginZ *= getLacunarity();
+            workingStepX *= getLacunarity();
+            workingStepY *= getLacunarity();
+            workingStepZ *= getLacunarity();
+        }
+    }
+
 }
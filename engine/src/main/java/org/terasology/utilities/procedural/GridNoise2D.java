@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.procedural;
+
+/**
+ * 2D noise that can be sampled on a whole grid faster than one position at a time. Use
+ * {@link NoiseGrid#sample(Noise2D, double[], double, double, double, double, int, int)} to sample any {@link Noise2D}.
+ */
+public interface GridNoise2D extends Noise2D {
+
+    /**
+     * Samples the noise on a regular grid. The value for grid position (i, j) is the noise at
+     * (originX + i * stepX, originY + j * stepY), and is stored at index i + sizeX * j, so that the x-axis runs fastest.
+     *
+     * @param buffer The buffer to fill, which must hold at least sizeX * sizeY values
+     * @param originX Position of the first sample on the x-axis
+     * @param originY Position of the first sample on the y-axis
+     * @param stepX The distance between samples on the x-axis
+     * @param stepY The distance between samples on the y-axis
+     * @param sizeX The number of samples on the x-axis
+     * @param sizeY The number of samples on the y-axis
+     */
+    void noise(double[] buffer, double originX, double originY, double stepX, double stepY, int sizeX, int sizeY);
+
+}
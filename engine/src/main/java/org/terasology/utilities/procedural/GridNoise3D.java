@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.procedural;
+
+/**
+ * 3D noise that can be sampled on a whole grid faster than one position at a time. Use
+ * {@link NoiseGrid#sample(Noise3D, double[], double, double, double, double, double, double, int, int, int)} to sample
+ * any {@link Noise3D}.
+ */
+public interface GridNoise3D extends Noise3D {
+
+    /**
+     * Samples the noise on a regular grid. The value for grid position (i, j, k) is the noise at
+     * (originX + i * stepX, originY + j * stepY, originZ + k * stepZ), and is stored at index i + sizeX * (j + sizeY * k),
+     * so that the x-axis runs fastest.
+     *
+     * @param buffer The buffer to fill, which must hold at least sizeX * sizeY * sizeZ values
+     * @param originX Position of the first sample on the x-axis
+     * @param originY Position of the first sample on the y-axis
+     * @param originZ Position of the first sample on the z-axis
+     * @param stepX The distance between samples on the x-axis
+     * @param stepY The distance between samples on the y-axis
+     * @param stepZ The distance between samples on the z-axis
+     * @param sizeX The number of samples on the x-axis
+     * @param sizeY The number of samples on the y-axis
+     * @param sizeZ The number of samples on the z-axis
+     */
+    void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ, int sizeX, int sizeY, int sizeZ);
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.procedural;
+
+/**
+ * Samples noise on regular grids. Noise implementing {@link GridNoise2D} or {@link GridNoise3D} fills the grid itself,
+ * any other noise is sampled one position at a time, so callers don't need to know which kind they were given.
+ */
+public final class NoiseGrid {
+
+    private NoiseGrid() {
+    }
+
+    /**
+     * @see GridNoise2D#noise(double[], double, double, double, double, int, int)
+     */
+    public static void sample(Noise2D noise, double[] buffer, double originX, double originY, double stepX, double stepY, int sizeX, int sizeY) {
+        if (noise instanceof GridNoise2D) {
+            ((GridNoise2D) noise).noise(buffer, originX, originY, stepX, stepY, sizeX, sizeY);
+            return;
+        }
+        int index = 0;
+        for (int j = 0; j < sizeY; j++) {
+            double y = originY + j * stepY;
+            for (int i = 0; i < sizeX; i++) {
+                buffer[index++] = noise.noise(originX + i * stepX, y);
+            }
+        }
+    }
+
+    /**
+     * @see GridNoise3D#noise(double[], double, double, double, double, double, double, int, int, int)
+     */
+    public static void sample(Noise3D noise, double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ,
+                              int sizeX, int sizeY, int sizeZ) {
+        if (noise instanceof GridNoise3D) {
+            ((GridNoise3D) noise).noise(buffer, originX, originY, originZ, stepX, stepY, stepZ, sizeX, sizeY, sizeZ);
+            return;
+        }
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            double z = originZ + k * stepZ;
+            for (int j = 0; j < sizeY; j++) {
+                double y = originY + j * stepY;
+                for (int i = 0; i < sizeX; i++) {
+                    buffer[index++] = noise.noise(originX + i * stepX, y, z);
+                }
+            }
+        }
+    }
+}
@@ -23,10 +23,25 @@
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
-public class PerlinNoise implements Noise3D {
+public class PerlinNoise implements GridNoise3D {
+
+    /**
+     * The gradients picked by {@link #grad(int, double, double, double)}, as factors for x, y and z
+     */
+    private static final double[] GRAD_X = new double[16];
+    private static final double[] GRAD_Y = new double[16];
+    private static final double[] GRAD_Z = new double[16];
 
     private final int[] noisePermutations;
 
+    static {
+        for (int h = 0; h < 16; h++) {
+            GRAD_X[h] = grad(h, 1, 0, 0);
+            GRAD_Y[h] = grad(h, 0, 1, 0);
+            GRAD_Z[h] = grad(h, 0, 0, 1);
+        }
+    }
+
     /**
      * Init. a new generator with a given seed value.
      *
@@ -97,6 +112,76 @@ public double noise(double posX, double posY, double posZ) {
                         lerp(u, grad(noisePermutations[(ab + 1)], x, y - 1, z - 1),
                                 grad(noisePermutations[(bb + 1)], x - 1, y - 1, z - 1))));
     }
+
+    /**
+     * Samples the noise on a regular grid. The permutation lookups only depend on the lattice cell, so along a row they
+     * are only done again when the row moves into another cell. The gradients are taken from a table rather than
+     * branching on the hash, which gives the same values.
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ,
+                      int sizeX, int sizeY, int sizeZ) {
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            double posZ = originZ + k * stepZ;
+            double floorZ = TeraMath.fastFloor(posZ);
+            int zInt = (int) floorZ & 255;
+            double z = posZ - floorZ;
+            double w = fade(z);
+
+            for (int j = 0; j < sizeY; j++) {
+                double posY = originY + j * stepY;
+                double floorY = TeraMath.fastFloor(posY);
+                int yInt = (int) floorY & 255;
+                double y = posY - floorY;
+                double v = fade(y);
+
+                int cellX = -1;
+                int hashAA = 0;
+                int hashBA = 0;
+                int hashAB = 0;
+                int hashBB = 0;
+                int hashAA1 = 0;
+                int hashBA1 = 0;
+                int hashAB1 = 0;
+                int hashBB1 = 0;
+                for (int i = 0; i < sizeX; i++) {
+                    double posX = originX + i * stepX;
+                    double floorX = TeraMath.fastFloor(posX);
+                    int xInt = (int) floorX & 255;
+                    if (xInt != cellX) {
+                        cellX = xInt;
+                        int a = noisePermutations[xInt] + yInt;
+                        int aa = noisePermutations[a] + zInt;
+                        int ab = noisePermutations[(a + 1)] + zInt;
+                        int b = noisePermutations[(xInt + 1)] + yInt;
+                        int ba = noisePermutations[b] + zInt;
+                        int bb = noisePermutations[(b + 1)] + zInt;
+                        hashAA = noisePermutations[aa] & 15;
+                        hashBA = noisePermutations[ba] & 15;
+                        hashAB = noisePermutations[ab] & 15;
+                        hashBB = noisePermutations[bb] & 15;
+                        hashAA1 = noisePermutations[(aa + 1)] & 15;
+                        hashBA1 = noisePermutations[(ba + 1)] & 15;
+                        hashAB1 = noisePermutations[(ab + 1)] & 15;
+                        hashBB1 = noisePermutations[(bb + 1)] & 15;
+                    }
+
+                    double x = posX - floorX;
+                    double u = fade(x);
+                    buffer[index++] = lerp(w, lerp(v, lerp(u, tableGrad(hashAA, x, y, z),
+                            tableGrad(hashBA, x - 1, y, z)),
+                            lerp(u, tableGrad(hashAB, x, y - 1, z),
+                                    tableGrad(hashBB, x - 1, y - 1, z))),
+                            lerp(v, lerp(u, tableGrad(hashAA1, x, y, z - 1),
+                                    tableGrad(hashBA1, x - 1, y, z - 1)),
+                                    lerp(u, tableGrad(hashAB1, x, y - 1, z - 1),
+                                            tableGrad(hashBB1, x - 1, y - 1, z - 1))));
+                }
+            }
+        }
+    }
+
    /**
     * 产生类似正弦的变化
     * @param t
@@ -121,4 +206,11 @@ private static double grad(int hash, double x, double y, double z) {
         return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
     }
 
+    /**
+     * Same as {@link #grad(int, double, double, double)}, for a hash that is already masked to 0..15
+     */
+    private static double tableGrad(int h, double x, double y, double z) {
+        return GRAD_X[h] * x + GRAD_Y[h] * y + GRAD_Z[h] * z;
+    }
+
 }
@@ -36,7 +36,7 @@
  * 
  * msteiger: Introduced seed value 
  */
-public class SimplexNoise implements Noise2D, Noise3D {
+public class SimplexNoise implements GridNoise2D, GridNoise3D {
     
     private static Grad[] grad3 = {
         new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0), new Grad(-1, -1, 0), 
@@ -330,6 +330,192 @@ public double noise(double xin, double yin, double zin) {
         return 32.0 * (n0 + n1 + n2 + n3);
   }
 
+    /**
+     * Samples 2D simplex noise on a regular grid. The gradients of the first and last corner only depend on the
+     * simplex cell, so they are looked up again only when a row moves into another cell.
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double stepX, double stepY, int sizeX, int sizeY) {
+        int index = 0;
+        for (int row = 0; row < sizeY; row++) {
+            double yin = originY + row * stepY;
+
+            int cellI = Integer.MIN_VALUE;
+            int cellJ = Integer.MIN_VALUE;
+            Grad g0 = null;
+            Grad g2 = null;
+            for (int col = 0; col < sizeX; col++) {
+                double xin = originX + col * stepX;
+
+                double s = (xin + yin) * F2;
+                int i = fastfloor(xin + s);
+                int j = fastfloor(yin + s);
+                double t = (i + j) * G2;
+                double x0 = xin - (i - t);
+                double y0 = yin - (j - t);
+
+                int ii = i & 255;
+                int jj = j & 255;
+                if (i != cellI || j != cellJ) {
+                    cellI = i;
+                    cellJ = j;
+                    g0 = grad3[permMod12[ii + perm[jj]]];
+                    g2 = grad3[permMod12[ii + 1 + perm[jj + 1]]];
+                }
+
+                int i1 = (x0 > y0) ? 1 : 0;
+                int j1 = 1 - i1;
+                double x1 = x0 - i1 + G2;
+                double y1 = y0 - j1 + G2;
+                double x2 = x0 - 1.0 + 2.0 * G2;
+                double y2 = y0 - 1.0 + 2.0 * G2;
+
+                double n = 0;
+                double t0 = 0.5 - x0 * x0 - y0 * y0;
+                if (t0 >= 0) {
+                    t0 *= t0;
+                    n += t0 * t0 * dot(g0, x0, y0);
+                }
+                double t1 = 0.5 - x1 * x1 - y1 * y1;
+                if (t1 >= 0) {
+                    t1 *= t1;
+                    n += t1 * t1 * dot(grad3[permMod12[ii + i1 + perm[jj + j1]]], x1, y1);
+                }
+                double t2 = 0.5 - x2 * x2 - y2 * y2;
+                if (t2 >= 0) {
+                    t2 *= t2;
+                    n += t2 * t2 * dot(g2, x2, y2);
+                }
+                buffer[index++] = 70.0 * n;
+            }
+        }
+    }
+
+    /**
+     * Samples 3D simplex noise on a regular grid. The gradients of the first and last corner only depend on the
+     * simplex cell, so they are looked up again only when a row moves into another cell.
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ,
+                      int sizeX, int sizeY, int sizeZ) {
+        int index = 0;
+        for (int layer = 0; layer < sizeZ; layer++) {
+            double zin = originZ + layer * stepZ;
+            for (int row = 0; row < sizeY; row++) {
+                double yin = originY + row * stepY;
+
+                int cellI = Integer.MIN_VALUE;
+                int cellJ = Integer.MIN_VALUE;
+                int cellK = Integer.MIN_VALUE;
+                Grad g0 = null;
+                Grad g3 = null;
+                for (int col = 0; col < sizeX; col++) {
+                    double xin = originX + col * stepX;
+
+                    double s = (xin + yin + zin) * F3;
+                    int i = fastfloor(xin + s);
+                    int j = fastfloor(yin + s);
+                    int k = fastfloor(zin + s);
+                    double t = (i + j + k) * G3;
+                    double x0 = xin - (i - t);
+                    double y0 = yin - (j - t);
+                    double z0 = zin - (k - t);
+
+                    int ii = i & 255;
+                    int jj = j & 255;
+                    int kk = k & 255;
+                    if (i != cellI || j != cellJ || k != cellK) {
+                        cellI = i;
+                        cellJ = j;
+                        cellK = k;
+                        g0 = grad3[permMod12[ii + perm[jj + perm[kk]]]];
+                        g3 = grad3[permMod12[ii + 1 + perm[jj + 1 + perm[kk + 1]]]];
+                    }
+
+                    // Offsets of the second and third corner, see noise(double, double, double)
+                    int i1;
+                    int j1;
+                    int k1;
+                    int i2;
+                    int j2;
+                    int k2;
+                    if (x0 >= y0) {
+                        j1 = 0;
+                        i2 = 1;
+                        if (y0 >= z0) {
+                            i1 = 1;
+                            k1 = 0;
+                            j2 = 1;
+                            k2 = 0;
+                        } else if (x0 >= z0) {
+                            i1 = 1;
+                            k1 = 0;
+                            j2 = 0;
+                            k2 = 1;
+                        } else {
+                            i1 = 0;
+                            k1 = 1;
+                            j2 = 0;
+                            k2 = 1;
+                        }
+                    } else {
+                        i1 = 0;
+                        j2 = 1;
+                        if (y0 < z0) {
+                            j1 = 0;
+                            k1 = 1;
+                            i2 = 0;
+                            k2 = 1;
+                        } else if (x0 < z0) {
+                            j1 = 1;
+                            k1 = 0;
+                            i2 = 0;
+                            k2 = 1;
+                        } else {
+                            j1 = 1;
+                            k1 = 0;
+                            i2 = 1;
+                            k2 = 0;
+                        }
+                    }
+
+                    double x1 = x0 - i1 + G3;
+                    double y1 = y0 - j1 + G3;
+                    double z1 = z0 - k1 + G3;
+                    double x2 = x0 - i2 + 2.0 * G3;
+                    double y2 = y0 - j2 + 2.0 * G3;
+                    double z2 = z0 - k2 + 2.0 * G3;
+                    double x3 = x0 - 1.0 + 3.0 * G3;
+                    double y3 = y0 - 1.0 + 3.0 * G3;
+                    double z3 = z0 - 1.0 + 3.0 * G3;
+
+                    double n = 0;
+                    double t0 = 0.6 - x0 * x0 - y0 * y0 - z0 * z0;
+                    if (t0 >= 0) {
+                        t0 *= t0;
+                        n += t0 * t0 * dot(g0, x0, y0, z0);
+                    }
+                    double t1 = 0.6 - x1 * x1 - y1 * y1 - z1 * z1;
+                    if (t1 >= 0) {
+                        t1 *= t1;
+                        n += t1 * t1 * dot(grad3[permMod12[ii + i1 + perm[jj + j1 + perm[kk + k1]]]], x1, y1, z1);
+                    }
+                    double t2 = 0.6 - x2 * x2 - y2 * y2 - z2 * z2;
+                    if (t2 >= 0) {
+                        t2 *= t2;
+                        n += t2 * t2 * dot(grad3[permMod12[ii + i2 + perm[jj + j2 + perm[kk + k2]]]], x2, y2, z2);
+                    }
+                    double t3 = 0.6 - x3 * x3 - y3 * y3 - z3 * z3;
+                    if (t3 >= 0) {
+                        t3 *= t3;
+                        n += t3 * t3 * dot(g3, x3, y3, z3);
+                    }
+                    buffer[index++] = 32.0 * n;
+                }
+            }
+        }
+    }
+
 
     /**
      * 4D simplex noise, better simplex rank ordering method 2012-03-09
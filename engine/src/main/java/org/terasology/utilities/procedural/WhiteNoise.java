@@ -23,7 +23,7 @@
  *
  * @author Esa-Petri Tirkkonen <esereja@yahoo.co.uk>
  */
-public class WhiteNoise implements Noise3D {
+public class WhiteNoise implements GridNoise3D {
 
     private final Random rand;
 
@@ -44,4 +44,16 @@ public double noise(double x, double y, double z) {
         return rand.nextDouble(-1.0f, 1.0f);
     }
 
+    /**
+     * Fills the buffer with noise in the range [-1..1]
+     */
+    @Override
+    public void noise(double[] buffer, double originX, double originY, double originZ, double stepX, double stepY, double stepZ,
+                      int sizeX, int sizeY, int sizeZ) {
+        int size = sizeX * sizeY * sizeZ;
+        for (int i = 0; i < size; i++) {
+            buffer[i] = rand.nextDouble(-1.0f, 1.0f);
+        }
+    }
+
 }
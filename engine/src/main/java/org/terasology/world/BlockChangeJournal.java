@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import gnu.trove.list.TShortList;
+import gnu.trove.list.array.TShortArrayList;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+
+import java.util.Collection;
+
+/**
+ * The block changes made to the world over a tick, grouped by chunk and stored as block ids.
+ * <p/>
+ * A position changed several times is recorded once, going from the block it had before the first change to the block
+ * it has after the last. Changes are passed to {@link WorldChangeListener}s once per tick, so that a mass edit costs
+ * each listener one call rather than one per block.
+ */
+public final class BlockChangeJournal {
+
+    private final ChunkPositionsMap<ChunkChanges> chunkChanges = new ChunkPositionsMap<>();
+    private int size;
+
+    /**
+     * @return The number of positions changed
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        chunkChanges.clear();
+        size = 0;
+    }
+
+    public void record(Vector3i worldPos, short fromId, short toId) {
+        record(worldPos.x, worldPos.y, worldPos.z, fromId, toId);
+    }
+
+    public void record(int x, int y, int z, short fromId, short toId) {
+        ChunkChanges changes = getChunkChanges(TeraMath.calcChunkPosX(x), TeraMath.calcChunkPosZ(z));
+        if (changes.record(TeraMath.calcBlockPosX(x), y, TeraMath.calcBlockPosZ(z), fromId, toId)) {
+            size++;
+        }
+    }
+
+    /**
+     * @return The changes of each chunk, in the order the chunks were first changed
+     */
+    public Collection<ChunkChanges> getChunkChanges() {
+        return chunkChanges.values();
+    }
+
+    private ChunkChanges getChunkChanges(int chunkX, int chunkZ) {
+        ChunkChanges result = chunkChanges.get(chunkX, chunkZ);
+        if (result == null) {
+            result = new ChunkChanges(chunkX, chunkZ);
+            chunkChanges.add(result);
+        }
+        return result;
+    }
+
+    /**
+     * The changes to a single chunk, in local block coordinates, in the order the positions were first changed
+     */
+    public static final class ChunkChanges extends ChunkPositions {
+        private final TShortList fromIds = new TShortArrayList();
+        private final TShortList toIds = new TShortArrayList();
+
+        private ChunkChanges(int chunkX, int chunkZ) {
+            super(chunkX, chunkZ);
+        }
+
+        /**
+         * @return The id of the block at the position before the tick
+         */
+        public short getFromId(int index) {
+            return fromIds.get(index);
+        }
+
+        /**
+         * @return The id of the block at the position after the tick
+         */
+        public short getToId(int index) {
+            return toIds.get(index);
+        }
+
+        /**
+         * @return Whether the position ends the tick with the block it started with
+         */
+        public boolean isReverted(int index) {
+            return fromIds.get(index) == toIds.get(index);
+        }
+
+        /**
+         * @return Whether the position was new to the chunk
+         */
+        private boolean record(int x, int y, int z, short fromId, short toId) {
+            int index = addPosition(x, y, z);
+            if (index >= 0) {
+                toIds.set(index, toId);
+                return false;
+            }
+            fromIds.add(fromId);
+            toIds.add(toId);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.ChunkRegionCursor;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of block changes to apply to the world at once, through {@link WorldProvider#setBlocks(BlockEditSet)}.
+ * <p/>
+ * The changes are grouped by chunk as they are added, so that applying them resolves, locks and dirties each chunk only
+ * once. Setting the same position twice keeps the last block. Positions above or below the world are ignored.
+ */
+public final class BlockEditSet {
+
+    private final ChunkPositionsMap<ChunkEdits> chunkEdits = new ChunkPositionsMap<>();
+    private int size;
+
+    /**
+     * @return The number of positions in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        chunkEdits.clear();
+        size = 0;
+    }
+
+    public void set(Vector3i pos, Block block) {
+        set(pos.x, pos.y, pos.z, block);
+    }
+
+    public void set(int x, int y, int z, Block block) {
+        Preconditions.checkNotNull(block);
+        if (y < 0 || y >= ChunkConstants.SIZE_Y) {
+            return;
+        }
+        ChunkEdits edits = getChunkEdits(TeraMath.calcChunkPosX(x), TeraMath.calcChunkPosZ(z));
+        if (edits.set(TeraMath.calcBlockPosX(x), y, TeraMath.calcBlockPosZ(z), block)) {
+            size++;
+        }
+    }
+
+    /**
+     * Sets every position in the region to the given block.
+     */
+    public void fill(Region3i region, Block block) {
+        Preconditions.checkNotNull(block);
+        ChunkRegionCursor cursor = new ChunkRegionCursor(region);
+        while (cursor.next()) {
+            ChunkEdits edits = getChunkEdits(cursor.getChunkX(), cursor.getChunkZ());
+            for (int y = cursor.getLocalMinY(); y <= cursor.getLocalMaxY(); ++y) {
+                for (int z = cursor.getLocalMinZ(); z <= cursor.getLocalMaxZ(); ++z) {
+                    for (int x = cursor.getLocalMinX(); x <= cursor.getLocalMaxX(); ++x) {
+                        if (edits.set(x, y, z, block)) {
+                            size++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The changes of each chunk, in the order the chunks were first changed
+     */
+    public Collection<ChunkEdits> getChunkEdits() {
+        return chunkEdits.values();
+    }
+
+    private ChunkEdits getChunkEdits(int chunkX, int chunkZ) {
+        ChunkEdits result = chunkEdits.get(chunkX, chunkZ);
+        if (result == null) {
+            result = new ChunkEdits(chunkX, chunkZ);
+            chunkEdits.add(result);
+        }
+        return result;
+    }
+
+    /**
+     * The changes to a single chunk, in local block coordinates, in the order the positions were first set
+     */
+    public static final class ChunkEdits extends ChunkPositions {
+        private final List<Block> blocks = Lists.newArrayList();
+
+        private ChunkEdits(int chunkX, int chunkZ) {
+            super(chunkX, chunkZ);
+        }
+
+        public Block getBlock(int index) {
+            return blocks.get(index);
+        }
+
+        /**
+         * @return Whether the position was new to this set
+         */
+        private boolean set(int x, int y, int z, Block block) {
+            int index = addPosition(x, y, z);
+            if (index >= 0) {
+                blocks.set(index, block);
+                return false;
+            }
+            blocks.add(block);
+            return true;
+        }
+    }
+}
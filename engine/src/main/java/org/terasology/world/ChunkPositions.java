@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * Positions within a single chunk, in local block coordinates, in the order they were first added. Each position is
+ * packed into an int, so adding and looking up positions creates no objects. Subclasses keep their data for each
+ * position in lists, at the position's index.
+ */
+public abstract class ChunkPositions {
+    private final int chunkX;
+    private final int chunkZ;
+    private final TIntIntMap indexByPosition = new TIntIntHashMap(64, 0.5f, -1, -1);
+    private final TIntList positions = new TIntArrayList();
+
+    protected ChunkPositions(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    public final int getChunkX() {
+        return chunkX;
+    }
+
+    public final int getChunkY() {
+        return 0;
+    }
+
+    public final int getChunkZ() {
+        return chunkZ;
+    }
+
+    public final Vector3i getChunkPos() {
+        return new Vector3i(chunkX, 0, chunkZ);
+    }
+
+    public final int size() {
+        return positions.size();
+    }
+
+    public final int getX(int index) {
+        return positions.get(index) % ChunkConstants.SIZE_X;
+    }
+
+    public final int getY(int index) {
+        return positions.get(index) / (ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z);
+    }
+
+    public final int getZ(int index) {
+        return (positions.get(index) / ChunkConstants.SIZE_X) % ChunkConstants.SIZE_Z;
+    }
+
+    /**
+     * @return The world position with the given index
+     */
+    public final Vector3i getWorldPosition(int index) {
+        return new Vector3i(chunkX * ChunkConstants.SIZE_X + getX(index), getY(index), chunkZ * ChunkConstants.SIZE_Z + getZ(index));
+    }
+
+    /**
+     * Adds the position if it is new, as the last index.
+     *
+     * @return The index of the position if it was already added, otherwise -1
+     */
+    protected final int addPosition(int x, int y, int z) {
+        int position = x + ChunkConstants.SIZE_X * (z + ChunkConstants.SIZE_Z * y);
+        int index = indexByPosition.get(position);
+        if (index < 0) {
+            indexByPosition.put(position, positions.size());
+            positions.add(position);
+        }
+        return index;
+    }
+}
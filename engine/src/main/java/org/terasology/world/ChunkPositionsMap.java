@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import com.google.common.collect.Maps;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@link ChunkPositions} of a number of chunks, by chunk, in the order the chunks were added.
+ */
+final class ChunkPositionsMap<T extends ChunkPositions> {
+
+    private final Map<Long, T> chunks = Maps.newLinkedHashMap();
+    private T lastChunk;
+
+    /**
+     * @return The positions of the given chunk, or null if the chunk was not added
+     */
+    public T get(int chunkX, int chunkZ) {
+        // Positions tend to come in runs within a chunk
+        if (lastChunk != null && lastChunk.getChunkX() == chunkX && lastChunk.getChunkZ() == chunkZ) {
+            return lastChunk;
+        }
+        T result = chunks.get(ConcurrentChunkMap.packPosition(chunkX, 0, chunkZ));
+        if (result != null) {
+            lastChunk = result;
+        }
+        return result;
+    }
+
+    public void add(T chunk) {
+        chunks.put(ConcurrentChunkMap.packPosition(chunk.getChunkX(), 0, chunk.getChunkZ()), chunk);
+        lastChunk = chunk;
+    }
+
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(chunks.values());
+    }
+
+    public void clear() {
+        chunks.clear();
+        lastChunk = null;
+    }
+}
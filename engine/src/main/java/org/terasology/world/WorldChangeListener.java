@@ -16,14 +16,17 @@
 
 package org.terasology.world;
 
-import org.terasology.math.Vector3i;
-import org.terasology.world.block.Block;
-
 /**
  * @author Immortius
  */
 public interface WorldChangeListener {
 
-    void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock);
+    /**
+     * Called once per tick, from {@link org.terasology.world.internal.WorldProviderCore#processPropagation()}, with the
+     * block changes made since the last call. Blocks changed by the listener are passed on the next call.
+     *
+     * @param changes The changes, grouped by chunk
+     */
+    void onBlocksChanged(BlockChangeJournal changes);
 
 }
@@ -29,6 +29,7 @@
 import org.terasology.math.Side;
 import org.terasology.math.TeraMath;
 import org.terasology.math.Vector3i;
+import org.terasology.physics.engine.BlockCollisionInfo;
 import org.terasology.rendering.assets.material.Material;
 import org.terasology.rendering.assets.mesh.Mesh;
 import org.terasology.rendering.assets.shader.ShaderProgramFeature;
@@ -180,6 +181,8 @@ public Vector4f calcColor(float temperature, float humidity) {
     /* Collision */
     private CollisionShape collisionShape;
     private Vector3f collisionOffset;
+    private BlockCollisionInfo collisionInfo;
+    private BlockCollisionInfo liquidCollisionInfo;
     private AABB bounds = AABB.createEmpty();
 
     /**
@@ -254,6 +257,7 @@ public boolean isLiquid() {
 
     public void setLiquid(boolean liquid) {
         this.liquid = liquid;
+        refreshCollisionInfo();
     }
 
     public boolean isWater() {
@@ -322,6 +326,7 @@ public boolean isPenetrable() {
 
     public void setPenetrable(boolean penetrable) {
         this.penetrable = penetrable;
+        refreshCollisionInfo();
     }
 
     /**
@@ -345,6 +350,7 @@ public boolean isTargetable() {
 
     public void setTargetable(boolean targetable) {
         this.targetable = targetable;
+        refreshCollisionInfo();
     }
 
     public boolean isClimbable() {
@@ -602,6 +608,7 @@ public Vector4f calcColorOffsetFor(BlockPart part, float temperature, float humi
     public void setCollision(Vector3f offset, CollisionShape shape) {
         collisionShape = shape;
         collisionOffset = offset;
+        refreshCollisionInfo();
         Transform t = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), offset, 1.0f));
         Vector3f min = new Vector3f();
         Vector3f max = new Vector3f();
@@ -618,6 +625,40 @@ public Vector3f getCollisionOffset() {
         return collisionOffset;
     }
 
+    /**
+     * @return The shared collision information of this block in the solid voxel world, or null if the block has not been
+     *         registered yet
+     */
+    public BlockCollisionInfo getCollisionInfo() {
+        return collisionInfo;
+    }
+
+    /**
+     * @return The shared collision information of this block in the liquid voxel world, or null if the block has not been
+     *         registered yet
+     */
+    public BlockCollisionInfo getLiquidCollisionInfo() {
+        return liquidCollisionInfo;
+    }
+
+    /**
+     * Builds the shared collision information of this block from its current properties. Called when the block is registered.
+     */
+    public void buildCollisionInfo() {
+        collisionInfo = BlockCollisionInfo.createSolid(this);
+        liquidCollisionInfo = BlockCollisionInfo.createLiquid(this);
+    }
+
+    /**
+     * Called by the setters of the properties the collision information is built from, so information that was already
+     * built never describes outdated properties.
+     */
+    private void refreshCollisionInfo() {
+        if (collisionInfo != null) {
+            buildCollisionInfo();
+        }
+    }
+
     public AABB getBounds(Vector3i pos) {
         return bounds.move(pos.toVector3f());
     }
@@ -227,6 +227,7 @@ protected void registerFamily(BlockFamily family) {
     }
 
     private void registerBlock(Block block, RegisteredState newState) {
+        block.buildCollisionInfo();
         if (block.getId() != UNKNOWN_ID) {
             logger.info("Registered Block {} with id {}", block, block.getId());
             newState.blocksById.put(block.getId(), block);
@@ -17,10 +17,13 @@
 package org.terasology.world.chunks;
 
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
 import org.terasology.world.internal.ChunkViewCore;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
+import java.util.List;
+
 /**
  * @author Immortius
  */
@@ -86,6 +89,12 @@ public interface ChunkProvider {
      */
     void removeRelevanceEntity(EntityRef entity);
 
+    /**
+     * @return The chunk regions currently kept around the relevance entities. Empty if this provider does not track
+     *         relevance itself.
+     */
+    List<Region3i> getRelevanceRegions();
+
     /**
      * Updates the near cache based on the movement of the caching entities
      */
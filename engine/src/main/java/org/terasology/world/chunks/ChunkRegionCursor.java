@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks;
+
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+
+/**
+ * Walks a region of blocks one chunk at a time, giving the part of the region that lies in each chunk in the local
+ * coordinates of that chunk. Chunks are visited with x varying fastest.
+ * <p/>
+ * The world is a single chunk high, so the region is cut down to the height of the world.
+ */
+public final class ChunkRegionCursor {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    private int chunkX;
+    private int chunkZ;
+    private boolean started;
+    private boolean done;
+
+    public ChunkRegionCursor(Region3i region) {
+        Vector3i min = region.min();
+        Vector3i max = region.max();
+        minX = min.x;
+        minY = Math.max(min.y, 0);
+        minZ = min.z;
+        maxX = max.x;
+        maxY = Math.min(max.y, ChunkConstants.SIZE_Y - 1);
+        maxZ = max.z;
+        minChunkX = TeraMath.calcChunkPosX(minX);
+        minChunkZ = TeraMath.calcChunkPosZ(minZ);
+        maxChunkX = TeraMath.calcChunkPosX(maxX);
+        maxChunkZ = TeraMath.calcChunkPosZ(maxZ);
+        chunkX = minChunkX;
+        chunkZ = minChunkZ;
+        done = region.isEmpty() || minY > maxY;
+    }
+
+    /**
+     * Moves on to the next chunk the region overlaps.
+     *
+     * @return Whether there was another chunk
+     */
+    public boolean next() {
+        if (done) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+        } else if (chunkX < maxChunkX) {
+            chunkX++;
+        } else if (chunkZ < maxChunkZ) {
+            chunkX = minChunkX;
+            chunkZ++;
+        } else {
+            done = true;
+        }
+        return !done;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkY() {
+        return 0;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * @return The world x coordinate of the first block of the current chunk
+     */
+    public int getChunkWorldX() {
+        return chunkX * ChunkConstants.SIZE_X;
+    }
+
+    /**
+     * @return The world z coordinate of the first block of the current chunk
+     */
+    public int getChunkWorldZ() {
+        return chunkZ * ChunkConstants.SIZE_Z;
+    }
+
+    public int getLocalMinX() {
+        return Math.max(minX - getChunkWorldX(), 0);
+    }
+
+    public int getLocalMinY() {
+        return minY;
+    }
+
+    public int getLocalMinZ() {
+        return Math.max(minZ - getChunkWorldZ(), 0);
+    }
+
+    /**
+     * @return The highest local x coordinate of the region in the current chunk, inclusive
+     */
+    public int getLocalMaxX() {
+        return Math.min(maxX - getChunkWorldX(), ChunkConstants.SIZE_X - 1);
+    }
+
+    /**
+     * @return The highest y coordinate of the region, inclusive
+     */
+    public int getLocalMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return The highest local z coordinate of the region in the current chunk, inclusive
+     */
+    public int getLocalMaxZ() {
+        return Math.min(maxZ - getChunkWorldZ(), ChunkConstants.SIZE_Z - 1);
+    }
+}
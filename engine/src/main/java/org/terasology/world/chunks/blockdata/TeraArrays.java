@@ -19,9 +19,12 @@
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import org.terasology.protobuf.ChunksProtobuf;
 import org.terasology.protobuf.ChunksProtobuf.Type;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -37,10 +40,13 @@
  * Serialization and deserialization of TeraArrays into/from protobuf messages is supported through the methods
  * {@code TeraArrays.encode(TeraArray)} and {@code TeraArrays.decode(ChunksProtobuf.TeraArray)}.
  * <p/>
+ * TeraArrays can also be written straight into a CodedOutputStream as a TeraArray message field through
+ * {@code TeraArrays.writeTo(int, TeraArray, CodedOutputStream)}, without building the message. Arrays are serialized into a
+ * buffer kept per thread rather than a newly allocated one.
+ * <p/>
  * Alternative TeraArray implementations can be registered through the method {@code TeraArrays.register(TeraArray.Factory, ChunksProtobuf.Type)}.
  *
  * @author Manuel Brotz <manu.brotz@gmx.ch>
- * @todo Future optimization: Implement some caching/cycling mechanism to avoid unnecessary ByteBuffer allocations.
  */
 @SuppressWarnings("rawtypes")
 public final class TeraArrays {
@@ -52,6 +58,8 @@ public final class TeraArrays {
     private final Map<String, Entry> arrayNames;
     private final Map<ChunksProtobuf.Type, Entry> arrayTypes;
 
+    private final ThreadLocal<ByteBuffer> serializationBuffers = new ThreadLocal<>();
+
     private TeraArrays() {
         lock = new ReentrantReadWriteLock();
 
@@ -72,16 +80,10 @@ private TeraArrays() {
         }
     }
 
-    @SuppressWarnings("unchecked")
     public ChunksProtobuf.TeraArray encode(TeraArray array) {
-        Preconditions.checkNotNull(array, "The parameter 'array' must not be null");
-        final Entry entry = getEntry(array.getClass());
-        if (entry == null) {
-            throw new IllegalArgumentException("Unable to encode the supplied array of class: " + array.getClass().getName());
-        }
+        final Entry entry = getEncodingEntry(array);
         final ChunksProtobuf.TeraArray.Builder b = ChunksProtobuf.TeraArray.newBuilder();
-        final ByteBuffer buf = entry.handler.serialize(array);
-        buf.rewind();
+        final ByteBuffer buf = serializeToPooledBuffer(entry, array);
         b.setData(ByteString.copyFrom(buf));
         b.setType(entry.protobufType);
         if (entry.protobufType == ChunksProtobuf.Type.Unknown) {
@@ -90,20 +92,64 @@ public ChunksProtobuf.TeraArray encode(TeraArray array) {
         return b.build();
     }
 
+    /**
+     * Computes the size of the TeraArray message for the array, excluding the tag and length that precede it as a field.
+     */
+    public int computeMessageSize(TeraArray array) {
+        final Entry entry = getEncodingEntry(array);
+        return computeMessageSize(entry, entry.handler.computeMinimumBufferSize(array));
+    }
+
+    /**
+     * Writes the array as a TeraArray message field, producing the same bytes as encoding it and writing the message.
+     *
+     * @param fieldNumber The number of the field the message is written as
+     * @param array       The array to write
+     * @param output      The stream to write to
+     * @throws IOException If the stream cannot be written to
+     */
+    public void writeTo(int fieldNumber, TeraArray array, CodedOutputStream output) throws IOException {
+        final Entry entry = getEncodingEntry(array);
+        final ByteBuffer buf = serializeToPooledBuffer(entry, array);
+        final int dataSize = buf.remaining();
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(computeMessageSize(entry, dataSize));
+        output.writeEnum(1, entry.protobufType.getNumber());
+        if (entry.protobufType == ChunksProtobuf.Type.Unknown) {
+            output.writeString(2, entry.arrayClassName);
+        }
+        output.writeTag(3, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(dataSize);
+        output.writeRawBytes(buf.array(), buf.arrayOffset() + buf.position(), dataSize);
+    }
+
     public TeraArray decode(ChunksProtobuf.TeraArray message) {
         Preconditions.checkNotNull(message, "The parameter 'message' must not be null");
-        if (!message.hasType()) {
+        return decode(message.hasType() ? message.getType() : null, message.hasClassName() ? message.getClassName() : null,
+                message.hasData() ? message.getData().asReadOnlyByteBuffer() : null);
+    }
+
+    /**
+     * Decodes an array from the fields of a TeraArray message. The data is read in place, so it can be a view of the
+     * bytes the message was received in.
+     *
+     * @param type      The type field, or null if it is missing
+     * @param className The class name field, or null if it is missing
+     * @param data      The data field, or null if it is missing
+     * @return The decoded array
+     */
+    public TeraArray decode(ChunksProtobuf.Type type, String className, ByteBuffer data) {
+        if (type == null) {
             throw new IllegalArgumentException("Illformed protobuf message. Missing type information.");
         }
-        final ChunksProtobuf.Type type = message.getType();
         final Entry entry;
         if (type == ChunksProtobuf.Type.Unknown) {
-            if (!message.hasClassName()) {
+            if (className == null) {
                 throw new IllegalArgumentException("Illformed protobuf message. Missing class name.");
             }
-            entry = getEntry(message.getClassName());
+            entry = getEntry(className);
             if (entry == null) {
-                throw new IllegalArgumentException("Unable to decode protobuf message. No entry found for class name: " + message.getClassName());
+                throw new IllegalArgumentException("Unable to decode protobuf message. No entry found for class name: " + className);
             }
         } else {
             entry = getEntry(type);
@@ -111,11 +157,48 @@ public TeraArray decode(ChunksProtobuf.TeraArray message) {
                 throw new IllegalArgumentException("Unable to decode protobuf message. No entry found for type: " + type);
             }
         }
-        if (!message.hasData()) {
+        if (data == null) {
             throw new IllegalArgumentException("Illformed protobuf message. Missing byte sequence.");
         }
-        final ByteString data = message.getData();
-        return entry.handler.deserialize(data.asReadOnlyByteBuffer());
+        return entry.handler.deserialize(data);
+    }
+
+    private Entry getEncodingEntry(TeraArray array) {
+        Preconditions.checkNotNull(array, "The parameter 'array' must not be null");
+        final Entry entry = getEntry(array.getClass());
+        if (entry == null) {
+            throw new IllegalArgumentException("Unable to encode the supplied array of class: " + array.getClass().getName());
+        }
+        return entry;
+    }
+
+    private int computeMessageSize(Entry entry, int dataSize) {
+        int size = CodedOutputStream.computeEnumSize(1, entry.protobufType.getNumber())
+                + CodedOutputStream.computeTagSize(3) + CodedOutputStream.computeRawVarint32Size(dataSize) + dataSize;
+        if (entry.protobufType == ChunksProtobuf.Type.Unknown) {
+            size += CodedOutputStream.computeStringSize(2, entry.arrayClassName);
+        }
+        return size;
+    }
+
+    /**
+     * Serializes the array into the buffer of the calling thread, which is only valid until the thread serializes the
+     * next array.
+     *
+     * @return The buffer, positioned at the start of the serialized array and limited to its end
+     */
+    @SuppressWarnings("unchecked")
+    private ByteBuffer serializeToPooledBuffer(Entry entry, TeraArray array) {
+        final int size = entry.handler.computeMinimumBufferSize(array);
+        ByteBuffer buf = serializationBuffers.get();
+        if (buf == null || buf.capacity() < size) {
+            buf = ByteBuffer.allocate(size);
+            serializationBuffers.set(buf);
+        }
+        buf.clear();
+        entry.handler.serialize(array, buf);
+        buf.flip();
+        return buf;
     }
 
     public Entry getEntry(Class arrayClass) {
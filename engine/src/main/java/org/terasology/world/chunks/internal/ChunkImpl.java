@@ -18,6 +18,10 @@
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.registry.CoreRegistry;
@@ -25,6 +29,7 @@
 import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
 import org.terasology.monitoring.ChunkMonitor;
+import org.terasology.protobuf.ChunksProtobuf;
 import org.terasology.protobuf.EntityData;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.world.block.Block;
@@ -40,6 +45,8 @@
 import org.terasology.world.liquid.LiquidData;
 
 import javax.vecmath.Vector3f;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
@@ -157,6 +164,17 @@ public ChunkImpl(Vector3i chunkPos, State chunkState, TeraArray blocks, TeraArra
         ChunkMonitor.fireChunkCreated(this);
     }
 
+    private ChunkImpl(ChunkImpl other) {
+        this.chunkPos.set(other.chunkPos);
+        this.blockManager = other.blockManager;
+        this.blockData = other.blockData.copy();
+        this.extraData = other.extraData.copy();
+        this.chunkState = other.chunkState;
+        this.initialGenerationComplete = other.initialGenerationComplete;
+        this.region = other.region;
+        this.disposed = true;
+    }
+
     public void lock() {
         lock.lock();
     }
@@ -229,6 +247,13 @@ public Block getBlock(int x, int y, int z) {
         return blockManager.getBlock((short) blockData.get(x, y, z));
     }
 
+    /**
+     * @return The id of the block at the given position, without looking the block up
+     */
+    public short getBlockId(int x, int y, int z) {
+        return (short) blockData.get(x, y, z);
+    }
+
     @Override
     public Block setBlock(int x, int y, int z, Block block) {
         int oldValue = blockData.set(x, y, z, block.getId());
@@ -479,6 +504,22 @@ public void prepareForReactivation() {
         }
     }
 
+    /**
+     * Creates a copy of the persisted state of this chunk (its block and liquid data), which can be encoded on another
+     * thread while this chunk continues to be modified or is disposed.
+     * The snapshot has no light data and is not reported to the ChunkMonitor.
+     *
+     * @return The snapshot
+     */
+    public ChunkImpl createSnapshot() {
+        lock();
+        try {
+            return new ChunkImpl(this);
+        } finally {
+            unlock();
+        }
+    }
+
     public void dispose() {
         disposed = true;
         ready = false;
@@ -535,12 +576,20 @@ public ChunkBlockIterator getBlockIterator() {
 
     /**
      * ProtobufHandler implements support for encoding/decoding chunks into/from protobuf messages.
+     * <p/>
+     * Chunks can also be written straight to the bytes of a ChunkStore message and read back from them, which skips
+     * building the message and copying the array data into and out of it.
      *
      * @author Manuel Brotz <manu.brotz@gmx.ch>
      * @todo Add support for chunk data extensions.
      */
     public static class ProtobufHandler {
 
+        /**
+         * The bits of a protobuf tag holding the wire type
+         */
+        private static final int TAG_TYPE_MASK = 7;
+
         public EntityData.ChunkStore.Builder encode(ChunkImpl chunk, boolean coreOnly) {
             Preconditions.checkNotNull(chunk, "The parameter 'chunk' must not be null");
             final TeraArrays t = TeraArrays.getInstance();
@@ -570,22 +619,231 @@ public ChunkImpl decode(EntityData.ChunkStore message) {
 
             final TeraArrays t = TeraArrays.getInstance();
             final TeraArray blockData = t.decode(message.getBlockData());
+            final TeraArray extraData = (message.hasLiquidData()) ? t.decode(message.getLiquidData()) : null;
+            return create(pos, state, blockData, extraData);
+        }
 
+        /**
+         * Computes the size of the ChunkStore message for the chunk, as written by
+         * {@link #writeTo(ChunkImpl, boolean, EntityData.EntityStore, CodedOutputStream)}.
+         */
+        public int computeSerializedSize(ChunkImpl chunk, boolean coreOnly, EntityData.EntityStore entityStore) {
+            Preconditions.checkNotNull(chunk, "The parameter 'chunk' must not be null");
+            final TeraArrays t = TeraArrays.getInstance();
+            int size = CodedOutputStream.computeSInt32Size(2, chunk.chunkPos.x)
+                    + CodedOutputStream.computeSInt32Size(3, chunk.chunkPos.y)
+                    + CodedOutputStream.computeSInt32Size(4, chunk.chunkPos.z)
+                    + CodedOutputStream.computeEnumSize(5, chunk.chunkState.protobufState.getNumber())
+                    + computeArrayFieldSize(6, t.computeMessageSize(chunk.blockData));
+            if (!coreOnly) {
+                size += computeArrayFieldSize(9, t.computeMessageSize(chunk.extraData));
+            }
+            if (entityStore != null) {
+                size += CodedOutputStream.computeMessageSize(1, entityStore);
+            }
+            return size;
+        }
+
+        /**
+         * Writes the chunk as a ChunkStore message, producing the same bytes as encoding it, setting the entity store and
+         * writing the message. The tera arrays are written from pooled buffers rather than copied into the message.
+         *
+         * @param chunk       The chunk to write
+         * @param coreOnly    Whether to leave out everything but the block data
+         * @param entityStore The entities stored with the chunk, or null if there are none
+         * @param output      The stream to write to
+         * @throws IOException If the stream cannot be written to
+         */
+        public void writeTo(ChunkImpl chunk, boolean coreOnly, EntityData.EntityStore entityStore, CodedOutputStream output) throws IOException {
+            Preconditions.checkNotNull(chunk, "The parameter 'chunk' must not be null");
+            final TeraArrays t = TeraArrays.getInstance();
+            if (entityStore != null) {
+                output.writeMessage(1, entityStore);
+            }
+            output.writeSInt32(2, chunk.chunkPos.x);
+            output.writeSInt32(3, chunk.chunkPos.y);
+            output.writeSInt32(4, chunk.chunkPos.z);
+            output.writeEnum(5, chunk.chunkState.protobufState.getNumber());
+            t.writeTo(6, chunk.blockData, output);
+            if (!coreOnly) {
+                t.writeTo(9, chunk.extraData, output);
+            }
+        }
+
+        /**
+         * Writes the chunk as a ChunkStore message into an array of exactly the needed size.
+         *
+         * @see #writeTo(ChunkImpl, boolean, EntityData.EntityStore, CodedOutputStream)
+         */
+        public byte[] toByteArray(ChunkImpl chunk, boolean coreOnly, EntityData.EntityStore entityStore) {
+            final byte[] result = new byte[computeSerializedSize(chunk, coreOnly, entityStore)];
+            final CodedOutputStream output = CodedOutputStream.newInstance(result);
+            try {
+                writeTo(chunk, coreOnly, entityStore, output);
+            } catch (IOException e) {
+                // Not possible when writing to an array of the computed size
+                throw new IllegalStateException("Failed to encode chunk", e);
+            }
+            output.checkNoSpaceLeft();
+            return result;
+        }
+
+        /**
+         * Reads a chunk from the bytes of a ChunkStore message. The tera arrays are read in place from the given bytes,
+         * rather than copied into a message first.
+         *
+         * @param data        The bytes of the message
+         * @param entityStore A builder to merge the entities stored with the chunk into, or null to skip them
+         * @return The chunk
+         * @throws IOException If the bytes are not a valid message
+         */
+        public ChunkImpl decode(byte[] data, EntityData.EntityStore.Builder entityStore) throws IOException {
+            Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
+            final TeraArrays t = TeraArrays.getInstance();
+            final CodedInputStream input = CodedInputStream.newInstance(data);
+            int x = 0;
+            int y = 0;
+            int z = 0;
+            int positionFields = 0;
+            EntityData.ChunkState protobufState = null;
+            TeraArray blockData = null;
+            TeraArray extraData = null;
+            while (true) {
+                int tag = input.readTag();
+                if (tag == 0) {
+                    break;
+                }
+                boolean lengthDelimited = (tag & TAG_TYPE_MASK) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+                boolean varint = (tag & TAG_TYPE_MASK) == WireFormat.WIRETYPE_VARINT;
+                switch (WireFormat.getTagFieldNumber(tag)) {
+                    case 1:
+                        if (lengthDelimited && entityStore != null) {
+                            input.readMessage(entityStore, ExtensionRegistryLite.getEmptyRegistry());
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 2:
+                        if (varint) {
+                            x = input.readSInt32();
+                            positionFields |= 1;
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 3:
+                        if (varint) {
+                            y = input.readSInt32();
+                            positionFields |= 2;
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 4:
+                        if (varint) {
+                            z = input.readSInt32();
+                            positionFields |= 4;
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 5:
+                        if (varint) {
+                            EntityData.ChunkState value = EntityData.ChunkState.valueOf(input.readEnum());
+                            if (value != null) {
+                                protobufState = value;
+                            }
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 6:
+                        if (lengthDelimited) {
+                            blockData = readArray(input, data, t);
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    case 9:
+                        if (lengthDelimited) {
+                            extraData = readArray(input, data, t);
+                        } else {
+                            input.skipField(tag);
+                        }
+                        break;
+                    default:
+                        input.skipField(tag);
+                        break;
+                }
+            }
+
+            if (positionFields != 7) {
+                throw new IllegalArgumentException("Ill-formed protobuf message. Missing chunk position.");
+            }
+            if (protobufState == null) {
+                throw new IllegalArgumentException("Ill-formed protobuf message. Missing chunk state.");
+            }
+            if (blockData == null) {
+                throw new IllegalArgumentException("Ill-formed protobuf message. Missing block data.");
+            }
+            return create(new Vector3i(x, y, z), State.lookup(protobufState), blockData, extraData);
+        }
+
+        /**
+         * Reads a TeraArray message, wrapping its data in place within the bytes being read.
+         */
+        private TeraArray readArray(CodedInputStream input, byte[] data, TeraArrays t) throws IOException {
+            final int oldLimit = input.pushLimit(input.readRawVarint32());
+            ChunksProtobuf.Type type = null;
+            String className = null;
+            ByteBuffer arrayData = null;
+            while (true) {
+                int tag = input.readTag();
+                if (tag == 0) {
+                    break;
+                }
+                int wireType = tag & TAG_TYPE_MASK;
+                int fieldNumber = WireFormat.getTagFieldNumber(tag);
+                if (fieldNumber == 1 && wireType == WireFormat.WIRETYPE_VARINT) {
+                    ChunksProtobuf.Type value = ChunksProtobuf.Type.valueOf(input.readEnum());
+                    if (value != null) {
+                        type = value;
+                    }
+                } else if (fieldNumber == 2 && wireType == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    className = input.readString();
+                } else if (fieldNumber == 3 && wireType == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    int length = input.readRawVarint32();
+                    // The stream reads straight from the array, so the bytes read so far give the offset of the data
+                    int offset = input.getTotalBytesRead();
+                    input.skipRawBytes(length);
+                    arrayData = ByteBuffer.wrap(data, offset, length).slice().asReadOnlyBuffer();
+                } else {
+                    input.skipField(tag);
+                }
+            }
+            input.popLimit(oldLimit);
+            return t.decode(type, className, arrayData);
+        }
+
+        private static int computeArrayFieldSize(int fieldNumber, int messageSize) {
+            return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeRawVarint32Size(messageSize) + messageSize;
+        }
+
+        private ChunkImpl create(Vector3i pos, State state, TeraArray blockData, TeraArray liquidData) {
             Chunks c = Chunks.getInstance();
             TeraArray sunlightData = c.getSunlightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
             TeraArray lightData = c.getLightDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
-            TeraArray extraData;
-            if (message.hasLiquidData()) {
-                extraData = t.decode(message.getLiquidData());
-            } else {
+            TeraArray extraData = liquidData;
+            if (extraData == null) {
                 extraData = c.getExtraDataEntry().factory.create(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
             }
 
+            State initialState = state;
             boolean previouslyComplete = state == State.COMPLETE;
             if (previouslyComplete) {
-                state = State.INTERNAL_LIGHT_GENERATION_PENDING;
+                initialState = State.INTERNAL_LIGHT_GENERATION_PENDING;
             }
-            return new ChunkImpl(pos, state, blockData, sunlightData, lightData, extraData, previouslyComplete);
+            return new ChunkImpl(pos, initialState, blockData, sunlightData, lightData, extraData, previouslyComplete);
         }
     }
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.base.Preconditions;
+import org.terasology.math.Vector3i;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent map from chunk positions to values, keyed on the position packed into a long.
+ * <p/>
+ * Lookups take no lock and allocate nothing, so they are cheap enough for per-block access. Writes are serialized on
+ * the map. The map uses open addressing with linear probing: a slot never changes key once it has been used, removed
+ * entries leave a marker behind, and the table is rebuilt when it fills up. A reader that races a rebuild may briefly
+ * see the contents from just before the write, in the same way it would if it had run a moment earlier.
+ * <p/>
+ * Chunk positions must fit in 27 bits for x and z, and in 10 bits for y.
+ *
+ * @param <V> The type of the values
+ */
+public final class ConcurrentChunkMap<V> {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private static final int XZ_BITS = 27;
+    private static final int Y_BITS = 10;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    /**
+     * Marks a slot whose entry has been removed. Probing continues past it.
+     */
+    private static final Object REMOVED = new Object();
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+
+    /**
+     * Number of slots holding an entry or a removed marker, guarded by this
+     */
+    private int usedSlots;
+
+    public static long packPosition(int x, int y, int z) {
+        return ((x & XZ_MASK) << (XZ_BITS + Y_BITS)) | ((z & XZ_MASK) << Y_BITS) | (y & Y_MASK);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> (XZ_BITS + Y_BITS));
+    }
+
+    public static int unpackY(long key) {
+        return (int) ((key << (Long.SIZE - Y_BITS)) >> (Long.SIZE - Y_BITS));
+    }
+
+    public static int unpackZ(long key) {
+        return (int) ((key << XZ_BITS) >> (XZ_BITS + Y_BITS));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(Vector3i pos) {
+        return get(packPosition(pos.x, pos.y, pos.z));
+    }
+
+    public V get(int x, int y, int z) {
+        return get(packPosition(x, y, z));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table t = table;
+        int index = t.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Object value = t.values.get(index);
+        return (value == REMOVED) ? null : (V) value;
+    }
+
+    public boolean containsKey(Vector3i pos) {
+        return get(pos) != null;
+    }
+
+    public boolean containsKey(int x, int y, int z) {
+        return get(x, y, z) != null;
+    }
+
+    /**
+     * @return The previous value for the position, or null if there was none
+     */
+    public V put(Vector3i pos, V value) {
+        return put(packPosition(pos.x, pos.y, pos.z), value, false);
+    }
+
+    /**
+     * @return The current value for the position, or null if there was none and the given value was added
+     */
+    public V putIfAbsent(Vector3i pos, V value) {
+        return put(packPosition(pos.x, pos.y, pos.z), value, true);
+    }
+
+    /**
+     * @return The removed value, or null if there was none
+     */
+    public V remove(Vector3i pos) {
+        return remove(packPosition(pos.x, pos.y, pos.z), null);
+    }
+
+    /**
+     * Removes the entry for the position only if it is mapped to the given value.
+     *
+     * @return Whether the entry was removed
+     */
+    public boolean remove(Vector3i pos, V value) {
+        Preconditions.checkNotNull(value);
+        return remove(packPosition(pos.x, pos.y, pos.z), value) != null;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        usedSlots = 0;
+        size = 0;
+    }
+
+    /**
+     * @return A view of the values of this map. Its iterators are weakly consistent: they never throw
+     *         ConcurrentModificationException, and may or may not show changes made while iterating.
+     *         They support remove().
+     */
+    public Iterable<V> values() {
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(table);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized V put(long key, V value, boolean onlyIfAbsent) {
+        Preconditions.checkNotNull(value);
+        Table t = table;
+        int index = t.indexOf(key);
+        if (index >= 0) {
+            Object current = t.values.get(index);
+            if (current == REMOVED) {
+                t.values.set(index, value);
+                size++;
+                return null;
+            }
+            if (!onlyIfAbsent) {
+                t.values.set(index, value);
+            }
+            return (V) current;
+        }
+
+        if (usedSlots + 1 > t.capacity() / 2) {
+            t = rebuild(t);
+        }
+        index = t.freeIndexFor(key);
+        // The key has to be visible before the value, as readers identify used slots by their value
+        t.keys[index] = key;
+        t.values.set(index, value);
+        usedSlots++;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized V remove(long key, V expected) {
+        Table t = table;
+        int index = t.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Object current = t.values.get(index);
+        if (current == REMOVED || (expected != null && current != expected)) {
+            return null;
+        }
+        t.values.set(index, REMOVED);
+        size--;
+        return (V) current;
+    }
+
+    /**
+     * Copies the live entries into a new table sized for the current contents, dropping the removed markers, and
+     * publishes it. The old table is left untouched for readers still using it.
+     */
+    private Table rebuild(Table old) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < (size + 1) * 4) {
+            capacity <<= 1;
+        }
+        Table result = new Table(capacity);
+        for (int i = 0; i < old.capacity(); ++i) {
+            Object value = old.values.get(i);
+            if (value != null && value != REMOVED) {
+                int index = result.freeIndexFor(old.keys[i]);
+                result.keys[index] = old.keys[i];
+                result.values.set(index, value);
+            }
+        }
+        usedSlots = size;
+        table = result;
+        return result;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final AtomicReferenceArray<Object> values;
+        private final int mask;
+
+        public Table(int capacity) {
+            keys = new long[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        public int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * @return The slot holding the key, which may contain the removed marker, or -1 if the key was never added
+         */
+        public int indexOf(long key) {
+            int index = hash(key) & mask;
+            while (true) {
+                if (values.get(index) == null) {
+                    return -1;
+                }
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        /**
+         * @return The first empty slot on the probe sequence of the key, which must not be in the table
+         */
+        public int freeIndexFor(long key) {
+            int index = hash(key) & mask;
+            while (values.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final Table iterTable;
+        private int nextIndex = -1;
+        private int lastIndex = -1;
+        private V nextValue;
+        private V lastValue;
+
+        public ValueIterator(Table iterTable) {
+            this.iterTable = iterTable;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            nextValue = null;
+            while (++nextIndex < iterTable.capacity()) {
+                Object value = iterTable.values.get(nextIndex);
+                if (value != null && value != REMOVED) {
+                    nextValue = (V) value;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextValue != null;
+        }
+
+        @Override
+        public V next() {
+            if (nextValue == null) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = nextIndex;
+            lastValue = nextValue;
+            advance();
+            return lastValue;
+        }
+
+        @Override
+        public void remove() {
+            if (lastValue == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentChunkMap.this.remove(iterTable.keys[lastIndex], lastValue);
+            lastValue = null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Maps;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The loaded chunks that are outside every relevance region, oldest first.
+ * <p/>
+ * Chunks stay loaded while the memory they take up fits the budget, so a player moving back and forth over a region
+ * boundary finds them still in memory. Once the budget is exceeded the chunks that left relevance longest ago are
+ * unloaded first. Only used from the main thread.
+ */
+final class ChunkEvictionQueue {
+
+    private final long budget;
+    private final Map<Long, Candidate> candidates = Maps.newLinkedHashMap();
+    private long bytes;
+
+    private long warmHits;
+    private long evictions;
+
+    /**
+     * @param budget The memory, in bytes, the queued chunks may take up before they have to be unloaded
+     */
+    public ChunkEvictionQueue(long budget) {
+        this.budget = budget;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return The estimated memory taken up by the queued chunks, in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public int size() {
+        return candidates.size();
+    }
+
+    public boolean isEmpty() {
+        return candidates.isEmpty();
+    }
+
+    public boolean isOverBudget() {
+        return bytes > budget;
+    }
+
+    /**
+     * @return How often a queued chunk became relevant again before it was unloaded
+     */
+    public long getWarmHits() {
+        return warmHits;
+    }
+
+    /**
+     * @return How many chunks have been unloaded from this queue
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Queues a chunk that has left every relevance region. Does nothing if the chunk is already queued.
+     */
+    public void add(ChunkImpl chunk) {
+        Vector3i pos = chunk.getPos();
+        Long key = ConcurrentChunkMap.packPosition(pos.x, pos.y, pos.z);
+        if (!candidates.containsKey(key)) {
+            Candidate candidate = new Candidate(chunk, chunk.getEstimatedMemoryConsumptionInBytes());
+            candidates.put(key, candidate);
+            bytes += candidate.bytes;
+        }
+    }
+
+    /**
+     * Takes a chunk off the queue because it is relevant again.
+     *
+     * @return Whether the chunk was queued
+     */
+    public boolean remove(Vector3i pos) {
+        Candidate candidate = candidates.remove(ConcurrentChunkMap.packPosition(pos.x, pos.y, pos.z));
+        if (candidate != null) {
+            bytes -= candidate.bytes;
+            warmHits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes all chunks matching the predicate off the queue, because they are relevant again.
+     */
+    public void removeAll(Predicate<ChunkImpl> relevant) {
+        Iterator<Candidate> iterator = candidates.values().iterator();
+        while (iterator.hasNext()) {
+            Candidate candidate = iterator.next();
+            if (relevant.apply(candidate.chunk)) {
+                iterator.remove();
+                bytes -= candidate.bytes;
+                warmHits++;
+            }
+        }
+    }
+
+    /**
+     * Unloads queued chunks, oldest first, until the queue fits its budget.
+     *
+     * @param unloader  Unloads a chunk, returning false if the chunk cannot be unloaded right now
+     * @param maxChunks The most chunks to unload in this call
+     * @param all       Whether to empty the queue rather than just bring it within budget
+     * @return The number of chunks unloaded
+     */
+    public int evict(Predicate<ChunkImpl> unloader, int maxChunks, boolean all) {
+        int unloaded = 0;
+        Iterator<Candidate> iterator = candidates.values().iterator();
+        while (unloaded < maxChunks && (all || isOverBudget()) && iterator.hasNext()) {
+            Candidate candidate = iterator.next();
+            if (unloader.apply(candidate.chunk)) {
+                iterator.remove();
+                bytes -= candidate.bytes;
+                evictions++;
+                unloaded++;
+            }
+        }
+        return unloaded;
+    }
+
+    /**
+     * Forgets all queued chunks without unloading them
+     */
+    public void clear() {
+        candidates.clear();
+        bytes = 0;
+    }
+
+    private static final class Candidate {
+        private final ChunkImpl chunk;
+        private final int bytes;
+
+        public Candidate(ChunkImpl chunk, int bytes) {
+            this.chunk = chunk;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Predicate;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.terasology.math.Region3i;
+import org.terasology.math.Vector3i;
+import org.terasology.monitoring.ChunkMonitor;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+
+import javax.vecmath.Vector3f;
+import java.util.Iterator;
+
+/**
+ * Predicts where a relevance entity is heading from the recent history of its position, and works out the chunks to
+ * produce ahead of it: its relevance region moved along its heading.
+ * <p/>
+ * The prefetch region only changes when the entity crosses into another chunk or its heading changes, so tasks for
+ * the old region can be cancelled by reprioritizing. Chunks that were prefetched are tracked until they either enter
+ * the relevance region, which is reported to the {@link ChunkMonitor} as a hit if they were ready by then, or are left
+ * behind by a change of heading, reported as cancelled if they were not ready yet. Only used from the main thread.
+ */
+final class ChunkPrefetcher {
+
+    /**
+     * How many positions are kept to estimate the velocity from
+     */
+    static final int HISTORY_SIZE = 10;
+
+    /**
+     * The least time between two recorded positions, so the history covers about a second at any frame rate
+     */
+    static final long SAMPLE_INTERVAL_MS = 100;
+
+    /**
+     * Entities slower than this, in blocks per second, are kept up with by the relevance region alone
+     */
+    static final float MIN_SPEED = 8.0f;
+
+    /**
+     * Moves faster than this, in blocks per second, are taken to be teleports and restart the history
+     */
+    static final float MAX_SPEED = 500.0f;
+
+    /**
+     * How far ahead the position of the entity is predicted
+     */
+    static final long LOOKAHEAD_MS = 3000;
+
+    private final long[] sampleTimes = new long[HISTORY_SIZE];
+    private final float[] sampleX = new float[HISTORY_SIZE];
+    private final float[] sampleZ = new float[HISTORY_SIZE];
+    private int sampleCount;
+    private int nextSample;
+
+    private Region3i relevanceRegion = Region3i.EMPTY;
+    private Vector3i heading = Vector3i.zero();
+    private Region3i region = Region3i.EMPTY;
+    private final TLongSet pending = new TLongHashSet();
+
+    /**
+     * @return The chunks to produce ahead of the entity, which may overlap its relevance region. Empty if the entity
+     *         is not moving fast enough to need them.
+     */
+    public Region3i getRegion() {
+        return region;
+    }
+
+    /**
+     * @return The offset, in chunks, of the prefetch region from the relevance region
+     */
+    public Vector3i getHeading() {
+        return new Vector3i(heading);
+    }
+
+    /**
+     * @return The number of prefetched chunks that have not entered the relevance region yet
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Records the position of the entity and updates the prefetch region.
+     *
+     * @param worldPos           The current position of the entity
+     * @param timeMs             The current game time
+     * @param newRelevanceRegion The current relevance region of the entity
+     * @param ready              Whether the chunk at a position is ready
+     * @return Whether the prefetch region changed
+     */
+    public boolean update(Vector3f worldPos, long timeMs, Region3i newRelevanceRegion, Predicate<Vector3i> ready) {
+        addSample(worldPos.x, worldPos.z, timeMs);
+
+        if (!newRelevanceRegion.equals(relevanceRegion)) {
+            if (!relevanceRegion.isEmpty()) {
+                recordArrivals(newRelevanceRegion, ready);
+            }
+            relevanceRegion = newRelevanceRegion;
+        }
+
+        Vector3i newHeading = predictHeading();
+        Region3i newRegion = (newHeading.equals(Vector3i.zero())) ? Region3i.EMPTY : relevanceRegion.move(newHeading);
+        heading = newHeading;
+        if (newRegion.equals(region)) {
+            return false;
+        }
+        region = newRegion;
+        abandonLeftBehind(ready);
+        for (Vector3i pos : region) {
+            if (!relevanceRegion.encompasses(pos) && !ready.apply(pos)) {
+                pending.add(ConcurrentChunkMap.packPosition(pos.x, pos.y, pos.z));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the position history and the prefetched chunks, without recording any statistics.
+     */
+    public void reset() {
+        sampleCount = 0;
+        nextSample = 0;
+        relevanceRegion = Region3i.EMPTY;
+        heading = Vector3i.zero();
+        region = Region3i.EMPTY;
+        pending.clear();
+    }
+
+    private void addSample(float x, float z, long timeMs) {
+        if (sampleCount > 0) {
+            int last = (nextSample + HISTORY_SIZE - 1) % HISTORY_SIZE;
+            long elapsed = timeMs - sampleTimes[last];
+            if (elapsed < SAMPLE_INTERVAL_MS && elapsed >= 0) {
+                return;
+            }
+            float dx = x - sampleX[last];
+            float dz = z - sampleZ[last];
+            if (elapsed < 0 || dx * dx + dz * dz > square(MAX_SPEED * elapsed / 1000.0f)) {
+                sampleCount = 0;
+            }
+        }
+        sampleTimes[nextSample] = timeMs;
+        sampleX[nextSample] = x;
+        sampleZ[nextSample] = z;
+        nextSample = (nextSample + 1) % HISTORY_SIZE;
+        sampleCount = Math.min(sampleCount + 1, HISTORY_SIZE);
+    }
+
+    /**
+     * @return The offset of the relevance region from its current center to where the entity will be, in chunks and
+     *         limited to half the size of the region so the two regions always overlap. Zero if the entity is too slow.
+     */
+    private Vector3i predictHeading() {
+        if (sampleCount < 2) {
+            return Vector3i.zero();
+        }
+        int newest = (nextSample + HISTORY_SIZE - 1) % HISTORY_SIZE;
+        int oldest = (nextSample + HISTORY_SIZE - sampleCount) % HISTORY_SIZE;
+        float seconds = (sampleTimes[newest] - sampleTimes[oldest]) / 1000.0f;
+        float velocityX = (sampleX[newest] - sampleX[oldest]) / seconds;
+        float velocityZ = (sampleZ[newest] - sampleZ[oldest]) / seconds;
+        if (velocityX * velocityX + velocityZ * velocityZ < square(MIN_SPEED)) {
+            return Vector3i.zero();
+        }
+        float lookahead = LOOKAHEAD_MS / 1000.0f;
+        int maxX = relevanceRegion.size().x / 2;
+        int maxZ = relevanceRegion.size().z / 2;
+        int x = clamp(Math.round(velocityX * lookahead / ChunkConstants.SIZE_X), maxX);
+        int z = clamp(Math.round(velocityZ * lookahead / ChunkConstants.SIZE_Z), maxZ);
+        return new Vector3i(x, 0, z);
+    }
+
+    /**
+     * Records the outcome of the prefetched chunks that have just entered the relevance region, and counts the chunks
+     * entering it unready as misses.
+     */
+    private void recordArrivals(Region3i newRelevanceRegion, Predicate<Vector3i> ready) {
+        Iterator<Vector3i> arrivals = newRelevanceRegion.subtract(relevanceRegion);
+        while (arrivals.hasNext()) {
+            Vector3i pos = arrivals.next();
+            boolean prefetched = pending.remove(ConcurrentChunkMap.packPosition(pos.x, pos.y, pos.z));
+            if (!ready.apply(pos)) {
+                ChunkMonitor.firePrefetchMiss();
+            } else if (prefetched) {
+                ChunkMonitor.firePrefetchHit();
+            }
+        }
+    }
+
+    /**
+     * Stops tracking the prefetched chunks that are in neither the relevance region nor the prefetch region any more.
+     * Their tasks are cancelled once the chunk tasks are reprioritized.
+     */
+    private void abandonLeftBehind(Predicate<Vector3i> ready) {
+        Vector3i pos = new Vector3i();
+        TLongIterator iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next();
+            pos.set(ConcurrentChunkMap.unpackX(key), ConcurrentChunkMap.unpackY(key), ConcurrentChunkMap.unpackZ(key));
+            if (!region.encompasses(pos) && !relevanceRegion.encompasses(pos)) {
+                iterator.remove();
+                if (!ready.apply(pos)) {
+                    ChunkMonitor.firePrefetchCancelled();
+                }
+            }
+        }
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+
+    private static float square(float value) {
+        return value * value;
+    }
+}
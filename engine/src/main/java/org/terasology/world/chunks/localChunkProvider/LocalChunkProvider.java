@@ -16,6 +16,7 @@
 
 package org.terasology.world.chunks.localChunkProvider;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
@@ -29,10 +30,11 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.Time;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.Region3i;
-import org.terasology.math.Side;
 import org.terasology.math.TeraMath;
 import org.terasology.math.Vector3i;
 import org.terasology.monitoring.ChunkMonitor;
@@ -56,28 +58,25 @@
 import org.terasology.world.chunks.event.PurgeWorldEvent;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.chunks.internal.ChunkRelevanceRegion;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.internal.ReadyChunkInfo;
 import org.terasology.world.chunks.pipeline.AbstractChunkTask;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
-import org.terasology.world.chunks.pipeline.ChunkTask;
+import org.terasology.world.chunks.pipeline.ChunkPipelineStatistics;
+import org.terasology.world.chunks.pipeline.ChunkTaskPrioritizer;
 import org.terasology.world.generator.WorldGenerator;
 import org.terasology.world.internal.ChunkViewCore;
 import org.terasology.world.internal.ChunkViewCoreImpl;
-import org.terasology.world.propagation.BatchPropagator;
 import org.terasology.world.propagation.light.InternalLightProcessor;
-import org.terasology.world.propagation.light.LightPropagationRules;
-import org.terasology.world.propagation.light.LightWorldView;
-import org.terasology.world.propagation.light.SunlightPropagationRules;
-import org.terasology.world.propagation.light.SunlightWorldView;
 
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -86,8 +85,31 @@
  */
 public class LocalChunkProvider implements ChunkProvider, GeneratingChunkProvider {
 
-    // TODO: Dynamically calculate this
-    private static final int CACHE_SIZE = (int) (1.5 * Runtime.getRuntime().maxMemory() / 1048576);
+    /**
+     * How far around a relevance region loaded chunks are kept, in chunks
+     */
+    private static final Vector3i RETAIN_MARGIN = new Vector3i(4, 0, 4);
+
+    /**
+     * How many loaded chunks are checked for relevance each update, on top of those affected by relevance changes
+     */
+    private static final int CHUNKS_SWEPT_PER_UPDATE = 64;
+
+    /**
+     * The most chunks unloaded in one update, as each unload stores the chunk's entities on the main thread
+     */
+    private static final int MAX_UNLOADS_PER_UPDATE = 8;
+
+    /**
+     * The most ready chunks made available in one update. Their edges are lit together, in parallel.
+     */
+    private static final int MAX_READY_CHUNKS_PER_UPDATE = 8;
+
+    /**
+     * Added to the priority of chunks that are only produced ahead of a relevance entity, so they run after every
+     * chunk that is already relevant
+     */
+    private static final int PREFETCH_PRIORITY = 1 << 16;
 
     private static final Logger logger = LoggerFactory.getLogger(LocalChunkProvider.class);
 
@@ -98,42 +120,85 @@ public class LocalChunkProvider implements ChunkProvider, GeneratingChunkProvide
     private WorldGenerator generator;
 
     private Map<EntityRef, ChunkRelevanceRegion> regions = Maps.newHashMap();
+    private Map<EntityRef, ChunkPrefetcher> prefetchers = Maps.newHashMap();
+    private List<Region3i> pinnedRegions = Lists.newArrayList();
+    private volatile boolean prefetchEnabled = true;
+    private final Predicate<Vector3i> chunkReady = new Predicate<Vector3i>() {
+        @Override
+        public boolean apply(Vector3i pos) {
+            return isChunkReady(pos);
+        }
+    };
 
-    private ConcurrentMap<Vector3i, ChunkImpl> nearCache = Maps.newConcurrentMap();
+    private ConcurrentChunkMap<ChunkImpl> nearCache = new ConcurrentChunkMap<>();
 
-    private final Set<Vector3i> preparingChunks = Sets.newSetFromMap(Maps.<Vector3i, Boolean>newConcurrentMap());
+    private final ConcurrentChunkMap<Boolean> preparingChunks = new ConcurrentChunkMap<>();
     private final BlockingQueue<ReadyChunkInfo> readyChunks = Queues.newLinkedBlockingQueue();
     private final BlockingQueue<TShortObjectMap<TIntList>> deactivateBlocksQueue = Queues.newLinkedBlockingQueue();
 
     private EntityRef worldEntity = EntityRef.NULL;
 
     private ReadWriteLock regionLock = new ReentrantReadWriteLock();
+    private final ChunkTaskRelevancePrioritizer taskPrioritizer = new ChunkTaskRelevancePrioritizer();
+    private volatile boolean relevanceChanged;
 
     private BlockManager blockManager;
     private BlockEntityRegistry registry;
+    private Time time;
 
+    private final ChunkEvictionQueue evictionQueue;
+    private List<Region3i> retainRegions = Lists.newArrayList();
+    private Iterator<ChunkImpl> sweepIterator;
     private boolean forceCleanup;
-
-    private List<BatchPropagator> loadEdgePropagators = Lists.newArrayList();
+    private boolean draining;
 
     public LocalChunkProvider(StorageManager storageManager, WorldGenerator generator) {
+        this(storageManager, generator, getDefaultCacheBudget());
+    }
+
+    /**
+     * @param cacheBudget The memory, in bytes, that loaded chunks outside of every relevance region may take up before
+     *                    they are unloaded
+     */
+    public LocalChunkProvider(StorageManager storageManager, WorldGenerator generator, long cacheBudget) {
         blockManager = CoreRegistry.get(BlockManager.class);
+        time = CoreRegistry.get(Time.class);
         this.storageManager = storageManager;
         this.generator = generator;
-        this.pipeline = new ChunkGenerationPipeline(this, generator, new ChunkTaskRelevanceComparator());
+        this.pipeline = new ChunkGenerationPipeline(this, generator, taskPrioritizer);
         this.unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 8);
+        this.evictionQueue = new ChunkEvictionQueue(cacheBudget);
         ChunkMonitor.fireChunkProviderInitialized(this);
 
-        logger.info("CACHE_SIZE = {} for nearby chunks", CACHE_SIZE);
-
-        loadEdgePropagators.add(new BatchPropagator(new LightPropagationRules(), new LightWorldView(this)));
-        loadEdgePropagators.add(new BatchPropagator(new SunlightPropagationRules(), new SunlightWorldView(this)));
+        logger.info("Keeping up to {} MB of chunks outside relevance regions loaded", cacheBudget / 1048576);
     }
 
     public void setBlockEntityRegistry(BlockEntityRegistry value) {
         this.registry = value;
     }
 
+    /**
+     * @return A quarter of the maximum heap size
+     */
+    public static long getDefaultCacheBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Sets whether chunks are produced ahead of relevance entities that move fast, along their heading. The outcome of
+     * prefetching is reported to the {@link ChunkMonitor}.
+     */
+    public void setPrefetchEnabled(boolean enabled) {
+        this.prefetchEnabled = enabled;
+    }
+
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    /**
+     * Unloads all chunks outside of the relevance regions over the next updates, regardless of the cache budget.
+     */
     public void requestCleanup() {
         forceCleanup = true;
     }
@@ -207,6 +272,9 @@ public void addRelevanceEntity(EntityRef entity, int distance, ChunkRegionListen
         regionLock.writeLock().lock();
         try {
             regions.put(entity, region);
+            prefetchers.put(entity, new ChunkPrefetcher());
+            taskPrioritizer.update(regions.values(), prefetchers.values(), pinnedRegions);
+            relevanceChanged = true;
         } finally {
             regionLock.writeLock().unlock();
         }
@@ -226,22 +294,109 @@ public void updateRelevanceEntity(EntityRef entity, int distance) {
             ChunkRelevanceRegion region = regions.get(entity);
             if (region != null) {
                 region.setRelevanceDistance(distance + ChunkConstants.FULL_GENERATION_DISTANCE);
+                relevanceChanged = true;
             }
         } finally {
             regionLock.readLock().unlock();
         }
     }
 
+    /**
+     * Produces all chunks in a region and keeps them loaded, as if a relevance entity were standing over it, until the
+     * region is unpinned. Used to generate parts of the world no player is near.
+     */
+    public void pinRegion(Region3i region) {
+        regionLock.writeLock().lock();
+        try {
+            pinnedRegions.add(region);
+            taskPrioritizer.update(regions.values(), prefetchers.values(), pinnedRegions);
+            relevanceChanged = true;
+        } finally {
+            regionLock.writeLock().unlock();
+        }
+        pipeline.requestProduction(region.expand(new Vector3i(2, 0, 2)));
+    }
+
+    /**
+     * Stops keeping a pinned region loaded. Its chunks are unloaded like any other irrelevant chunks.
+     */
+    public void unpinRegion(Region3i region) {
+        regionLock.writeLock().lock();
+        try {
+            pinnedRegions.remove(region);
+            relevanceChanged = true;
+        } finally {
+            regionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Whether the chunk is kept loaded because it is near a relevance entity, or ahead of one
+     */
+    public boolean isChunkKeptForRelevanceEntity(Vector3i pos) {
+        regionLock.readLock().lock();
+        try {
+            for (ChunkRelevanceRegion region : regions.values()) {
+                if (region.getRegion().expand(RETAIN_MARGIN).encompasses(pos)) {
+                    return true;
+                }
+            }
+            for (ChunkPrefetcher prefetcher : prefetchers.values()) {
+                if (!prefetcher.getRegion().isEmpty() && prefetcher.getRegion().expand(RETAIN_MARGIN).encompasses(pos)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            regionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Whether the chunk is complete, and has been made available to the world with its edges lit
+     */
+    public boolean isChunkAvailable(Vector3i pos) {
+        ChunkImpl chunk = nearCache.get(pos);
+        return isChunkReady(chunk) && chunk.isReady();
+    }
+
+    /**
+     * @return Whether the chunk is in memory, in any state
+     */
+    public boolean isChunkLoaded(Vector3i pos) {
+        return nearCache.get(pos) != null;
+    }
+
+    public ChunkPipelineStatistics getPipelineStatistics() {
+        return pipeline.getStatistics();
+    }
+
     @Override
     public void removeRelevanceEntity(EntityRef entity) {
         regionLock.writeLock().lock();
         try {
             regions.remove(entity);
+            prefetchers.remove(entity);
+            relevanceChanged = true;
         } finally {
             regionLock.writeLock().unlock();
         }
     }
 
+    @Override
+    public List<Region3i> getRelevanceRegions() {
+        regionLock.readLock().lock();
+        try {
+            List<Region3i> result = Lists.newArrayListWithCapacity(regions.size());
+            for (ChunkRelevanceRegion region : regions.values()) {
+                result.add(region.getRegion());
+            }
+            return result;
+        } finally {
+            regionLock.readLock().unlock();
+        }
+    }
+
     @Override
     public void update() {
         regionLock.readLock().lock();
@@ -255,14 +410,36 @@ public void update() {
         }
     }
 
+    /**
+     * Makes a batch of ready chunks available. The chunks are marked ready first, then the edges between them and
+     * their neighbours are lit together, and only then are the chunks announced.
+     */
     private void makeChunksAvailable() {
-        ReadyChunkInfo readyChunkInfo = readyChunks.poll();
-        if (readyChunkInfo != null) {
-            makeChunkAvailable(readyChunkInfo);
-            for (BatchPropagator propagator : loadEdgePropagators) {
-                propagator.process();
+        List<ReadyChunkInfo> readyChunkInfos = Lists.newArrayListWithCapacity(MAX_READY_CHUNKS_PER_UPDATE);
+        readyChunks.drainTo(readyChunkInfos, MAX_READY_CHUNKS_PER_UPDATE);
+        if (readyChunkInfos.isEmpty()) {
+            return;
+        }
+        List<ChunkImpl> availableChunks = Lists.newArrayListWithCapacity(readyChunkInfos.size());
+        Set<ChunkImpl> generatedChunks = Sets.newIdentityHashSet();
+        for (ReadyChunkInfo readyChunkInfo : readyChunkInfos) {
+            ChunkImpl chunk = getChunk(readyChunkInfo.getPos());
+            if (chunk != null) {
+                if (!chunk.isInitialGenerationComplete()) {
+                    generatedChunks.add(chunk);
+                }
+                makeChunkAvailable(chunk, readyChunkInfo);
+                availableChunks.add(chunk);
             }
         }
+
+        PerformanceMonitor.startActivity("Lighting chunk edges");
+        pipeline.lightChunkEdges(availableChunks);
+        PerformanceMonitor.endActivity();
+
+        for (ChunkImpl chunk : availableChunks) {
+            announceChunk(chunk, generatedChunks.contains(chunk));
+        }
     }
 
     private void deactivateBlocks() {
@@ -283,63 +460,107 @@ public boolean execute(short id, TIntList positions) {
 
     private void checkForUnload() {
         PerformanceMonitor.startActivity("Review cache size");
-        if (nearCache.size() > CACHE_SIZE || forceCleanup) {
+        if (forceCleanup) {
             forceCleanup = false;
             logger.debug("Compacting cache");
-            Iterator<Vector3i> iterator = nearCache.keySet().iterator();
-            while (iterator.hasNext()) {
-                Vector3i pos = iterator.next();
-                boolean keep = false;
+            sweepForIrrelevantChunks(nearCache.size());
+            draining = true;
+        } else {
+            sweepForIrrelevantChunks(CHUNKS_SWEPT_PER_UPDATE);
+        }
+        evictionQueue.evict(new Predicate<ChunkImpl>() {
+            @Override
+            public boolean apply(ChunkImpl chunk) {
+                return unloadChunk(chunk);
+            }
+        }, MAX_UNLOADS_PER_UPDATE, draining);
+        if (evictionQueue.isEmpty()) {
+            draining = false;
+        }
+        PerformanceMonitor.endActivity();
+    }
+
+    /**
+     * Advances through the loaded chunks from where the last sweep stopped, queueing those outside all relevance regions
+     * for eviction. Chunks that are relevant again are taken off the queue.
+     *
+     * @param count The number of chunks to check
+     */
+    private void sweepForIrrelevantChunks(int count) {
+        for (int i = 0; i < count; ++i) {
+            if (sweepIterator == null || !sweepIterator.hasNext()) {
+                sweepIterator = nearCache.values().iterator();
+                if (!sweepIterator.hasNext()) {
+                    return;
+                }
+            }
+            ChunkImpl chunk = sweepIterator.next();
+            Vector3i pos = chunk.getPos();
+            if (nearCache.get(pos) != chunk) {
+                // Already unloaded since the sweep started
+                continue;
+            }
+            if (isRetained(pos)) {
+                evictionQueue.remove(pos);
+            } else {
+                evictionQueue.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Saves and disposes a chunk, and removes it from the cache.
+     *
+     * @return Whether the chunk is no longer in the cache. False if it is in use and should be tried again later.
+     */
+    private boolean unloadChunk(ChunkImpl chunk) {
+        Vector3i pos = chunk.getPos();
+        if (nearCache.get(pos) != chunk) {
+            return true;
+        }
+        // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
+        // Note: Above won't matter if all changes are on the main thread
+        if (chunk.isLocked()) {
+            return false;
+        }
+        chunk.lock();
+        try {
+            if (chunk.getChunkState() == ChunkImpl.State.COMPLETE && !chunk.isReady()) {
+                // Chunk is complete, but hasn't had events sent out/entities loaded.
+                return false;
+            }
+            if (chunk.getChunkState() == ChunkImpl.State.COMPLETE) {
+                worldEntity.send(new BeforeChunkUnload(pos));
                 for (ChunkRelevanceRegion region : regions.values()) {
-                    if (region.getRegion().expand(new Vector3i(4, 0, 4)).encompasses(pos)) {
-                        keep = true;
-                        break;
-                    }
+                    region.chunkUnloaded(pos);
                 }
-                if (!keep) {
-                    // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
-                    // Note: Above won't matter if all changes are on the main thread
-                    ChunkImpl chunk = nearCache.get(pos);
-                    if (chunk.isLocked()) {
-                        continue;
-                    }
-                    chunk.lock();
-                    try {
-                        if (chunk.getChunkState() == ChunkImpl.State.COMPLETE && !chunk.isReady()) {
-                            // Chunk is complete, but hasn't had events sent out/entities loaded.
-                            continue;
-                        }
-                        if (chunk.getChunkState() == ChunkImpl.State.COMPLETE) {
-                            worldEntity.send(new BeforeChunkUnload(pos));
-                            for (ChunkRelevanceRegion region : regions.values()) {
-                                region.chunkUnloaded(pos);
-                            }
-                        }
-                        ChunkStore store = storageManager.createChunkStoreForSave(chunk);
-                        store.storeAllEntities();
-                        store.save();
+            }
+            long start = System.nanoTime();
+            ChunkStore store = storageManager.createChunkStoreForSave(chunk);
+            store.storeAllEntities();
+            store.save();
+            pipeline.getStatistics().record(ChunkPipelineStatistics.Stage.STORE, 1, start);
 
-                        chunk.dispose();
+            chunk.dispose();
 
-                        try {
-                            unloadRequestTaskMaster.put(new ChunkUnloadRequest(chunk, this));
-                        } catch (InterruptedException e) {
-                            logger.error("Failed to enqueue unload request for {}", chunk.getPos(), e);
-                        }
-                        iterator.remove();
-                    } finally {
-                        chunk.unlock();
-                    }
-                }
+            try {
+                unloadRequestTaskMaster.put(new ChunkUnloadRequest(chunk, this));
+            } catch (InterruptedException e) {
+                logger.error("Failed to enqueue unload request for {}", chunk.getPos(), e);
             }
+            nearCache.remove(pos, chunk);
+            return true;
+        } finally {
+            chunk.unlock();
         }
-        PerformanceMonitor.endActivity();
     }
 
     private void updateRelevance() {
-        for (ChunkRelevanceRegion chunkRelevanceRegion : regions.values()) {
+        for (Map.Entry<EntityRef, ChunkRelevanceRegion> entry : regions.entrySet()) {
+            ChunkRelevanceRegion chunkRelevanceRegion = entry.getValue();
             chunkRelevanceRegion.update();
             if (chunkRelevanceRegion.isDirty()) {
+                relevanceChanged = true;
                 boolean produceChunks = false;
                 for (Vector3i pos : chunkRelevanceRegion.getNeededChunks()) {
                     ChunkImpl chunk = nearCache.get(pos);
@@ -354,14 +575,74 @@ private void updateRelevance() {
                 }
                 chunkRelevanceRegion.setUpToDate();
             }
+            updatePrefetch(entry.getKey(), chunkRelevanceRegion);
+        }
+        if (relevanceChanged) {
+            relevanceChanged = false;
+            taskPrioritizer.update(regions.values(), prefetchers.values(), pinnedRegions);
+            pipeline.reprioritizeTasks();
+            updateRetainRegions();
         }
     }
 
-    private void makeChunkAvailable(ReadyChunkInfo readyChunkInfo) {
-        ChunkImpl chunk = getChunk(readyChunkInfo.getPos());
-        if (chunk == null) {
+    /**
+     * Moves the prefetch region of a relevance entity along with it, requesting production of the chunks ahead. Tasks for
+     * chunks left behind by a change of heading are cancelled when the tasks are next reprioritized.
+     */
+    private void updatePrefetch(EntityRef entity, ChunkRelevanceRegion relevanceRegion) {
+        ChunkPrefetcher prefetcher = prefetchers.get(entity);
+        LocationComponent loc = entity.getComponent(LocationComponent.class);
+        if (prefetcher == null || loc == null) {
+            return;
+        }
+        if (!prefetchEnabled || time == null) {
+            if (!prefetcher.getRegion().isEmpty()) {
+                relevanceChanged = true;
+            }
+            prefetcher.reset();
             return;
         }
+        if (prefetcher.update(loc.getWorldPosition(), time.getGameTimeInMs(), relevanceRegion.getRegion(), chunkReady)) {
+            relevanceChanged = true;
+            if (!prefetcher.getRegion().isEmpty()) {
+                pipeline.requestProduction(prefetcher.getRegion());
+            }
+        }
+    }
+
+    private void updateRetainRegions() {
+        List<Region3i> newRetainRegions = Lists.newArrayListWithCapacity(regions.size() + prefetchers.size() + pinnedRegions.size());
+        for (ChunkRelevanceRegion region : regions.values()) {
+            newRetainRegions.add(region.getRegion().expand(RETAIN_MARGIN));
+        }
+        for (Region3i region : pinnedRegions) {
+            newRetainRegions.add(region.expand(RETAIN_MARGIN));
+        }
+        for (ChunkPrefetcher prefetcher : prefetchers.values()) {
+            if (!prefetcher.getRegion().isEmpty()) {
+                newRetainRegions.add(prefetcher.getRegion().expand(RETAIN_MARGIN));
+            }
+        }
+        retainRegions = newRetainRegions;
+        // Chunks that were about to be unloaded but that a player has come back to stay loaded
+        evictionQueue.removeAll(new Predicate<ChunkImpl>() {
+            @Override
+            public boolean apply(ChunkImpl chunk) {
+                return isRetained(chunk.getPos());
+            }
+        });
+    }
+
+    private boolean isRetained(Vector3i chunkPos) {
+        for (Region3i retainRegion : retainRegions) {
+            if (retainRegion.encompasses(chunkPos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void makeChunkAvailable(ChunkImpl chunk, ReadyChunkInfo readyChunkInfo) {
         chunk.lock();
         try {
             chunk.markReady();
@@ -401,21 +682,23 @@ public boolean execute(short id, TIntList positions) {
                 }
             });
             PerformanceMonitor.endActivity();
+        } finally {
+            chunk.unlock();
+        }
+    }
 
-            for (Side side : Side.horizontalSides()) {
-                Vector3i adjChunkPos = side.getAdjacentPos(readyChunkInfo.getPos());
-                ChunkImpl adjChunk = getChunk(adjChunkPos);
-                if (adjChunk != null) {
-                    for (BatchPropagator propagator : loadEdgePropagators) {
-                        propagator.propagateBetween(chunk, adjChunk, side);
-                    }
-                }
-            }
-
-            if (!loaded) {
-                worldEntity.send(new OnChunkGenerated(readyChunkInfo.getPos()));
+    /**
+     * Tells the world and the relevance regions about a chunk that has been made available and had its edges lit.
+     *
+     * @param generated Whether the chunk was newly generated rather than loaded
+     */
+    private void announceChunk(ChunkImpl chunk, boolean generated) {
+        chunk.lock();
+        try {
+            if (generated) {
+                worldEntity.send(new OnChunkGenerated(chunk.getPos()));
             }
-            worldEntity.send(new OnChunkLoaded(readyChunkInfo.getPos()));
+            worldEntity.send(new OnChunkLoaded(chunk.getPos()));
             for (ChunkRelevanceRegion region : regions.values()) {
                 region.chunkReady(chunk);
             }
@@ -464,7 +747,11 @@ private TShortObjectMap<TIntList> createBatchBlockEventMappings(ChunkImpl chunk)
 
     @Override
     public ChunkImpl getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        ChunkImpl chunk = nearCache.get(x, y, z);
+        if (isChunkReady(chunk)) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
@@ -489,7 +776,8 @@ public void dispose() {
             store.save();
         }
         nearCache.clear();
-
+        evictionQueue.clear();
+        sweepIterator = null;
     }
 
     @Override
@@ -508,11 +796,13 @@ public void purgeChunks() {
             store.save();
         }
         nearCache.clear();
+        evictionQueue.clear();
+        sweepIterator = null;
         storageManager.purgeChunks();
         
         worldEntity.send(new PurgeWorldEvent());
 
-        this.pipeline = new ChunkGenerationPipeline(this, generator, new ChunkTaskRelevanceComparator());
+        this.pipeline = new ChunkGenerationPipeline(this, generator, taskPrioritizer);
         this.unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 8);
         ChunkMonitor.fireChunkProviderInitialized(this);
 
@@ -520,6 +810,12 @@ public void purgeChunks() {
             pipeline.requestProduction(chunkRelevanceRegion.getRegion().expand(new Vector3i(2, 0, 2)));
             chunkRelevanceRegion.setUpToDate();
         }
+        for (Region3i pinnedRegion : pinnedRegions) {
+            pipeline.requestProduction(pinnedRegion.expand(new Vector3i(2, 0, 2)));
+        }
+        for (ChunkPrefetcher prefetcher : prefetchers.values()) {
+            prefetcher.reset();
+        }
     }
 
     @Override
@@ -547,7 +843,7 @@ public void createOrLoadChunk(Vector3i chunkPos) {
         ChunkImpl chunk = nearCache.get(chunkPos);
         if (chunk == null) {
             PerformanceMonitor.startActivity("Check chunk in cache");
-            if (preparingChunks.add(chunkPos)) {
+            if (preparingChunks.putIfAbsent(chunkPos, Boolean.TRUE) == null) {
                 if (nearCache.get(chunkPos) != null) {
                     // This happens if the chunk is completed right before checking if it is in preparing chunks. Fun.
                     preparingChunks.remove(chunkPos);
@@ -558,6 +854,11 @@ public String getName() {
                             return "Load Chunk";
                         }
 
+                        @Override
+                        public void onCancelled() {
+                            preparingChunks.remove(getPosition());
+                        }
+
                         @Override
                         public void run() {
                             ChunkStore chunkStore = storageManager.loadChunkStore(getPosition());
@@ -591,10 +892,17 @@ public String getName() {
                             return "Generate Chunk";
                         }
 
+                        @Override
+                        public void onCancelled() {
+                            preparingChunks.remove(getPosition());
+                        }
+
                         @Override
                         public void run() {
                             ChunkImpl chunk = new ChunkImpl(getPosition());
+                            long start = System.nanoTime();
                             generator.createChunk(chunk);
+                            getPipeline().getStatistics().record(ChunkPipelineStatistics.Stage.GENERATE, 1, start);
                             if (nearCache.putIfAbsent(getPosition(), chunk) != null) {
                                 logger.warn("Chunk {} is already in the near cache", getPosition());
                             }
@@ -627,32 +935,64 @@ private boolean isChunkReady(ChunkImpl chunk) {
         return chunk != null && chunk.getChunkState() == ChunkImpl.State.COMPLETE;
     }
 
-    private class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
+    /**
+     * Prioritizes chunk tasks by their distance to the nearest relevance or pinned region. Chunks that are only in a prefetch
+     * region come after all relevant chunks, ordered by their distance to where the entity is heading. Works from a
+     * snapshot of the regions that is refreshed on the main thread whenever they change, so scoring a task never takes
+     * the region lock.
+     */
+    private static class ChunkTaskRelevancePrioritizer implements ChunkTaskPrioritizer {
 
-        @Override
-        public int compare(ChunkTask o1, ChunkTask o2) {
-            return score(o1.getPosition()) - score(o2.getPosition());
-        }
+        /**
+         * How far around a relevance region tasks are kept, matching the margin used when requesting production
+         */
+        private static final Vector3i RETAIN_MARGIN = new Vector3i(2, 0, 2);
 
-        private int score(Vector3i chunk) {
-            int score = Integer.MAX_VALUE;
+        private volatile List<RegionSnapshot> snapshot = Collections.emptyList();
 
-            regionLock.readLock().lock();
-            try {
-                for (ChunkRelevanceRegion region : regions.values()) {
-                    int dist = distFromRegion(chunk, region.getCenter());
+        public void update(Collection<ChunkRelevanceRegion> relevanceRegions, Collection<ChunkPrefetcher> prefetchRegions,
+                           Collection<Region3i> pinnedRegions) {
+            List<RegionSnapshot> newSnapshot = Lists.newArrayListWithCapacity(relevanceRegions.size() + prefetchRegions.size() + pinnedRegions.size());
+            for (ChunkRelevanceRegion region : relevanceRegions) {
+                newSnapshot.add(new RegionSnapshot(region.getCenter(), region.getRegion().expand(RETAIN_MARGIN), 0));
+            }
+            for (Region3i region : pinnedRegions) {
+                newSnapshot.add(new RegionSnapshot(new Vector3i(region.center()), region.expand(RETAIN_MARGIN), 0));
+            }
+            for (ChunkPrefetcher prefetcher : prefetchRegions) {
+                Region3i region = prefetcher.getRegion();
+                if (!region.isEmpty()) {
+                    Vector3i center = new Vector3i(region.center());
+                    newSnapshot.add(new RegionSnapshot(center, region.expand(RETAIN_MARGIN), PREFETCH_PRIORITY));
+                }
+            }
+            snapshot = newSnapshot;
+        }
+
+        @Override
+        public int getPriority(Vector3i chunkPos) {
+            int score = IRRELEVANT;
+            for (RegionSnapshot region : snapshot) {
+                if (region.retainRegion.encompasses(chunkPos)) {
+                    int dist = region.basePriority + chunkPos.gridDistance(region.center);
                     if (dist < score) {
                         score = dist;
                     }
                 }
-                return score;
-            } finally {
-                regionLock.readLock().unlock();
             }
+            return score;
         }
+    }
+
+    private static final class RegionSnapshot {
+        private final Vector3i center;
+        private final Region3i retainRegion;
+        private final int basePriority;
 
-        private int distFromRegion(Vector3i pos, Vector3i regionCenter) {
-            return pos.gridDistance(regionCenter);
+        public RegionSnapshot(Vector3i center, Region3i retainRegion, int basePriority) {
+            this.center = center;
+            this.retainRegion = retainRegion;
+            this.basePriority = basePriority;
         }
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.engine.GameEngine;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.logic.console.Command;
+import org.terasology.logic.console.CommandParam;
+import org.terasology.math.Vector3i;
+import org.terasology.persistence.StorageManager;
+import org.terasology.registry.CoreRegistry;
+
+import java.io.IOException;
+
+/**
+ * Runs a {@link WorldPregenerator} around the origin, either when asked through the console or, in the headless batch
+ * mode, as soon as the game has started. The batch mode shuts the engine down once all chunks are stored.
+ */
+public class WorldPregenerationSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorldPregenerationSystem.class);
+
+    private static final String PROGRESS_FILE = "pregeneration.txt";
+
+    private LocalChunkProvider chunkProvider;
+    private StorageManager storageManager;
+
+    private WorldPregenerator pregenerator;
+    private boolean shutdownWhenDone;
+
+    public WorldPregenerationSystem(LocalChunkProvider chunkProvider, StorageManager storageManager) {
+        this.chunkProvider = chunkProvider;
+        this.storageManager = storageManager;
+    }
+
+    @Override
+    public void postBegin() {
+        int radius = CoreRegistry.get(Config.class).getSystem().getPregenerationRadius();
+        if (radius > 0) {
+            shutdownWhenDone = true;
+            start(radius);
+        }
+    }
+
+    @Override
+    public void update(float delta) {
+        if (pregenerator == null) {
+            return;
+        }
+        try {
+            if (pregenerator.update()) {
+                logger.info("Pregeneration complete");
+                finish();
+            }
+        } catch (IOException e) {
+            logger.error("Pregeneration failed, it can be resumed by running it again", e);
+            finish();
+        }
+    }
+
+    @Command(shortDescription = "Generates and stores all chunks around the origin",
+            helpText = "Generates, lights and stores every chunk within the given number of chunks of the origin, reporting the throughput " +
+                    "of each stage of chunk production once done. Chunks stored by an earlier run are skipped.")
+    public String pregenerate(@CommandParam("radius") int radius) {
+        if (pregenerator != null) {
+            return "Pregeneration already running, " + pregenerator.getStoredTiles() + " of " + pregenerator.getTotalTiles() + " tiles stored";
+        }
+        if (start(radius)) {
+            return "Pregenerating " + pregenerator.getTotalTiles() + " tiles";
+        }
+        return "Failed to start pregeneration, see the log for details";
+    }
+
+    private boolean start(int radius) {
+        try {
+            pregenerator = new WorldPregenerator(chunkProvider, storageManager, Vector3i.zero(), radius,
+                    PathManager.getInstance().getCurrentSavePath().resolve(PROGRESS_FILE));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Failed to start pregeneration", e);
+            if (shutdownWhenDone) {
+                CoreRegistry.get(GameEngine.class).shutdown();
+            }
+            return false;
+        }
+    }
+
+    private void finish() {
+        pregenerator.logReport();
+        pregenerator = null;
+        if (shutdownWhenDone) {
+            CoreRegistry.get(GameEngine.class).shutdown();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.persistence.StorageManager;
+import org.terasology.world.chunks.pipeline.ChunkPipelineStatistics;
+import org.terasology.world.chunks.pipeline.ChunkTaskScheduler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates, lights and stores every chunk within a square around a center chunk, without any player being there.
+ * <p/>
+ * The square is split into tiles that are pinned in the chunk provider a few at a time, so all chunk threads are kept
+ * busy. Once all chunks of a tile have been made available the tile is unpinned and its chunks are unloaded, which
+ * stores them. The storage manager is flushed every few seconds, after which the stored tiles are appended to a progress
+ * file. Tiles listed in the progress file are skipped, so an interrupted run can be resumed.
+ * <p/>
+ * Driven from the main thread by calling {@link #update()} every frame.
+ */
+public final class WorldPregenerator {
+
+    /**
+     * The width of a tile, in chunks
+     */
+    public static final int TILE_SIZE = 8;
+
+    private static final Logger logger = LoggerFactory.getLogger(WorldPregenerator.class);
+
+    private static final long FLUSH_INTERVAL_MS = 10000;
+    private static final double NANOS_PER_SECOND = 1.0e9;
+
+    private final LocalChunkProvider chunkProvider;
+    private final StorageManager storageManager;
+    private final Path progressFile;
+    private final int tilesInFlight;
+
+    private final Deque<Region3i> queuedTiles = Queues.newArrayDeque();
+    private final List<Region3i> generatingTiles = Lists.newArrayList();
+    private final List<Region3i> storingTiles = Lists.newArrayList();
+    private final int totalTiles;
+    private final int skippedTiles;
+    private int storedTiles;
+    private int keptTiles;
+
+    private long startNanos;
+    private long lastFlushNanos;
+
+    /**
+     * @param chunkProvider  The chunk provider of the world to generate
+     * @param storageManager The storage manager the chunks are stored with
+     * @param center         The chunk at the center of the square
+     * @param radius         The distance from the center to the edges of the square, in chunks. The square is rounded
+     *                       out to whole tiles.
+     * @param progressFile   The file recording the tiles that have been stored, which is created if missing
+     * @throws IOException If the progress file exists but cannot be read
+     */
+    public WorldPregenerator(LocalChunkProvider chunkProvider, StorageManager storageManager, Vector3i center, int radius, Path progressFile)
+            throws IOException {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+        this.chunkProvider = chunkProvider;
+        this.storageManager = storageManager;
+        this.progressFile = progressFile;
+        this.tilesInFlight = Math.max(2, ChunkTaskScheduler.getDefaultThreadCount());
+
+        Set<String> storedTileKeys = Sets.newHashSet();
+        if (Files.exists(progressFile)) {
+            storedTileKeys.addAll(Files.readAllLines(progressFile, Charsets.UTF_8));
+        }
+
+        int minTileX = toTile(center.x - radius);
+        int maxTileX = toTile(center.x + radius);
+        int minTileZ = toTile(center.z - radius);
+        int maxTileZ = toTile(center.z + radius);
+        int skipped = 0;
+        for (int tileZ = minTileZ; tileZ <= maxTileZ; ++tileZ) {
+            // Back and forth, so the tiles being generated stay next to each other and share their borders
+            for (int i = 0; i <= maxTileX - minTileX; ++i) {
+                int tileX = ((tileZ - minTileZ) % 2 == 0) ? minTileX + i : maxTileX - i;
+                if (storedTileKeys.contains(tileKey(tileX, tileZ))) {
+                    skipped++;
+                } else {
+                    queuedTiles.add(Region3i.createFromMinAndSize(new Vector3i(tileX * TILE_SIZE, 0, tileZ * TILE_SIZE),
+                            new Vector3i(TILE_SIZE, 1, TILE_SIZE)));
+                }
+            }
+        }
+        this.totalTiles = (maxTileX - minTileX + 1) * (maxTileZ - minTileZ + 1);
+        this.skippedTiles = skipped;
+        logger.info("Pregenerating {} tiles of {}x{} chunks, {} of them already stored", totalTiles, TILE_SIZE, TILE_SIZE, skippedTiles);
+    }
+
+    public int getTotalTiles() {
+        return totalTiles;
+    }
+
+    /**
+     * @return The number of tiles that have been stored, including those stored by earlier runs
+     */
+    public int getStoredTiles() {
+        return skippedTiles + storedTiles;
+    }
+
+    /**
+     * @return The number of tiles that were generated but not stored, because some of their chunks are kept loaded near a
+     *         player. They are not recorded in the progress file, so a later run generates or loads them again.
+     */
+    public int getKeptTiles() {
+        return keptTiles;
+    }
+
+    public boolean isDone() {
+        return queuedTiles.isEmpty() && generatingTiles.isEmpty() && storingTiles.isEmpty();
+    }
+
+    /**
+     * Pins more tiles as tiles are finished, and flushes the stored tiles every few seconds.
+     *
+     * @return Whether all tiles have been stored
+     * @throws IOException If the chunks or the progress file could not be written
+     */
+    public boolean update() throws IOException {
+        long now = System.nanoTime();
+        if (startNanos == 0) {
+            startNanos = now;
+            lastFlushNanos = now;
+            chunkProvider.getPipelineStatistics().reset();
+        }
+
+        boolean tileFinished = false;
+        Iterator<Region3i> iterator = generatingTiles.iterator();
+        while (iterator.hasNext()) {
+            Region3i tile = iterator.next();
+            if (isAvailable(tile)) {
+                iterator.remove();
+                chunkProvider.unpinRegion(tile);
+                storingTiles.add(tile);
+                tileFinished = true;
+            }
+        }
+        if (tileFinished) {
+            chunkProvider.requestCleanup();
+        }
+        while (generatingTiles.size() < tilesInFlight && !queuedTiles.isEmpty()) {
+            Region3i tile = queuedTiles.poll();
+            chunkProvider.pinRegion(tile);
+            generatingTiles.add(tile);
+        }
+
+        boolean lastTiles = queuedTiles.isEmpty() && generatingTiles.isEmpty();
+        if (now - lastFlushNanos >= FLUSH_INTERVAL_MS * 1000000L || (lastTiles && !storingTiles.isEmpty() && areAllSettled())) {
+            flush();
+            lastFlushNanos = System.nanoTime();
+        }
+        return isDone();
+    }
+
+    /**
+     * Logs the number of chunks that went through each stage of chunk production since the start of the run, with the
+     * rate a single thread achieves in each stage, and the overall rate.
+     */
+    public void logReport() {
+        ChunkPipelineStatistics statistics = chunkProvider.getPipelineStatistics();
+        for (ChunkPipelineStatistics.Stage stage : ChunkPipelineStatistics.Stage.values()) {
+            logger.info(String.format("%-12s %8d chunks %10.1f chunks/s per thread %10.1f s thread time", stage, statistics.getChunks(stage),
+                    statistics.getChunksPerSecond(stage), statistics.getNanos(stage) / NANOS_PER_SECOND));
+        }
+        logger.info(String.format("Overall      %8d chunks %10.1f chunks/s", getStoredChunks(), getChunksPerSecond()));
+        if (keptTiles > 0) {
+            logger.info("{} tiles near players were left loaded and not recorded as stored", keptTiles);
+        }
+    }
+
+    private long getStoredChunks() {
+        return (long) storedTiles * TILE_SIZE * TILE_SIZE;
+    }
+
+    private double getChunksPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return (elapsed > 0) ? getStoredChunks() * NANOS_PER_SECOND / elapsed : 0;
+    }
+
+    /**
+     * Flushes the storage manager, then records the tiles whose chunks were all stored before the flush. Tiles with chunks
+     * still held near a player are finished but not recorded, as those chunks are only stored along with the game.
+     */
+    private void flush() throws IOException {
+        List<Region3i> stored = Lists.newArrayList();
+        List<Region3i> kept = Lists.newArrayList();
+        for (Region3i tile : storingTiles) {
+            if (isStored(tile)) {
+                stored.add(tile);
+            } else if (isSettled(tile)) {
+                kept.add(tile);
+            }
+        }
+        if (!stored.isEmpty()) {
+            storageManager.flush();
+            try (BufferedWriter writer = Files.newBufferedWriter(progressFile, Charsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Region3i tile : stored) {
+                    writer.write(tileKey(toTile(tile.min().x), toTile(tile.min().z)));
+                    writer.newLine();
+                }
+            }
+            storingTiles.removeAll(stored);
+            storedTiles += stored.size();
+        }
+        if (!kept.isEmpty()) {
+            storingTiles.removeAll(kept);
+            keptTiles += kept.size();
+        }
+        logger.info(String.format("Pregenerated %d of %d tiles, %.1f chunks/s", getStoredTiles(), totalTiles, getChunksPerSecond()));
+    }
+
+    private boolean areAllSettled() {
+        for (Region3i tile : storingTiles) {
+            if (!isSettled(tile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAvailable(Region3i tile) {
+        for (Vector3i pos : tile) {
+            if (!chunkProvider.isChunkAvailable(pos)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A tile is stored once all its chunks have been unloaded, which hands them to the storage manager.
+     */
+    private boolean isStored(Region3i tile) {
+        for (Vector3i pos : tile) {
+            if (chunkProvider.isChunkLoaded(pos)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A tile is settled once all its chunks have been unloaded, except for chunks near a player. Those stay loaded until
+     * the player leaves.
+     */
+    private boolean isSettled(Region3i tile) {
+        for (Vector3i pos : tile) {
+            if (chunkProvider.isChunkLoaded(pos) && !chunkProvider.isChunkKeptForRelevanceEntity(pos)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toTile(int chunkPos) {
+        return TeraMath.floorToInt((double) chunkPos / TILE_SIZE);
+    }
+
+    private static String tileKey(int tileX, int tileZ) {
+        return tileX + " " + tileZ;
+    }
+}
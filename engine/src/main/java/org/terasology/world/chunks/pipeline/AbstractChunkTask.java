@@ -52,4 +52,8 @@ public boolean isTerminateSignal() {
     public ChunkGenerationPipeline getPipeline() {
         return pipeline;
     }
+
+    @Override
+    public void onCancelled() {
+    }
 }
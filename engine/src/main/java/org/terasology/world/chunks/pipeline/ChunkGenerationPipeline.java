@@ -20,30 +20,33 @@
 import org.slf4j.LoggerFactory;
 import org.terasology.math.Region3i;
 import org.terasology.utilities.concurrency.TaskMaster;
+import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.generator.WorldGenerator;
 
-import java.util.Comparator;
+import java.util.Collection;
 
 /**
  * @author Immortius
  */
 public class ChunkGenerationPipeline {
     private static final int NUM_REVIEW_THREADS = 1;
-    private static final int NUM_TASK_THREADS = 8;
     private static final Logger logger = LoggerFactory.getLogger(ChunkGenerationPipeline.class);
 
     private TaskMaster<ChunkRequest> chunkReviewer;
-    private TaskMaster<ChunkTask> chunkGenerator;
+    private ChunkTaskScheduler chunkGenerator;
+    private ChunkLightingStage chunkLighting;
+    private final ChunkPipelineStatistics statistics = new ChunkPipelineStatistics();
 
     private WorldGenerator generator;
     private GeneratingChunkProvider provider;
 
-    public ChunkGenerationPipeline(GeneratingChunkProvider provider, WorldGenerator generator, Comparator<ChunkTask> taskComparator) {
+    public ChunkGenerationPipeline(GeneratingChunkProvider provider, WorldGenerator generator, ChunkTaskPrioritizer taskPrioritizer) {
         this.provider = provider;
         this.generator = generator;
         chunkReviewer = TaskMaster.createPriorityTaskMaster("Chunk-Reviewer", NUM_REVIEW_THREADS, 64);
-        chunkGenerator = TaskMaster.createPriorityTaskMaster("Chunk-Generator", NUM_TASK_THREADS, 128, taskComparator);
+        chunkGenerator = new ChunkTaskScheduler("Chunk-Generator", ChunkTaskScheduler.getDefaultThreadCount(), taskPrioritizer);
+        chunkLighting = new ChunkLightingStage(provider, ChunkTaskScheduler.getDefaultThreadCount());
     }
 
     public void requestReview(Region3i region) {
@@ -63,16 +66,37 @@ public void requestProduction(Region3i region) {
     }
 
     public void doTask(ChunkTask task) {
-        try {
-            chunkGenerator.put(task);
-        } catch (InterruptedException e) {
-            logger.error("Failed to enqueue task {}", task, e);
-        }
+        chunkGenerator.submit(task);
+    }
+
+    /**
+     * Recalculates the priority of the queued chunk tasks, cancelling those that are no longer relevant. Should be called
+     * whenever the state used by the task prioritizer changes.
+     */
+    public void reprioritizeTasks() {
+        chunkGenerator.reprioritize();
+    }
+
+    /**
+     * Lights the edges between chunks that have just been marked ready and their ready neighbours, spreading the work
+     * over the lighting threads. Must be called from the main thread, and blocks until done.
+     *
+     * @param readyChunks
+     */
+    public void lightChunkEdges(Collection<ChunkImpl> readyChunks) {
+        long start = System.nanoTime();
+        chunkLighting.lightEdges(readyChunks);
+        statistics.record(ChunkPipelineStatistics.Stage.LIGHT, 0, start);
+    }
+
+    public ChunkPipelineStatistics getStatistics() {
+        return statistics;
     }
 
     public void shutdown() {
         chunkReviewer.shutdown(new ChunkRequest(this, provider, ChunkRequest.Type.EXIT, Region3i.EMPTY), false);
-        chunkGenerator.shutdown(new ShutdownChunkTask(), false);
+        chunkGenerator.shutdown();
+        chunkLighting.shutdown();
     }
 
     public WorldGenerator getWorldGenerator() {
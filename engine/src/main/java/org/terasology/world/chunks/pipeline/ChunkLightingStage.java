@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Side;
+import org.terasology.math.Vector3i;
+import org.terasology.monitoring.ThreadMonitor;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.LightWorldView;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+import org.terasology.world.propagation.light.SunlightWorldView;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads block light and sunlight over the edges between chunks that have just become ready and their ready
+ * neighbours.
+ * <p/>
+ * Light crossing an edge reaches at most {@link org.terasology.world.chunks.ChunkConstants#MAX_LIGHT} - 1 blocks from
+ * it, so the work for an edge stays within the chunks adjacent to the two chunks on either side. The edges are
+ * planned into rounds, where no two edges of a round touch the same chunks, and each round is lit in parallel. An edge
+ * always comes in a later round than every earlier edge it shares chunks with, so the result is the same as lighting
+ * the edges one by one in order. Edges are ordered by chunk position, which keeps the merge deterministic.
+ * <p/>
+ * Must be called from the main thread, while nothing else writes to ready chunks.
+ */
+public final class ChunkLightingStage {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkLightingStage.class);
+
+    private static final Comparator<ChunkImpl> POSITION_ORDER = new Comparator<ChunkImpl>() {
+        @Override
+        public int compare(ChunkImpl o1, ChunkImpl o2) {
+            Vector3i a = o1.getPos();
+            Vector3i b = o2.getPos();
+            if (a.x != b.x) {
+                return (a.x < b.x) ? -1 : 1;
+            }
+            if (a.z != b.z) {
+                return (a.z < b.z) ? -1 : 1;
+            }
+            return (a.y < b.y) ? -1 : ((a.y == b.y) ? 0 : 1);
+        }
+    };
+
+    private final ChunkProvider provider;
+    private final EdgeLighter[] lighters;
+    private final ExecutorService executorService;
+
+    public ChunkLightingStage(ChunkProvider provider, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Must have at least one thread.");
+        }
+        this.provider = provider;
+        this.lighters = new EdgeLighter[threads];
+        for (int i = 0; i < threads; ++i) {
+            lighters[i] = new EdgeLighter(provider);
+        }
+        this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Chunk-Lighting-%d").setDaemon(true).build());
+    }
+
+    public int getThreadCount() {
+        return lighters.length;
+    }
+
+    /**
+     * Lights the edges between the given chunks and each other, and between the given chunks and the other ready
+     * chunks. Blocks until done.
+     *
+     * @param readyChunks Chunks that have just been marked ready, and have not had their edges lit yet
+     */
+    public void lightEdges(Collection<ChunkImpl> readyChunks) {
+        if (readyChunks.isEmpty()) {
+            return;
+        }
+        List<ChunkImpl> chunks = Lists.newArrayList(readyChunks);
+        Collections.sort(chunks, POSITION_ORDER);
+        TLongSet batch = new TLongHashSet(chunks.size());
+        for (ChunkImpl chunk : chunks) {
+            batch.add(key(chunk.getPos()));
+        }
+
+        RoundPlanner planner = new RoundPlanner();
+        List<List<Edge>> rounds = Lists.newArrayList();
+        for (ChunkImpl chunk : chunks) {
+            for (Side side : Side.horizontalSides()) {
+                Vector3i adjPos = side.getAdjacentPos(chunk.getPos());
+                ChunkImpl adjChunk = provider.getChunk(adjPos);
+                if (adjChunk == null || (batch.contains(key(adjPos)) && POSITION_ORDER.compare(adjChunk, chunk) < 0)) {
+                    // Not ready, or an edge between two new chunks that was planned with the other one
+                    continue;
+                }
+                int round = planner.plan(chunk.getPos(), adjPos);
+                while (rounds.size() <= round) {
+                    rounds.add(Lists.<Edge>newArrayList());
+                }
+                rounds.get(round).add(new Edge(chunk, adjChunk, side));
+            }
+        }
+
+        for (List<Edge> round : rounds) {
+            lightRound(round);
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(20, TimeUnit.SECONDS)) {
+                logger.warn("Timed out awaiting thread termination");
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted awaiting chunk lighting thread termination");
+            executorService.shutdownNow();
+        }
+    }
+
+    private void lightRound(List<Edge> round) {
+        int slices = Math.min(lighters.length, round.size());
+        if (slices <= 1) {
+            lighters[0].light(round, 0, 1);
+            return;
+        }
+        List<Callable<Void>> tasks = Lists.newArrayListWithCapacity(slices);
+        for (int i = 0; i < slices; ++i) {
+            tasks.add(lighters[i].task(round, i, slices));
+        }
+        try {
+            for (Future<Void> result : executorService.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            logger.error("Interrupted lighting chunk edges", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ThreadMonitor.addError(e.getCause());
+            logger.error("Error lighting chunk edges", e.getCause());
+        }
+    }
+
+    private static long key(Vector3i pos) {
+        return ConcurrentChunkMap.packPosition(pos.x, pos.y, pos.z);
+    }
+
+    /**
+     * Assigns edges to rounds. An edge goes in the round after the last round that touched any of its chunks.
+     */
+    static final class RoundPlanner {
+        private final TLongIntMap lastRound = new TLongIntHashMap();
+
+        /**
+         * @return The round the edge between the two adjacent chunk positions should be lit in
+         */
+        public int plan(Vector3i pos, Vector3i adjPos) {
+            int minX = Math.min(pos.x, adjPos.x) - 1;
+            int maxX = Math.max(pos.x, adjPos.x) + 1;
+            int minY = Math.min(pos.y, adjPos.y) - 1;
+            int maxY = Math.max(pos.y, adjPos.y) + 1;
+            int minZ = Math.min(pos.z, adjPos.z) - 1;
+            int maxZ = Math.max(pos.z, adjPos.z) + 1;
+
+            int round = 0;
+            for (int x = minX; x <= maxX; ++x) {
+                for (int y = minY; y <= maxY; ++y) {
+                    for (int z = minZ; z <= maxZ; ++z) {
+                        long key = ConcurrentChunkMap.packPosition(x, y, z);
+                        if (lastRound.containsKey(key)) {
+                            round = Math.max(round, lastRound.get(key) + 1);
+                        }
+                    }
+                }
+            }
+            for (int x = minX; x <= maxX; ++x) {
+                for (int y = minY; y <= maxY; ++y) {
+                    for (int z = minZ; z <= maxZ; ++z) {
+                        lastRound.put(ConcurrentChunkMap.packPosition(x, y, z), round);
+                    }
+                }
+            }
+            return round;
+        }
+    }
+
+    private static final class Edge {
+        private final ChunkImpl chunk;
+        private final ChunkImpl adjChunk;
+        private final Side side;
+
+        public Edge(ChunkImpl chunk, ChunkImpl adjChunk, Side side) {
+            this.chunk = chunk;
+            this.adjChunk = adjChunk;
+            this.side = side;
+        }
+    }
+
+    /**
+     * The propagators used by one thread of a round
+     */
+    private static final class EdgeLighter {
+        private final BatchPropagator lightPropagator;
+        private final BatchPropagator sunlightPropagator;
+
+        public EdgeLighter(ChunkProvider provider) {
+            lightPropagator = new BatchPropagator(new LightPropagationRules(), new LightWorldView(provider));
+            sunlightPropagator = new BatchPropagator(new SunlightPropagationRules(), new SunlightWorldView(provider));
+        }
+
+        /**
+         * Lights every step-th edge of the round, starting from the given one
+         */
+        public void light(List<Edge> round, int start, int step) {
+            for (int i = start; i < round.size(); i += step) {
+                Edge edge = round.get(i);
+                lightPropagator.propagateBetween(edge.chunk, edge.adjChunk, edge.side);
+                sunlightPropagator.propagateBetween(edge.chunk, edge.adjChunk, edge.side);
+            }
+            lightPropagator.process();
+            sunlightPropagator.process();
+        }
+
+        public Callable<Void> task(final List<Edge> round, final int start, final int step) {
+            return new Callable<Void>() {
+                @Override
+                public Void call() {
+                    light(round, start, step);
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the chunks that pass through each stage of chunk production and the thread time spent in each stage.
+ * Safe to update from any thread.
+ */
+public final class ChunkPipelineStatistics {
+
+    public enum Stage {
+        /**
+         * Creating the blocks of a chunk with the world generator
+         */
+        GENERATE,
+        /**
+         * Applying the second pass of the world generator, which needs the neighbouring chunks
+         */
+        SECOND_PASS,
+        /**
+         * Lighting a chunk internally. Lighting the edges between chunks adds to the time, but not to the count.
+         */
+        LIGHT,
+        /**
+         * Compacting the block and light data of a complete chunk
+         */
+        DEFLATE,
+        /**
+         * Handing an unloaded chunk and its entities to the storage manager, which compresses and writes it in the
+         * background
+         */
+        STORE
+    }
+
+    private static final double NANOS_PER_SECOND = 1.0e9;
+
+    private final AtomicLongArray chunks = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * @param stage      The stage that was run
+     * @param chunkCount The number of chunks that passed through it
+     * @param startNanos The value of {@link System#nanoTime()} when the stage started
+     */
+    public void record(Stage stage, int chunkCount, long startNanos) {
+        chunks.addAndGet(stage.ordinal(), chunkCount);
+        nanos.addAndGet(stage.ordinal(), System.nanoTime() - startNanos);
+    }
+
+    public long getChunks(Stage stage) {
+        return chunks.get(stage.ordinal());
+    }
+
+    /**
+     * @return The thread time spent in the stage, summed over all threads, in nanoseconds
+     */
+    public long getNanos(Stage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    /**
+     * @return The chunks a single thread gets through per second in the stage, or 0 if the stage has not run
+     */
+    public double getChunksPerSecond(Stage stage) {
+        long time = getNanos(stage);
+        return (time > 0) ? getChunks(stage) * NANOS_PER_SECOND / time : 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < chunks.length(); ++i) {
+            chunks.set(i, 0);
+            nanos.set(i, 0);
+        }
+    }
+}
@@ -30,4 +30,11 @@ public interface ChunkTask extends Task {
     GeneratingChunkProvider getProvider();
 
     ChunkGenerationPipeline getPipeline();
+
+    /**
+     * Called instead of {@link #run()} when the task is dropped without being run, either because its chunk is no longer
+     * relevant or because the pipeline is shutting down. Tasks for a stage that nothing else would queue again should
+     * request a review of their chunk here, so a chunk that stays loaded still reaches its final state.
+     */
+    void onCancelled();
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import org.terasology.math.Vector3i;
+
+/**
+ * Decides the order in which chunk tasks are run. The {@link ChunkTaskScheduler} caches the priority of each task when it
+ * is submitted and only asks again when it is reprioritized, so implementations should work from a snapshot of their
+ * state rather than taking locks. They are called from several threads at once.
+ */
+public interface ChunkTaskPrioritizer {
+
+    /**
+     * Priority of tasks for chunks that are no longer needed. Such tasks are cancelled on the next reprioritization.
+     */
+    int IRRELEVANT = Integer.MAX_VALUE;
+
+    /**
+     * @param chunkPos The position of the chunk a task works on
+     * @return The priority of the task, lower values run first. {@link #IRRELEVANT} if the task may be cancelled.
+     */
+    int getPriority(Vector3i chunkPos);
+}
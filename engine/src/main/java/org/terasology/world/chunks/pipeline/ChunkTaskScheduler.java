@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.monitoring.ThreadActivity;
+import org.terasology.monitoring.ThreadMonitor;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs chunk tasks on a pool of worker threads.
+ * <p/>
+ * Each worker has its own queue, ordered by the priority the task had when it was submitted. A worker whose queue is
+ * empty steals the most urgent task from the other workers. Priorities are only recalculated when
+ * {@link #reprioritize()} is called, which is also when tasks for chunks that are no longer relevant are cancelled.
+ */
+public final class ChunkTaskScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkTaskScheduler.class);
+
+    /**
+     * Idle workers rescan the queues at least this often, so a lost wake up only delays a task
+     */
+    private static final long IDLE_POLL_MS = 100;
+
+    private final String name;
+    private final ChunkTaskPrioritizer prioritizer;
+    private final Worker[] workers;
+    private final ExecutorService executorService;
+
+    private final Semaphore available = new Semaphore(0);
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile boolean running = true;
+
+    public ChunkTaskScheduler(String name, int threads, ChunkTaskPrioritizer prioritizer) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Must have at least one thread.");
+        }
+        this.name = name;
+        this.prioritizer = prioritizer;
+        this.workers = new Worker[threads];
+        this.executorService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; ++i) {
+            workers[i] = new Worker(name + "-" + i);
+        }
+        for (Worker worker : workers) {
+            executorService.execute(worker);
+        }
+    }
+
+    /**
+     * @return The number of worker threads to use for chunk tasks: one per processor, leaving one for the main thread.
+     */
+    public static int getDefaultThreadCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreadCount() {
+        return workers.length;
+    }
+
+    /**
+     * @return The number of tasks waiting to be run
+     */
+    public int getQueuedTaskCount() {
+        int result = 0;
+        for (Worker worker : workers) {
+            result += worker.queue.size();
+        }
+        return result;
+    }
+
+    /**
+     * Queues a task. This never blocks. Tasks submitted from a worker thread go to that worker's queue, other tasks are
+     * spread over the workers in turn.
+     *
+     * @param task
+     */
+    public void submit(ChunkTask task) {
+        if (!running) {
+            task.onCancelled();
+            return;
+        }
+        Entry entry = new Entry(task, prioritizer.getPriority(task.getPosition()), nextSequence.getAndIncrement());
+        Worker target = getCurrentWorker();
+        if (target == null) {
+            target = workers[(nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+        }
+        target.queue.push(entry);
+        available.release();
+    }
+
+    /**
+     * Recalculates the priority of all queued tasks, and cancels the tasks whose chunk has become irrelevant.
+     * This should be called after the state the prioritizer works from has changed.
+     */
+    public void reprioritize() {
+        List<ChunkTask> cancelled = Lists.newArrayList();
+        for (Worker worker : workers) {
+            worker.queue.reprioritize(prioritizer, cancelled);
+        }
+        for (ChunkTask task : cancelled) {
+            task.onCancelled();
+        }
+        if (!cancelled.isEmpty()) {
+            logger.debug("Cancelled {} chunk tasks that are no longer relevant", cancelled.size());
+        }
+    }
+
+    /**
+     * Stops the workers once they have finished their current task. Queued tasks are cancelled.
+     */
+    public void shutdown() {
+        running = false;
+        available.release(workers.length);
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(20, TimeUnit.SECONDS)) {
+                logger.warn("Timed out awaiting thread termination");
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted awaiting chunk thread termination");
+            executorService.shutdownNow();
+        }
+
+        List<ChunkTask> dropped = Lists.newArrayList();
+        for (Worker worker : workers) {
+            worker.queue.drainTo(dropped);
+        }
+        for (ChunkTask task : dropped) {
+            task.onCancelled();
+        }
+    }
+
+    private Worker getCurrentWorker() {
+        Thread current = Thread.currentThread();
+        for (Worker worker : workers) {
+            if (worker.thread == current) {
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final ChunkTask task;
+        private final long sequence;
+        private int priority;
+
+        public Entry(ChunkTask task, int priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            if (priority != o.priority) {
+                return (priority < o.priority) ? -1 : 1;
+            }
+            return (sequence < o.sequence) ? -1 : ((sequence == o.sequence) ? 0 : 1);
+        }
+    }
+
+    /**
+     * The queue of a single worker. Only the owner takes from it, except when another worker steals from it.
+     */
+    private static final class TaskQueue {
+        private PriorityQueue<Entry> entries = new PriorityQueue<>();
+
+        public synchronized void push(Entry entry) {
+            entries.add(entry);
+        }
+
+        public synchronized Entry peek() {
+            return entries.peek();
+        }
+
+        public synchronized Entry poll() {
+            return entries.poll();
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        public synchronized void reprioritize(ChunkTaskPrioritizer taskPrioritizer, List<ChunkTask> cancelled) {
+            List<Entry> retained = Lists.newArrayListWithCapacity(entries.size());
+            for (Entry entry : entries) {
+                int priority = taskPrioritizer.getPriority(entry.task.getPosition());
+                if (priority == ChunkTaskPrioritizer.IRRELEVANT) {
+                    cancelled.add(entry.task);
+                } else {
+                    entry.priority = priority;
+                    retained.add(entry);
+                }
+            }
+            // Builds the heap in one pass rather than re-inserting each entry
+            entries = new PriorityQueue<>(retained);
+        }
+
+        public synchronized void drainTo(List<ChunkTask> result) {
+            for (Entry entry : entries) {
+                result.add(entry.task);
+            }
+            entries.clear();
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final String threadName;
+        private final TaskQueue queue = new TaskQueue();
+        private volatile Thread thread;
+
+        public Worker(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setName(threadName);
+            while (running) {
+                try {
+                    available.tryAcquire(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    ThreadMonitor.addError(e);
+                    logger.error("Thread interrupted", e);
+                }
+                if (!running) {
+                    break;
+                }
+                Entry entry = queue.poll();
+                if (entry == null) {
+                    entry = steal();
+                }
+                if (entry != null) {
+                    execute(entry.task);
+                }
+            }
+            logger.debug("Thread shutdown safely");
+        }
+
+        private Entry steal() {
+            TaskQueue victim = null;
+            Entry best = null;
+            for (Worker other : workers) {
+                if (other != this) {
+                    Entry head = other.queue.peek();
+                    if (head != null && (best == null || head.compareTo(best) < 0)) {
+                        victim = other.queue;
+                        best = head;
+                    }
+                }
+            }
+            return (victim != null) ? victim.poll() : null;
+        }
+
+        private void execute(ChunkTask task) {
+            try (ThreadActivity ignored = ThreadMonitor.startThreadActivity(task.getName())) {
+                task.run();
+            } catch (Throwable e) {
+                ThreadMonitor.addError(e);
+                logger.error("Error in thread {}", threadName, e);
+            }
+        }
+    }
+}
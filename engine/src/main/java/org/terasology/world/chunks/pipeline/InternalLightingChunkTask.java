@@ -16,6 +16,7 @@
 
 package org.terasology.world.chunks.pipeline;
 
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
@@ -30,6 +31,14 @@ public InternalLightingChunkTask(ChunkGenerationPipeline pipeline, Vector3i posi
         super(pipeline, position, provider);
     }
 
+    /**
+     * Nothing else would bring a loaded chunk past this stage, so its review is requested again.
+     */
+    @Override
+    public void onCancelled() {
+        getPipeline().requestReview(Region3i.createFromMinAndSize(getPosition(), Vector3i.one()));
+    }
+
     @Override
     public String getName() {
         return "Internal Chunk Lighting";
@@ -47,8 +56,13 @@ public void run() {
             if (chunk.isDisposed() || chunk.getChunkState() != ChunkImpl.State.INTERNAL_LIGHT_GENERATION_PENDING) {
                 return;
             }
+            ChunkPipelineStatistics statistics = getPipeline().getStatistics();
+            long start = System.nanoTime();
             InternalLightProcessor.generateInternalLighting(chunk);
+            statistics.record(ChunkPipelineStatistics.Stage.LIGHT, 1, start);
+            start = System.nanoTime();
             chunk.deflate();
+            statistics.record(ChunkPipelineStatistics.Stage.DEFLATE, 1, start);
             chunk.setChunkState(ChunkImpl.State.COMPLETE);
             getProvider().onChunkIsReady(chunk.getPos());
         } finally {
@@ -32,6 +32,14 @@ public SecondPassChunkTask(ChunkGenerationPipeline pipeline, Vector3i position,
         super(pipeline, position, provider);
     }
 
+    /**
+     * Asks for the chunk to be reviewed again, which queues the second pass once more if the chunk is still loaded.
+     */
+    @Override
+    public void onCancelled() {
+        getPipeline().requestReview(Region3i.createFromMinAndSize(getPosition(), Vector3i.one()));
+    }
+
     @Override
     public String getName() {
         return "Chunk second pass";
@@ -53,7 +61,9 @@ public void run() {
                 return;
             }
 
+            long start = System.nanoTime();
             getPipeline().getWorldGenerator().applySecondPass(getPosition(), view);
+            getPipeline().getStatistics().record(ChunkPipelineStatistics.Stage.SECOND_PASS, 1, start);
             chunk.setChunkState(ChunkImpl.State.INTERNAL_LIGHT_GENERATION_PENDING);
             getPipeline().requestReview(Region3i.createFromCenterExtents(getPosition(), ChunkConstants.LOCAL_REGION_EXTENTS));
         } finally {
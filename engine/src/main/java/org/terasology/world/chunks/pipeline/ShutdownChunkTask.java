@@ -1,55 +0,0 @@
-/*
- * Copyright 2013 MovingBlocks
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package org.terasology.world.chunks.pipeline;
-
-import org.terasology.math.Vector3i;
-import org.terasology.world.chunks.internal.GeneratingChunkProvider;
-
-/**
- * @author Immortius
- */
-public final class ShutdownChunkTask implements ChunkTask {
-
-    @Override
-    public String getName() {
-        return "Shutdown";
-    }
-
-    @Override
-    public void run() {
-    }
-
-    @Override
-    public boolean isTerminateSignal() {
-        return true;
-    }
-
-    @Override
-    public Vector3i getPosition() {
-        return Vector3i.zero();
-    }
-
-    @Override
-    public GeneratingChunkProvider getProvider() {
-        return null;
-    }
-
-    @Override
-    public ChunkGenerationPipeline getPipeline() {
-        return null;
-    }
-}
@@ -17,7 +17,6 @@
 package org.terasology.world.chunks.remoteChunkProvider;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,9 +34,10 @@
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.ChunkRegionListener;
 import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
-import org.terasology.world.chunks.pipeline.ChunkTask;
+import org.terasology.world.chunks.pipeline.ChunkTaskPrioritizer;
 import org.terasology.world.generator.internal.RemoteWorldGenerator;
 import org.terasology.world.generator.WorldGenerator;
 import org.terasology.world.propagation.BatchPropagator;
@@ -46,9 +46,8 @@
 import org.terasology.world.propagation.light.SunlightPropagationRules;
 import org.terasology.world.propagation.light.SunlightWorldView;
 
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 /**
@@ -57,17 +56,18 @@
 public class RemoteChunkProvider implements ChunkProvider, GeneratingChunkProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(RemoteChunkProvider.class);
-    private Map<Vector3i, ChunkImpl> chunkCache = Maps.newHashMap();
+    private ConcurrentChunkMap<ChunkImpl> chunkCache = new ConcurrentChunkMap<>();
     private final BlockingQueue<Vector3i> readyChunks = Queues.newLinkedBlockingQueue();
     private ChunkReadyListener listener;
 
     private ChunkGenerationPipeline pipeline;
+    private final ChunkTaskRelevancePrioritizer taskPrioritizer = new ChunkTaskRelevancePrioritizer();
     private List<BatchPropagator> loadEdgePropagators = Lists.newArrayList();
 
     private RemoteWorldGenerator remoteWorldGenerator;
 
     public RemoteChunkProvider() {
-        pipeline = new ChunkGenerationPipeline(this, null, new ChunkTaskRelevanceComparator());
+        pipeline = new ChunkGenerationPipeline(this, null, taskPrioritizer);
         loadEdgePropagators.add(new BatchPropagator(new LightPropagationRules(), new LightWorldView(this)));
         loadEdgePropagators.add(new BatchPropagator(new SunlightPropagationRules(), new SunlightWorldView(this)));
         ChunkMonitor.fireChunkProviderInitialized(this);
@@ -90,6 +90,9 @@ public void invalidateChunks(Vector3i pos) {
 
     @Override
     public void update() {
+        if (taskPrioritizer.update()) {
+            pipeline.reprioritizeTasks();
+        }
         if (listener != null) {
             Vector3i pos = readyChunks.poll();
             if (pos != null) {
@@ -114,13 +117,18 @@ public void update() {
 
     @Override
     public ChunkImpl getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        ChunkImpl chunk = chunkCache.get(x, y, z);
+        if (chunk != null && chunk.getChunkState() == ChunkImpl.State.COMPLETE) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
     public ChunkImpl getChunk(Vector3i chunkPos) {
-        if (isChunkReady(chunkPos)) {
-            return chunkCache.get(chunkPos);
+        ChunkImpl chunk = chunkCache.get(chunkPos);
+        if (chunk != null && chunk.getChunkState() == ChunkImpl.State.COMPLETE) {
+            return chunk;
         }
         return null;
     }
@@ -199,6 +207,11 @@ public void removeRelevanceEntity(EntityRef entity) {
 
     }
 
+    @Override
+    public List<Region3i> getRelevanceRegions() {
+        return Collections.emptyList();
+    }
+
     @Override
     public ChunkViewCore getViewAround(Vector3i pos) {
         Region3i region = Region3i.createFromCenterExtents(pos, new Vector3i(1, 0, 1));
@@ -238,18 +251,30 @@ public WorldGenerator getWorldGenerator() {
         return remoteWorldGenerator;
     }
 
-    private static class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
+    /**
+     * Prioritizes chunk tasks by their distance to the local player. The player's chunk is sampled on the main thread, so
+     * the worker threads never touch the entity system while scoring.
+     */
+    private static class ChunkTaskRelevancePrioritizer implements ChunkTaskPrioritizer {
 
         private LocalPlayer localPlayer = CoreRegistry.get(LocalPlayer.class);
-
-        @Override
-        public int compare(ChunkTask o1, ChunkTask o2) {
-            return score(o1.getPosition()) - score(o2.getPosition());
+        private volatile Vector3i playerChunk = new Vector3i();
+
+        /**
+         * @return Whether the player has moved to another chunk
+         */
+        public boolean update() {
+            Vector3i newPlayerChunk = TeraMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), 0.5f));
+            if (!newPlayerChunk.equals(playerChunk)) {
+                playerChunk = newPlayerChunk;
+                return true;
+            }
+            return false;
         }
 
-        private int score(Vector3i chunk) {
-            Vector3i playerChunk = TeraMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), 0.5f));
-            return playerChunk.distanceSquared(chunk);
+        @Override
+        public int getPriority(Vector3i chunkPos) {
+            return playerChunk.distanceSquared(chunkPos);
         }
     }
 }
@@ -17,12 +17,16 @@
 package org.terasology.world.internal;
 
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
+import org.terasology.world.BlockEditSet;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.block.Block;
 import org.terasology.world.liquid.LiquidData;
 import org.terasology.world.time.WorldTime;
 
+import java.util.Map;
+
 /**
  * @author Immortius
  */
@@ -89,6 +93,11 @@ public Block setBlock(Vector3i pos, Block type) {
         return base.setBlock(pos, type);
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(BlockEditSet edits) {
+        return base.setBlocks(edits);
+    }
+
     @Override
     public boolean setLiquid(int x, int y, int z, LiquidData newState, LiquidData oldState) {
         return base.setLiquid(x, y, z, newState, oldState);
@@ -104,6 +113,11 @@ public Block getBlock(int x, int y, int z) {
         return base.getBlock(x, y, z);
     }
 
+    @Override
+    public boolean getBlocks(Region3i region, short[] result) {
+        return base.getBlocks(region, result);
+    }
+
     @Override
     public byte getLight(int x, int y, int z) {
         return base.getLight(x, y, z);
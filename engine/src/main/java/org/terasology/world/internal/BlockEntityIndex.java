@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ConcurrentChunkMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the block entities and block region entities at a position.
+ * <p/>
+ * Entries are kept per chunk: block entities in a map keyed on their position within the chunk, and block regions in
+ * a list on every chunk they overlap, so lookups need no allocation. Block entities leave the index one at a time as
+ * they are deactivated, since unloading a chunk does not deactivate all of its entities. Where block regions overlap,
+ * the one added last is found. Only used from the main thread.
+ */
+final class BlockEntityIndex {
+
+    private final TLongObjectMap<ChunkEntries> chunks = new TLongObjectHashMap<>();
+    private final Map<EntityRef, RegionEntry> regionsByEntity = Maps.newHashMap();
+
+    private int blockEntityCount;
+
+    /**
+     * @return The number of block entities in the index
+     */
+    public int getBlockEntityCount() {
+        return blockEntityCount;
+    }
+
+    /**
+     * @return The number of block regions in the index
+     */
+    public int getRegionCount() {
+        return regionsByEntity.size();
+    }
+
+    /**
+     * @return The block entity at the position, or null if there is none
+     */
+    public EntityRef getBlockEntity(int x, int y, int z) {
+        ChunkEntries entries = chunks.get(chunkKey(x, z));
+        return (entries != null) ? entries.blockEntities.get(localKey(x, y, z)) : null;
+    }
+
+    public EntityRef getBlockEntity(Vector3i pos) {
+        return getBlockEntity(pos.x, pos.y, pos.z);
+    }
+
+    /**
+     * @return The block entity previously at the position, or null if there was none
+     */
+    public EntityRef putBlockEntity(Vector3i pos, EntityRef entity) {
+        EntityRef old = getOrCreateEntries(pos.x, pos.z).blockEntities.put(localKey(pos.x, pos.y, pos.z), entity);
+        if (old == null) {
+            blockEntityCount++;
+        }
+        return old;
+    }
+
+    /**
+     * Removes the block entity at the position, if it is the given entity.
+     *
+     * @return Whether the entity was removed
+     */
+    public boolean removeBlockEntity(Vector3i pos, EntityRef entity) {
+        long chunkKey = chunkKey(pos.x, pos.z);
+        ChunkEntries entries = chunks.get(chunkKey);
+        if (entries == null) {
+            return false;
+        }
+        int localKey = localKey(pos.x, pos.y, pos.z);
+        EntityRef current = entries.blockEntities.get(localKey);
+        if (current == null || !current.equals(entity)) {
+            return false;
+        }
+        entries.blockEntities.remove(localKey);
+        blockEntityCount--;
+        removeIfEmpty(chunkKey, entries);
+        return true;
+    }
+
+    /**
+     * @return The entity of the block region containing the position, or null if there is none
+     */
+    public EntityRef getRegionEntity(int x, int y, int z) {
+        ChunkEntries entries = chunks.get(chunkKey(x, z));
+        if (entries != null) {
+            for (int i = entries.regions.size() - 1; i >= 0; --i) {
+                RegionEntry entry = entries.regions.get(i);
+                if (entry.region.encompasses(x, y, z)) {
+                    return entry.entity;
+                }
+            }
+        }
+        return null;
+    }
+
+    public EntityRef getRegionEntity(Vector3i pos) {
+        return getRegionEntity(pos.x, pos.y, pos.z);
+    }
+
+    /**
+     * Sets the block region of an entity, replacing any region it had before.
+     */
+    public void putRegion(EntityRef entity, Region3i region) {
+        removeRegion(entity);
+        RegionEntry entry = new RegionEntry(entity, region);
+        regionsByEntity.put(entity, entry);
+        if (region.isEmpty()) {
+            return;
+        }
+        Vector3i min = region.min();
+        Vector3i max = region.max();
+        for (int chunkZ = TeraMath.calcChunkPosZ(min.z); chunkZ <= TeraMath.calcChunkPosZ(max.z); ++chunkZ) {
+            for (int chunkX = TeraMath.calcChunkPosX(min.x); chunkX <= TeraMath.calcChunkPosX(max.x); ++chunkX) {
+                getOrCreateEntries(chunkX * ChunkConstants.SIZE_X, chunkZ * ChunkConstants.SIZE_Z).regions.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the block region of an entity, if it has one.
+     */
+    public void removeRegion(EntityRef entity) {
+        RegionEntry entry = regionsByEntity.remove(entity);
+        if (entry == null || entry.region.isEmpty()) {
+            return;
+        }
+        Vector3i min = entry.region.min();
+        Vector3i max = entry.region.max();
+        for (int chunkZ = TeraMath.calcChunkPosZ(min.z); chunkZ <= TeraMath.calcChunkPosZ(max.z); ++chunkZ) {
+            for (int chunkX = TeraMath.calcChunkPosX(min.x); chunkX <= TeraMath.calcChunkPosX(max.x); ++chunkX) {
+                long chunkKey = ConcurrentChunkMap.packPosition(chunkX, 0, chunkZ);
+                ChunkEntries entries = chunks.get(chunkKey);
+                if (entries != null) {
+                    entries.regions.remove(entry);
+                    removeIfEmpty(chunkKey, entries);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        chunks.clear();
+        regionsByEntity.clear();
+        blockEntityCount = 0;
+    }
+
+    private ChunkEntries getOrCreateEntries(int x, int z) {
+        long chunkKey = chunkKey(x, z);
+        ChunkEntries entries = chunks.get(chunkKey);
+        if (entries == null) {
+            entries = new ChunkEntries();
+            chunks.put(chunkKey, entries);
+        }
+        return entries;
+    }
+
+    private void removeIfEmpty(long chunkKey, ChunkEntries entries) {
+        if (entries.blockEntities.isEmpty() && entries.regions.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ConcurrentChunkMap.packPosition(TeraMath.calcChunkPosX(x), 0, TeraMath.calcChunkPosZ(z));
+    }
+
+    private static int localKey(int x, int y, int z) {
+        return TeraMath.calcBlockPosX(x) + ChunkConstants.SIZE_X * (TeraMath.calcBlockPosZ(z) + ChunkConstants.SIZE_Z * y);
+    }
+
+    private static final class ChunkEntries {
+        private final TIntObjectMap<EntityRef> blockEntities = new TIntObjectHashMap<>();
+        private final List<RegionEntry> regions = Lists.newArrayListWithCapacity(0);
+    }
+
+    private static final class RegionEntry {
+        private final EntityRef entity;
+        private final Region3i region;
+
+        public RegionEntry(EntityRef entity, Region3i region) {
+            this.entity = entity;
+            this.region = region;
+        }
+    }
+}
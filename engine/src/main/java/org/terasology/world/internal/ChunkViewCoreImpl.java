@@ -36,6 +36,7 @@ public class ChunkViewCoreImpl implements ChunkViewCore {
 
     private Vector3i offset;
     private Region3i chunkRegion;
+    private int chunkRegionSizeX;
     private Region3i blockRegion;
     private ChunkImpl[] chunks;
 
@@ -48,6 +49,7 @@ public class ChunkViewCoreImpl implements ChunkViewCore {
     public ChunkViewCoreImpl(ChunkImpl[] chunks, Region3i chunkRegion, Vector3i offset) {
         locked.set(false);
         this.chunkRegion = chunkRegion;
+        this.chunkRegionSizeX = chunkRegion.size().x;
         this.chunks = chunks;
         this.offset = offset;
         setChunkSize(new Vector3i(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z));
@@ -81,7 +83,7 @@ public Block getBlock(int blockX, int blockY, int blockZ) {
         }
 
         int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-        return chunks[chunkIndex].getBlock(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize));
+        return chunks[chunkIndex].getBlock(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ));
     }
 
     @Override
@@ -111,7 +113,7 @@ public byte getSunlight(int blockX, int blockY, int blockZ) {
         }
 
         int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-        return chunks[chunkIndex].getSunlight(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize));
+        return chunks[chunkIndex].getSunlight(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ));
     }
 
     @Override
@@ -121,7 +123,7 @@ public byte getLight(int blockX, int blockY, int blockZ) {
         }
 
         int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-        return chunks[chunkIndex].getLight(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize));
+        return chunks[chunkIndex].getLight(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ));
     }
 
     @Override
@@ -135,7 +137,7 @@ public void setBlock(int blockX, int blockY, int blockZ, Block type) {
             throw new IllegalStateException("Attempted to modify block though an unlocked view");
         } else if (blockRegion.encompasses(blockX, blockY, blockZ)) {
             int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-            chunks[chunkIndex].setBlock(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize), type);
+            chunks[chunkIndex].setBlock(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ), type);
         } else {
             logger.warn("Attempt to modify block outside of the view");
         }
@@ -153,7 +155,7 @@ public LiquidData getLiquid(int x, int y, int z) {
         }
 
         int chunkIndex = relChunkIndex(x, y, z);
-        return chunks[chunkIndex].getLiquid(TeraMath.calcBlockPos(x, y, z, chunkFilterSize));
+        return chunks[chunkIndex].getLiquid(relBlockX(x), TeraMath.calcBlockPosY(y), relBlockZ(z));
     }
 
     @Override
@@ -165,7 +167,7 @@ public void setLiquid(Vector3i pos, LiquidData newState) {
     public void setLiquid(int x, int y, int z, LiquidData newState) {
         if (locked.get() && blockRegion.encompasses(x, y, z)) {
             int chunkIndex = relChunkIndex(x, y, z);
-            chunks[chunkIndex].setLiquid(TeraMath.calcBlockPos(x, y, z, chunkFilterSize), newState);
+            chunks[chunkIndex].setLiquid(relBlockX(x), TeraMath.calcBlockPosY(y), relBlockZ(z), newState);
         } else {
             throw new IllegalStateException("Attempted to modify liquid data though an unlocked view");
         }
@@ -180,7 +182,7 @@ public void setLight(Vector3i pos, byte light) {
     public void setLight(int blockX, int blockY, int blockZ, byte light) {
         if (locked.get() && blockRegion.encompasses(blockX, blockY, blockZ)) {
             int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-            chunks[chunkIndex].setLight(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize), light);
+            chunks[chunkIndex].setLight(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ), light);
         } else if (!locked.get()) {
             throw new IllegalStateException("Attempted to modify light though an unlocked view");
         } else {
@@ -197,7 +199,7 @@ public void setSunlight(Vector3i pos, byte light) {
     public void setSunlight(int blockX, int blockY, int blockZ, byte light) {
         if (locked.get() && blockRegion.encompasses(blockX, blockY, blockZ)) {
             int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
-            chunks[chunkIndex].setSunlight(TeraMath.calcBlockPos(blockX, blockY, blockZ, chunkFilterSize), light);
+            chunks[chunkIndex].setSunlight(relBlockX(blockX), TeraMath.calcBlockPosY(blockY), relBlockZ(blockZ), light);
         } else {
             throw new IllegalStateException("Attempted to modify sunlight though an unlocked view");
         }
@@ -206,7 +208,7 @@ public void setSunlight(int blockX, int blockY, int blockZ, byte light) {
     @Override
     public void setDirtyAround(Vector3i blockPos) {
         for (Vector3i pos : TeraMath.getChunkRegionAroundWorldPos(blockPos, 1)) {
-            chunks[pos.x + offset.x + chunkRegion.size().x * (pos.z + offset.z)].setDirty(true);
+            chunks[pos.x + offset.x + chunkRegionSizeX * (pos.z + offset.z)].setDirty(true);
         }
     }
 
@@ -221,7 +223,7 @@ public void setDirtyAround(Region3i region) {
         Vector3i maxChunk = TeraMath.calcChunkPos(maxPos, chunkPower);
 
         for (Vector3i pos : Region3i.createFromMinMax(minChunk, maxChunk)) {
-            chunks[pos.x + offset.x + chunkRegion.size().x * (pos.z + offset.z)].setDirty(true);
+            chunks[pos.x + offset.x + chunkRegionSizeX * (pos.z + offset.z)].setDirty(true);
         }
     }
 
@@ -261,7 +263,15 @@ public boolean isValidView() {
     }
 
     int relChunkIndex(int x, int y, int z) {
-        return TeraMath.calcChunkPosX(x, chunkPower.x) + offset.x + chunkRegion.size().x * (TeraMath.calcChunkPosZ(z, chunkPower.z) + offset.z);
+        return TeraMath.calcChunkPosX(x, chunkPower.x) + offset.x + chunkRegionSizeX * (TeraMath.calcChunkPosZ(z, chunkPower.z) + offset.z);
+    }
+
+    private int relBlockX(int x) {
+        return TeraMath.calcBlockPosX(x, chunkFilterSize.x);
+    }
+
+    private int relBlockZ(int z) {
+        return TeraMath.calcBlockPosZ(z, chunkFilterSize.z);
     }
 
     public void setChunkSize(Vector3i chunkSize) {
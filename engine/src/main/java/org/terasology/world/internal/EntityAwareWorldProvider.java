@@ -43,12 +43,12 @@
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.logic.health.HealthComponent;
 import org.terasology.logic.location.LocationComponent;
-import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.NetworkComponent;
 import org.terasology.reflection.metadata.FieldMetadata;
 import org.terasology.registry.CoreRegistry;
+import org.terasology.world.BlockEditSet;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.OnChangedBlock;
 import org.terasology.world.block.Block;
@@ -72,12 +72,7 @@ public class EntityAwareWorldProvider extends AbstractWorldProviderDecorator imp
 
     private EngineEntityManager entityManager;
 
-    // TODO: Perhaps a better datastructure for spatial lookups
-    // TODO: Or perhaps a build in indexing system for entities
-    private Map<Vector3i, EntityRef> blockEntityLookup = Maps.newHashMap();
-
-    private Map<Vector3i, EntityRef> blockRegionLookup = Maps.newHashMap();
-    private Map<EntityRef, Region3i> blockRegions = Maps.newHashMap();
+    private final BlockEntityIndex blockEntityIndex = new BlockEntityIndex();
 
     private Set<EntityRef> temporaryBlockEntities = Sets.newLinkedHashSet();
 
@@ -131,6 +126,29 @@ public Block setBlock(Vector3i pos, Block type) {
         return null;
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(BlockEditSet edits) {
+        if (GameThread.isCurrentThread()) {
+            // As for single blocks, the entities have to be found before the blocks change
+            Map<Vector3i, EntityRef> blockEntities = Maps.newHashMapWithExpectedSize(edits.size());
+            Map<Vector3i, Block> types = Maps.newHashMapWithExpectedSize(edits.size());
+            for (BlockEditSet.ChunkEdits chunkEdits : edits.getChunkEdits()) {
+                for (int i = 0; i < chunkEdits.size(); ++i) {
+                    Vector3i pos = chunkEdits.getWorldPosition(i);
+                    blockEntities.put(pos, getBlockEntityAt(pos));
+                    types.put(pos, chunkEdits.getBlock(i));
+                }
+            }
+            Map<Vector3i, Block> oldTypes = super.setBlocks(edits);
+            for (Map.Entry<Vector3i, Block> oldType : oldTypes.entrySet()) {
+                Vector3i pos = oldType.getKey();
+                updateBlockEntity(blockEntities.get(pos), pos, oldType.getValue(), types.get(pos), false, Collections.<Class<? extends Component>>emptySet());
+            }
+            return oldTypes;
+        }
+        return Collections.emptyMap();
+    }
+
     @Override
     @SafeVarargs
     public final Block setBlockRetainComponent(Vector3i pos, Block type, Class<? extends Component>... components) {
@@ -155,7 +173,7 @@ private void updateBlockEntity(EntityRef blockEntity, Vector3i pos, Block oldTyp
         if (forceEntityUpdate || !(Objects.equal(oldType.getBlockFamily(), type.getBlockFamily()) && Objects.equal(oldType.getPrefab(), type.getPrefab()))) {
             updateBlockEntityComponents(blockEntity, oldType, type, retainComponents);
         }
-        EntityRef regionEntity = blockRegionLookup.get(pos);
+        EntityRef regionEntity = blockEntityIndex.getRegionEntity(pos);
         if (regionEntity != null) {
             regionEntity.send(new OnChangedBlock(pos, type, oldType));
         }
@@ -165,7 +183,7 @@ private void updateBlockEntity(EntityRef blockEntity, Vector3i pos, Block oldTyp
     @Override
     public EntityRef getExistingBlockEntityAt(Vector3i blockPosition) {
         if (GameThread.isCurrentThread()) {
-            EntityRef result = blockEntityLookup.get(blockPosition);
+            EntityRef result = blockEntityIndex.getBlockEntity(blockPosition);
             return (result == null) ? EntityRef.NULL : result;
         }
         logger.error("Attempted to get block entity off-thread");
@@ -330,14 +348,14 @@ private EntityRef createBlockEntity(Vector3i blockPosition, Block block) {
             blockEntity = builder.build();
         }
 
-        blockEntityLookup.put(new Vector3i(blockPosition), blockEntity);
+        blockEntityIndex.putBlockEntity(blockPosition, blockEntity);
         return blockEntity;
     }
 
     @Override
     public EntityRef getExistingEntityAt(Vector3i blockPosition) {
         if (GameThread.isCurrentThread()) {
-            EntityRef result = blockRegionLookup.get(blockPosition);
+            EntityRef result = blockEntityIndex.getRegionEntity(blockPosition);
             if (result == null) {
                 return getExistingBlockEntityAt(blockPosition);
             }
@@ -363,7 +381,7 @@ public EntityRef getEntityAt(Vector3i blockPosition) {
     @Override
     public boolean hasPermanentBlockEntity(Vector3i blockPos) {
         if (GameThread.isCurrentThread()) {
-            EntityRef blockEntity = blockEntityLookup.get(blockPos);
+            EntityRef blockEntity = blockEntityIndex.getBlockEntity(blockPos);
             return blockEntity != null && !temporaryBlockEntities.contains(blockEntity);
         }
         logger.error("Attempted check whether a block entity is permanent, off thread");
@@ -373,7 +391,7 @@ public boolean hasPermanentBlockEntity(Vector3i blockPos) {
     @ReceiveEvent(components = {BlockComponent.class})
     public void onActivateBlock(OnActivatedComponent event, EntityRef entity) {
         BlockComponent block = entity.getComponent(BlockComponent.class);
-        EntityRef oldEntity = blockEntityLookup.put(new Vector3i(block.getPosition()), entity);
+        EntityRef oldEntity = blockEntityIndex.putBlockEntity(block.getPosition(), entity);
         // If this is a client, then an existing block entity may exist. Destroy it.
         if (oldEntity != null && !Objects.equal(oldEntity, entity)) {
             oldEntity.destroy();
@@ -383,41 +401,24 @@ public void onActivateBlock(OnActivatedComponent event, EntityRef entity) {
     @ReceiveEvent(components = {BlockComponent.class})
     public void onDeactivateBlock(BeforeDeactivateComponent event, EntityRef entity) {
         BlockComponent block = entity.getComponent(BlockComponent.class);
-        Vector3i pos = new Vector3i(block.getPosition());
-        if (blockEntityLookup.get(pos) == entity) {
-            blockEntityLookup.remove(pos);
-        }
+        blockEntityIndex.removeBlockEntity(block.getPosition(), entity);
     }
 
     @ReceiveEvent(components = {BlockRegionComponent.class})
     public void onBlockRegionActivated(OnActivatedComponent event, EntityRef entity) {
         BlockRegionComponent regionComp = entity.getComponent(BlockRegionComponent.class);
-        blockRegions.put(entity, regionComp.region);
-        for (Vector3i pos : regionComp.region) {
-            blockRegionLookup.put(pos, entity);
-        }
+        blockEntityIndex.putRegion(entity, regionComp.region);
     }
 
     @ReceiveEvent(components = {BlockRegionComponent.class})
     public void onBlockRegionChanged(OnChangedComponent event, EntityRef entity) {
-        Region3i oldRegion = blockRegions.get(entity);
-        for (Vector3i pos : oldRegion) {
-            blockRegionLookup.remove(pos);
-        }
         BlockRegionComponent regionComp = entity.getComponent(BlockRegionComponent.class);
-        blockRegions.put(entity, regionComp.region);
-        for (Vector3i pos : regionComp.region) {
-            blockRegionLookup.put(pos, entity);
-        }
+        blockEntityIndex.putRegion(entity, regionComp.region);
     }
 
     @ReceiveEvent(components = {BlockRegionComponent.class})
     public void onBlockRegionDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
-        Region3i oldRegion = blockRegions.get(entity);
-        for (Vector3i pos : oldRegion) {
-            blockRegionLookup.remove(pos);
-        }
-        blockRegions.remove(entity);
+        blockEntityIndex.removeRegion(entity);
     }
 
     @Override
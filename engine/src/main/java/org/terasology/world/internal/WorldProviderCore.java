@@ -16,12 +16,16 @@
 package org.terasology.world.internal;
 
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.math.Vector3i;
+import org.terasology.world.BlockEditSet;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.block.Block;
 import org.terasology.world.liquid.LiquidData;
 import org.terasology.world.time.WorldTime;
 
+import java.util.Map;
+
 /**
  * Provides the basic interface for all world providers.
  *
@@ -56,7 +60,8 @@ public interface WorldProviderCore {
     WorldInfo getWorldInfo();
 
     /**
-     * Process any propagation, such as light
+     * Process any propagation, such as light, for the block changes made since the last call, and then pass those
+     * changes on to the listeners. Called once per tick.
      */
     void processPropagation();
 
@@ -99,6 +104,15 @@ public interface WorldProviderCore {
      */
     Block setBlock(Vector3i pos, Block type);
 
+    /**
+     * Applies a set of block changes at once. Each affected chunk is looked up, locked and marked dirty once.
+     *
+     * @param edits The changes to make
+     * @return The previous block types of the positions that changed, in the order they were changed. Positions in
+     *         chunks that are not loaded are left out.
+     */
+    Map<Vector3i, Block> setBlocks(BlockEditSet edits);
+
     /**
      * @param x
      * @param y
@@ -129,6 +143,19 @@ public interface WorldProviderCore {
      */
     Block getBlock(int x, int y, int z);
 
+    /**
+     * Reads the ids of the blocks in a region, looking up each chunk the region overlaps once.
+     * <p/>
+     * The ids are stored with x varying fastest, then z, then y: the block at (x, y, z) is stored at
+     * {@code (y - min.y) * size.x * size.z + (z - min.z) * size.x + (x - min.x)}. Blocks above or below the world, or in
+     * chunks that are not available, are read as air.
+     *
+     * @param region The region to read
+     * @param result The array to store the ids in, at least as large as the region
+     * @return Whether all blocks of the region within the height of the world were available
+     */
+    boolean getBlocks(Region3i region, short[] result);
+
     /**
      * Returns the light value at the given position.
      *
@@ -16,25 +16,31 @@
 
 package org.terasology.world.internal;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.engine.SimpleUri;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
 import org.terasology.math.Vector3i;
 import org.terasology.utilities.procedural.BrownianNoise3D;
 import org.terasology.utilities.procedural.Noise3D;
 import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.world.BlockChangeJournal;
+import org.terasology.world.BlockEditSet;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.WorldComponent;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.ChunkRegionCursor;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.liquid.LiquidData;
@@ -47,9 +53,11 @@
 import org.terasology.world.time.WorldTime;
 import org.terasology.world.time.WorldTimeImpl;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Immortius
@@ -68,7 +76,7 @@ public class WorldProviderCoreImpl implements WorldProviderCore {
 
     private final List<WorldChangeListener> listeners = Lists.newArrayList();
 
-    private Map<Vector3i, BlockChange> blockChanges = Maps.newHashMap();
+    private BlockChangeJournal blockChanges = new BlockChangeJournal();
     private List<BatchPropagator> propagators = Lists.newArrayList();
 
     public WorldProviderCoreImpl(String title, String seed, long time, SimpleUri worldGenerator, GeneratingChunkProvider chunkProvider) {
@@ -115,10 +123,32 @@ public WorldInfo getWorldInfo() {
 
     @Override
     public void processPropagation() {
+        if (blockChanges.isEmpty()) {
+            return;
+        }
+        // Changes made from here on, such as by listeners, go to the next tick's journal
+        BlockChangeJournal journal = blockChanges;
+        blockChanges = new BlockChangeJournal();
+
+        BlockManager blockManager = CoreRegistry.get(BlockManager.class);
+        List<BlockChange> changes = Lists.newArrayListWithCapacity(journal.size());
+        for (BlockChangeJournal.ChunkChanges chunkChanges : journal.getChunkChanges()) {
+            for (int i = 0; i < chunkChanges.size(); ++i) {
+                if (!chunkChanges.isReverted(i)) {
+                    changes.add(new BlockChange(chunkChanges.getWorldPosition(i), blockManager.getBlock(chunkChanges.getFromId(i)),
+                            blockManager.getBlock(chunkChanges.getToId(i))));
+                }
+            }
+        }
         for (BatchPropagator propagator : propagators) {
-            propagator.process(blockChanges.values());
+            propagator.process(changes);
+        }
+        // TODO: Review, should only happen on main thread (as should changes to listeners)
+        synchronized (listeners) {
+            for (WorldChangeListener listener : listeners) {
+                listener.onBlocksChanged(journal);
+            }
         }
-        blockChanges.clear();
     }
 
     @Override
@@ -158,33 +188,67 @@ public Block setBlock(Vector3i worldPos, Block type) {
             Vector3i blockPos = TeraMath.calcBlockPos(worldPos);
             Block oldBlockType = chunk.setBlock(blockPos, type);
             if (oldBlockType != type) {
-                BlockChange oldChange = blockChanges.get(worldPos);
-                if (oldChange == null) {
-                    blockChanges.put(worldPos, new BlockChange(worldPos, oldBlockType, type));
-                } else {
-                    oldChange.setTo(type);
-                }
+                blockChanges.record(worldPos, oldBlockType.getId(), type.getId());
                 for (Vector3i pos : TeraMath.getChunkRegionAroundWorldPos(worldPos, 1)) {
                     ChunkImpl dirtiedChunk = chunkProvider.getChunk(pos);
                     if (dirtiedChunk != null) {
                         dirtiedChunk.setDirty(true);
                     }
                 }
-                notifyBlockChanged(worldPos, type, oldBlockType);
             }
             return oldBlockType;
         }
         return null;
     }
 
-    private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
-        // TODO: Could use a read/write lock.
-        // TODO: Review, should only happen on main thread (as should changes to listeners)
-        synchronized (listeners) {
-            for (WorldChangeListener listener : listeners) {
-                listener.onBlockChanged(pos, type, oldType);
+    @Override
+    public Map<Vector3i, Block> setBlocks(BlockEditSet edits) {
+        Map<Vector3i, Block> result = Maps.newLinkedHashMap();
+        Set<Vector3i> dirtiedChunks = Sets.newHashSet();
+        for (BlockEditSet.ChunkEdits chunkEdits : edits.getChunkEdits()) {
+            ChunkImpl chunk = chunkProvider.getChunk(chunkEdits.getChunkX(), chunkEdits.getChunkY(), chunkEdits.getChunkZ());
+            if (chunk == null) {
+                continue;
+            }
+            // The chunks to mark dirty, as bits of the 3 by 3 chunks around this one: a changed block dirties its own chunk
+            // and the chunks it borders on, as for a single block
+            int dirtied = 0;
+            chunk.lock();
+            try {
+                for (int i = 0; i < chunkEdits.size(); ++i) {
+                    Block type = chunkEdits.getBlock(i);
+                    int x = chunkEdits.getX(i);
+                    int z = chunkEdits.getZ(i);
+                    Block oldBlockType = chunk.setBlock(x, chunkEdits.getY(i), z, type);
+                    if (oldBlockType != type) {
+                        Vector3i worldPos = chunkEdits.getWorldPosition(i);
+                        blockChanges.record(worldPos, oldBlockType.getId(), type.getId());
+                        result.put(worldPos, oldBlockType);
+                        int maxDX = (x == ChunkConstants.SIZE_X - 1) ? 1 : 0;
+                        int maxDZ = (z == ChunkConstants.SIZE_Z - 1) ? 1 : 0;
+                        for (int dx = (x == 0) ? -1 : 0; dx <= maxDX; ++dx) {
+                            for (int dz = (z == 0) ? -1 : 0; dz <= maxDZ; ++dz) {
+                                dirtied |= 1 << ((dx + 1) * 3 + dz + 1);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                chunk.unlock();
+            }
+            for (int bit = 0; bit < 9; ++bit) {
+                if ((dirtied & (1 << bit)) != 0) {
+                    dirtiedChunks.add(new Vector3i(chunkEdits.getChunkX() + bit / 3 - 1, 0, chunkEdits.getChunkZ() + bit % 3 - 1));
+                }
+            }
+        }
+        for (Vector3i pos : dirtiedChunks) {
+            ChunkImpl dirtiedChunk = chunkProvider.getChunk(pos);
+            if (dirtiedChunk != null) {
+                dirtiedChunk.setDirty(true);
             }
         }
+        return result;
     }
 
     @Override
@@ -240,6 +304,38 @@ public Block getBlock(int x, int y, int z) {
         return BlockManager.getAir();
     }
 
+    @Override
+    public boolean getBlocks(Region3i region, short[] result) {
+        Vector3i min = region.min();
+        Vector3i size = region.size();
+        int sizeXZ = size.x * size.z;
+        Preconditions.checkArgument(result.length >= sizeXZ * size.y, "Result array is smaller than the region");
+
+        short airId = BlockManager.getAir().getId();
+        // Parts of the region above or below the world are skipped by the cursor
+        Arrays.fill(result, 0, sizeXZ * size.y, airId);
+        boolean complete = true;
+        ChunkRegionCursor cursor = new ChunkRegionCursor(region);
+        while (cursor.next()) {
+            ChunkImpl chunk = chunkProvider.getChunk(cursor.getChunkX(), cursor.getChunkY(), cursor.getChunkZ());
+            if (chunk == null) {
+                complete = false;
+                continue;
+            }
+            int offsetX = cursor.getChunkWorldX() - min.x;
+            int offsetZ = cursor.getChunkWorldZ() - min.z;
+            for (int y = cursor.getLocalMinY(); y <= cursor.getLocalMaxY(); ++y) {
+                for (int z = cursor.getLocalMinZ(); z <= cursor.getLocalMaxZ(); ++z) {
+                    int index = (y - min.y) * sizeXZ + (z + offsetZ) * size.x + offsetX;
+                    for (int x = cursor.getLocalMinX(); x <= cursor.getLocalMaxX(); ++x) {
+                        result[index + x] = chunk.getBlockId(x, y, z);
+                    }
+                }
+            }
+        }
+        return complete;
+    }
+
     @Override
     public byte getLight(int x, int y, int z) {
         if (y >= ChunkConstants.SIZE_Y || y < 0) {
@@ -55,6 +55,11 @@ public Block getBlockAt(Vector3i pos) {
         return null;
     }
 
+    @Override
+    public PropagatorChunkView getChunkAt(int chunkX, int chunkY, int chunkZ) {
+        return null;
+    }
+
     public boolean isInBounds(Vector3i pos) {
         return chunkView.getWorldRegion().encompasses(pos);
     }
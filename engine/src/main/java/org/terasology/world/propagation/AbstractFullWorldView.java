@@ -36,8 +36,7 @@ public AbstractFullWorldView(ChunkProvider chunkProvider) {
     }
 
     private ChunkImpl getChunk(Vector3i pos) {
-
-        return chunkProvider.getChunk(TeraMath.calcChunkPos(pos));
+        return chunkProvider.getChunk(TeraMath.calcChunkPosX(pos.x), TeraMath.calcChunkPosY(pos.y), TeraMath.calcChunkPosZ(pos.z));
     }
 
     @Override
@@ -47,7 +46,7 @@ public byte getValueAt(Vector3i pos) {
         }
         ChunkImpl chunk = getChunk(pos);
         if (chunk != null) {
-            return getValueAt(chunk, TeraMath.calcBlockPos(pos.x, pos.y, pos.z));
+            return getValueAt(chunk, TeraMath.calcBlockPosX(pos.x), TeraMath.calcBlockPosY(pos.y), TeraMath.calcBlockPosZ(pos.z));
         }
         return UNAVAILABLE;
     }
@@ -56,18 +55,36 @@ public byte getValueAt(Vector3i pos) {
      * Obtains the relevant value from the given chunk
      *
      * @param chunk
-     * @param pos   The internal position of the chunk to get the value from
+     * @param x     The internal x position of the chunk to get the value from
+     * @param y     The internal y position of the chunk to get the value from
+     * @param z     The internal z position of the chunk to get the value from
      * @return The relevant value for this view
      */
-    protected abstract byte getValueAt(ChunkImpl chunk, Vector3i pos);
+    protected abstract byte getValueAt(ChunkImpl chunk, int x, int y, int z);
 
     @Override
     public void setValueAt(Vector3i pos, byte value) {
-        setValueAt(getChunk(pos), TeraMath.calcBlockPos(pos.x, pos.y, pos.z), value);
-        for (Vector3i affectedChunkPos : TeraMath.getChunkRegionAroundWorldPos(pos, 1)) {
-            ChunkImpl dirtiedChunk = chunkProvider.getChunk(affectedChunkPos);
-            if (dirtiedChunk != null) {
-                dirtiedChunk.setDirty(true);
+        int blockX = TeraMath.calcBlockPosX(pos.x);
+        int blockZ = TeraMath.calcBlockPosZ(pos.z);
+        setValueAt(getChunk(pos), blockX, TeraMath.calcBlockPosY(pos.y), blockZ, value);
+        markDirty(TeraMath.calcChunkPosX(pos.x), TeraMath.calcChunkPosY(pos.y), TeraMath.calcChunkPosZ(pos.z), blockX, blockZ);
+    }
+
+    /**
+     * Marks the meshes affected by a change to a block dirty. Meshes include the blocks bordering their chunk, so
+     * neighbouring chunks are only affected by edge blocks.
+     */
+    private void markDirty(int chunkX, int chunkY, int chunkZ, int blockX, int blockZ) {
+        int minX = (blockX == 0) ? chunkX - 1 : chunkX;
+        int maxX = (blockX == ChunkConstants.SIZE_X - 1) ? chunkX + 1 : chunkX;
+        int minZ = (blockZ == 0) ? chunkZ - 1 : chunkZ;
+        int maxZ = (blockZ == ChunkConstants.SIZE_Z - 1) ? chunkZ + 1 : chunkZ;
+        for (int x = minX; x <= maxX; ++x) {
+            for (int z = minZ; z <= maxZ; ++z) {
+                ChunkImpl dirtiedChunk = chunkProvider.getChunk(x, chunkY, z);
+                if (dirtiedChunk != null) {
+                    dirtiedChunk.setDirty(true);
+                }
             }
         }
     }
@@ -76,21 +93,93 @@ public void setValueAt(Vector3i pos, byte value) {
      * Sets the relevant value for the given chunk
      *
      * @param chunk
-     * @param pos   The internal position of the chunk to set the value of
+     * @param x     The internal x position of the chunk to set the value of
+     * @param y     The internal y position of the chunk to set the value of
+     * @param z     The internal z position of the chunk to set the value of
      * @param value The new value
      */
-    protected abstract void setValueAt(ChunkImpl chunk, Vector3i pos, byte value);
+    protected abstract void setValueAt(ChunkImpl chunk, int x, int y, int z, byte value);
 
     @Override
     public Block getBlockAt(Vector3i pos) {
         if (pos.y < 0 || pos.y >= ChunkConstants.SIZE_Y) {
             return null;
         }
-        ChunkImpl chunk = chunkProvider.getChunk(TeraMath.calcChunkPos(pos));
+        ChunkImpl chunk = getChunk(pos);
         if (chunk != null) {
-            return chunk.getBlock(TeraMath.calcBlockPos(pos));
+            return chunk.getBlock(TeraMath.calcBlockPosX(pos.x), TeraMath.calcBlockPosY(pos.y), TeraMath.calcBlockPosZ(pos.z));
         }
         return null;
     }
 
+    @Override
+    public PropagatorChunkView getChunkAt(int chunkX, int chunkY, int chunkZ) {
+        // The world is a single chunk tall
+        if (chunkY != 0) {
+            return null;
+        }
+        ChunkImpl chunk = chunkProvider.getChunk(chunkX, chunkY, chunkZ);
+        if (chunk != null) {
+            return new FullChunkView(chunk, chunkX, chunkY, chunkZ);
+        }
+        return null;
+    }
+
+    /**
+     * A chunk of the view. The neighbours whose meshes share its edges are looked up once, by the first change to them.
+     */
+    private final class FullChunkView implements PropagatorChunkView {
+        private final ChunkImpl chunk;
+        private final int chunkX;
+        private final int chunkY;
+        private final int chunkZ;
+        private final ChunkImpl[] neighbours = new ChunkImpl[9];
+        private final boolean[] neighbourResolved = new boolean[9];
+
+        public FullChunkView(ChunkImpl chunk, int chunkX, int chunkY, int chunkZ) {
+            this.chunk = chunk;
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public byte getValueAt(int x, int y, int z) {
+            return AbstractFullWorldView.this.getValueAt(chunk, x, y, z);
+        }
+
+        @Override
+        public void setValueAt(int x, int y, int z, byte value) {
+            AbstractFullWorldView.this.setValueAt(chunk, x, y, z, value);
+            chunk.setDirty(true);
+            int minX = (x == 0) ? -1 : 0;
+            int maxX = (x == ChunkConstants.SIZE_X - 1) ? 1 : 0;
+            int minZ = (z == 0) ? -1 : 0;
+            int maxZ = (z == ChunkConstants.SIZE_Z - 1) ? 1 : 0;
+            for (int dx = minX; dx <= maxX; ++dx) {
+                for (int dz = minZ; dz <= maxZ; ++dz) {
+                    if (dx != 0 || dz != 0) {
+                        ChunkImpl neighbour = getNeighbour(dx, dz);
+                        if (neighbour != null) {
+                            neighbour.setDirty(true);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Block getBlockAt(int x, int y, int z) {
+            return chunk.getBlock(x, y, z);
+        }
+
+        private ChunkImpl getNeighbour(int dx, int dz) {
+            int index = (dx + 1) * 3 + dz + 1;
+            if (!neighbourResolved[index]) {
+                neighbours[index] = chunkProvider.getChunk(chunkX + dx, chunkY, chunkZ + dz);
+                neighbourResolved[index] = true;
+            }
+            return neighbours[index];
+        }
+    }
 }
@@ -15,8 +15,9 @@
  */
 package org.terasology.world.propagation;
 
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
 import org.terasology.math.Region3i;
 import org.terasology.math.Side;
 import org.terasology.math.TeraMath;
@@ -25,12 +26,17 @@
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Set;
+import java.util.Deque;
 
 /**
  * Batch propagator that works on a set of changed blocks
+ * <p/>
+ * Positions are queued by chunk, as their index within the chunk, in a queue per value. A pass looks up each chunk it
+ * visits once, and then reaches the neighbours of a position within the same chunk without any further lookup; only
+ * the neighbours across a chunk edge are queued on the adjacent chunk. Queues are reused, so propagating does not
+ * allocate once they have grown to the size of the largest change. A propagator is not thread safe.
  *
  * @author Immortius
  */
@@ -38,19 +44,47 @@ public class BatchPropagator {
 
     private static final byte NO_VALUE = 0;
 
+    private static final Side[] SIDES = Side.values();
+
+    private static final int MASK_X = ChunkConstants.SIZE_X - 1;
+    private static final int MASK_Y = ChunkConstants.SIZE_Y - 1;
+    private static final int MASK_Z = ChunkConstants.SIZE_Z - 1;
+    private static final int SHIFT_Z = ChunkConstants.POWER_X;
+    private static final int SHIFT_Y = ChunkConstants.POWER_X + ChunkConstants.POWER_Z;
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
     private PropagationRules rules;
     private PropagatorWorldView world;
 
-    private Set<Vector3i>[] reduceQueues;
-    private Set<Vector3i>[] increaseQueues;
+    private ChunkQueues[] reduceQueues;
+    private ChunkQueues[] increaseQueues;
+
+    // The chunks visited since the last pass, by packed chunk position
+    private final TLongObjectMap<VisitedChunk> chunks = new TLongObjectHashMap<>();
+    private final Deque<PositionQueue> spareQueues = new ArrayDeque<>();
 
-    private Map<Side, Vector3i> chunkEdgeDeltas = Maps.newEnumMap(Side.class);
+    private Vector3i[] chunkEdgeDeltas = new Vector3i[SIDES.length];
+    private Region3i[] chunkEdgeRegions = new Region3i[SIDES.length];
+
+    // Scratch positions, reused for every block visited
+    private final Vector3i pos = new Vector3i();
+    private final Vector3i adjPos = new Vector3i();
+
+    // The neighbour found by findAdjacent
+    private VisitedChunk adjChunk;
+    private int adjX;
+    private int adjY;
+    private int adjZ;
 
     public BatchPropagator(PropagationRules rules, PropagatorWorldView world) {
         this.world = world;
         this.rules = rules;
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             Vector3i delta = new Vector3i(side.getVector3i());
             if (delta.x < 0) {
                 delta.x += ChunkConstants.SIZE_X;
@@ -67,14 +101,15 @@ public BatchPropagator(PropagationRules rules, PropagatorWorldView world) {
             } else if (delta.z > 0) {
                 delta.z -= ChunkConstants.SIZE_Z;
             }
-            chunkEdgeDeltas.put(side, delta);
+            chunkEdgeDeltas[side.ordinal()] = delta;
+            chunkEdgeRegions[side.ordinal()] = TeraMath.getEdgeRegion(ChunkConstants.CHUNK_REGION, side);
         }
 
-        increaseQueues = new Set[rules.getMaxValue()];
-        reduceQueues = new Set[rules.getMaxValue()];
+        increaseQueues = new ChunkQueues[rules.getMaxValue()];
+        reduceQueues = new ChunkQueues[rules.getMaxValue()];
         for (int i = 0; i < rules.getMaxValue(); ++i) {
-            increaseQueues[i] = Sets.newLinkedHashSet();
-            reduceQueues[i] = Sets.newLinkedHashSet();
+            increaseQueues[i] = new ChunkQueues();
+            reduceQueues[i] = new ChunkQueues();
         }
 
     }
@@ -94,31 +129,32 @@ public void process(Iterable<BlockChange> blockChanges) {
     }
 
     private void reviewChange(BlockChange blockChange) {
+        Vector3i changePos = blockChange.getPosition();
         byte newValue = rules.getBlockValue(blockChange.getTo());
-        byte existingValue = world.getValueAt(blockChange.getPosition());
+        byte existingValue = world.getValueAt(changePos);
         if (newValue > existingValue) {
-            increase(blockChange.getPosition(), newValue);
+            increase(changePos, newValue);
         }
 
         byte oldValue = rules.getBlockValue(blockChange.getFrom());
         if (newValue < oldValue) {
-            reduce(blockChange.getPosition(), oldValue);
+            reduce(changePos, oldValue);
         }
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             PropagationComparison comparison = rules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), side);
             if (comparison.isRestricting() && existingValue > 0) {
-                reduce(blockChange.getPosition(), existingValue);
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
+                reduce(changePos, existingValue);
+                setAdjacent(adjPos, changePos, side);
                 byte adjValue = world.getValueAt(adjPos);
                 if (adjValue == rules.propagateValue(existingValue, side, blockChange.getFrom())) {
                     reduce(adjPos, adjValue);
                 }
             } else if (comparison.isPermitting()) {
                 if (existingValue > 0) {
-                    queueSpreadValue(blockChange.getPosition(), existingValue);
+                    queueSpreadValue(changePos, existingValue);
                 }
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
+                setAdjacent(adjPos, changePos, side);
                 byte adjValue = world.getValueAt(adjPos);
                 if (adjValue != PropagatorWorldView.UNAVAILABLE) {
                     queueSpreadValue(adjPos, adjValue);
@@ -128,83 +164,127 @@ private void reviewChange(BlockChange blockChange) {
     }
 
     private void processReduction() {
-        int depth = 0;
-        while (depth < rules.getMaxValue()) {
+        for (int depth = 0; depth < rules.getMaxValue(); ++depth) {
             byte oldValue = (byte) (rules.getMaxValue() - depth);
-            Set<Vector3i> toProcess = reduceQueues[depth];
-            reduceQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
-
-            for (Vector3i pos : toProcess) {
-                purge(pos, oldValue);
-            }
-            if (reduceQueues[depth].isEmpty()) {
-                depth++;
+            ChunkQueues toProcess = reduceQueues[depth];
+            // Purging a position can queue further positions at the same depth, which are processed in the same pass
+            while (!toProcess.isEmpty()) {
+                PositionQueue queue = toProcess.peek();
+                while (!queue.isEmpty()) {
+                    purge(queue.chunk, queue.poll(), oldValue);
+                }
+                toProcess.remove();
             }
         }
     }
 
-    private void purge(Vector3i pos, byte oldValue) {
-        Block block = world.getBlockAt(pos);
-        increaseQueues[rules.getMaxValue() - oldValue].remove(pos);
+    private void purge(VisitedChunk chunk, int index, byte oldValue) {
+        int x = index & MASK_X;
+        int y = index >>> SHIFT_Y;
+        int z = (index >> SHIFT_Z) & MASK_Z;
+        Block block = chunk.view.getBlockAt(x, y, z);
+        PositionQueue queued = chunk.increaseQueues[rules.getMaxValue() - oldValue];
+        if (queued != null) {
+            queued.remove(index);
+        }
         if (rules.getBlockValue(block) > 0) {
-            increase(pos, rules.getBlockValue(block));
+            increase(chunk, x, y, z, rules.getBlockValue(block));
         } else {
-            world.setValueAt(pos, NO_VALUE);
+            chunk.view.setValueAt(x, y, z, NO_VALUE);
         }
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             byte expectedValue = rules.propagateValue(oldValue, side, block);
-            Vector3i adjPos = side.getAdjacentPos(pos);
             if (rules.canSpreadOutOf(block, side)) {
-                byte adjValue = world.getValueAt(adjPos);
+                findAdjacent(chunk, x, y, z, side);
+                byte adjValue = adjChunk.view.getValueAt(adjX, adjY, adjZ);
                 if (adjValue == expectedValue) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = adjChunk.view.getBlockAt(adjX, adjY, adjZ);
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        reduce(adjPos, expectedValue);
+                        reduce(adjChunk, index(adjX, adjY, adjZ), expectedValue);
                     }
                 } else if (adjValue > 0) {
-                    queueSpreadValue(adjPos, adjValue);
+                    queueSpreadValue(adjChunk, index(adjX, adjY, adjZ), adjValue);
                 }
             }
         }
     }
 
     private void processIncrease() {
-        int depth = 0;
-        while (depth < rules.getMaxValue() - 1) {
+        for (int depth = 0; depth < rules.getMaxValue() - 1; ++depth) {
             byte value = (byte) (rules.getMaxValue() - depth);
-            Set<Vector3i> toProcess = increaseQueues[depth];
-            increaseQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
-
-            for (Vector3i pos : toProcess) {
-                push(pos, value);
-            }
-            if (increaseQueues[depth].isEmpty()) {
-                depth++;
+            ChunkQueues toProcess = increaseQueues[depth];
+            while (!toProcess.isEmpty()) {
+                PositionQueue queue = toProcess.peek();
+                while (!queue.isEmpty()) {
+                    push(queue.chunk, queue.poll(), value);
+                }
+                toProcess.remove();
             }
         }
     }
 
-    private void push(Vector3i pos, byte value) {
-        Block block = world.getBlockAt(pos);
-        for (Side side : Side.values()) {
+    private void push(VisitedChunk chunk, int index, byte value) {
+        int x = index & MASK_X;
+        int y = index >>> SHIFT_Y;
+        int z = (index >> SHIFT_Z) & MASK_Z;
+        Block block = chunk.view.getBlockAt(x, y, z);
+        for (Side side : SIDES) {
             byte spreadValue = rules.propagateValue(value, side, block);
-            Vector3i adjPos = side.getAdjacentPos(pos);
             if (rules.canSpreadOutOf(block, side)) {
-                byte adjValue = world.getValueAt(adjPos);
+                findAdjacent(chunk, x, y, z, side);
+                byte adjValue = adjChunk.view.getValueAt(adjX, adjY, adjZ);
                 if (adjValue < spreadValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = adjChunk.view.getBlockAt(adjX, adjY, adjZ);
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        increase(adjPos, spreadValue);
+                        increase(adjChunk, adjX, adjY, adjZ, spreadValue);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Finds the neighbour of a position within a chunk on the given side, and leaves it in adjChunk, adjX, adjY and
+     * adjZ. The adjacent chunk is looked up the first time it is needed.
+     */
+    private void findAdjacent(VisitedChunk chunk, int x, int y, int z, Side side) {
+        Vector3i dir = side.getVector3i();
+        int nx = x + dir.x;
+        int ny = y + dir.y;
+        int nz = z + dir.z;
+        if (((nx & ~MASK_X) | (ny & ~MASK_Y) | (nz & ~MASK_Z)) == 0) {
+            adjChunk = chunk;
+        } else {
+            adjChunk = chunk.adjacent[side.ordinal()];
+            if (adjChunk == null) {
+                adjChunk = getChunk(chunk.x + dir.x, chunk.y + dir.y, chunk.z + dir.z);
+                chunk.adjacent[side.ordinal()] = adjChunk;
+            }
+        }
+        adjX = nx & MASK_X;
+        adjY = ny & MASK_Y;
+        adjZ = nz & MASK_Z;
+    }
+
     private void cleanUp() {
-        for (Set<Vector3i> queue : increaseQueues) {
-            queue.clear();
+        for (ChunkQueues queues : increaseQueues) {
+            queues.clear();
+        }
+        for (VisitedChunk chunk : chunks.valueCollection()) {
+            releaseQueues(chunk.increaseQueues);
+            releaseQueues(chunk.reduceQueues);
+        }
+        chunks.clear();
+    }
+
+    private void releaseQueues(PositionQueue[] queues) {
+        for (PositionQueue queue : queues) {
+            if (queue != null) {
+                queue.clear();
+                queue.chunk = null;
+                spareQueues.push(queue);
+            }
         }
     }
 
@@ -213,44 +293,286 @@ private void increase(Vector3i position, byte value) {
         queueSpreadValue(position, value);
     }
 
+    private void increase(VisitedChunk chunk, int x, int y, int z, byte value) {
+        chunk.view.setValueAt(x, y, z, value);
+        queueSpreadValue(chunk, index(x, y, z), value);
+    }
+
     private void queueSpreadValue(Vector3i position, byte value) {
+        queueSpreadValue(getChunk(position), index(position), value);
+    }
+
+    private void queueSpreadValue(VisitedChunk chunk, int index, byte value) {
         if (value > 1) {
-            increaseQueues[rules.getMaxValue() - value].add(position);
+            int depth = rules.getMaxValue() - value;
+            increaseQueues[depth].add(getQueue(chunk, chunk.increaseQueues, depth), index);
         }
     }
 
     private void reduce(Vector3i position, byte oldValue) {
+        reduce(getChunk(position), index(position), oldValue);
+    }
+
+    private void reduce(VisitedChunk chunk, int index, byte oldValue) {
         if (oldValue > 0) {
-            reduceQueues[rules.getMaxValue() - oldValue].add(position);
+            int depth = rules.getMaxValue() - oldValue;
+            reduceQueues[depth].add(getQueue(chunk, chunk.reduceQueues, depth), index);
+        }
+    }
+
+    private PositionQueue getQueue(VisitedChunk chunk, PositionQueue[] queues, int depth) {
+        PositionQueue queue = queues[depth];
+        if (queue == null) {
+            queue = spareQueues.isEmpty() ? new PositionQueue() : spareQueues.pop();
+            queue.chunk = chunk;
+            queues[depth] = queue;
+        }
+        return queue;
+    }
+
+    private VisitedChunk getChunk(Vector3i position) {
+        return getChunk(position.x >> ChunkConstants.POWER_X, position.y >> ChunkConstants.POWER_Y, position.z >> ChunkConstants.POWER_Z);
+    }
+
+    private VisitedChunk getChunk(int chunkX, int chunkY, int chunkZ) {
+        long key = pack(chunkX, chunkY, chunkZ);
+        VisitedChunk chunk = chunks.get(key);
+        if (chunk == null) {
+            PropagatorChunkView view = world.getChunkAt(chunkX, chunkY, chunkZ);
+            if (view == null) {
+                view = new WorldChunkView(chunkX, chunkY, chunkZ);
+            }
+            chunk = new VisitedChunk(chunkX, chunkY, chunkZ, view, rules.getMaxValue());
+            chunks.put(key, chunk);
         }
+        return chunk;
     }
 
     public void propagateBetween(ChunkImpl chunk, ChunkImpl adjChunk, Side side) {
-        Region3i edgeRegion = TeraMath.getEdgeRegion(Region3i.createFromMinAndSize(Vector3i.zero(), ChunkConstants.CHUNK_SIZE), side);
-        Vector3i adjPos = new Vector3i();
-        for (Vector3i pos : edgeRegion) {
-            adjPos.set(pos);
-            adjPos.add(chunkEdgeDeltas.get(side));
-
-            Block block = chunk.getBlock(pos);
-            byte value = rules.getValue(chunk, pos);
-            Block adjBlock = adjChunk.getBlock(adjPos);
-            byte adjValue = rules.getValue(adjChunk, adjPos);
-
-            byte expectedAdjValue = rules.propagateValue(value, side, block);
-            if (rules.canSpreadOutOf(block, side) && rules.canSpreadInto(adjBlock, side.reverse()) && adjValue < expectedAdjValue) {
-                rules.setValue(adjChunk, adjPos, expectedAdjValue);
-                queueSpreadValue(adjChunk.getBlockWorldPos(adjPos), expectedAdjValue);
+        Region3i edgeRegion = chunkEdgeRegions[side.ordinal()];
+        Vector3i edgeDelta = chunkEdgeDeltas[side.ordinal()];
+        Side reverseSide = side.reverse();
+        VisitedChunk visitedChunk = null;
+        VisitedChunk visitedAdjChunk = null;
+        Vector3i edgeMin = edgeRegion.min();
+        Vector3i edgeMax = edgeRegion.max();
+        for (int x = edgeMin.x; x <= edgeMax.x; ++x) {
+            for (int y = edgeMin.y; y <= edgeMax.y; ++y) {
+                for (int z = edgeMin.z; z <= edgeMax.z; ++z) {
+                    pos.set(x, y, z);
+                    adjPos.set(x + edgeDelta.x, y + edgeDelta.y, z + edgeDelta.z);
+
+                    Block block = chunk.getBlock(pos);
+                    byte value = rules.getValue(chunk, pos);
+                    Block adjBlock = adjChunk.getBlock(adjPos);
+                    byte adjValue = rules.getValue(adjChunk, adjPos);
+
+                    byte expectedAdjValue = rules.propagateValue(value, side, block);
+                    if (rules.canSpreadOutOf(block, side) && rules.canSpreadInto(adjBlock, reverseSide) && adjValue < expectedAdjValue) {
+                        rules.setValue(adjChunk, adjPos, expectedAdjValue);
+                        if (visitedAdjChunk == null) {
+                            visitedAdjChunk = getChunk(adjChunk.getPos().x, adjChunk.getPos().y, adjChunk.getPos().z);
+                        }
+                        queueSpreadValue(visitedAdjChunk, index(adjPos.x, adjPos.y, adjPos.z), expectedAdjValue);
+                    }
+                    byte expectedValue = rules.propagateValue(adjValue, reverseSide, adjBlock);
+                    if (rules.canSpreadInto(block, side) && rules.canSpreadOutOf(adjBlock, reverseSide) && value < expectedValue) {
+                        rules.setValue(chunk, pos, expectedValue);
+                        if (visitedChunk == null) {
+                            visitedChunk = getChunk(chunk.getPos().x, chunk.getPos().y, chunk.getPos().z);
+                        }
+                        queueSpreadValue(visitedChunk, index(x, y, z), expectedValue);
+                    }
+                }
+            }
+        }
+    }
+
+    public void propagateFrom(Vector3i position, Block block) {
+        queueSpreadValue(position, rules.getBlockValue(block));
+    }
+
+    private static void setAdjacent(Vector3i target, Vector3i position, Side side) {
+        Vector3i dir = side.getVector3i();
+        target.set(position.x + dir.x, position.y + dir.y, position.z + dir.z);
+    }
+
+    /**
+     * @return The index of a position within its chunk, in the order TeraArray stores blocks
+     */
+    private static int index(Vector3i position) {
+        return index(position.x & MASK_X, position.y & MASK_Y, position.z & MASK_Z);
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y << SHIFT_Y) | (z << SHIFT_Z) | x;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << (XZ_BITS + Y_BITS)) | ((z & XZ_MASK) << Y_BITS) | (y & Y_MASK);
+    }
+
+    /**
+     * A chunk visited by the current pass, with the positions queued within it.
+     */
+    private static final class VisitedChunk {
+        private final int x;
+        private final int y;
+        private final int z;
+        private final PropagatorChunkView view;
+        private final VisitedChunk[] adjacent = new VisitedChunk[SIDES.length];
+        private final PositionQueue[] increaseQueues;
+        private final PositionQueue[] reduceQueues;
+
+        public VisitedChunk(int x, int y, int z, PropagatorChunkView view, int maxValue) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.view = view;
+            this.increaseQueues = new PositionQueue[maxValue];
+            this.reduceQueues = new PositionQueue[maxValue];
+        }
+    }
+
+    /**
+     * Accesses a chunk the world view does not give direct access to through its world positions.
+     */
+    private final class WorldChunkView implements PropagatorChunkView {
+        private final Vector3i worldPos = new Vector3i();
+        private final int worldX;
+        private final int worldY;
+        private final int worldZ;
+
+        public WorldChunkView(int chunkX, int chunkY, int chunkZ) {
+            this.worldX = chunkX << ChunkConstants.POWER_X;
+            this.worldY = chunkY << ChunkConstants.POWER_Y;
+            this.worldZ = chunkZ << ChunkConstants.POWER_Z;
+        }
+
+        @Override
+        public byte getValueAt(int x, int y, int z) {
+            worldPos.set(worldX + x, worldY + y, worldZ + z);
+            return world.getValueAt(worldPos);
+        }
+
+        @Override
+        public void setValueAt(int x, int y, int z, byte value) {
+            worldPos.set(worldX + x, worldY + y, worldZ + z);
+            world.setValueAt(worldPos, value);
+        }
+
+        @Override
+        public Block getBlockAt(int x, int y, int z) {
+            worldPos.set(worldX + x, worldY + y, worldZ + z);
+            return world.getBlockAt(worldPos);
+        }
+    }
+
+    /**
+     * The chunks with positions queued for a single value, in the order they were first queued. A chunk is processed
+     * until its queue is empty before it is removed, so positions it queues on itself meanwhile are part of the same
+     * visit.
+     */
+    private static final class ChunkQueues {
+        private final Deque<PositionQueue> pending = new ArrayDeque<>();
+
+        public boolean isEmpty() {
+            return pending.isEmpty();
+        }
+
+        public void add(PositionQueue queue, int index) {
+            if (queue.add(index) && !queue.pending) {
+                queue.pending = true;
+                pending.add(queue);
             }
-            byte expectedValue = rules.propagateValue(adjValue, side.reverse(), adjBlock);
-            if (rules.canSpreadInto(block, side) && rules.canSpreadOutOf(adjBlock, side.reverse()) && value < expectedValue) {
-                rules.setValue(chunk, pos, expectedValue);
-                queueSpreadValue(chunk.getBlockWorldPos(pos), expectedValue);
+        }
+
+        public PositionQueue peek() {
+            return pending.peek();
+        }
+
+        public void remove() {
+            pending.poll().pending = false;
+        }
+
+        public void clear() {
+            for (PositionQueue queue : pending) {
+                queue.pending = false;
             }
+            pending.clear();
         }
     }
 
-    public void propagateFrom(Vector3i pos, Block block) {
-        queueSpreadValue(pos, rules.getBlockValue(block));
+    /**
+     * A first-in first-out queue of positions within a chunk that holds each position at most once, backed by a
+     * growable ring buffer. Removing a position only forgets it, and the stale ring entry is skipped when it is
+     * reached.
+     */
+    private static final class PositionQueue {
+        private final TIntHashSet members = new TIntHashSet();
+        private int[] ring = new int[256];
+        private int head;
+        private int size;
+        private VisitedChunk chunk;
+        private boolean pending;
+
+        public PositionQueue() {
+            // Positions are removed and re-added all the time; compacting would reallocate the table
+            members.setAutoCompactionFactor(0);
+        }
+
+        public boolean isEmpty() {
+            return members.isEmpty();
+        }
+
+        /**
+         * @return Whether the position was added, rather than already queued
+         */
+        public boolean add(int position) {
+            if (members.add(position)) {
+                if (size == ring.length) {
+                    grow();
+                }
+                ring[(head + size) & (ring.length - 1)] = position;
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        public void remove(int position) {
+            members.remove(position);
+        }
+
+        /**
+         * @return The oldest queued position. The queue must not be empty.
+         */
+        public int poll() {
+            while (true) {
+                int position = ring[head];
+                head = (head + 1) & (ring.length - 1);
+                size--;
+                if (members.remove(position)) {
+                    return position;
+                }
+            }
+        }
+
+        public void clear() {
+            if (size > 0) {
+                members.clear();
+                head = 0;
+                size = 0;
+            }
+        }
+
+        private void grow() {
+            int[] newRing = new int[ring.length * 2];
+            for (int i = 0; i < size; ++i) {
+                newRing[i] = ring[(head + i) & (ring.length - 1)];
+            }
+            ring = newRing;
+            head = 0;
+        }
     }
 }
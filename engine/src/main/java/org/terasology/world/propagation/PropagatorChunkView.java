@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import org.terasology.world.block.Block;
+
+/**
+ * The values and blocks of a single chunk of a {@link PropagatorWorldView}, addressed by position within the chunk.
+ * Positions must lie within the chunk.
+ */
+public interface PropagatorChunkView {
+
+    /**
+     * @return The value of interest at the given position within the chunk
+     */
+    byte getValueAt(int x, int y, int z);
+
+    /**
+     * @param value A new value at the given position within the chunk
+     */
+    void setValueAt(int x, int y, int z, byte value);
+
+    /**
+     * @return The block at the given position within the chunk
+     */
+    Block getBlockAt(int x, int y, int z);
+}
@@ -20,6 +20,9 @@
 
 /**
  * A view providing access to the world for batch propagation
+ * <p/>
+ * The positions passed to a view are scratch vectors that the caller reuses for the next position, so a view must
+ * not retain them.
  *
  * @author Immortius
  */
@@ -45,4 +48,12 @@ public interface PropagatorWorldView {
      */
     Block getBlockAt(Vector3i pos);
 
+    /**
+     * Gives direct access to a chunk, so a propagator can visit the blocks within it without looking up the chunk for
+     * each of them. Views that are not made up of chunks return null, and are accessed by world position instead.
+     *
+     * @return The chunk at the given chunk position, or null if it is unavailable
+     */
+    PropagatorChunkView getChunkAt(int chunkX, int chunkY, int chunkZ);
+
 }
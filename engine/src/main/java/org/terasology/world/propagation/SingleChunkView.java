@@ -53,4 +53,9 @@ public Block getBlockAt(Vector3i pos) {
         }
         return null;
     }
+
+    @Override
+    public PropagatorChunkView getChunkAt(int chunkX, int chunkY, int chunkZ) {
+        return null;
+    }
 }
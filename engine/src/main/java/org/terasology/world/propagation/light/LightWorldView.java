@@ -15,7 +15,6 @@
  */
 package org.terasology.world.propagation.light;
 
-import org.terasology.math.Vector3i;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.propagation.AbstractFullWorldView;
@@ -30,12 +29,12 @@ public LightWorldView(ChunkProvider chunkProvider) {
     }
 
     @Override
-    protected byte getValueAt(ChunkImpl chunk, Vector3i pos) {
-        return chunk.getLight(pos);
+    protected byte getValueAt(ChunkImpl chunk, int x, int y, int z) {
+        return chunk.getLight(x, y, z);
     }
 
     @Override
-    protected void setValueAt(ChunkImpl chunk, Vector3i pos, byte value) {
-        chunk.setLight(pos, value);
+    protected void setValueAt(ChunkImpl chunk, int x, int y, int z, byte value) {
+        chunk.setLight(x, y, z, value);
     }
 }
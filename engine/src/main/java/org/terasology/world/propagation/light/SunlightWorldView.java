@@ -40,13 +40,13 @@ public byte getValueAt(Vector3i pos) {
     }
 
     @Override
-    protected byte getValueAt(ChunkImpl chunk, Vector3i pos) {
-        return chunk.getSunlight(pos);
+    protected byte getValueAt(ChunkImpl chunk, int x, int y, int z) {
+        return chunk.getSunlight(x, y, z);
     }
 
     @Override
-    protected void setValueAt(ChunkImpl chunk, Vector3i pos, byte value) {
-        chunk.setSunlight(pos, value);
+    protected void setValueAt(ChunkImpl chunk, int x, int y, int z, byte value) {
+        chunk.setSunlight(x, y, z, value);
     }
 
 }
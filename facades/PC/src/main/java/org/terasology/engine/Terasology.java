@@ -16,6 +16,7 @@
 package org.terasology.engine;
 
 import com.google.common.collect.Lists;
+import org.terasology.config.Config;
 import org.terasology.crashreporter.CrashReporter;
 import org.terasology.engine.modes.StateMainMenu;
 import org.terasology.engine.paths.PathManager;
@@ -29,6 +30,7 @@
 import org.terasology.engine.subsystem.lwjgl.LwjglGraphics;
 import org.terasology.engine.subsystem.lwjgl.LwjglInput;
 import org.terasology.engine.subsystem.lwjgl.LwjglTimer;
+import org.terasology.registry.CoreRegistry;
 
 import java.awt.*;
 import java.io.IOException;
@@ -48,6 +50,8 @@ public final class Terasology {
     private static final String LOCAL_ARG = "-homedir";
     private static final String HEADLESS_ARG = "-headless";
     private static final String NO_CRASH_REPORT_ARG = "-noCrashReport";
+    private static final String PREGENERATE_ARG = "-pregenerate=";
+    private static final String SEED_ARG = "-seed=";
 
     private Terasology() {
     }
@@ -56,6 +60,8 @@ public static void main(String[] args) {
         boolean crashReportEnabled = true;
         try {
             boolean isHeadless = false;
+            int pregenerationRadius = 0;
+            String seed = null;
             Path homePath = null;
             for (String arg : args) {
                 if (arg.startsWith(HOME_ARG)) {
@@ -66,6 +72,12 @@ public static void main(String[] args) {
                     isHeadless = true;
                 } else if (arg.equals(NO_CRASH_REPORT_ARG)) {
                     crashReportEnabled = false;
+                } else if (arg.startsWith(PREGENERATE_ARG)) {
+                    // Batch mode: generates and stores the world around the origin, then quits
+                    pregenerationRadius = Integer.parseInt(arg.substring(PREGENERATE_ARG.length()));
+                    isHeadless = true;
+                } else if (arg.startsWith(SEED_ARG)) {
+                    seed = arg.substring(SEED_ARG.length());
                 }
             }
             if (homePath != null) {
@@ -84,6 +96,9 @@ public static void main(String[] args) {
             TerasologyEngine engine = new TerasologyEngine(subsystemList);
             try {
                 engine.init();
+                Config config = CoreRegistry.get(Config.class);
+                config.getSystem().setPregenerationRadius(pregenerationRadius);
+                config.getWorldGeneration().setCommandLineSeed(seed);
                 if (isHeadless) {
                     engine.run(new StateHeadlessSetup());
                 } else {
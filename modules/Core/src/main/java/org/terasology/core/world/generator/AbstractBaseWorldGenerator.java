@@ -43,7 +43,7 @@ public abstract class AbstractBaseWorldGenerator implements WorldGenerator, Worl
     private static final Logger logger = LoggerFactory.getLogger(AbstractBaseWorldGenerator.class);
 
     private String worldSeed;
-    private WorldBiomeProvider biomeProvider;
+    private WorldBiomeProviderImpl biomeProvider;
     private final List<FirstPassGenerator> firstPassGenerators = Lists.newArrayList();
     private final List<SecondPassGenerator> secondPassGenerators = Lists.newArrayList();
     private final SimpleUri uri;
@@ -94,6 +94,7 @@ private void setBiome(BaseChunkGenerator generator) {
 
     @Override
     public void createChunk(final Chunk chunk) {
+        biomeProvider.prepareChunkColumn(chunk.getPos().x, chunk.getPos().z);
         for (final FirstPassGenerator generator : firstPassGenerators) {
             generator.generateChunk(chunk);
         }
@@ -20,6 +20,7 @@
 import org.terasology.registry.CoreRegistry;
 import org.terasology.utilities.procedural.BrownianNoise3D;
 import org.terasology.utilities.procedural.Noise3D;
+import org.terasology.utilities.procedural.NoiseGrid;
 import org.terasology.utilities.procedural.PerlinNoise;
 import org.terasology.world.WorldBiomeProvider;
 import org.terasology.world.block.Block;
@@ -41,6 +42,8 @@
 public class PerlinTerrainGenerator implements FirstPassGenerator {
     private static final int SAMPLE_RATE_3D_HOR = 4;
     private static final int SAMPLE_RATE_3D_VERT = 4;
+    private static final int SAMPLES_3D_HOR = ChunkConstants.SIZE_X / SAMPLE_RATE_3D_HOR + 1;
+    private static final int SAMPLES_3D_VERT = ChunkConstants.SIZE_Y / SAMPLE_RATE_3D_VERT + 1;
 
     private Noise3D pGen1;
     private Noise3D pGen2;
@@ -100,19 +103,21 @@ public void generateChunk(Chunk chunk) {
         /*
          * Create the density map at a lower sample rate.
          */
-        for (int x = 0; x <= chunk.getChunkSizeX(); x += SAMPLE_RATE_3D_HOR) {
-            for (int z = 0; z <= chunk.getChunkSizeZ(); z += SAMPLE_RATE_3D_HOR) {
-                for (int y = 0; y <= chunk.getChunkSizeY(); y += SAMPLE_RATE_3D_VERT) {
-                    densityMap[x][y][z] = calcDensity(chunk.getBlockWorldPosX(x), y, chunk.getBlockWorldPosZ(z));
-                }
-            }
-        }
+        sampleDensityMap(chunk, densityMap);
 
         /*
          * Trilinear interpolate the missing values.
          */
         triLerpDensityMap(densityMap);
 
+        /*
+         * Sample the caves up to the highest block that may be set.
+         */
+        int caveSizeY = findTopSolidBlock(densityMap) + 1;
+        double[] caveDensity = new double[ChunkConstants.SIZE_X * caveSizeY * ChunkConstants.SIZE_Z];
+        NoiseGrid.sample(pGen8, caveDensity, chunk.getBlockWorldPosX(0) * 0.02, 0, chunk.getBlockWorldPosZ(0) * 0.02, 0.02, 0.02, 0.02,
+                ChunkConstants.SIZE_X, caveSizeY, ChunkConstants.SIZE_Z);
+
         /*
          * Generate the chunk from the density map.
          */
@@ -149,7 +154,7 @@ public void generateChunk(Chunk chunk) {
                             firstBlockHeight = y;
                         }
 
-                        if (calcCaveDensity(chunk.getBlockWorldPosX(x), y, chunk.getBlockWorldPosZ(z)) > -0.7) {
+                        if (caveDensity[x + ChunkConstants.SIZE_X * (y + caveSizeY * z)] > -0.7) {
                             generateOuterLayer(x, y, z, firstBlockHeight, chunk, type);
                         } else {
                             chunk.setBlock(x, y, z, air);
@@ -163,7 +168,7 @@ public void generateChunk(Chunk chunk) {
                             firstBlockHeight = y;
                         }
 
-                        if (calcCaveDensity(chunk.getBlockWorldPosX(x), y, chunk.getBlockWorldPosZ(z)) > -0.6) {
+                        if (caveDensity[x + ChunkConstants.SIZE_X * (y + caveSizeY * z)] > -0.6) {
                             generateInnerLayer(x, y, z, chunk, type);
                         } else {
                             chunk.setBlock(x, y, z, air);
@@ -260,19 +265,68 @@ private void triLerpDensityMap(double[][][] densityMap) {
         }
     }
 
-    public double calcDensity(int x, int y, int z) {
-        double height = calcBaseTerrain(x, z);
-        double ocean = calcOceanTerrain(x, z);
-        double river = calcRiverTerrain(x, z);
+    /**
+     * Samples the density at every SAMPLE_RATE_3D_HOR/VERT blocks, taking each noise for the whole chunk in bulk.
+     */
+    private void sampleDensityMap(Chunk chunk, double[][][] densityMap) {
+        int worldX = chunk.getBlockWorldPosX(0);
+        int worldZ = chunk.getBlockWorldPosZ(0);
+
+        double[] base = new double[SAMPLES_3D_HOR * SAMPLES_3D_HOR];
+        double[] ocean = new double[SAMPLES_3D_HOR * SAMPLES_3D_HOR];
+        double[] river = new double[SAMPLES_3D_HOR * SAMPLES_3D_HOR];
+        NoiseGrid.sample(pGen1, base, 0.004 * worldX, 0, 0.004 * worldZ, 0.004 * SAMPLE_RATE_3D_HOR, 0, 0.004 * SAMPLE_RATE_3D_HOR, SAMPLES_3D_HOR, 1, SAMPLES_3D_HOR);
+        NoiseGrid.sample(pGen2, ocean, 0.0009 * worldX, 0, 0.0009 * worldZ, 0.0009 * SAMPLE_RATE_3D_HOR, 0, 0.0009 * SAMPLE_RATE_3D_HOR, SAMPLES_3D_HOR, 1, SAMPLES_3D_HOR);
+        NoiseGrid.sample(pGen3, river, 0.0008 * worldX, 0, 0.0008 * worldZ, 0.0008 * SAMPLE_RATE_3D_HOR, 0, 0.0008 * SAMPLE_RATE_3D_HOR, SAMPLES_3D_HOR, 1, SAMPLES_3D_HOR);
+
+        double[] mountains = new double[SAMPLES_3D_HOR * SAMPLES_3D_VERT * SAMPLES_3D_HOR];
+        double[] hills = new double[SAMPLES_3D_HOR * SAMPLES_3D_VERT * SAMPLES_3D_HOR];
+        NoiseGrid.sample(pGen4, mountains, worldX * 0.002, 0, worldZ * 0.002, 0.002 * SAMPLE_RATE_3D_HOR, 0.001 * SAMPLE_RATE_3D_VERT, 0.002 * SAMPLE_RATE_3D_HOR,
+                SAMPLES_3D_HOR, SAMPLES_3D_VERT, SAMPLES_3D_HOR);
+        NoiseGrid.sample(pGen5, hills, worldX * 0.008, 0, worldZ * 0.008, 0.008 * SAMPLE_RATE_3D_HOR, 0.006 * SAMPLE_RATE_3D_VERT, 0.008 * SAMPLE_RATE_3D_HOR,
+                SAMPLES_3D_HOR, SAMPLES_3D_VERT, SAMPLES_3D_HOR);
+
+        for (int i = 0; i < SAMPLES_3D_HOR; i++) {
+            for (int k = 0; k < SAMPLES_3D_HOR; k++) {
+                int x = i * SAMPLE_RATE_3D_HOR;
+                int z = k * SAMPLE_RATE_3D_HOR;
+                int column = i + SAMPLES_3D_HOR * k;
+                double height = toBaseTerrain(base[column]);
+                double oceanTerrain = toOceanTerrain(ocean[column]);
+                double riverTerrain = toRiverTerrain(river[column]);
+                double mIntens = calcMountainIntensity(worldX + x, worldZ + z);
+                for (int j = 0; j < SAMPLES_3D_VERT; j++) {
+                    int index = i + SAMPLES_3D_HOR * (j + SAMPLES_3D_VERT * k);
+                    densityMap[x][j * SAMPLE_RATE_3D_VERT][z] = calcDensity(j * SAMPLE_RATE_3D_VERT, height, oceanTerrain, riverTerrain, mIntens,
+                            toMountainDensity(mountains[index]), toHillDensity(hills[index]));
+                }
+            }
+        }
+    }
 
-        float temp = biomeProvider.getTemperatureAt(x, z);
-        float humidity = biomeProvider.getHumidityAt(x, z) * temp;
+    private int findTopSolidBlock(double[][][] densityMap) {
+        int top = 0;
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int y = ChunkConstants.SIZE_Y - 1; y > top; y--) {
+                    if (densityMap[x][y][z] >= 0) {
+                        top = y;
+                        break;
+                    }
+                }
+            }
+        }
+        return top;
+    }
 
-        Vector2f distanceToMountainBiome = new Vector2f(temp - 0.25f, humidity - 0.35f);
+    public double calcDensity(int x, int y, int z) {
+        return calcDensity(y, calcBaseTerrain(x, z), calcOceanTerrain(x, z), calcRiverTerrain(x, z), calcMountainIntensity(x, z),
+                calcMountainDensity(x, y, z), calcHillDensity(x, y, z));
+    }
 
-        double mIntens = TeraMath.clamp(1.0 - distanceToMountainBiome.length() * 3.0);
-        double densityMountains = calcMountainDensity(x, y, z) * mIntens;
-        double densityHills = calcHillDensity(x, y, z) * (1.0 - mIntens);
+    private double calcDensity(int y, double height, double ocean, double river, double mIntens, double mountainDensity, double hillDensity) {
+        double densityMountains = mountainDensity * mIntens;
+        double densityHills = hillDensity * (1.0 - mIntens);
 
         int plateauArea = (int) (ChunkConstants.SIZE_Y * 0.10);
         double flatten = TeraMath.clamp(((ChunkConstants.SIZE_Y - 16) - y) / plateauArea);
@@ -280,16 +334,25 @@ public double calcDensity(int x, int y, int z) {
         return -y + (((32.0 + height * 32.0) * TeraMath.clamp(river + 0.25) * TeraMath.clamp(ocean + 0.25)) + densityMountains * 1024.0 + densityHills * 128.0) * flatten;
     }
 
+    private double calcMountainIntensity(int x, int z) {
+        float temp = biomeProvider.getTemperatureAt(x, z);
+        float humidity = biomeProvider.getHumidityAt(x, z) * temp;
+
+        Vector2f distanceToMountainBiome = new Vector2f(temp - 0.25f, humidity - 0.35f);
+
+        return TeraMath.clamp(1.0 - distanceToMountainBiome.length() * 3.0);
+    }
+
     private double calcBaseTerrain(double x, double z) {
-        return TeraMath.clamp((pGen1.noise(0.004 * x, 0, 0.004 * z) + 1.0) / 2.0);
+        return toBaseTerrain(pGen1.noise(0.004 * x, 0, 0.004 * z));
     }
 
     private double calcOceanTerrain(double x, double z) {
-        return TeraMath.clamp(pGen2.noise(0.0009 * x, 0, 0.0009 * z) * 8.0);
+        return toOceanTerrain(pGen2.noise(0.0009 * x, 0, 0.0009 * z));
     }
 
     private double calcRiverTerrain(double x, double z) {
-        return TeraMath.clamp((java.lang.Math.sqrt(java.lang.Math.abs(pGen3.noise(0.0008 * x, 0, 0.0008 * z))) - 0.1) * 7.0);
+        return toRiverTerrain(pGen3.noise(0.0008 * x, 0, 0.0008 * z));
     }
 
     private double calcMountainDensity(double x, double y, double z) {
@@ -297,8 +360,7 @@ private double calcMountainDensity(double x, double y, double z) {
         double y1 = y * 0.001;
         double z1 = z * 0.002;
 
-        double result = pGen4.noise(x1, y1, z1);
-        return result > 0.0 ? result : 0;
+        return toMountainDensity(pGen4.noise(x1, y1, z1));
     }
 
     private double calcHillDensity(double x, double y, double z) {
@@ -306,12 +368,28 @@ private double calcHillDensity(double x, double y, double z) {
         double y1 = y * 0.006;
         double z1 = z * 0.008;
 
-        double result = pGen5.noise(x1, y1, z1) - 0.1;
-        return result > 0.0 ? result : 0;
+        return toHillDensity(pGen5.noise(x1, y1, z1));
+    }
+
+    private static double toBaseTerrain(double noise) {
+        return TeraMath.clamp((noise + 1.0) / 2.0);
+    }
+
+    private static double toOceanTerrain(double noise) {
+        return TeraMath.clamp(noise * 8.0);
     }
 
-    private double calcCaveDensity(double x, double y, double z) {
-        return pGen8.noise(x * 0.02, y * 0.02, z * 0.02);
+    private static double toRiverTerrain(double noise) {
+        return TeraMath.clamp((java.lang.Math.sqrt(java.lang.Math.abs(noise)) - 0.1) * 7.0);
+    }
+
+    private static double toMountainDensity(double noise) {
+        return noise > 0.0 ? noise : 0;
+    }
+
+    private static double toHillDensity(double noise) {
+        double result = noise - 0.1;
+        return result > 0.0 ? result : 0;
     }
 
     @Override
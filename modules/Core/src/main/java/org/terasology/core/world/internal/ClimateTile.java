@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.core.world.internal;
+
+import org.terasology.world.WorldBiomeProvider;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * The temperature, humidity and biome of every column of one chunk column. Immutable once created, so it can be
+ * shared between threads without locking.
+ */
+final class ClimateTile {
+
+    private final int tileX;
+    private final int tileZ;
+    private final float[] temperature;
+    private final float[] humidity;
+    private final WorldBiomeProvider.Biome[] biomes;
+
+    /**
+     * @param temperature The temperature of each column, indexed by x + SIZE_X * z within the tile
+     * @param humidity    The humidity of each column, indexed in the same way
+     */
+    public ClimateTile(int tileX, int tileZ, float[] temperature, float[] humidity, WorldBiomeProvider.Biome[] biomes) {
+        this.tileX = tileX;
+        this.tileZ = tileZ;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.biomes = biomes;
+    }
+
+    public int getTileX() {
+        return tileX;
+    }
+
+    public int getTileZ() {
+        return tileZ;
+    }
+
+    public boolean isAt(int x, int z) {
+        return tileX == x && tileZ == z;
+    }
+
+    /**
+     * @param x The x position of the column within the tile
+     * @param z The z position of the column within the tile
+     */
+    public float getTemperature(int x, int z) {
+        return temperature[x + ChunkConstants.SIZE_X * z];
+    }
+
+    public float getHumidity(int x, int z) {
+        return humidity[x + ChunkConstants.SIZE_X * z];
+    }
+
+    public WorldBiomeProvider.Biome getBiome(int x, int z) {
+        return biomes[x + ChunkConstants.SIZE_X * z];
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.core.world.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed number of climate tiles, each in the slot given by the low bits of its tile position. A tile replaces
+ * whichever tile held its slot before, so the cache never grows, and any square of tiles up to the cache's width fits
+ * without tiles pushing each other out.
+ * <p/>
+ * Lookups take no lock. Tiles are immutable, so the worst a race can do is make two threads compute the same tile.
+ */
+final class ClimateTileCache {
+
+    private final int power;
+    private final int mask;
+    private final AtomicReferenceArray<ClimateTile> slots;
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param power The cache holds 2^power by 2^power tiles
+     */
+    public ClimateTileCache(int power) {
+        if (power < 0 || power > 12) {
+            throw new IllegalArgumentException("Cache power must be between 0 and 12, was " + power);
+        }
+        this.power = power;
+        this.mask = (1 << power) - 1;
+        this.slots = new AtomicReferenceArray<>(1 << (2 * power));
+    }
+
+    /**
+     * @return The number of tiles the cache can hold
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return The tile at the given tile position, or null if it is not cached
+     */
+    public ClimateTile get(int tileX, int tileZ) {
+        ClimateTile tile = slots.get(indexOf(tileX, tileZ));
+        if (tile != null && tile.isAt(tileX, tileZ)) {
+            return tile;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches a tile, replacing the tile that held its slot
+     */
+    public void put(ClimateTile tile) {
+        slots.set(indexOf(tile.getTileX(), tile.getTileZ()), tile);
+    }
+
+    /**
+     * @return How often a lookup did not find its tile
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private int indexOf(int tileX, int tileZ) {
+        return (tileX & mask) | ((tileZ & mask) << power);
+    }
+}
@@ -19,8 +19,10 @@
 import org.terasology.math.TeraMath;
 import org.terasology.utilities.procedural.BrownianNoise3D;
 import org.terasology.utilities.procedural.Noise3D;
+import org.terasology.utilities.procedural.NoiseGrid;
 import org.terasology.utilities.procedural.PerlinNoise;
 import org.terasology.world.WorldBiomeProvider;
+import org.terasology.world.chunks.ChunkConstants;
 
 /**
  * @author Immortius
@@ -28,24 +30,56 @@
 // TODO: Evolve this class into a world description provider (density, height, etc) to feed into the world generators
 public class WorldBiomeProviderImpl implements WorldBiomeProvider {
 
+    /**
+     * The tile cache holds 2^n by 2^n chunk columns, up to about 12 MB of tiles
+     */
+    private static final int DEFAULT_CACHE_POWER = 6;
+
+    private static final double NOISE_SCALE = 0.0005;
+
     private final Noise3D temperatureNoise;
     private final Noise3D humidityNoise;
+    private final ClimateTileCache tiles;
 
     public WorldBiomeProviderImpl(String worldSeed) {
+        this(worldSeed, DEFAULT_CACHE_POWER);
+    }
+
+    /**
+     * @param cachePower The tile cache holds 2^cachePower by 2^cachePower chunk columns
+     */
+    public WorldBiomeProviderImpl(String worldSeed, int cachePower) {
         temperatureNoise = new BrownianNoise3D(new PerlinNoise(worldSeed.hashCode() + 5));
         humidityNoise = new BrownianNoise3D(new PerlinNoise(worldSeed.hashCode() + 6));
+        tiles = new ClimateTileCache(cachePower);
+    }
+
+    /**
+     * Computes the climate of a chunk column in bulk, if it is not already cached. Called by the generator before a
+     * chunk is generated, so that the lookups of the generators and the renderer afterwards find it ready.
+     *
+     * @param chunkX The x position of the chunk
+     * @param chunkZ The z position of the chunk
+     */
+    public void prepareChunkColumn(int chunkX, int chunkZ) {
+        getTile(chunkX, chunkZ);
+    }
+
+    /**
+     * @return How many climate tiles have been computed because they were not cached
+     */
+    public long getTileMisses() {
+        return tiles.getMisses();
     }
 
     @Override
     public float getHumidityAt(int x, int z) {
-        double result = humidityNoise.noise(x * 0.0005, 0, 0.0005 * z);
-        return (float) TeraMath.clamp((result + 1.0f) / 2.0f);
+        return getTileAt(x, z).getHumidity(TeraMath.calcBlockPosX(x), TeraMath.calcBlockPosZ(z));
     }
 
     @Override
     public float getTemperatureAt(int x, int z) {
-        double result = temperatureNoise.noise(x * 0.0005, 0, 0.0005 * z);
-        return (float) TeraMath.clamp((result + 1.0f) / 2.0f);
+        return getTileAt(x, z).getTemperature(TeraMath.calcBlockPosX(x), TeraMath.calcBlockPosZ(z));
     }
 
     @Override
@@ -55,8 +89,50 @@ public float getFogAt(float x, float y, float z) {
 
     @Override
     public WorldBiomeProvider.Biome getBiomeAt(int x, int z) {
-        double temp = getTemperatureAt(x, z);
-        double humidity = getHumidityAt(x, z) * temp;
+        return getTileAt(x, z).getBiome(TeraMath.calcBlockPosX(x), TeraMath.calcBlockPosZ(z));
+    }
+
+    @Override
+    public Biome getBiomeAt(float x, float z) {
+        return getBiomeAt(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(z + 0.5f));
+    }
+
+    private ClimateTile getTileAt(int x, int z) {
+        return getTile(TeraMath.calcChunkPosX(x), TeraMath.calcChunkPosZ(z));
+    }
+
+    private ClimateTile getTile(int tileX, int tileZ) {
+        ClimateTile tile = tiles.get(tileX, tileZ);
+        if (tile == null) {
+            tile = createTile(tileX, tileZ);
+            tiles.put(tile);
+        }
+        return tile;
+    }
+
+    private ClimateTile createTile(int tileX, int tileZ) {
+        int size = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z;
+        double originX = tileX * ChunkConstants.SIZE_X * NOISE_SCALE;
+        double originZ = tileZ * ChunkConstants.SIZE_Z * NOISE_SCALE;
+
+        double[] temperatureNoiseValues = new double[size];
+        double[] humidityNoiseValues = new double[size];
+        NoiseGrid.sample(temperatureNoise, temperatureNoiseValues, originX, 0, originZ, NOISE_SCALE, 0, NOISE_SCALE, ChunkConstants.SIZE_X, 1, ChunkConstants.SIZE_Z);
+        NoiseGrid.sample(humidityNoise, humidityNoiseValues, originX, 0, originZ, NOISE_SCALE, 0, NOISE_SCALE, ChunkConstants.SIZE_X, 1, ChunkConstants.SIZE_Z);
+
+        float[] temperature = new float[size];
+        float[] humidity = new float[size];
+        Biome[] biomes = new Biome[size];
+        for (int i = 0; i < size; i++) {
+            temperature[i] = (float) TeraMath.clamp((temperatureNoiseValues[i] + 1.0f) / 2.0f);
+            humidity[i] = (float) TeraMath.clamp((humidityNoiseValues[i] + 1.0f) / 2.0f);
+            biomes[i] = calcBiome(temperature[i], humidity[i]);
+        }
+        return new ClimateTile(tileX, tileZ, temperature, humidity, biomes);
+    }
+
+    private static Biome calcBiome(double temp, double baseHumidity) {
+        double humidity = baseHumidity * temp;
 
         if (temp >= 0.5 && humidity < 0.3) {
             return Biome.DESERT;
@@ -70,9 +146,4 @@ public WorldBiomeProvider.Biome getBiomeAt(int x, int z) {
 
         return Biome.FOREST;
     }
-
-    @Override
-    public Biome getBiomeAt(float x, float z) {
-        return getBiomeAt(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(z + 0.5f));
-    }
 }
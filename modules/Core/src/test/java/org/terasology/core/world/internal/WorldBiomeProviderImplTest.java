@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.core.world.internal;
+
+import org.junit.Test;
+import org.terasology.world.WorldBiomeProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WorldBiomeProviderImplTest {
+
+    @Test
+    public void valuesDoNotDependOnCacheState() {
+        WorldBiomeProviderImpl cached = new WorldBiomeProviderImpl("seed");
+        WorldBiomeProviderImpl evicting = new WorldBiomeProviderImpl("seed", 0);
+        cached.prepareChunkColumn(-1, 3);
+        for (int x = -40; x < 40; x += 3) {
+            for (int z = -20; z < 70; z += 7) {
+                assertEquals(cached.getTemperatureAt(x, z), evicting.getTemperatureAt(x, z), 0);
+                assertEquals(cached.getHumidityAt(x, z), evicting.getHumidityAt(x, z), 0);
+                assertSame(cached.getBiomeAt(x, z), evicting.getBiomeAt(x, z));
+            }
+        }
+    }
+
+    @Test
+    public void valuesInRange() {
+        WorldBiomeProviderImpl provider = new WorldBiomeProviderImpl("seed");
+        for (int x = -1000; x < 1000; x += 37) {
+            for (int z = -1000; z < 1000; z += 41) {
+                float temperature = provider.getTemperatureAt(x, z);
+                float humidity = provider.getHumidityAt(x, z);
+                assertTrue(temperature >= 0 && temperature <= 1);
+                assertTrue(humidity >= 0 && humidity <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void preparedColumnIsCached() {
+        WorldBiomeProviderImpl provider = new WorldBiomeProviderImpl("seed");
+        provider.prepareChunkColumn(2, -5);
+        long misses = provider.getTileMisses();
+        for (int x = 32; x < 48; x++) {
+            for (int z = -80; z < -64; z++) {
+                provider.getBiomeAt(x, z);
+                provider.getTemperatureAt(x, z);
+            }
+        }
+        assertEquals(misses, provider.getTileMisses());
+    }
+
+    @Test
+    public void cacheReplacesTileInSameSlot() {
+        ClimateTileCache cache = new ClimateTileCache(2);
+        assertEquals(16, cache.capacity());
+        ClimateTile first = tile(1, 1);
+        ClimateTile sameSlot = tile(5, 1);
+        ClimateTile otherSlot = tile(2, 1);
+        cache.put(first);
+        cache.put(otherSlot);
+        assertSame(first, cache.get(1, 1));
+        cache.put(sameSlot);
+        assertNull(cache.get(1, 1));
+        assertSame(sameSlot, cache.get(5, 1));
+        assertSame(otherSlot, cache.get(2, 1));
+    }
+
+    private ClimateTile tile(int x, int z) {
+        return new ClimateTile(x, z, new float[0], new float[0], new WorldBiomeProvider.Biome[0]);
+    }
+}